@@ -0,0 +1,128 @@
+package org.ohdsi.webapi.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH result in JSON format against the baseline, which is a JMH result of the same format recorded on the
+ * reference machine, and fails when a benchmark got slower than the baseline by more than the threshold. Benchmarks
+ * missing in the baseline are reported and don't fail the comparison, so that new benchmarks can be added before the
+ * baseline is recorded again, but a missing or empty baseline fails it, as nothing would be compared at all.
+ * <p>
+ * Arguments: baseline file, result file, threshold as a fraction (0.1 for 10%), whether to replace the baseline with
+ * the result instead of comparing them.
+ */
+public class BenchmarkComparator {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String THROUGHPUT = "thrpt";
+
+    public static void main(String[] args) throws IOException {
+
+        if (args.length < 3) {
+            throw new IllegalArgumentException("Usage: BenchmarkComparator <baseline> <result> <threshold> [<updateBaseline>]");
+        }
+        File baseline = new File(args[0]);
+        File result = new File(args[1]);
+        double threshold = Double.parseDouble(args[2]);
+        boolean update = args.length > 3 && Boolean.parseBoolean(args[3]);
+
+        if (update) {
+            Files.copy(result.toPath(), baseline.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Benchmark baseline " + baseline + " has been replaced with " + result);
+            return;
+        }
+        Map<String, JsonNode> baselineResults = read(baseline);
+        if (baselineResults.isEmpty()) {
+            throw new IllegalStateException("Benchmark baseline " + baseline + " is missing or empty, so no regression can be detected. "
+                    + "Record it on the reference machine with -Dbenchmark.updateBaseline=true");
+        }
+        List<String> regressions = compare(baselineResults, read(result), threshold);
+        if (!regressions.isEmpty()) {
+            throw new IllegalStateException("Benchmarks regressed by more than " + Math.round(threshold * 100) + "%: " + regressions);
+        }
+    }
+
+    /**
+     * @return descriptions of benchmarks which regressed by more than the threshold
+     */
+    static List<String> compare(Map<String, JsonNode> baseline, Map<String, JsonNode> result, double threshold) {
+
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, JsonNode> entry : result.entrySet()) {
+            String key = entry.getKey();
+            JsonNode current = entry.getValue();
+            JsonNode base = baseline.get(key);
+            if (base == null) {
+                System.out.printf("%-100s %14.3f %-10s WARNING: not in baseline, not compared%n", key, score(current), unit(current));
+                continue;
+            }
+            double change = getRegression(current.get("mode").asText(), score(base), score(current));
+            System.out.printf("%-100s %14.3f %-10s %+7.1f%%%n", key, score(current), unit(current), change * 100);
+            if (change > threshold) {
+                regressions.add(String.format("%s %.3f -> %.3f %s", key, score(base), score(current), unit(current)));
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * @return relative slowdown, negative when the benchmark got faster
+     */
+    static double getRegression(String mode, double baseline, double current) {
+
+        if (baseline == 0) {
+            return 0;
+        }
+        // throughput is better when higher, other modes measure time which is better when lower
+        return THROUGHPUT.equals(mode) ? (baseline - current) / baseline : (current - baseline) / baseline;
+    }
+
+    static Map<String, JsonNode> read(File file) throws IOException {
+
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        if (!file.exists()) {
+            return results;
+        }
+        for (JsonNode run : MAPPER.readTree(file)) {
+            results.put(getKey(run), run);
+        }
+        return results;
+    }
+
+    private static String getKey(JsonNode run) {
+
+        StringBuilder key = new StringBuilder(run.get("benchmark").asText()).append(':').append(run.get("mode").asText());
+        JsonNode params = run.get("params");
+        if (params != null) {
+            Map<String, String> sorted = new TreeMap<>();
+            for (Iterator<Map.Entry<String, JsonNode>> it = params.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> param = it.next();
+                sorted.put(param.getKey(), param.getValue().asText());
+            }
+            key.append(sorted);
+        }
+        return key.toString();
+    }
+
+    private static double score(JsonNode run) {
+
+        return run.get("primaryMetric").get("score").asDouble();
+    }
+
+    private static String unit(JsonNode run) {
+
+        return run.get("primaryMetric").get("scoreUnit").asText();
+    }
+}
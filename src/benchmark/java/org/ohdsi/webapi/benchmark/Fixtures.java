@@ -0,0 +1,163 @@
+package org.ohdsi.webapi.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.ohdsi.webapi.cohortdefinition.CohortDefinition;
+import org.ohdsi.webapi.pathway.domain.PathwayAnalysisEntity;
+import org.ohdsi.webapi.pathway.domain.PathwayEventCohort;
+import org.ohdsi.webapi.source.Source;
+import org.ohdsi.webapi.source.SourceDaimon;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Synthetic data shaped like production data, generated from a fixed seed so that every run measures the same input.
+ */
+public final class Fixtures {
+
+    private static final long SEED = 20241021L;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Permission domains of WebAPI, a user's permissions are indexed by them in {@code UserSimpleAuthorizationInfo}
+     */
+    public static final String[] PERMISSION_DOMAINS = {
+            "cohortdefinition", "conceptset", "ir", "pathway-analysis", "cohort-characterization", "estimation",
+            "prediction", "source", "vocabulary", "cdmresults", "cohortresults", "featureextraction", "job",
+            "tag", "reusable", "user", "role", "executionservice", "feasibility", "evidence"
+    };
+    private static final String[] PERMISSION_ACTIONS = {"get", "put", "post", "delete"};
+
+    private Fixtures() {
+    }
+
+    public static Random random() {
+
+        return new Random(SEED);
+    }
+
+    public static Source source(String dialect, SourceDaimon.DaimonType daimonType, String tableQualifier) {
+
+        Source source = new Source();
+        source.setSourceId(1);
+        source.setSourceKey("BENCHMARK");
+        source.setSourceName("Benchmark");
+        source.setSourceDialect(dialect);
+        SourceDaimon daimon = new SourceDaimon(source);
+        daimon.setDaimonType(daimonType);
+        daimon.setTableQualifier(tableQualifier);
+        daimon.setPriority(1);
+        source.setDaimons(new ArrayList<>(Collections.singletonList(daimon)));
+        return source;
+    }
+
+    /**
+     * @return permissions of a user who owns many assets, indexed by their first part, as built by the
+     * {@code PermissionManager}, including the {@code *} entries granted to every user
+     */
+    public static Map<String, List<Permission>> permissionIndex(int count) {
+
+        Random random = random();
+        Map<String, List<Permission>> index = new HashMap<>();
+        index.computeIfAbsent("*", key -> new ArrayList<>()).add(new WildcardPermission("*:get"));
+        index.get("*").add(new WildcardPermission("*:*:info:get"));
+        for (int i = 1; i < count; i++) {
+            String domain = PERMISSION_DOMAINS[random.nextInt(PERMISSION_DOMAINS.length)];
+            String action = PERMISSION_ACTIONS[random.nextInt(PERMISSION_ACTIONS.length)];
+            String permission = String.format("%s:%d:%s", domain, random.nextInt(count), action);
+            index.computeIfAbsent(domain, key -> new ArrayList<>()).add(new WildcardPermission(permission));
+        }
+        return index;
+    }
+
+    /**
+     * @return pathway design with event cohorts named in an order different from their ids, as they're encoded in
+     * combination codes by name
+     */
+    public static PathwayAnalysisEntity pathwayDesign(int eventCohorts) {
+
+        PathwayAnalysisEntity design = new PathwayAnalysisEntity();
+        Set<PathwayEventCohort> cohorts = new LinkedHashSet<>();
+        for (int i = 0; i < eventCohorts; i++) {
+            CohortDefinition definition = new CohortDefinition();
+            definition.setId(1000 + i);
+            PathwayEventCohort eventCohort = new PathwayEventCohort();
+            eventCohort.setId(i);
+            eventCohort.setName(String.format("Event cohort %02d", eventCohorts - i));
+            eventCohort.setCohortDefinition(definition);
+            cohorts.add(eventCohort);
+        }
+        design.setEventCohorts(cohorts);
+        return design;
+    }
+
+    /**
+     * @return cohort expression in Circe JSON format with the given number of concept sets, each used by an inclusion rule
+     */
+    public static String cohortExpression(int conceptSets, int conceptsPerSet) {
+
+        Random random = random();
+        ObjectNode expression = MAPPER.createObjectNode();
+        expression.put("Title", "Benchmark cohort");
+        ArrayNode sets = expression.putArray("ConceptSets");
+        ArrayNode rules = expression.putArray("InclusionRules");
+        for (int i = 0; i < conceptSets; i++) {
+            ObjectNode set = sets.addObject();
+            set.put("id", i);
+            set.put("name", "Concept set " + i);
+            ArrayNode items = set.putObject("expression").putArray("items");
+            for (int j = 0; j < conceptsPerSet; j++) {
+                ObjectNode item = items.addObject();
+                ObjectNode concept = item.putObject("concept");
+                concept.put("CONCEPT_ID", 1 + random.nextInt(50_000_000));
+                concept.put("CONCEPT_NAME", "Concept " + i + "." + j);
+                concept.put("STANDARD_CONCEPT", "S");
+                concept.put("INVALID_REASON", "V");
+                concept.put("CONCEPT_CODE", Integer.toString(random.nextInt(1_000_000)));
+                concept.put("DOMAIN_ID", "Condition");
+                concept.put("VOCABULARY_ID", "SNOMED");
+                concept.put("CONCEPT_CLASS_ID", "Clinical Finding");
+                item.put("isExcluded", false);
+                item.put("includeDescendants", random.nextBoolean());
+                item.put("includeMapped", false);
+            }
+            ObjectNode rule = rules.addObject();
+            rule.put("name", "Inclusion rule " + i);
+            rule.put("description", "Has concept set " + i);
+            ObjectNode ruleExpression = rule.putObject("expression");
+            ruleExpression.put("Type", "ALL");
+            ObjectNode correlated = ruleExpression.putArray("CriteriaList").addObject();
+            correlated.putObject("Criteria").putObject("ConditionOccurrence").put("CodesetId", i);
+            ObjectNode window = correlated.putObject("StartWindow");
+            window.putObject("Start").put("Coeff", -1);
+            window.putObject("End").put("Days", 0).put("Coeff", 1);
+            correlated.putObject("Occurrence").put("Type", 2).put("Count", 1);
+            ruleExpression.putArray("DemographicCriteriaList");
+            ruleExpression.putArray("Groups");
+        }
+        ObjectNode primaryCriteria = expression.putObject("PrimaryCriteria");
+        primaryCriteria.putArray("CriteriaList").addObject().putObject("ConditionOccurrence").put("CodesetId", 0);
+        primaryCriteria.putObject("ObservationWindow").put("PriorDays", 0).put("PostDays", 0);
+        primaryCriteria.putObject("PrimaryCriteriaLimit").put("Type", "First");
+        expression.putObject("QualifiedLimit").put("Type", "First");
+        expression.putObject("ExpressionLimit").put("Type", "First");
+        expression.putArray("CensoringCriteria");
+        expression.putObject("CollapseSettings").put("CollapseType", "ERA").put("EraPad", 0);
+        try {
+            return MAPPER.writeValueAsString(expression);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
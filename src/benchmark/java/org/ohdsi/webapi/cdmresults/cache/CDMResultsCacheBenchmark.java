@@ -0,0 +1,110 @@
+package org.ohdsi.webapi.cdmresults.cache;
+
+import org.ohdsi.webapi.benchmark.Fixtures;
+import org.ohdsi.webapi.cdmresults.DescendantRecordCount;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Record count lookups of a concept search page against the cache of a large CDM. The warm cache holds counts of all
+ * concepts, the cold one is empty before every lookup and filled by it, with a third of the requested concepts having
+ * no records.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CDMResultsCacheBenchmark {
+
+    private static final int BATCHES = 256;
+
+    @Param({"5000000"})
+    private int concepts;
+
+    @Param({"100", "1000"})
+    private int batchSize;
+
+    private CDMResultsCache warmCache;
+    private List<List<Integer>> batches;
+    private Function<List<Integer>, List<DescendantRecordCount>> query;
+    private int next;
+
+    @Setup
+    public void setUp() {
+
+        warmCache = new CDMResultsCache();
+        for (int id = 1; id <= concepts; id++) {
+            warmCache.cacheValue(recordCount(id));
+        }
+        warmCache.warm();
+
+        Random random = Fixtures.random();
+        batches = new ArrayList<>(BATCHES);
+        for (int i = 0; i < BATCHES; i++) {
+            batches.add(random.ints(batchSize, 1, concepts + 1).boxed().collect(Collectors.toList()));
+        }
+        query = ids -> ids.stream()
+                .filter(id -> id % 3 != 0)
+                .map(CDMResultsCacheBenchmark::recordCount)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public Collection<DescendantRecordCount> warm() {
+
+        return warmCache.findAndCache(nextBatch(), query);
+    }
+
+    @Benchmark
+    public Collection<DescendantRecordCount> cold(ColdCache coldCache) {
+
+        return coldCache.cache.findAndCache(nextBatch(), query);
+    }
+
+    private List<Integer> nextBatch() {
+
+        return batches.get(next++ & (BATCHES - 1));
+    }
+
+    private static DescendantRecordCount recordCount(int id) {
+
+        DescendantRecordCount recordCount = new DescendantRecordCount();
+        recordCount.setId(id);
+        recordCount.setRecordCount((long) id % 10_000);
+        recordCount.setDescendantRecordCount((long) id % 100_000);
+        return recordCount;
+    }
+
+    @State(Scope.Thread)
+    public static class ColdCache {
+
+        private CDMResultsCache cache;
+
+        // a cache shared by all invocations would be warm after the first pass over the batches
+        @Setup(Level.Invocation)
+        public void setUp() {
+
+            cache = new CDMResultsCache();
+        }
+    }
+}
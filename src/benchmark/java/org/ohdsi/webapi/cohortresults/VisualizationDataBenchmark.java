@@ -0,0 +1,83 @@
+package org.ohdsi.webapi.cohortresults;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.ohdsi.webapi.benchmark.Fixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * (De)serialization of the treemap records which {@code CohortResultsService} stores as visualization data of a
+ * cohort report and reads back on every request of the report.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VisualizationDataBenchmark {
+
+    private static final TypeReference<List<HierarchicalConceptRecord>> RECORDS = new TypeReference<List<HierarchicalConceptRecord>>() {
+    };
+
+    @Param({"1000", "50000"})
+    private int records;
+
+    // configured as the mapper Spring Boot injects into CohortResultsService
+    private ObjectMapper mapper;
+    private List<HierarchicalConceptRecord> treemap;
+    private String data;
+
+    @Setup
+    public void setUp() throws IOException {
+
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        Random random = Fixtures.random();
+        treemap = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            HierarchicalConceptRecord record = new HierarchicalConceptRecord();
+            record.setConceptId(1 + random.nextInt(50_000_000));
+            record.setConceptPath("Clinical finding||Disorder by body site||Disorder of body system " + random.nextInt(100) + "||Condition " + i);
+            record.setNumPersons(random.nextInt(1_000_000));
+            record.setPercentPersons(random.nextDouble());
+            record.setRecordsPerPerson(1 + random.nextDouble() * 10);
+            record.setLengthOfEra(random.nextDouble() * 365);
+            record.setPercentPersonsBefore(random.nextDouble());
+            record.setPercentPersonsAfter(random.nextDouble());
+            record.setRiskDiffAfterBefore(random.nextDouble() - 0.5);
+            record.setLogRRAfterBefore(random.nextGaussian());
+            record.setCountValue(random.nextInt(10_000_000));
+            treemap.add(record);
+        }
+        data = mapper.writeValueAsString(treemap);
+    }
+
+    @Benchmark
+    public String serialize() throws IOException {
+
+        return mapper.writeValueAsString(treemap);
+    }
+
+    @Benchmark
+    public List<HierarchicalConceptRecord> deserialize() throws IOException {
+
+        return mapper.readValue(data, RECORDS);
+    }
+}
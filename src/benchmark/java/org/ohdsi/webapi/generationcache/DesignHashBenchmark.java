@@ -0,0 +1,58 @@
+package org.ohdsi.webapi.generationcache;
+
+import org.ohdsi.webapi.benchmark.Fixtures;
+import org.ohdsi.webapi.cohortdefinition.CohortDefinitionDetails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Design hashes computed by {@link GenerationCacheHelper#computeHash} for every cohort generation, without the lookup of
+ * the results schema's design_hash columns, which is done once per source.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DesignHashBenchmark {
+
+    @Param({"5", "50"})
+    private int conceptSets;
+
+    @Param({"20"})
+    private int conceptsPerSet;
+
+    private String design;
+
+    @Setup
+    public void setUp() {
+
+        design = Fixtures.cohortExpression(conceptSets, conceptsPerSet);
+    }
+
+    @Benchmark
+    public long canonicalHash() {
+
+        return CohortGenerationCacheProvider.getCanonicalHash(CohortGenerationCacheProvider.getCleanExpression(design));
+    }
+
+    @Benchmark
+    public long legacyHash() {
+
+        CohortDefinitionDetails details = new CohortDefinitionDetails();
+        details.setExpression(CohortGenerationCacheProvider.getCleanExpression(design));
+        return details.calculateHashCode().longValue();
+    }
+}
@@ -0,0 +1,85 @@
+package org.ohdsi.webapi.pathway;
+
+import org.ohdsi.webapi.benchmark.Fixtures;
+import org.ohdsi.webapi.pathway.domain.PathwayAnalysisEntity;
+import org.ohdsi.webapi.pathway.domain.PathwayEventCohort;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Decoding of the combination codes found by a pathway analysis into event cohort names, as done by
+ * {@link PathwayStatisticsTasklet} for every distinct code of a generation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathwayComboCodeBenchmark {
+
+    private static final int MAX_COMBINED = 4;
+
+    @Param({"10", "30", "60"})
+    private int eventCohorts;
+
+    @Param({"10000"})
+    private int codes;
+
+    private PathwayAnalysisEntity design;
+    private Map<Integer, Integer> eventCodes;
+    private long[] comboCodes;
+
+    @Setup
+    public void setUp() {
+
+        design = Fixtures.pathwayDesign(eventCohorts);
+        // the same index as PathwayService.getEventCohortCodes, which needs the whole service
+        List<PathwayEventCohort> sorted = design.getEventCohorts().stream()
+                .sorted(Comparator.comparing(PathwayEventCohort::getName))
+                .collect(Collectors.toList());
+        eventCodes = new HashMap<>();
+        for (PathwayEventCohort eventCohort : sorted) {
+            eventCodes.put(eventCohort.getCohortDefinition().getId(), eventCodes.size());
+        }
+
+        Random random = Fixtures.random();
+        comboCodes = new long[codes];
+        for (int i = 0; i < codes; i++) {
+            int combined = 1 + random.nextInt(MAX_COMBINED);
+            for (int j = 0; j < combined; j++) {
+                comboCodes[i] |= 1L << random.nextInt(eventCohorts);
+            }
+        }
+    }
+
+    @Benchmark
+    public int decode() {
+
+        int length = 0;
+        for (long code : comboCodes) {
+            String names = PathwayStatisticsTasklet.getEventCohortsByComboCode(design, eventCodes, code).stream()
+                    .map(PathwayEventCohort::getName)
+                    .collect(Collectors.joining(","));
+            length += names.length();
+        }
+        return length;
+    }
+}
@@ -0,0 +1,76 @@
+package org.ohdsi.webapi.shiro.realms;
+
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.ohdsi.webapi.benchmark.Fixtures;
+import org.ohdsi.webapi.security.model.UserSimpleAuthorizationInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Permission checks of a user owning many assets, which happen several times for every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthRealmBenchmark {
+
+    private static final int CHECKS = 64;
+
+    @Param({"1000", "100000"})
+    private int permissions;
+
+    private JwtAuthRealm realm;
+    private UserSimpleAuthorizationInfo info;
+    private Permission[] granted;
+    private Permission[] denied;
+    private int next;
+
+    @Setup
+    public void setUp() {
+
+        realm = new JwtAuthRealm(null);
+        info = new UserSimpleAuthorizationInfo();
+        Map<String, List<Permission>> index = Fixtures.permissionIndex(permissions);
+        info.setPermissionIdx(index);
+
+        Random random = Fixtures.random();
+        granted = new Permission[CHECKS];
+        denied = new Permission[CHECKS];
+        for (int i = 0; i < CHECKS; i++) {
+            String domain = Fixtures.PERMISSION_DOMAINS[random.nextInt(Fixtures.PERMISSION_DOMAINS.length)];
+            List<Permission> domainPermissions = index.get(domain);
+            granted[i] = domainPermissions.get(random.nextInt(domainPermissions.size()));
+            denied[i] = new WildcardPermission(domain + ":" + (permissions + i) + ":delete");
+        }
+    }
+
+    @Benchmark
+    public boolean permitted() {
+
+        return realm.isPermitted(granted[next++ & (CHECKS - 1)], info);
+    }
+
+    @Benchmark
+    public boolean denied() {
+
+        return realm.isPermitted(denied[next++ & (CHECKS - 1)], info);
+    }
+}
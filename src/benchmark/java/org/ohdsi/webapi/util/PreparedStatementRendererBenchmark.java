@@ -0,0 +1,57 @@
+package org.ohdsi.webapi.util;
+
+import org.ohdsi.webapi.benchmark.Fixtures;
+import org.ohdsi.webapi.source.Source;
+import org.ohdsi.webapi.source.SourceDaimon;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering and translation of the concept lookup, the statement of the vocabulary searches with the longest
+ * parameter lists.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PreparedStatementRendererBenchmark {
+
+    private static final String SQL_PATH = "/resources/vocabulary/sql/lookupIdentifiers.sql";
+
+    @Param({"postgresql", "sql server", "oracle"})
+    private String dialect;
+
+    @Param({"10", "1000"})
+    private int identifiers;
+
+    private Source source;
+    private long[] conceptIds;
+
+    @Setup
+    public void setUp() {
+
+        source = Fixtures.source(dialect, SourceDaimon.DaimonType.Vocabulary, "vocabulary");
+        conceptIds = Fixtures.random().longs(identifiers, 1, 50_000_000).toArray();
+    }
+
+    @Benchmark
+    public String render() {
+
+        PreparedStatementRenderer psr = new PreparedStatementRenderer(source, SQL_PATH, "CDM_schema",
+                source.getTableQualifier(SourceDaimon.DaimonType.Vocabulary), "identifiers", conceptIds);
+        return psr.getSql();
+    }
+}
@@ -0,0 +1,173 @@
+package org.ohdsi.webapi;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.resolver.MigrationResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Flyway which skips migration, and the validation done with it, when neither the migrations shipped with the
+ * application nor the schema history have changed since the last successful migration. The fingerprint of both is
+ * stored in the WebAPI database, so after one node of a cluster has migrated, the other nodes running the same build
+ * start without resolving and validating all migrations again.
+ * <p>
+ * Fingerprints are kept per set of resolvers, as migrations found by the application context aware resolver are
+ * applied by a later migration than the SQL ones.
+ */
+public class FingerprintedFlyway extends Flyway {
+
+    private static final Logger log = LoggerFactory.getLogger(FingerprintedFlyway.class);
+
+    private static final String JAVA_MIGRATIONS = "classpath:org/ohdsi/webapi/db/migartion";
+    private static final String DEFAULT_RESOLVERS = "default";
+    private static final String SELECT_HISTORY_SQL = "SELECT version, checksum, success FROM %s.%s ORDER BY installed_rank";
+    private static final String SELECT_FINGERPRINT_SQL = "SELECT fingerprint FROM %s.flyway_fingerprint WHERE resolvers = ?";
+    private static final String SAVE_FINGERPRINT_SQL = "INSERT INTO %s.flyway_fingerprint (resolvers, fingerprint, modified_date) " +
+            "VALUES (?, ?, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (resolvers) DO UPDATE SET fingerprint = EXCLUDED.fingerprint, modified_date = EXCLUDED.modified_date";
+
+    private boolean skipUnchanged = true;
+
+    @Override
+    public int migrate() {
+
+        if (!skipUnchanged || getSchemas().length == 0) {
+            return super.migrate();
+        }
+        String resolvers = getResolversKey();
+        String fingerprint = getFingerprint();
+        if (fingerprint != null && fingerprint.equals(getRecordedFingerprint(resolvers))) {
+            log.info("Migrations and schema history haven't changed since the last migration, migration is skipped");
+            return 0;
+        }
+        int applied = super.migrate();
+        saveFingerprint(resolvers);
+        return applied;
+    }
+
+    public boolean isSkipUnchanged() {
+
+        return skipUnchanged;
+    }
+
+    public void setSkipUnchanged(boolean skipUnchanged) {
+
+        this.skipUnchanged = skipUnchanged;
+    }
+
+    private String getResolversKey() {
+
+        String resolvers = Arrays.stream(getResolvers())
+                .map(MigrationResolver::getClass)
+                .map(Class::getName)
+                .sorted()
+                .collect(Collectors.joining(","));
+        return resolvers.isEmpty() ? DEFAULT_RESOLVERS : resolvers;
+    }
+
+    /**
+     * @return SHA-256 of the migration resources and the schema history, null if it can't be computed
+     */
+    private String getFingerprint() {
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Map.Entry<String, Resource> entry : getMigrationResources().entrySet()) {
+                digest.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+                digest.update(StreamUtils.copyToByteArray(entry.getValue().getInputStream()));
+            }
+            getJdbcTemplate().query(sql(SELECT_HISTORY_SQL, getTable()), rs -> {
+                String row = rs.getString("version") + "|" + rs.getString("checksum") + "|" + rs.getBoolean("success") + "\n";
+                digest.update(row.getBytes(StandardCharsets.UTF_8));
+            });
+            StringBuilder result = new StringBuilder();
+            for (byte b : digest.digest()) {
+                result.append(String.format("%02x", b));
+            }
+            return result.toString();
+        } catch (IOException | NoSuchAlgorithmException | DataAccessException e) {
+            // e.g. the schema history doesn't exist yet
+            log.debug("Cannot compute fingerprint of migrations", e);
+            return null;
+        }
+    }
+
+    /**
+     * @return migration resources by their path relative to the location, so that the fingerprint doesn't depend on
+     * where the application is installed
+     */
+    private Map<String, Resource> getMigrationResources() throws IOException {
+
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(getClassLoader());
+        List<String> locations = new ArrayList<>(Arrays.asList(getLocations()));
+        locations.add(JAVA_MIGRATIONS);
+        Map<String, Resource> resources = new TreeMap<>();
+        for (String location : locations) {
+            String base = location.startsWith("filesystem:") ? "file:" + location.substring("filesystem:".length())
+                    : "classpath*:" + location.replaceFirst("^classpath:", "");
+            String path = base.substring(base.indexOf(':') + 1);
+            for (Resource resource : resolver.getResources(base + "/**/*")) {
+                if (!resource.isReadable()) {
+                    continue;
+                }
+                String url = resource.getURL().toString();
+                int index = url.lastIndexOf(path);
+                resources.put(location + (index >= 0 ? url.substring(index + path.length()) : url), resource);
+            }
+        }
+        return resources;
+    }
+
+    private String getRecordedFingerprint(String resolvers) {
+
+        try {
+            List<String> fingerprints = getJdbcTemplate().queryForList(sql(SELECT_FINGERPRINT_SQL), String.class, resolvers);
+            return fingerprints.isEmpty() ? null : fingerprints.get(0);
+        } catch (DataAccessException e) {
+            log.debug("Cannot read fingerprint of migrations", e);
+            return null;
+        }
+    }
+
+    private void saveFingerprint(String resolvers) {
+
+        String fingerprint = getFingerprint();
+        if (fingerprint == null) {
+            return;
+        }
+        try {
+            getJdbcTemplate().update(sql(SAVE_FINGERPRINT_SQL), resolvers, fingerprint);
+        } catch (DataAccessException e) {
+            log.warn("Cannot save fingerprint of migrations, next start will migrate again", e);
+        }
+    }
+
+    private JdbcTemplate getJdbcTemplate() {
+
+        return new JdbcTemplate(getDataSource());
+    }
+
+    private String sql(String template, Object... args) {
+
+        Object[] params = new Object[args.length + 1];
+        params[0] = getSchemas()[0];
+        System.arraycopy(args, 0, params, 1, args.length);
+        return String.format(template, params);
+    }
+}
@@ -31,7 +31,8 @@ public class FlywayConfig {
     @Bean(initMethod = "migrate", name = "flyway")
     @ConfigurationProperties(prefix="flyway")
     public Flyway flyway() {
-      Flyway flyway = new Flyway();
+      // migrate is called here and by flywayInitializer, both are skipped when nothing has changed since the last start
+      Flyway flyway = new FingerprintedFlyway();
       flyway.setDataSource(secondaryDataSource());
       return flyway;
     }
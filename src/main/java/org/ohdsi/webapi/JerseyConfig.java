@@ -1,5 +1,6 @@
 package org.ohdsi.webapi;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.glassfish.hk2.utilities.binding.AbstractBinder;
 import org.glassfish.jersey.media.multipart.MultiPartFeature;
 import org.glassfish.jersey.message.GZipEncoder;
@@ -10,6 +11,8 @@ import org.ohdsi.webapi.cohortcharacterization.CcController;
 import org.ohdsi.webapi.executionengine.controller.ScriptExecutionCallbackController;
 import org.ohdsi.webapi.executionengine.controller.ScriptExecutionController;
 import org.ohdsi.webapi.info.InfoService;
+import org.ohdsi.webapi.metrics.JerseyMetricsListener;
+import org.ohdsi.webapi.metrics.MetricsController;
 import org.ohdsi.webapi.security.PermissionController;
 import org.ohdsi.webapi.security.SSOController;
 import org.ohdsi.webapi.service.ActivityService;
@@ -31,7 +34,9 @@ import org.ohdsi.webapi.service.TherapyPathResultsService;
 import org.ohdsi.webapi.service.UserService;
 import org.ohdsi.webapi.service.VocabularyService;
 import org.ohdsi.webapi.source.SourceController;
+import org.ohdsi.webapi.startup.HealthController;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -46,6 +51,9 @@ public class JerseyConfig extends ResourceConfig implements InitializingBean {
     
     @Value("${jersey.resources.root.package}")
     private String rootPackage;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
     
     public JerseyConfig() {
        RuntimeDelegate.setInstance(new org.glassfish.jersey.internal.RuntimeDelegateImpl());
@@ -68,6 +76,9 @@ public class JerseyConfig extends ResourceConfig implements InitializingBean {
         register(EvidenceService.class);
         register(FeasibilityService.class);
         register(InfoService.class);
+        register(HealthController.class);
+        register(MetricsController.class);
+        register(new JerseyMetricsListener(meterRegistry));
         register(IRAnalysisResource.class);
         register(JobService.class);
         register(PersonService.class);
@@ -8,6 +8,7 @@ import org.ohdsi.webapi.audittrail.listeners.AuditTrailJobListener;
 import org.ohdsi.webapi.common.generation.AutoremoveJobListener;
 import org.ohdsi.webapi.common.generation.CancelJobListener;
 import org.ohdsi.webapi.job.JobTemplate;
+import org.ohdsi.webapi.metrics.StepMetricsListener;
 import org.ohdsi.webapi.service.JobService;
 import org.ohdsi.webapi.shiro.management.Security;
 import org.ohdsi.webapi.util.ManagedThreadPoolTaskExecutor;
@@ -28,6 +29,7 @@ import org.springframework.batch.core.launch.support.SimpleJobLauncher;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
 import org.springframework.batch.core.repository.support.MapJobRepositoryFactoryBean;
+import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -76,6 +78,8 @@ public class JobConfig {
     private DataSource dataSource;
     @Autowired
     private AuditTrailJobListener auditTrailJobListener;
+    @Autowired
+    private StepMetricsListener stepMetricsListener;
     
     @Bean
     public String batchTablePrefix() {
@@ -139,6 +143,19 @@ public class JobConfig {
         };
     }
 
+    @Primary
+    @Bean
+    public StepBuilderFactory stepBuilders(JobRepository jobRepository) throws Exception {
+
+        return new StepBuilderFactory(jobRepository, batchConfigurer().getTransactionManager()) {
+            @Override
+            public StepBuilder get(String name) {
+                return super.get(name)
+                        .listener(stepMetricsListener);
+            }
+        };
+    }
+
     class CustomBatchConfigurer implements BatchConfigurer {
         
         private DataSource dataSource;
@@ -21,9 +21,11 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import javax.servlet.Filter;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -39,9 +41,19 @@ public class ShiroConfiguration {
     private long initialDuration;
     @Value("${security.duration.increment}")
     private long increment;
+    @Value("${security.lockout.store:jdbc}")
+    private String lockoutStore;
+    @Value("${security.lockout.admissionThreshold:1}")
+    private int lockoutAdmissionThreshold;
+    @Value("${security.lockout.window:3600}")
+    private long lockoutWindow;
+    @Value("${datasource.ohdsi.schema}")
+    private String ohdsiSchema;
     @Value("${spring.aop.proxy-target-class:false}")
     private Boolean proxyTargetClass;
     @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
     protected ApplicationEventPublisher eventPublisher;
 
     @Bean
@@ -88,7 +100,15 @@ public class ShiroConfiguration {
     @ConditionalOnProperty(name = "security.provider", havingValue = "AtlasRegularSecurity")
     public LockoutPolicy lockoutPolicy() {
 
-        return new DefaultLockoutPolicy(lockoutStrategy(), maxLoginAttempts, eventPublisher);
+        return new DefaultLockoutPolicy(lockoutStrategy(), maxLoginAttempts, eventPublisher, lockoutStore(),
+                lockoutAdmissionThreshold, TimeUnit.SECONDS.toMillis(lockoutWindow));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "security.provider", havingValue = "AtlasRegularSecurity")
+    public LockoutStore lockoutStore() {
+
+        return "memory".equalsIgnoreCase(lockoutStore) ? new InMemoryLockoutStore() : new JdbcLockoutStore(jdbcTemplate, ohdsiSchema);
     }
 
     @Bean
@@ -11,10 +11,12 @@ import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.ohdsi.webapi.achilles.domain.AchillesCacheEntity;
 import org.ohdsi.webapi.achilles.service.AchillesCacheService;
+import org.ohdsi.webapi.metrics.CacheMetrics;
 import org.ohdsi.webapi.source.Source;
-import org.ohdsi.webapi.source.SourceRepository;
+import org.ohdsi.webapi.source.SourceService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Component;
 
@@ -28,15 +30,16 @@ import java.util.stream.IntStream;
 @Component
 public class AchillesCacheAspect {
     private static final Logger LOG = LoggerFactory.getLogger(AchillesCacheAspect.class);
+    private static final String CACHE_NAME = "achilles";
 
-    private final SourceRepository sourceRepository;
+    private final SourceService sourceService;
     private final ObjectMapper objectMapper;
     private final AchillesCacheService cacheService;
 
-    public AchillesCacheAspect(SourceRepository sourceRepository,
+    public AchillesCacheAspect(@Lazy SourceService sourceService,
                                ObjectMapper objectMapper,
                                AchillesCacheService cacheService) {
-        this.sourceRepository = sourceRepository;
+        this.sourceService = sourceService;
         this.objectMapper = objectMapper;
         this.cacheService = cacheService;
     }
@@ -53,6 +56,7 @@ public class AchillesCacheAspect {
             Source source = getSource(Objects.requireNonNull(sourceKey));
             AchillesCacheEntity cacheEntity = cacheService.getCache(Objects.requireNonNull(source), cacheName);
             if (Objects.isNull(cacheEntity)) {
+                CacheMetrics.miss(CACHE_NAME, 1);
                 Object result = joinPoint.proceed();
                 try {
                     cacheEntity = cacheService.createCache(source, cacheName, result);
@@ -60,6 +64,8 @@ public class AchillesCacheAspect {
                     // cache can be created during executing join point, try to get it again
                     cacheEntity = cacheService.getCache(Objects.requireNonNull(source), cacheName);
                 }
+            } else {
+                CacheMetrics.hit(CACHE_NAME, 1);
             }
 
             return objectMapper.readValue(cacheEntity.getCache(), getReturnType(joinPoint));
@@ -76,7 +82,7 @@ public class AchillesCacheAspect {
     }
 
     private Source getSource(String sourceKey) {
-        return sourceRepository.findBySourceKey(sourceKey);
+        return sourceService.findBySourceKey(sourceKey);
     }
 
     private String getAnnotationValue(JoinPoint joinPoint) {
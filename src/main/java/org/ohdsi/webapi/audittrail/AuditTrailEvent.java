@@ -0,0 +1,216 @@
+package org.ohdsi.webapi.audittrail;
+
+import org.ohdsi.webapi.cohortsample.dto.CohortSampleDTO;
+import org.ohdsi.webapi.cohortsample.dto.SampleElementDTO;
+
+import javax.ws.rs.core.Response;
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable audit record captured on the request thread. Only what is needed to describe the call is kept: the
+ * returned object itself is reduced to its class, size and, for cohort samples, patient IDs, so the object can be
+ * released with the request and the entry formatted later on the audit writer thread.
+ */
+final class AuditTrailEvent {
+
+    enum ReturnedKind {
+        NONE, OBJECT, COLLECTION, MAP, RESPONSE, FILE
+    }
+
+    private final long timestamp;
+    private final String template;
+    private final Object[] arguments;
+
+    private final String currentUser;
+    private final String remoteHost;
+    private final String sessionId;
+    private final String actionLocation;
+    private final String requestMethod;
+    private final String requestUri;
+    private final String queryString;
+    private final boolean success;
+
+    private final ReturnedKind returnedKind;
+    private final Class<?> returnedClass;
+    private final Class<?> keyClass;
+    private final long returnedSize;
+    private final String fileName;
+    private final String[] patientIds;
+
+    private AuditTrailEvent(String template, Object[] arguments) {
+
+        this.timestamp = System.currentTimeMillis();
+        this.template = template;
+        this.arguments = arguments;
+        this.currentUser = null;
+        this.remoteHost = null;
+        this.sessionId = null;
+        this.actionLocation = null;
+        this.requestMethod = null;
+        this.requestUri = null;
+        this.queryString = null;
+        this.success = true;
+        this.returnedKind = ReturnedKind.NONE;
+        this.returnedClass = null;
+        this.keyClass = null;
+        this.returnedSize = 0;
+        this.fileName = null;
+        this.patientIds = null;
+    }
+
+    private AuditTrailEvent(AuditTrailEntry entry, boolean success) {
+
+        this.timestamp = System.currentTimeMillis();
+        this.template = null;
+        this.arguments = null;
+        this.currentUser = entry.getCurrentUser();
+        this.remoteHost = entry.getRemoteHost();
+        this.sessionId = entry.getSessionId();
+        this.actionLocation = entry.getActionLocation();
+        this.requestMethod = entry.getRequestMethod();
+        this.requestUri = entry.getRequestUri();
+        this.queryString = entry.getQueryString();
+        this.success = success;
+
+        Object returnedObject = success ? entry.getReturnedObject() : null;
+        Class<?> returnedClass = null;
+        Class<?> keyClass = null;
+        long returnedSize = 0;
+        String fileName = null;
+        ReturnedKind kind;
+        if (returnedObject == null) {
+            kind = ReturnedKind.NONE;
+        } else if (returnedObject instanceof Response) {
+            kind = ReturnedKind.RESPONSE;
+            try {
+                Object entity = ((Response) returnedObject).getEntity();
+                if (entity instanceof File) {
+                    kind = ReturnedKind.FILE;
+                    fileName = ((File) entity).getName();
+                    returnedSize = ((File) entity).length();
+                }
+            } catch (Exception ignored) {
+                // no file info
+            }
+        } else if (returnedObject instanceof Collection) {
+            kind = ReturnedKind.COLLECTION;
+            Collection<?> collection = (Collection<?>) returnedObject;
+            returnedSize = collection.size();
+            if (!collection.isEmpty()) {
+                Object first = collection.iterator().next();
+                returnedClass = first != null ? first.getClass() : null;
+            }
+        } else if (returnedObject instanceof Map) {
+            kind = ReturnedKind.MAP;
+            Map<?, ?> map = (Map<?, ?>) returnedObject;
+            returnedSize = map.size();
+            if (!map.isEmpty()) {
+                Map.Entry<?, ?> first = map.entrySet().iterator().next();
+                keyClass = first.getKey() != null ? first.getKey().getClass() : null;
+                returnedClass = first.getValue() != null ? first.getValue().getClass() : null;
+            }
+        } else {
+            kind = ReturnedKind.OBJECT;
+            returnedClass = returnedObject.getClass();
+        }
+        this.returnedKind = kind;
+        this.returnedClass = returnedClass;
+        this.keyClass = keyClass;
+        this.returnedSize = returnedSize;
+        this.fileName = fileName;
+        this.patientIds = returnedObject instanceof CohortSampleDTO ? getPatientIds((CohortSampleDTO) returnedObject) : null;
+    }
+
+    /**
+     * Message arguments should be immutable values (strings, numbers), formatting is deferred to the writer thread.
+     */
+    static AuditTrailEvent message(String template, Object... arguments) {
+
+        return new AuditTrailEvent(template, arguments);
+    }
+
+    static AuditTrailEvent restCall(AuditTrailEntry entry, boolean success) {
+
+        return new AuditTrailEvent(entry, success);
+    }
+
+    private static String[] getPatientIds(CohortSampleDTO sample) {
+
+        List<SampleElementDTO> elements = sample.getElements();
+        if (elements == null) {
+            return new String[0];
+        }
+        return elements.stream().map(SampleElementDTO::getPersonId).toArray(String[]::new);
+    }
+
+    long getTimestamp() {
+        return timestamp;
+    }
+
+    boolean isMessage() {
+        return template != null;
+    }
+
+    String getMessage() {
+        return String.format(template, arguments);
+    }
+
+    String getCurrentUser() {
+        return currentUser;
+    }
+
+    String getRemoteHost() {
+        return remoteHost;
+    }
+
+    String getSessionId() {
+        return sessionId;
+    }
+
+    String getActionLocation() {
+        return actionLocation;
+    }
+
+    String getRequestMethod() {
+        return requestMethod;
+    }
+
+    String getRequestUri() {
+        return requestUri;
+    }
+
+    String getQueryString() {
+        return queryString;
+    }
+
+    boolean isSuccess() {
+        return success;
+    }
+
+    ReturnedKind getReturnedKind() {
+        return returnedKind;
+    }
+
+    Class<?> getReturnedClass() {
+        return returnedClass;
+    }
+
+    Class<?> getKeyClass() {
+        return keyClass;
+    }
+
+    long getReturnedSize() {
+        return returnedSize;
+    }
+
+    String getFileName() {
+        return fileName;
+    }
+
+    String[] getPatientIds() {
+        return patientIds;
+    }
+}
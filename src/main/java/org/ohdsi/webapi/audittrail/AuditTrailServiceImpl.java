@@ -3,22 +3,35 @@ package org.ohdsi.webapi.audittrail;
 import com.cloudbees.syslog.Facility;
 import com.cloudbees.syslog.Severity;
 import com.cloudbees.syslog.SyslogMessage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.commons.lang3.StringUtils;
 import org.ohdsi.webapi.Constants;
-import org.ohdsi.webapi.cohortsample.dto.CohortSampleDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobParameters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.util.ReflectionUtils;
 
-import javax.ws.rs.core.Response;
-import java.io.File;
-import java.util.Collection;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Audit events are captured as immutable records on the calling thread and handed over to a bounded ring buffer.
+ * A single background writer formats and writes them in batches, so request threads never wait for the log
+ * appenders. The writer sleeps while the buffer is empty and is woken by the next event. When the buffer is full, events are either dropped (and counted) or the caller waits for free space,
+ * depending on {@code audit.trail.overflow.policy}.
+ */
 @Component
 class AuditTrailServiceImpl implements AuditTrailService {
     private final Logger AUDIT_LOGGER = LoggerFactory.getLogger("audit");
@@ -51,52 +64,113 @@ class AuditTrailServiceImpl implements AuditTrailService {
     private static final String EMPTY_LIST = "empty list";
     private static final String EMPTY_MAP = "empty map";
 
+    private static final long DROPPED_WARNING_INTERVAL_MS = 60_000L;
+    private static final long BLOCKED_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuditTrailServiceImpl.class);
+
+    enum OverflowPolicy {
+        DROP, BLOCK
+    }
+
     private final AtomicInteger extraLogIdSuffix = new AtomicInteger();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final AtomicLong lastDroppedWarning = new AtomicLong();
+    private final Map<Class<?>, Optional<String>> classFieldNames = new ConcurrentHashMap<>();
+
+    @Value("${audit.trail.enabled:false}")
+    private boolean auditTrailEnabled;
+
+    @Value("${audit.trail.buffer.size:8192}")
+    private int bufferSize;
+
+    @Value("${audit.trail.batch.size:256}")
+    private int batchSize;
+
+    @Value("${audit.trail.overflow.policy:drop}")
+    private String overflowPolicyName;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private OverflowPolicy overflowPolicy;
+    private AuditTrailRingBuffer<AuditTrailEvent> buffer;
+    private volatile Thread writer;
+    private volatile boolean running;
+    private volatile boolean writerParked;
+
+    @PostConstruct
+    void init() {
+        overflowPolicy = OverflowPolicy.valueOf(overflowPolicyName.trim().toUpperCase());
+        buffer = new AuditTrailRingBuffer<>(bufferSize);
+        Gauge.builder("webapi.audit.events.dropped", droppedEvents, AtomicLong::get)
+                .description("Audit events dropped because the buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("webapi.audit.events.pending", this, AuditTrailServiceImpl::getPendingEvents)
+                .description("Audit events waiting to be written")
+                .register(meterRegistry);
+        if (auditTrailEnabled) {
+            start();
+        }
+    }
+
+    @PreDestroy
+    void destroy() {
+        running = false;
+        final Thread thread = writer;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        drain(Integer.MAX_VALUE);
+    }
+
+    private void start() {
+        running = true;
+        final Thread thread = new Thread(this::writeLoop, "audit-trail-writer");
+        thread.setDaemon(true);
+        writer = thread;
+        thread.start();
+    }
+
+    /**
+     * @return number of audit events dropped because the buffer was full
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    public int getPendingEvents() {
+        return buffer.size();
+    }
 
     @Override
     public void logSuccessfulLogin(final String login, final String sessionId, final String remoteHost) {
-        log(String.format(USER_LOGIN_SUCCESS_TEMPLATE, login, sessionId, remoteHost));
+        publish(AuditTrailEvent.message(USER_LOGIN_SUCCESS_TEMPLATE, login, sessionId, remoteHost));
     }
 
     @Override
     public void logFailedLogin(final String login, final String remoteHost) {
-        log(String.format(USER_LOGIN_FAILURE_TEMPLATE, login, remoteHost));
+        publish(AuditTrailEvent.message(USER_LOGIN_FAILURE_TEMPLATE, login, remoteHost));
     }
 
     @Override
     public void logSuccessfulLogout(final String login) {
-        log(String.format(USER_LOGOUT_SUCCESS_TEMPLATE, login));
+        publish(AuditTrailEvent.message(USER_LOGOUT_SUCCESS_TEMPLATE, login));
     }
 
     @Override
     public void logFailedLogout(final String login) {
-        log(String.format(USER_LOGOUT_FAILURE_TEMPLATE, login));
+        publish(AuditTrailEvent.message(USER_LOGOUT_FAILURE_TEMPLATE, login));
     }
 
     @Override
     public void logRestCall(final AuditTrailEntry entry, final boolean success) {
-        final StringBuilder logEntry = new StringBuilder();
-
-        final String currentUserField = getCurrentUserField(entry);
-
-        logEntry.append(currentUserField).append(SPACE)
-                .append(entry.getRemoteHost()).append(SPACE)
-                .append(getSessionIdField(entry))
-                .append(FIELD_DIVIDER)
-                .append(getActionLocationField(entry))
-                .append(FIELD_DIVIDER)
-                .append(getRestCallField(entry));
-
-        if (success) {
-            final String additionalInfo = getAdditionalInfo(entry);
-            if (!StringUtils.isBlank(additionalInfo)) {
-                logEntry.append(FIELD_DIVIDER).append(additionalInfo);
-            }
-        } else {
-            logEntry.append(FIELD_DIVIDER).append(FAILURE);
-        }
-
-        log(logEntry.toString());
+        publish(AuditTrailEvent.restCall(entry, success));
     }
 
     @Override
@@ -114,8 +188,95 @@ class AuditTrailServiceImpl implements AuditTrailService {
         logJob(jobExecution, JOB_FAILED_TEMPLATE);
     }
 
-    private void log(final String message) {
+    void publish(final AuditTrailEvent event) {
+        final Thread thread = writer;
+        if (thread == null) {
+            // writer isn't running (audit trail disabled or shut down), write in the caller thread
+            write(event);
+            return;
+        }
+        while (!buffer.offer(event)) {
+            if (overflowPolicy == OverflowPolicy.DROP || !running) {
+                onDropped();
+                return;
+            }
+            LockSupport.parkNanos(BLOCKED_PARK_NANOS);
+        }
+        if (writerParked) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void onDropped() {
+        final long dropped = droppedEvents.incrementAndGet();
+        final long now = System.currentTimeMillis();
+        final long last = lastDroppedWarning.get();
+        if (now - last >= DROPPED_WARNING_INTERVAL_MS && lastDroppedWarning.compareAndSet(last, now)) {
+            LOGGER.warn("Audit trail buffer is full, {} events dropped so far. Consider increasing audit.trail.buffer.size", dropped);
+        }
+    }
+
+    private void writeLoop() {
+        while (running) {
+            if (drain(batchSize) == 0) {
+                writerParked = true;
+                // checked again after the flag is set, publishers which saw it unset won't wake the writer
+                if (buffer.size() == 0 && running) {
+                    LockSupport.park(this);
+                }
+                writerParked = false;
+            }
+        }
+    }
+
+    private int drain(final int limit) {
+        int count = 0;
+        AuditTrailEvent event;
+        while (count < limit && (event = buffer.poll()) != null) {
+            write(event);
+            count++;
+        }
+        return count;
+    }
+
+    private void write(final AuditTrailEvent event) {
+        try {
+            log(format(event), event.getTimestamp());
+        } catch (Exception e) {
+            LOGGER.error("Failed to write audit trail entry", e);
+        }
+    }
+
+    String format(final AuditTrailEvent event) {
+        if (event.isMessage()) {
+            return event.getMessage();
+        }
+
+        final StringBuilder logEntry = new StringBuilder();
+
+        logEntry.append(getCurrentUserField(event)).append(SPACE)
+                .append(event.getRemoteHost()).append(SPACE)
+                .append(getSessionIdField(event))
+                .append(FIELD_DIVIDER)
+                .append(getActionLocationField(event))
+                .append(FIELD_DIVIDER)
+                .append(getRestCallField(event));
+
+        if (event.isSuccess()) {
+            final String additionalInfo = getAdditionalInfo(event);
+            if (!StringUtils.isBlank(additionalInfo)) {
+                logEntry.append(FIELD_DIVIDER).append(additionalInfo);
+            }
+        } else {
+            logEntry.append(FIELD_DIVIDER).append(FAILURE);
+        }
+
+        return logEntry.toString();
+    }
+
+    private void log(final String message, final long timestamp) {
         final SyslogMessage syslogMessage = new SyslogMessage()
+                .withTimestamp(timestamp)
                 .withFacility(Facility.AUDIT)
                 .withSeverity(Severity.INFORMATIONAL)
                 .withAppName("Atlas")
@@ -124,7 +285,7 @@ class AuditTrailServiceImpl implements AuditTrailService {
 
         if (logEntry.length() >= MAX_ENTRY_LENGTH) {
             final String currentExtraSuffix = String.format("%02d", this.extraLogIdSuffix.getAndIncrement());
-            final String entryId = System.currentTimeMillis() + "_" + currentExtraSuffix;
+            final String entryId = timestamp + "_" + currentExtraSuffix;
             AUDIT_EXTRA_LOGGER.info(entryId + FIELD_DIVIDER + message);
 
             final String extraLogReferenceMessage = String.format(EXTRA_LOG_REFERENCE_MESSAGE, entryId);
@@ -141,97 +302,92 @@ class AuditTrailServiceImpl implements AuditTrailService {
         }
     }
 
-    private String getSessionIdField(final AuditTrailEntry entry) {
-        return entry.getSessionId() != null ? entry.getSessionId() : NO_SESSION;
+    private String getSessionIdField(final AuditTrailEvent event) {
+        return event.getSessionId() != null ? event.getSessionId() : NO_SESSION;
     }
 
-    private String getCurrentUserField(final AuditTrailEntry entry) {
-        return (entry.getCurrentUser() != null ? String.valueOf(entry.getCurrentUser()) : ANONYMOUS);
+    private String getCurrentUserField(final AuditTrailEvent event) {
+        return (event.getCurrentUser() != null ? event.getCurrentUser() : ANONYMOUS);
     }
 
-    private String getActionLocationField(final AuditTrailEntry entry) {
-        return entry.getActionLocation() != null ? entry.getActionLocation() : NO_LOCATION;
+    private String getActionLocationField(final AuditTrailEvent event) {
+        return event.getActionLocation() != null ? event.getActionLocation() : NO_LOCATION;
     }
 
-    private String getRestCallField(final AuditTrailEntry entry) {
+    private String getRestCallField(final AuditTrailEvent event) {
         final StringBuilder sb = new StringBuilder();
-        sb.append(entry.getRequestMethod())
+        sb.append(event.getRequestMethod())
                 .append(" ")
-                .append(entry.getRequestUri());
-        if (!StringUtils.isBlank(entry.getQueryString())) {
-            sb.append("?").append(entry.getQueryString());
+                .append(event.getRequestUri());
+        if (!StringUtils.isBlank(event.getQueryString())) {
+            sb.append("?").append(event.getQueryString());
         }
         return  sb.toString();
     }
 
-    private String getAdditionalInfo(final AuditTrailEntry entry) {
+    private String getAdditionalInfo(final AuditTrailEvent event) {
+        switch (event.getReturnedKind()) {
+            case FILE:
+                return String.format(FILE_TEMPLATE, event.getFileName(), event.getReturnedSize());
+            case RESPONSE:
+            case NONE:
+                return null;
+            default:
+                break;
+        }
+
         final StringBuilder additionalInfo = new StringBuilder();
 
-        final String returnedObjectFields = getReturnedObjectFields(entry.getReturnedObject());
+        final String returnedObjectFields = getReturnedObjectFields(event);
         if (!StringUtils.isBlank(returnedObjectFields)) {
             additionalInfo.append(returnedObjectFields);
         }
 
-        // File entry log
-        if (entry.getReturnedObject() instanceof Response) {
-            try {
-                final Object entity = ((Response) entry.getReturnedObject()).getEntity();
-                if (entity instanceof File) {
-                    final File file = (File) entity;
-                    return String.format(FILE_TEMPLATE, file.getName(), file.length());
-                }
-                return null;
-            } catch (final Exception e) {
-                return null;
-            }
-        }
-
         // Patient IDs log
-        if (entry.getReturnedObject() instanceof CohortSampleDTO) {
-            final CohortSampleDTO sampleDto = (CohortSampleDTO) entry.getReturnedObject();
-            if (sampleDto.getElements().isEmpty()) {
+        final String[] patientIds = event.getPatientIds();
+        if (patientIds != null) {
+            if (patientIds.length == 0) {
                 additionalInfo.append(String.format(PATIENT_IDS_TEMPLATE, 0)).append("none");
             } else {
-                additionalInfo.append(String.format(PATIENT_IDS_TEMPLATE, sampleDto.getElements().size()));
-                sampleDto.getElements().forEach((e) -> {
-                    additionalInfo.append(e.getPersonId()).append(" ");
-                });
+                additionalInfo.append(String.format(PATIENT_IDS_TEMPLATE, patientIds.length));
+                for (final String patientId : patientIds) {
+                    additionalInfo.append(patientId).append(" ");
+                }
             }
         }
 
         return additionalInfo.toString();
     }
 
-    private String getReturnedObjectFields(final Object returnedObject) {
-        if (returnedObject == null) {
-            return null;
+    private String getReturnedObjectFields(final AuditTrailEvent event) {
+        switch (event.getReturnedKind()) {
+            case COLLECTION:
+                if (event.getReturnedSize() > 0) {
+                    final String fields = collectClassFieldNames(event.getReturnedClass());
+                    return fields != null ? String.format(LIST_OF_TEMPLATE, event.getReturnedSize(), fields) : null;
+                }
+                return EMPTY_LIST;
+            case MAP:
+                if (event.getReturnedSize() > 0) {
+                    final String valueFields = collectClassFieldNames(event.getReturnedClass());
+                    return valueFields != null && event.getKeyClass() != null ?
+                            String.format(MAP_OF_TEMPLATE, event.getKeyClass().getSimpleName(), event.getReturnedSize(), valueFields) : null;
+                }
+                return EMPTY_MAP;
+            default:
+                return collectClassFieldNames(event.getReturnedClass());
         }
+    }
 
-        if (returnedObject instanceof Collection) {
-            final Collection<?> c = (Collection<?>) returnedObject;
-            if (!c.isEmpty()) {
-                final String fields = collectClassFieldNames(c.iterator().next().getClass());
-                return fields != null ? String.format(LIST_OF_TEMPLATE, c.size(), fields) : null;
-            }
-            return EMPTY_LIST;
-        } if (returnedObject instanceof Map) {
-            final Map<?, ?> map = (Map<?, ?>) returnedObject;
-            if (!map.isEmpty()) {
-                final Map.Entry<?, ?> entry = map.entrySet().iterator().next();
-                final Class<?> keyClass = entry.getKey().getClass();
-                final Class<?> valueClass = entry.getValue().getClass();
-                final String valueFields = collectClassFieldNames(valueClass);
-                return valueFields != null ?
-                        String.format(MAP_OF_TEMPLATE, keyClass.getSimpleName(), map.size(), valueFields) : null;
-            }
-            return EMPTY_MAP;
-        } else {
-            return collectClassFieldNames(returnedObject.getClass());
+    private String collectClassFieldNames(final Class<?> klass) {
+        if (klass == null) {
+            return null;
         }
+        return classFieldNames.computeIfAbsent(klass, k -> Optional.ofNullable(describeClassFields(k))).orElse(null);
     }
 
-    private String collectClassFieldNames(final Class<?> klass) {
-        if (!klass.getPackage().getName().startsWith("org.ohdsi.")) {
+    private String describeClassFields(final Class<?> klass) {
+        if (klass.getPackage() == null || !klass.getPackage().getName().startsWith("org.ohdsi.")) {
             return null;
         }
 
@@ -255,6 +411,6 @@ class AuditTrailServiceImpl implements AuditTrailService {
         }
 
         final String jobName = jobParameters.getString(Constants.Params.JOB_NAME);
-        log(String.format(template, author, jobExecution.getJobId(), jobName));
+        publish(AuditTrailEvent.message(template, author, jobExecution.getJobId(), jobName));
     }
 }
@@ -0,0 +1,52 @@
+package org.ohdsi.webapi.cache;
+
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.ohdsi.webapi.vocabulary.VocabularyCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.guava.GuavaCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded in-memory caches of the application. Hits, misses and evictions of each cache are recorded to the metrics
+ * registry.
+ */
+@Configuration
+public class CacheConfig {
+
+    @Value("${vocabulary.cache.maxSize:100}")
+    private long vocabularyMaxSize;
+
+    @Value("${vocabulary.cache.versionCheckInterval:60}")
+    private long versionCheckInterval;
+
+    @Bean
+    public CacheManager cacheManager(MeterRegistry meterRegistry) {
+
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(Arrays.asList(
+                // the version is probed again once expired
+                cache(VocabularyCache.INFO, CacheBuilder.newBuilder()
+                        .maximumSize(vocabularyMaxSize)
+                        .expireAfterWrite(versionCheckInterval, TimeUnit.SECONDS), meterRegistry),
+                cache(VocabularyCache.DOMAINS, CacheBuilder.newBuilder().maximumSize(vocabularyMaxSize), meterRegistry),
+                cache(VocabularyCache.VOCABULARIES, CacheBuilder.newBuilder().maximumSize(vocabularyMaxSize), meterRegistry)
+        ));
+        return cacheManager;
+    }
+
+    private Cache cache(String name, CacheBuilder<Object, Object> builder, MeterRegistry meterRegistry) {
+
+        com.google.common.cache.Cache<Object, Object> cache = builder.recordStats().build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, name);
+        return new GuavaCache(name, cache);
+    }
+}
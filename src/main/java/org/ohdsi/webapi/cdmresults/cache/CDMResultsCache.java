@@ -29,6 +29,7 @@ import org.apache.commons.collections4.CollectionUtils;
 import org.eclipse.collections.impl.map.mutable.ConcurrentHashMapUnsafe;
 import org.hibernate.internal.util.collections.BoundedConcurrentHashMap;
 import org.ohdsi.webapi.cdmresults.DescendantRecordCount;
+import org.ohdsi.webapi.metrics.CacheMetrics;
 
 /**
  * This class caches not only the values from List<DescendantRecordCount>> getRecordsFromQueryFunction,
@@ -39,6 +40,8 @@ import org.ohdsi.webapi.cdmresults.DescendantRecordCount;
  * @author fdefalco, ymolodkov
  */
 public class CDMResultsCache {
+    private static final String CACHE_NAME = "cdm_results";
+
     //BoundedConcurrentHashMap is hibernate implementation of the LRU(Least recently used) cache map. It supports concurrency out of the box, and does not block get operation.
     //I set 1,000,000 for capacity, this is a significant amount, but at the same time it should be only 20-25mb for 8 digital ids
     private Set<Integer> requestedIdsThatDoesNotHaveValueInStorage  = Collections.newSetFromMap(new BoundedConcurrentHashMap<>(1_000_000));
@@ -57,6 +60,8 @@ public class CDMResultsCache {
 
         List<DescendantRecordCount> recordsFromCache = ids.stream().map(this::get).filter(Objects::nonNull)
                 .collect(Collectors.toList());
+        CacheMetrics.hit(CACHE_NAME, ids.size() - notRequestedRecordIds.size());
+        CacheMetrics.miss(CACHE_NAME, notRequestedRecordIds.size());
 
         if (this.isWarm() || CollectionUtils.isEmpty(notRequestedRecordIds)) {
             return recordsFromCache;
@@ -12,14 +12,13 @@ import org.ohdsi.sql.SqlTranslate;
 import org.ohdsi.webapi.cohortresults.PeriodType;
 import org.ohdsi.webapi.util.CSVRecordMapper;
 import org.ohdsi.webapi.util.JoinUtils;
+import org.ohdsi.webapi.util.LazyResource;
 import org.ohdsi.webapi.util.SessionUtils;
 import org.ohdsi.webapi.util.SourceUtils;
-import org.springframework.beans.factory.BeanInitializationException;
 import org.springframework.data.util.Pair;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
-import javax.annotation.PostConstruct;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
@@ -29,19 +28,19 @@ import java.util.stream.Collectors;
 @Component
 public class HeraclesQueryBuilder {
 
-  private final static String INIT_QUERY = ResourceHelper.GetResourceAsString("/resources/cohortanalysis/sql/initHeraclesAnalyses.sql");
-  private final static String FINALIZE_QUERY = ResourceHelper.GetResourceAsString("/resources/cohortanalysis/sql/finalizeHeraclesAnalyses.sql");
+  private final static LazyResource<String> INIT_QUERY = LazyResource.sql("/resources/cohortanalysis/sql/initHeraclesAnalyses.sql");
+  private final static LazyResource<String> FINALIZE_QUERY = LazyResource.sql("/resources/cohortanalysis/sql/finalizeHeraclesAnalyses.sql");
 
-  private final static String HERACLES_ANALYSES_TABLE = ResourceHelper.GetResourceAsString("/resources/cohortanalysis/heraclesanalyses/csv/heraclesAnalyses.csv");
+  private final static String HERACLES_ANALYSES_TABLE = "/resources/cohortanalysis/heraclesanalyses/csv/heraclesAnalyses.csv";
 
-  private final static String HERACLES_ANALYSES_PARAMS = ResourceHelper.GetResourceAsString("/resources/cohortanalysis/heraclesanalyses/csv/heraclesAnalysesParams.csv");
+  private final static String HERACLES_ANALYSES_PARAMS = "/resources/cohortanalysis/heraclesanalyses/csv/heraclesAnalysesParams.csv";
 
   private final static String ANALYSES_QUERY_PREFIX = "/resources/cohortanalysis/heraclesanalyses/sql/";
 
   private final static String INSERT_RESULT_STATEMENT = "insert into @results_schema.heracles_results (cohort_definition_id, analysis_id, stratum_1, stratum_2, stratum_3, stratum_4, stratum_5, count_value, last_update_time)\n";
   private final static String INSERT_DIST_RESULT_STATEMENT = "insert into @results_schema.heracles_results_dist (cohort_definition_id, analysis_id, stratum_1, stratum_2, stratum_3, stratum_4, stratum_5, count_value, min_value, max_value, avg_value, stdev_value, median_value, p10_value, p25_value, p75_value, p90_value, last_update_time)\n";
-  private final static String SELECT_RESULT_STATEMENT = ResourceHelper.GetResourceAsString("/resources/cohortanalysis/sql/selectHeraclesResults.sql");
-  private final static String SELECT_DIST_RESULT_STATEMENT = ResourceHelper.GetResourceAsString("/resources/cohortanalysis/sql/selectHeraclesDistResults.sql");
+  private final static LazyResource<String> SELECT_RESULT_STATEMENT = LazyResource.sql("/resources/cohortanalysis/sql/selectHeraclesResults.sql");
+  private final static LazyResource<String> SELECT_DIST_RESULT_STATEMENT = LazyResource.sql("/resources/cohortanalysis/sql/selectHeraclesDistResults.sql");
 
   private final static String[] PARAM_NAMES = new String[]{"CDM_schema", "results_schema", "refreshStats", "source_name",
           "smallcellcount", "runHERACLESHeel", "CDM_version", "cohort_definition_id", "list_of_analysis_ids",
@@ -65,27 +64,24 @@ public class HeraclesQueryBuilder {
   private static final String includeCostConcepts = "31978, 31973, 31980";
   private static final String includeCurrency = "44818668";
 
-  private Map<Integer, HeraclesAnalysis> heraclesAnalysisMap;
-  private Map<Integer, Set<HeraclesAnalysisParameter>> analysesParamsMap = new HashMap<>();
+  // analyses are parsed on first use, see LazyResource
+  private final static LazyResource<Map<Integer, HeraclesAnalysis>> HERACLES_ANALYSES =
+          LazyResource.of(HERACLES_ANALYSES_TABLE, HeraclesQueryBuilder::parseHeraclesAnalyses);
+  private final static LazyResource<Map<Integer, Set<HeraclesAnalysisParameter>>> ANALYSES_PARAMS =
+          LazyResource.of(HERACLES_ANALYSES_PARAMS, HeraclesQueryBuilder::parseAnalysesParams);
 
-  @PostConstruct
-  public void init() {
+  private static Map<Integer, HeraclesAnalysis> parseHeraclesAnalyses() {
 
-    initHeraclesAnalyses();
-    initAnalysesParams();
-  }
-
-  private void initHeraclesAnalyses() {
-
-    heraclesAnalysisMap = parseCSV(HERACLES_ANALYSES_TABLE, record -> new HeraclesAnalysis(Integer.parseInt(record.get(COL_ANALYSIS_ID)),
+    return parseCSV(HERACLES_ANALYSES_TABLE, record -> new HeraclesAnalysis(Integer.parseInt(record.get(COL_ANALYSIS_ID)),
             record.get(COL_ANALYSIS_NAME), record.get(COL_SQL_FILE_NAME),
             Boolean.parseBoolean(record.get(COL_RESULTS)), Boolean.parseBoolean(record.get(COL_DIST_RESULTS))))
             .stream()
             .collect(Collectors.toMap(HeraclesAnalysis::getId, analysis -> analysis));
   }
 
-  private void initAnalysesParams() {
+  private static Map<Integer, Set<HeraclesAnalysisParameter>> parseAnalysesParams() {
 
+    Map<Integer, Set<HeraclesAnalysisParameter>> analysesParamsMap = new HashMap<>();
     parseCSV(HERACLES_ANALYSES_PARAMS, record -> new HeraclesAnalysisParameter(Integer.parseInt(record.get(COL_ANALYSIS_ID)),
             record.get(COL_PARAM_NAME), record.get(COL_PARAM_VALUE)))
       .forEach(p -> {
@@ -93,25 +89,26 @@ public class HeraclesQueryBuilder {
         params.add(p);
         analysesParamsMap.put(p.getAnalysisId(), params);
       });
-    heraclesAnalysisMap.values().forEach(analysis -> {
+    HERACLES_ANALYSES.get().values().forEach(analysis -> {
       Integer id = analysis.getId();
       Set<HeraclesAnalysisParameter> params = analysesParamsMap.getOrDefault(id, new HashSet<>());
       params.add(new HeraclesAnalysisParameter(id, COL_ANALYSIS_ID, id.toString()));
       params.add(new HeraclesAnalysisParameter(id, COL_ANALYSIS_NAME, analysis.getName()));
       analysesParamsMap.put(id, params);
     });
+    return analysesParamsMap;
   }
 
-  private <T> List<T> parseCSV(String source, CSVRecordMapper<T> mapper) {
+  private static <T> List<T> parseCSV(String path, CSVRecordMapper<T> mapper) {
 
     List<T> result = new ArrayList<>();
-    try(Reader in = new StringReader(source)) {
+    try(Reader in = new StringReader(ResourceHelper.GetResourceAsString(path))) {
       CSVParser parser = new CSVParser(in, CSVFormat.RFC4180.withFirstRecordAsHeader());
       for(final CSVRecord record : parser.getRecords()) {
         result.add(mapper.mapRecord(record));
       }
     } catch (IOException e) {
-      throw new BeanInitializationException("Failed to read heracles analyses");
+      throw new IllegalStateException("Failed to read heracles analyses", e);
     }
     return result;
   }
@@ -177,10 +174,10 @@ public class HeraclesQueryBuilder {
 
     String buildQuery() {
 
-      return buildQuery(INIT_QUERY)
+      return buildQuery(INIT_QUERY.get())
               .buildAnalysesQueries()
               .buildSelectResultQuery()
-              .buildQuery(FINALIZE_QUERY)
+              .buildQuery(FINALIZE_QUERY.get())
               .toSql();
     }
 
@@ -208,14 +205,14 @@ public class HeraclesQueryBuilder {
       List<String> resultsQuery = new ArrayList<>();
       List<String> distResultsQuery = new ArrayList<>();
       analysesIds.forEach(id -> {
-        HeraclesAnalysis analysis = heraclesAnalysisMap.get(id);
+        HeraclesAnalysis analysis = HERACLES_ANALYSES.get().get(id);
         if (Objects.nonNull(analysis)) {
           Pair<String[], String[]> params = getAnalysisParams(id);
           if (analysis.isHasResults()) {
-            resultsQuery.add(SqlRender.renderSql(SELECT_RESULT_STATEMENT, params.getFirst(), params.getSecond()));
+            resultsQuery.add(SqlRender.renderSql(SELECT_RESULT_STATEMENT.get(), params.getFirst(), params.getSecond()));
           }
           if (analysis.isHasDistResults()) {
-            distResultsQuery.add(SqlRender.renderSql(SELECT_DIST_RESULT_STATEMENT, params.getFirst(), params.getSecond()));
+            distResultsQuery.add(SqlRender.renderSql(SELECT_DIST_RESULT_STATEMENT.get(), params.getFirst(), params.getSecond()));
           }
         }
       });
@@ -242,7 +239,7 @@ public class HeraclesQueryBuilder {
 
     private String getAnalysisQuery(Integer id) {
 
-      HeraclesAnalysis analysis = heraclesAnalysisMap.get(id);
+      HeraclesAnalysis analysis = HERACLES_ANALYSES.get().get(id);
       if (Objects.nonNull(analysis)) {
         String query = ResourceHelper.GetResourceAsString(ANALYSES_QUERY_PREFIX + analysis.getFilename());
         Pair<String[], String[]> params = getAnalysisParams(id);
@@ -253,7 +250,7 @@ public class HeraclesQueryBuilder {
     }
 
     private Pair<String[], String[]> getAnalysisParams(Integer id) {
-      List<HeraclesAnalysisParameter> params = new ArrayList<>(analysesParamsMap.getOrDefault(id, new HashSet<>()));
+      List<HeraclesAnalysisParameter> params = new ArrayList<>(ANALYSES_PARAMS.get().getOrDefault(id, new HashSet<>()));
 
       int size = params.size();
       String[] analysisParamNames = new String[size];
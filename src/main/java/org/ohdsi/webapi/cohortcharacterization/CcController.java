@@ -62,6 +62,7 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.StringWriter;
@@ -306,7 +307,7 @@ public class CcController {
         CohortCharacterizationEntity cc = service.findById(id);
         Optional.ofNullable(cc).orElseThrow(NotFoundException::new);
         List<ConceptSetExport> exportList = service.exportConceptSets(cc);
-        ByteArrayOutputStream stream = ExportUtil.writeConceptSetExportToCSVAndZip(exportList);
+        StreamingOutput stream = ExportUtil.streamConceptSetExport(exportList);
         return HttpUtils.respondBinary(stream, String.format("cc_%d_export.zip", id));
     }
 
@@ -341,6 +341,7 @@ public class CcServiceImpl extends AbstractDaoService implements CcService, Gene
 
     @Override
     public void deleteCc(Long ccId) {
+        unassignTagsOfDeleted(repository.findOne(ccId));
         repository.delete(ccId);
     }
 
@@ -589,7 +590,7 @@ public class CcServiceImpl extends AbstractDaoService implements CcService, Gene
     public JobExecutionResource generateCc(final Long id, @SourceKey final String sourceKey) {
 
         CcService ccService = this;
-        Source source = getSourceRepository().findBySourceKey(sourceKey);
+        Source source = getSourceService().findBySourceKey(sourceKey);
 
         JobParametersBuilder builder = new JobParametersBuilder();
 
@@ -958,7 +959,7 @@ public class CcServiceImpl extends AbstractDaoService implements CcService, Gene
     @DataSourceAccess
     public void cancelGeneration(Long id, @SourceKey String sourceKey) {
 
-        Source source = getSourceRepository().findBySourceKey(sourceKey);
+        Source source = getSourceService().findBySourceKey(sourceKey);
         if (Objects.isNull(source)) {
             throw new NotFoundException();
         }
@@ -26,6 +26,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -86,19 +87,22 @@ public class GenerateLocalCohortTasklet implements StoppableTasklet {
 
         Collection<CohortDefinition> cohortDefinitions = cohortGetter.apply(chunkContext);
 
-        if (useAsyncCohortGeneration) {
-            List<CompletableFuture> executions = cohortDefinitions.stream()
-                    .map(cd ->
-                            CompletableFuture.supplyAsync(() -> generateCohort(cd, source, resultSchema, targetTable),
-                                    Executors.newSingleThreadExecutor()
-                            )
-                    ).collect(Collectors.toList());
-            CompletableFuture.allOf(executions.toArray(new CompletableFuture[]{})).join();
-        } else {
-            CompletableFuture.runAsync(() ->
-                            cohortDefinitions.stream().forEach(cd -> generateCohort(cd, source, resultSchema, targetTable)),
-                    Executors.newSingleThreadExecutor()
-            ).join();
+        // threads are released as soon as generations finish, instead of an idle executor being left behind per cohort
+        ExecutorService executor = Executors.newFixedThreadPool(useAsyncCohortGeneration ? Math.max(1, cohortDefinitions.size()) : 1);
+        try {
+            if (useAsyncCohortGeneration) {
+                List<CompletableFuture> executions = cohortDefinitions.stream()
+                        .map(cd -> CompletableFuture.supplyAsync(() -> generateCohort(cd, source, resultSchema, targetTable), executor))
+                        .collect(Collectors.toList());
+                CompletableFuture.allOf(executions.toArray(new CompletableFuture[]{})).join();
+            } else {
+                CompletableFuture.runAsync(() ->
+                                cohortDefinitions.stream().forEach(cd -> generateCohort(cd, source, resultSchema, targetTable)),
+                        executor
+                ).join();
+            }
+        } finally {
+            executor.shutdown();
         }
 
         return RepeatStatus.FINISHED;
@@ -114,13 +118,13 @@ public class GenerateLocalCohortTasklet implements StoppableTasklet {
                 resultSchema
         );
 
-        int designHash = this.generationCacheHelper.computeHash(cd.getDetails().getExpression());
+        long designHash = this.generationCacheHelper.computeHash(source, cd.getDetails().getExpression());
         CohortGenerationUtils.insertInclusionRules(cd, source, designHash, resultSchema, sessionId, cancelableJdbcTemplate);
 
         try {
             StatementCancel stmtCancel = new StatementCancel();
             statementCancels.add(stmtCancel);
-            GenerationCacheHelper.CacheResult res = generationCacheHelper.computeCacheIfAbsent(cd, source, generationRequestBuilder, (resId, sqls) -> {
+            GenerationCacheHelper.CacheResult res = generationCacheHelper.computeCacheIfAbsent(cd, source, designHash, generationRequestBuilder, (resId, sqls) -> {
                 try {
                     generationCacheHelper.runCancelableCohortGeneration(cancelableJdbcTemplate, stmtCancel, sqls);
                 } finally {
@@ -130,14 +134,13 @@ public class GenerateLocalCohortTasklet implements StoppableTasklet {
                     // That's why explicit TempTableCleanupManager call is defined
                     TempTableCleanupManager cleanupManager = new TempTableCleanupManager(
                             cancelableJdbcTemplate,
-                            transactionTemplate,
                             source.getSourceDialect(),
                             sessionId,
                             SourceUtils.getTempQualifier(source)
                     );
                     cleanupManager.cleanupTempTables();
                 }
-            });
+            }, () -> stopped);
             String sql = String.format(COPY_CACHED_RESULTS, SourceUtils.getTempQualifier(source), targetTable, cd.getId(), res.getSql());
             cancelableJdbcTemplate.batchUpdate(stmtCancel, sql);
             statementCancels.remove(stmtCancel);
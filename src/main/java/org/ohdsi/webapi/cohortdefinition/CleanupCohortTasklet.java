@@ -19,12 +19,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
-import org.ohdsi.circe.helper.ResourceHelper;
 import org.ohdsi.sql.SqlRender;
 import org.ohdsi.sql.SqlTranslate;
 import org.ohdsi.webapi.source.Source;
 import org.ohdsi.webapi.source.SourceDaimon;
 import org.ohdsi.webapi.source.SourceRepository;
+import org.ohdsi.webapi.util.LazyResource;
 import org.ohdsi.webapi.util.SessionUtils;
 import org.ohdsi.webapi.util.SourceUtils;
 import org.slf4j.Logger;
@@ -51,7 +51,7 @@ public class CleanupCohortTasklet implements Tasklet {
 	private final TransactionTemplate transactionTemplate;
 	private final SourceRepository sourceRepository;
 
-	private final String CLEANUP_TEMPLATE = ResourceHelper.GetResourceAsString("/resources/cohortdefinition/sql/cleanupResults.sql"); 
+	private static final LazyResource<String> CLEANUP_TEMPLATE = LazyResource.sql("/resources/cohortdefinition/sql/cleanupResults.sql");
 
 	public CleanupCohortTasklet(final TransactionTemplate transactionTemplate,
 		final SourceRepository sourceRepository) {
@@ -79,7 +79,7 @@ public class CleanupCohortTasklet implements Tasklet {
 		for (Source source : resultsSources) {
 			try {
 				String resultSchema = source.getTableQualifier(SourceDaimon.DaimonType.Results);
-				String deleteSql = SqlRender.renderSql(CLEANUP_TEMPLATE, new String[]{"results_database_schema", "cohort_definition_id"}, new String[]{resultSchema, cohortId.toString()});
+				String deleteSql = SqlRender.renderSql(CLEANUP_TEMPLATE.get(), new String[]{"results_database_schema", "cohort_definition_id"}, new String[]{resultSchema, cohortId.toString()});
 				deleteSql = SqlTranslate.translateSql(deleteSql, source.getSourceDialect(), sessionId, SourceUtils.getTempQualifier(source));
 				
 				getSourceJdbcTemplate(source).batchUpdate(deleteSql.split(";")); // use batch update since SQL translation may produce multiple statements
@@ -9,9 +9,9 @@ public class CohortGenerationRequest {
     private Source source;
     private String sessionId;
     private String targetSchema;
-    private Integer targetId;
+    private Long targetId;
 
-    public CohortGenerationRequest(CohortExpression expression, Source source, String sessionId, Integer targetId, String targetSchema) {
+    public CohortGenerationRequest(CohortExpression expression, Source source, String sessionId, Long targetId, String targetSchema) {
 
         this.expression = expression;
         this.source = source;
@@ -40,7 +40,7 @@ public class CohortGenerationRequest {
         return targetSchema;
     }
 
-    public Integer getTargetId() {
+    public Long getTargetId() {
 
         return targetId;
     }
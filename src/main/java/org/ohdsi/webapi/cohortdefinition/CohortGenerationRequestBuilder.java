@@ -9,7 +9,7 @@ public class CohortGenerationRequestBuilder {
     private Source source;
     private String sessionId;
     private String targetSchema;
-    private Integer targetId;
+    private Long targetId;
 
     public CohortGenerationRequestBuilder(String sessionId, String targetSchema) {
 
@@ -29,7 +29,7 @@ public class CohortGenerationRequestBuilder {
         return this;
     }
 
-    public CohortGenerationRequestBuilder withTargetId(Integer targetId) {
+    public CohortGenerationRequestBuilder withTargetId(Long targetId) {
 
         this.targetId = targetId;
         return this;
@@ -1,6 +1,5 @@
 package org.ohdsi.webapi.cohortdefinition;
 
-import org.apache.commons.lang3.StringUtils;
 
 import org.ohdsi.circe.cohortdefinition.CohortExpressionQueryBuilder;
 import org.ohdsi.circe.cohortdefinition.InclusionRule;
@@ -8,13 +7,16 @@ import org.ohdsi.sql.SqlRender;
 import org.ohdsi.sql.SqlSplit;
 import org.ohdsi.sql.SqlTranslate;
 import org.ohdsi.webapi.source.Source;
+import org.ohdsi.webapi.util.MetadataBatchWriter;
 import org.ohdsi.webapi.util.SourceUtils;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.ohdsi.webapi.Constants.Params.TARGET_COHORT_ID;
 import static org.ohdsi.webapi.Constants.Params.TARGET_DATABASE_SCHEMA;
 import static org.ohdsi.webapi.Constants.Params.DESIGN_HASH;
 
@@ -26,21 +28,25 @@ import static org.ohdsi.webapi.Constants.Tables.COHORT_SUMMARY_STATS_CACHE;
 
 public class CohortGenerationUtils {
 
-  public static void insertInclusionRules(CohortDefinition cohortDef, Source source, int designHash,
+  public static void insertInclusionRules(CohortDefinition cohortDef, Source source, long designHash,
                                           String targetSchema, String sessionId, JdbcTemplate jdbcTemplate) {
     final String oracleTempSchema = SourceUtils.getTempQualifier(source);
     String deleteSql = String.format("DELETE FROM %s.cohort_inclusion WHERE cohort_definition_id = %d;", targetSchema, cohortDef.getId());
     String translatedDeleteSql = SqlTranslate.translateSql(deleteSql, source.getSourceDialect(), sessionId, oracleTempSchema);
     Arrays.stream(SqlSplit.splitSql(translatedDeleteSql)).forEach(jdbcTemplate::execute);
 
-    String insertSql = StringUtils.replace("INSERT INTO @target_schema.cohort_inclusion (cohort_definition_id, design_hash, rule_sequence, name, description) VALUES (?,?,?,?,?)", "@target_schema", targetSchema);
-    String translatedInsertSql = SqlTranslate.translateSql(insertSql, source.getSourceDialect(), sessionId, oracleTempSchema);
+    String insertSql = "INSERT INTO @target_schema.cohort_inclusion (cohort_definition_id, design_hash, rule_sequence, name, description) VALUES (@cohort_definition_id,@design_hash,@rule_sequence,@name,@description)";
+    String[] params = {"cohort_definition_id", "design_hash", "rule_sequence", "name", "description"};
+    MetadataBatchWriter writer = new MetadataBatchWriter(source, insertSql, new String[] {"target_schema"},
+      new String[] {targetSchema}, params, sessionId);
     List<InclusionRule> inclusionRules = cohortDef.getExpression().inclusionRules;
+    List<Object[]> rows = new ArrayList<>(inclusionRules.size());
     for (int i = 0; i< inclusionRules.size(); i++)
     {
       InclusionRule r = inclusionRules.get(i);
-      jdbcTemplate.update(translatedInsertSql, new Object[] { cohortDef.getId(), designHash, i, r.name, r.description});
+      rows.add(new Object[] { cohortDef.getId(), designHash, i, r.name, r.description});
     }
+    writer.write(jdbcTemplate, rows);
   }
   
   public static String[] buildGenerationSql(CohortGenerationRequest request) {
@@ -55,7 +61,8 @@ public class CohortGenerationUtils {
 
     CohortExpressionQueryBuilder.BuildExpressionQueryOptions options = new CohortExpressionQueryBuilder.BuildExpressionQueryOptions();
     options.cohortIdFieldName = DESIGN_HASH;
-    options.cohortId = request.getTargetId();
+    // cohortId of the builder is an int, the 64-bit design hash is rendered below
+    options.cohortId = null;
     options.cdmSchema = cdmSchema;
     options.vocabularySchema = vocabSchema;
     options.generateStats = true; // always generate with stats
@@ -85,8 +92,8 @@ public class CohortGenerationUtils {
 
     String renderedSql = SqlRender.renderSql(
       sqlBuilder.toString(),
-      new String[] {TARGET_DATABASE_SCHEMA},
-      new String[]{request.getTargetSchema()}
+      new String[] {TARGET_DATABASE_SCHEMA, TARGET_COHORT_ID},
+      new String[]{request.getTargetSchema(), request.getTargetId().toString()}
     );
     String translatedSql = SqlTranslate.translateSql(renderedSql, source.getSourceDialect(), request.getSessionId(), oracleTempSchema);
     return SqlSplit.splitSql(translatedSql);
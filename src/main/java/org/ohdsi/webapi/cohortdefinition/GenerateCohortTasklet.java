@@ -76,14 +76,16 @@ public class GenerateCohortTasklet extends CancelableTasklet implements Stoppabl
         targetSchema
     );
 
-    int designHash = this.generationCacheHelper.computeHash(cohortDefinition.getDetails().getExpression());
+    long designHash = this.generationCacheHelper.computeHash(source, cohortDefinition.getDetails().getExpression());
     CohortGenerationUtils.insertInclusionRules(cohortDefinition, source, designHash, targetSchema, sessionId, jdbcTemplate);
     
     GenerationCacheHelper.CacheResult res = generationCacheHelper.computeCacheIfAbsent(
         cohortDefinition,
         source,
+        designHash,
         generationRequestBuilder,
-        (resId, sqls) -> generationCacheHelper.runCancelableCohortGeneration(jdbcTemplate, stmtCancel, sqls)
+        (resId, sqls) -> generationCacheHelper.runCancelableCohortGeneration(jdbcTemplate, stmtCancel, sqls),
+        stmtCancel::isCanceled
     );
 
     String sql = SqlRender.renderSql(
@@ -5,7 +5,7 @@ import org.ohdsi.webapi.job.JobExecutionResource;
 import org.ohdsi.webapi.job.JobTemplate;
 import org.ohdsi.webapi.source.Source;
 import org.ohdsi.webapi.source.SourceDaimon;
-import org.ohdsi.webapi.source.SourceRepository;
+import org.ohdsi.webapi.source.SourceService;
 import org.ohdsi.webapi.util.PreparedStatementRenderer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,18 +33,18 @@ public class CleanupCohortSamplesTasklet implements Tasklet {
 	private static final Logger log = LoggerFactory.getLogger(CleanupCohortTasklet.class);
 
 	private final TransactionTemplate transactionTemplate;
-	private final SourceRepository sourceRepository;
+	private final SourceService sourceService;
 	private final CohortSamplingService samplingService;
 	private final CohortSampleRepository sampleRepository;
 
 	public CleanupCohortSamplesTasklet(
 			final TransactionTemplate transactionTemplate,
-			final SourceRepository sourceRepository,
+			final SourceService sourceService,
 			CohortSamplingService samplingService,
 			CohortSampleRepository sampleRepository
 	) {
 		this.transactionTemplate = transactionTemplate;
-		this.sourceRepository = sourceRepository;
+		this.sourceService = sourceService;
 		this.samplingService = samplingService;
 		this.sampleRepository = sampleRepository;
 	}
@@ -55,14 +55,14 @@ public class CleanupCohortSamplesTasklet implements Tasklet {
 
 		if (jobParams.containsKey(SOURCE_ID)) {
 			int sourceId = Integer.parseInt(jobParams.get(SOURCE_ID).toString());
-			Source source = this.sourceRepository.findOne(sourceId);
+			Source source = this.sourceService.findBySourceId(sourceId);
 			if (source != null) {
 				return mapSource(source, cohortDefinitionId);
 			} else {
 				return 0;
 			}
 		} else {
-			return this.sourceRepository.findAll().stream()
+			return this.sourceService.getSources().stream()
 					.filter(source-> source.getDaimons()
 							.stream()
 							.anyMatch(daimon -> daimon.getDaimonType() == SourceDaimon.DaimonType.Results))
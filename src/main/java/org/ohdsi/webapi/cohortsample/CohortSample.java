@@ -54,6 +54,9 @@ public class CohortSample extends CommonEntity<Integer> {
 	@Column(name = "\"size\"")
 	private int size;
 
+	@Column(name = "seed")
+	private Long seed;
+
 	@Transient
 	private List<SampleElement> elements;
 
@@ -136,4 +139,12 @@ public class CohortSample extends CommonEntity<Integer> {
 	public void setAgeMode(String ageMode) {
 		this.ageMode = ageMode;
 	}
+
+	public Long getSeed() {
+		return seed;
+	}
+
+	public void setSeed(Long seed) {
+		this.seed = seed;
+	}
 }
@@ -9,11 +9,13 @@ import org.ohdsi.webapi.shiro.Entities.UserEntity;
 import org.ohdsi.webapi.source.Source;
 import org.ohdsi.webapi.source.SourceDaimon;
 import org.ohdsi.webapi.user.dto.UserDTO;
+import org.ohdsi.webapi.util.MetadataBatchWriter;
 import org.ohdsi.webapi.util.PreparedStatementRenderer;
 import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.support.TransactionCallback;
@@ -22,7 +24,6 @@ import javax.ws.rs.BadRequestException;
 import javax.ws.rs.NotFoundException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -30,6 +31,7 @@ import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.ohdsi.sql.SqlTranslate;
@@ -43,6 +45,10 @@ import org.ohdsi.webapi.util.SourceUtils;
  */
 @Component
 public class CohortSamplingService extends AbstractDaoService {
+	private static final Collection<String> CURSOR_FETCH_DIALECTS = Arrays.asList("postgresql", "redshift");
+	// rows of the cohort held in memory at once while it is scanned
+	private static final int FETCH_SIZE = 1000;
+
 	private final CohortSampleRepository sampleRepository;
 	private final JobBuilderFactory jobBuilders;
 	private final StepBuilderFactory stepBuilders;
@@ -71,7 +77,7 @@ public class CohortSamplingService extends AbstractDaoService {
 		if (sample == null) {
 			throw new NotFoundException("Cohort sample with ID " + sampleId + " not found");
 		}
-		Source source = getSourceRepository().findBySourceId(sample.getSourceId());
+		Source source = getSourceService().findBySourceId(sample.getSourceId());
 		List<SampleElement> sampleElements = findSampleElements(source, sample.getId(), withRecordCounts);
 		return sampleToSampleDTO(sample, sampleElements, true);
 	}
@@ -127,6 +133,7 @@ public class CohortSamplingService extends AbstractDaoService {
 		sample.setCohortDefinitionId(cohortDefinitionId);
 		sample.setSourceId(source.getId());
 		sample.setSize(sampleParameters.getSize());
+		sample.setSeed(sampleParameters.getSeed());
 
 		SampleParametersDTO.AgeDTO age = sampleParameters.getAge();
 		if (age != null) {
@@ -200,13 +207,14 @@ public class CohortSamplingService extends AbstractDaoService {
 		if (sample == null) {
 			throw new NotFoundException("Cohort sample with ID " + sampleId + " not found");
 		}
-		Source source = getSourceRepository().findBySourceId(sample.getSourceId());
+		Source source = getSourceService().findBySourceId(sample.getSourceId());
 		
 		CohortSampleDTO sampleDto = sampleToSampleDTO(sample, null, true);
 		SampleParametersDTO sampleParamaters = new SampleParametersDTO();
 		sampleParamaters.setAge(sampleDto.getAge());
 		sampleParamaters.setGender(sampleDto.getGender());
 		sampleParamaters.setSize(sampleDto.getSize());
+		sampleParamaters.setSeed(sampleDto.getSeed());
 		log.info("Sampling {} elements for cohort {}", sampleParamaters.getSize(), sample.getCohortDefinitionId());
 		JdbcTemplate jdbcTemplate = getSourceJdbcTemplate(source);
 		final List<SampleElement> elements = sampleElements(sampleParamaters, sample, jdbcTemplate, source);		
@@ -234,6 +242,7 @@ public class CohortSamplingService extends AbstractDaoService {
 			sampleDTO.setSourceId(sample.getSourceId());
 		}
 		sampleDTO.setCreatedDate(sample.getCreatedDate());
+		sampleDTO.setSeed(sample.getSeed());
 		UserEntity createdBy = sample.getCreatedBy();
 		if (createdBy != null) {
 			UserDTO userDto = new UserDTO();
@@ -313,26 +322,17 @@ public class CohortSamplingService extends AbstractDaoService {
 		String[] parameterValues = new String[] { source.getTableQualifier(SourceDaimon.DaimonType.Results) };
 		String[] sqlParameters = new String[] { "cohortSampleId", "rank", "personId", "age", "genderConceptId" };
 
-		String statement = null;
-		List<Object[]> variables = new ArrayList<>(elements.size());
-		for (SampleElement element : elements) {
-			Object[] sqlValues = new Object[] {
-					sampleId,
-					element.getRank(),
-					element.getPersonId(),
-					element.getAge(),
-					element.getGenderConceptId() };
-
-			PreparedStatementRenderer renderer = new PreparedStatementRenderer(source, "/resources/cohortsample/sql/insertSampleElement.sql", parameters, parameterValues, sqlParameters, sqlValues);
-
-			if (statement == null) {
-				statement = renderer.getSql();
-			}
-
-			variables.add(renderer.getOrderedParams());
-		}
+		List<Object[]> rows = elements.stream()
+				.map(element -> new Object[] {
+						sampleId,
+						element.getRank(),
+						element.getPersonId(),
+						element.getAge(),
+						element.getGenderConceptId() })
+				.collect(Collectors.toList());
 
-		jdbcTemplate.batchUpdate(statement, variables);
+		new MetadataBatchWriter(source, "/resources/cohortsample/sql/insertSampleElement.sql", parameters, parameterValues, sqlParameters, null)
+				.write(jdbcTemplate, rows);
 	}
 
 	/** Sample elements based on parameters. */
@@ -372,7 +372,7 @@ public class CohortSamplingService extends AbstractDaoService {
 					sqlVariables.put("age_max", sample.getAgeMax());
 					break;
 				case NOT_BETWEEN:
-					expressionBuilder.append(" AND age > @age_max OR age < @age_min");
+					expressionBuilder.append(" AND (age > @age_max OR age < @age_min)");
 					sqlVariables.put("age_min", sample.getAgeMin());
 					sqlVariables.put("age_max", sample.getAgeMax());
 					break;
@@ -429,16 +429,30 @@ public class CohortSamplingService extends AbstractDaoService {
 				sqlVariableKeys,
 				sqlVariableValues);
 
-		jdbcTemplate.setMaxRows(sample.getSize());
-
-		return jdbcTemplate.query(renderer.getSql(), renderer.getOrderedParams(), (rs, rowNum) -> {
+		// the filtered cohort is scanned once and sampled on the fly instead of being sorted by RAND() on the database
+		long seed = sampleParametersDTO.getSeed() != null ? sampleParametersDTO.getSeed() : ThreadLocalRandom.current().nextLong();
+		ReservoirSampler sampler = new ReservoirSampler(sample.getSize(), seed);
+		RowCallbackHandler sampleRow = rs -> {
 			SampleElement element = new SampleElement();
-			element.setRank(rowNum);
 			element.setAge(rs.getInt("age"));
 			element.setGenderConceptId(rs.getInt("gender_concept_id"));
 			element.setPersonId(rs.getLong("person_id"));
-			return element;
-		});
+			sampler.offer(element);
+		};
+
+		if (CURSOR_FETCH_DIALECTS.contains(source.getSourceDialect())) {
+			// these drivers only fetch rows by the fetch size with autocommit off, otherwise the whole cohort is read into memory
+			executeInTransaction(source, sourceJdbcTemplate -> (TransactionCallback<Void>) transactionStatus -> {
+				sourceJdbcTemplate.setFetchSize(FETCH_SIZE);
+				sourceJdbcTemplate.query(renderer.getSql(), renderer.getOrderedParams(), sampleRow);
+				return null;
+			});
+		} else {
+			jdbcTemplate.setFetchSize(FETCH_SIZE);
+			jdbcTemplate.query(renderer.getSql(), renderer.getOrderedParams(), sampleRow);
+		}
+
+		return sampler.getSample();
 	}
 
 	/** Delete a sample and its elements. */
@@ -483,7 +497,7 @@ public class CohortSamplingService extends AbstractDaoService {
 	}
 
 	public CleanupCohortSamplesTasklet createDeleteSamplesTasklet() {
-		return new CleanupCohortSamplesTasklet(getTransactionTemplate(), getSourceRepository(), this, sampleRepository);
+		return new CleanupCohortSamplesTasklet(getTransactionTemplate(), getSourceService(), this, sampleRepository);
 	}
 
 	/** Maps a SQL result to a sample element. */
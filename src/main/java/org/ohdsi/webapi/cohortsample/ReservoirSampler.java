@@ -0,0 +1,86 @@
+package org.ohdsi.webapi.cohortsample;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Bounded reservoir that keeps the {@code size} sample elements with the smallest seeded person hash.
+ * Elements are offered one by one while the cohort is scanned, so only the reservoir is held in memory.
+ * Because the sampling key depends on the seed and person ID only, the same seed produces the same sample
+ * regardless of the order in which the database returns the rows.
+ */
+class ReservoirSampler {
+	private final int size;
+	private final long seed;
+	private final PriorityQueue<Candidate> reservoir;
+	private final Set<Long> sampledPersons;
+
+	ReservoirSampler(int size, long seed) {
+		this.size = size;
+		this.seed = mix(seed);
+		this.reservoir = new PriorityQueue<>(Math.max(size, 1), (a, b) -> Long.compareUnsigned(b.getKey(), a.getKey()));
+		this.sampledPersons = new HashSet<>();
+	}
+
+	/** Offer an element to the reservoir. A person is sampled at most once. */
+	void offer(SampleElement element) {
+		if (size <= 0 || sampledPersons.contains(element.getPersonId())) {
+			return;
+		}
+		long key = mix(element.getPersonId() ^ seed);
+		if (reservoir.size() < size) {
+			add(new Candidate(key, element));
+		} else if (Long.compareUnsigned(key, reservoir.peek().getKey()) < 0) {
+			Candidate evicted = reservoir.poll();
+			sampledPersons.remove(evicted.getElement().getPersonId());
+			add(new Candidate(key, element));
+		}
+	}
+
+	/** @return sampled elements ordered by their sampling key, with ranks assigned in that order. */
+	List<SampleElement> getSample() {
+		List<Candidate> candidates = new ArrayList<>(reservoir);
+		candidates.sort((a, b) -> Long.compareUnsigned(a.getKey(), b.getKey()));
+		List<SampleElement> result = new ArrayList<>(candidates.size());
+		for (int i = 0; i < candidates.size(); i++) {
+			SampleElement element = candidates.get(i).getElement();
+			element.setRank(i);
+			result.add(element);
+		}
+		return result;
+	}
+
+	private void add(Candidate candidate) {
+		reservoir.add(candidate);
+		sampledPersons.add(candidate.getElement().getPersonId());
+	}
+
+	/** SplitMix64 finalizer, spreads person IDs uniformly over the unsigned 64-bit range. */
+	static long mix(long value) {
+		long z = value + 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	private static class Candidate {
+		private final long key;
+		private final SampleElement element;
+
+		Candidate(long key, SampleElement element) {
+			this.key = key;
+			this.element = element;
+		}
+
+		long getKey() {
+			return key;
+		}
+
+		SampleElement getElement() {
+			return element;
+		}
+	}
+}
@@ -47,6 +47,11 @@ public class CohortSampleDTO {
 	 */
 	private SampleParametersDTO.GenderDTO gender;
 
+	/**
+	 * Seed used to create the sample, if one was requested.
+	 */
+	private Long seed;
+
 	/**
 	 * Actually sampled elements.
 	 */
@@ -124,6 +129,14 @@ public class CohortSampleDTO {
 		this.gender = gender;
 	}
 
+	public Long getSeed() {
+		return seed;
+	}
+
+	public void setSeed(Long seed) {
+		this.seed = seed;
+	}
+
 	public void setName(String name) {
 		this.name = name;
 	}
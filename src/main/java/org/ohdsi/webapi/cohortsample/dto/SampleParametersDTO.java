@@ -24,6 +24,9 @@ public class SampleParametersDTO {
 	/** Age criteria. */
 	private AgeDTO age;
 
+	/** Optional seed, samples drawn with the same seed from the same cohort are identical. */
+	private Long seed;
+
 	/**
 	 * Validate this DTO.
 	 * @throws BadRequestException if the DTO is not valid.
@@ -78,6 +81,14 @@ public class SampleParametersDTO {
 		this.name = name;
 	}
 
+	public Long getSeed() {
+		return seed;
+	}
+
+	public void setSeed(Long seed) {
+		this.seed = seed;
+	}
+
 	public enum AgeMode {
 		LESS_THAN("lessThan"),
 		LESS_THAN_OR_EQUAL("lessThanOrEqual"),
@@ -12,7 +12,6 @@ import java.sql.SQLException;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.Callable;
-import java.util.concurrent.FutureTask;
 
 public abstract class CancelableTasklet extends StoppableTransactionalTasklet<int[]> implements StoppableTasklet {
 
@@ -42,9 +41,7 @@ public abstract class CancelableTasklet extends StoppableTransactionalTasklet<in
       }
     }
 
-    FutureTask<int[]> batchUpdateTask = new FutureTask<>(execution);
-    taskExecutor.execute(batchUpdateTask);
-    return waitForFuture(batchUpdateTask);
+    return runAndWait(execution);
   }
 
   protected String[] prepareQueries(ChunkContext chunkContext, CancelableJdbcTemplate jdbcTemplate) {
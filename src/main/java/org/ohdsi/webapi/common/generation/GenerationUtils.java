@@ -103,7 +103,6 @@ public class GenerationUtils extends AbstractDaoService {
 
         TempTableCleanupManager cleanupManager = new TempTableCleanupManager(
                 getSourceJdbcTemplate(source),
-                transactionTemplate,
                 source.getSourceDialect(),
                 sessionId,
                 SourceUtils.getTempQualifier(source)
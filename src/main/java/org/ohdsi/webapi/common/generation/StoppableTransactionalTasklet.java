@@ -9,28 +9,42 @@ import org.springframework.batch.core.step.tasklet.StoppableTasklet;
 import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.FutureTask;
 
 public abstract class StoppableTransactionalTasklet<T> extends TransactionalTasklet<T> implements StoppableTasklet {
 
-  protected final long checkInterval = 1000L;
   private volatile boolean stopped = false;
+  private final CompletableFuture<Void> stopRequest = new CompletableFuture<>();
 
   public StoppableTransactionalTasklet(Logger log, TransactionTemplate transactionTemplate) {
     super(log, transactionTemplate);
   }
 
-  protected int[] waitForFuture(FutureTask<int[]> futureTask) {
+  /**
+   * Runs the execution on the task executor and waits until it completes or the tasklet is stopped, whichever comes
+   * first. The waiting thread is woken up by the completion or the stop request itself, there is no polling.
+   *
+   * @return result of the execution or null if the tasklet has been stopped
+   */
+  protected int[] runAndWait(Callable<int[]> execution) {
+
+      CompletableFuture<Void> completion = new CompletableFuture<>();
+      FutureTask<int[]> futureTask = new FutureTask<int[]>(execution) {
+          @Override
+          protected void done() {
+              completion.complete(null);
+          }
+      };
+      taskExecutor.execute(futureTask);
       try {
-          while (true) {
-              Thread.sleep(checkInterval);
-              if (futureTask.isDone()) {
-                  return futureTask.get();
-              } else if (isStopped()) {
-                  futureTask.cancel(true);
-                  return null;
-              }
+          CompletableFuture.anyOf(completion, stopRequest).get();
+          if (futureTask.isDone()) {
+              return futureTask.get();
           }
+          futureTask.cancel(true);
+          return null;
       } catch (Exception e) {
           if (isStopped() && e.getCause() instanceof DataAccessResourceFailureException) {
             // ignore exception
@@ -55,5 +69,6 @@ public abstract class StoppableTransactionalTasklet<T> extends TransactionalTask
   @Override
   public void stop() {
       this.stopped = true;
+      stopRequest.complete(null);
   }
 }
@@ -0,0 +1,114 @@
+package org.ohdsi.webapi.common.generation;
+
+import com.google.common.collect.Lists;
+import org.ohdsi.webapi.service.AbstractDaoService;
+import org.ohdsi.webapi.source.Source;
+import org.ohdsi.webapi.util.SourceUtils;
+import org.ohdsi.webapi.util.TempTableCleanupManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.ohdsi.webapi.Constants.Params.SESSION_ID;
+
+/**
+ * Removes tables emulating temp tables which were left behind by generations, e.g. when the application was stopped
+ * before the generation could clean up. Only tables of sessions of generation jobs which have ended longer than the
+ * configured age ago are removed, tables of running jobs (including restarts of an ended execution) and tables not
+ * created by WebAPI are left alone.
+ */
+@Component
+public class TempTableSweeper extends AbstractDaoService {
+
+    private static final Logger log = LoggerFactory.getLogger(TempTableSweeper.class);
+
+    // SqlRender prefixes names of emulated temp tables with the session id, which is 8 characters long
+    static final int SESSION_ID_LENGTH = 8;
+    private static final int MAX_IN_LIST_SIZE = 1000;
+    // a restarted job reuses the parameters, and so the session, of the execution which ended
+    private static final String ENDED_SESSIONS_SQL = "SELECT DISTINCT LOWER(p.string_val) FROM %1$s.batch_job_execution_params p " +
+            "JOIN %1$s.batch_job_execution e ON e.job_execution_id = p.job_execution_id " +
+            "WHERE p.key_name = ? AND e.end_time < ? AND LOWER(p.string_val) IN (%2$s) " +
+            "AND NOT EXISTS (SELECT 1 FROM %1$s.batch_job_execution_params rp " +
+            "JOIN %1$s.batch_job_execution r ON r.job_execution_id = rp.job_execution_id " +
+            "WHERE rp.key_name = p.key_name AND LOWER(rp.string_val) = LOWER(p.string_val) AND r.end_time IS NULL)";
+
+    @Value("${temp.cleanup.sweeper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${temp.cleanup.sweeper.maxAge:24}")
+    private long maxAgeHours;
+
+    @Scheduled(fixedDelayString = "${temp.cleanup.sweeper.interval:3600000}", initialDelayString = "${temp.cleanup.sweeper.interval:3600000}")
+    public void sweep() {
+
+        if (!enabled) {
+            return;
+        }
+        Timestamp endedBefore = new Timestamp(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(maxAgeHours));
+        for (Source source : getSourceService().getSources()) {
+            String tempSchema = SourceUtils.getTempQualifierOrNull(source);
+            TempTableCleanupManager cleanupManager = new TempTableCleanupManager(getSourceJdbcTemplate(source),
+                    source.getSourceDialect(), null, tempSchema);
+            if (tempSchema == null || !cleanupManager.isApplicable()) {
+                continue;
+            }
+            try {
+                Map<String, List<String>> tablesBySession = groupBySession(cleanupManager.listTables("%"));
+                Set<String> endedSessions = findEndedSessions(tablesBySession.keySet(), endedBefore);
+                List<String> orphanedTables = endedSessions.stream()
+                        .flatMap(sessionId -> tablesBySession.get(sessionId).stream())
+                        .collect(Collectors.toList());
+                if (!orphanedTables.isEmpty()) {
+                    log.info("Removing {} orphaned temp tables of {} sessions at {}", orphanedTables.size(), endedSessions.size(), tempSchema);
+                    cleanupManager.dropTables(orphanedTables);
+                }
+            } catch (RuntimeException e) {
+                // the source may be unavailable, it is swept again next time
+                log.warn("Failed to remove orphaned temp tables of source {}", source.getSourceKey(), e);
+            }
+        }
+    }
+
+    /**
+     * @param tableNames qualified table names
+     * @return table names by the session id their name starts with, in lower case
+     */
+    static Map<String, List<String>> groupBySession(Collection<String> tableNames) {
+
+        return tableNames.stream()
+                .filter(table -> table.substring(table.lastIndexOf('.') + 1).length() > SESSION_ID_LENGTH)
+                .collect(Collectors.groupingBy(table -> {
+                    String name = table.substring(table.lastIndexOf('.') + 1);
+                    return name.substring(0, SESSION_ID_LENGTH).toLowerCase(Locale.ROOT);
+                }));
+    }
+
+    private Set<String> findEndedSessions(Collection<String> sessionIds, Timestamp endedBefore) {
+
+        Set<String> endedSessions = new HashSet<>();
+        for (List<String> chunk : Lists.partition(new ArrayList<>(sessionIds), MAX_IN_LIST_SIZE)) {
+            String placeholders = chunk.stream().map(sessionId -> "?").collect(Collectors.joining(", "));
+            List<Object> params = new ArrayList<>();
+            params.add(SESSION_ID);
+            params.add(endedBefore);
+            params.addAll(chunk);
+            endedSessions.addAll(getJdbcTemplate().queryForList(String.format(ENDED_SESSIONS_SQL, getOhdsiSchema(), placeholders),
+                    params.toArray(), String.class));
+        }
+        return endedSessions;
+    }
+}
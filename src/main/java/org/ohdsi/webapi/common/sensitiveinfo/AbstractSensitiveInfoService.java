@@ -7,6 +7,7 @@ import org.ohdsi.circe.helper.ResourceHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
 import org.springframework.expression.ParseException;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
@@ -16,74 +17,208 @@ import javax.annotation.PostConstruct;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.Writer;
+import java.nio.CharBuffer;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 public class AbstractSensitiveInfoService extends AbstractAdminService {
 
   protected static final Logger LOGGER = LoggerFactory.getLogger(SensitiveFilter.class);
 
-  private Collection<SensitiveFilter> filters;
+  // Streamed text is filtered in chunks of at most this many chars, split on line breaks where possible
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private List<SensitiveFilter> filters;
+
+  // All filters combined into a single alternation, so the text is scanned once regardless of the number of filters
+  private Pattern pattern;
+
+  // The same for streamed text, built from the line regexes since a match cannot span chunks
+  private Pattern linePattern;
 
   @PostConstruct
   public void init() {
 
     String filterSource = ResourceHelper.GetResourceAsString("/resources/generation/sensitive_filters.csv");
     filters = new ArrayList<>();
+    ExpressionParser parser = new SpelExpressionParser();
     try(Reader in = new StringReader(filterSource)) {
-      try(CSVParser parser = new CSVParser(in, CSVFormat.RFC4180)) {
-        for (final CSVRecord record : parser) {
-          filters.add(new SensitiveFilter(record.get(0), record.get(1)));
+      try(CSVParser csvParser = new CSVParser(in, CSVFormat.RFC4180)) {
+        int group = 1;
+        int lineGroup = 1;
+        for (final CSVRecord record : csvParser) {
+          String regex = record.get(0);
+          String expression = record.get(1);
+          // optional third column: regex for streamed files, which must not match across line breaks
+          String lineRegex = record.size() > 2 ? record.get(2) : regex;
+          try {
+            filters.add(new SensitiveFilter(regex, lineRegex, expression, parser.parseExpression(expression), group, lineGroup));
+            group += Pattern.compile(regex).matcher("").groupCount() + 1;
+            lineGroup += Pattern.compile(lineRegex).matcher("").groupCount() + 1;
+          } catch (ParseException e) {
+            LOGGER.warn("Cannot parse expression: {}", expression, e);
+          }
         }
       }
     } catch (IOException e) {
       throw new BeanInitializationException("Failed to read sensitive_filters.csv", e);
     }
+    pattern = combine(SensitiveFilter::getRegex);
+    linePattern = combine(SensitiveFilter::getLineRegex);
+  }
+
+  private Pattern combine(Function<SensitiveFilter, String> regex) {
+
+    return filters.isEmpty() ? null : Pattern.compile(filters.stream()
+            .map(filter -> "(" + regex.apply(filter) + ")")
+            .collect(Collectors.joining("|")));
   }
 
   protected String filterSensitiveInfo(String text, Map<String, Object> variables, boolean isAdmin) {
 
     String result = text;
-    if (Objects.nonNull(result) && !isAdmin) {
-      ExpressionParser parser = new SpelExpressionParser();
-      StandardEvaluationContext context = new StandardEvaluationContext();
-      if (Objects.nonNull(variables)) {
-        context.setVariables(variables);
+    if (Objects.nonNull(result) && !isAdmin && Objects.nonNull(pattern)) {
+      StringBuilder builder = new StringBuilder(result.length());
+      try {
+        replace(pattern, SensitiveFilter::getGroup, result, resolveReplacements(variables), builder);
+      } catch (IOException e) {
+        // StringBuilder does not throw
+        throw new IllegalStateException(e);
       }
-      //Apply filter
-      for (SensitiveFilter filter : filters) {
-        try {
-          String value = parser.parseExpression(filter.expression).getValue(context, String.class);
-          result = result.replaceAll(filter.regex, value);
-        } catch (ParseException e) {
-          LOGGER.warn("Cannot parse expression: {}", filter.expression, e);
+      result = builder.toString();
+    }
+    return result;
+  }
+
+  /**
+   * Copies text from {@code in} to {@code out} replacing sensitive info on the way. Only a bounded buffer is kept in
+   * memory, so the line regexes of the filters are used and a single match cannot span more than one line or
+   * {@link #BUFFER_SIZE} chars.
+   */
+  protected void filterSensitiveInfo(Reader in, Writer out, Map<String, Object> variables, boolean isAdmin) throws IOException {
+
+    String[] replacements = !isAdmin && Objects.nonNull(pattern) ? resolveReplacements(variables) : null;
+    char[] buffer = new char[BUFFER_SIZE];
+    int length = 0;
+    boolean eof = false;
+    while (!eof || length > 0) {
+      while (!eof && length < buffer.length) {
+        int read = in.read(buffer, length, buffer.length - length);
+        if (read < 0) {
+          eof = true;
+        } else {
+          length += read;
         }
       }
+      int end = eof ? length : chunkEnd(buffer, length);
+      if (Objects.nonNull(replacements)) {
+        replace(linePattern, SensitiveFilter::getLineGroup, CharBuffer.wrap(buffer, 0, end), replacements, out);
+      } else {
+        out.write(buffer, 0, end);
+      }
+      System.arraycopy(buffer, end, buffer, 0, length - end);
+      length -= end;
     }
-    return result;
   }
 
   public boolean isAdmin() {
     return super.isAdmin();
   }
 
+  private String[] resolveReplacements(Map<String, Object> variables) {
+
+    StandardEvaluationContext context = new StandardEvaluationContext();
+    if (Objects.nonNull(variables)) {
+      context.setVariables(variables);
+    }
+    String[] replacements = new String[filters.size()];
+    for (int i = 0; i < filters.size(); i++) {
+      replacements[i] = filters.get(i).getCompiledExpression().getValue(context, String.class);
+    }
+    return replacements;
+  }
+
+  private void replace(Pattern pattern, ToIntFunction<SensitiveFilter> group, CharSequence text, String[] replacements,
+                       Appendable out) throws IOException {
+
+    Matcher matcher = pattern.matcher(text);
+    int position = 0;
+    while (matcher.find()) {
+      out.append(text, position, matcher.start());
+      out.append(replacements[matchedFilter(matcher, group)]);
+      position = matcher.end();
+    }
+    out.append(text, position, text.length());
+  }
+
+  private int matchedFilter(Matcher matcher, ToIntFunction<SensitiveFilter> group) {
+
+    for (int i = 0; i < filters.size(); i++) {
+      if (matcher.start(group.applyAsInt(filters.get(i))) >= 0) {
+        return i;
+      }
+    }
+    throw new IllegalStateException("Match does not belong to any sensitive filter");
+  }
+
+  private static int chunkEnd(char[] buffer, int length) {
+
+    for (int i = length - 1; i >= 0; i--) {
+      if (buffer[i] == '\n') {
+        return i + 1;
+      }
+    }
+    return length;
+  }
+
   static class SensitiveFilter {
     private String regex;
+    private String lineRegex;
     private String expression;
+    private Expression compiledExpression;
+    private int group;
+    private int lineGroup;
 
-    public SensitiveFilter(String regex, String expression) {
+    public SensitiveFilter(String regex, String lineRegex, String expression, Expression compiledExpression, int group,
+                           int lineGroup) {
       this.regex = regex;
+      this.lineRegex = lineRegex;
       this.expression = expression;
+      this.compiledExpression = compiledExpression;
+      this.group = group;
+      this.lineGroup = lineGroup;
     }
 
     public String getRegex() {
       return regex;
     }
 
+    public String getLineRegex() {
+      return lineRegex;
+    }
+
     public String getExpression() {
       return expression;
     }
+
+    public Expression getCompiledExpression() {
+      return compiledExpression;
+    }
+
+    public int getGroup() {
+      return group;
+    }
+
+    public int getLineGroup() {
+      return lineGroup;
+    }
   }
 }
@@ -3,14 +3,13 @@ package org.ohdsi.webapi.executionengine.controller;
 import com.odysseusinc.arachne.execution_engine_common.api.v1.dto.AnalysisExecutionStatusDTO;
 import com.odysseusinc.arachne.execution_engine_common.api.v1.dto.AnalysisResultDTO;
 import com.odysseusinc.arachne.execution_engine_common.api.v1.dto.AnalysisResultStatusDTO;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.IOUtils;
 import org.glassfish.jersey.media.multipart.BodyPartEntity;
 import org.glassfish.jersey.media.multipart.FormDataBodyPart;
 import org.glassfish.jersey.media.multipart.FormDataMultiPart;
 import org.hibernate.Hibernate;
 import org.ohdsi.webapi.executionengine.entity.AnalysisResultFileContent;
-import org.ohdsi.webapi.executionengine.entity.AnalysisResultFileContentList;
 import org.ohdsi.webapi.executionengine.entity.ExecutionEngineAnalysisStatus;
 import org.ohdsi.webapi.executionengine.entity.ExecutionEngineGenerationEntity;
 import org.ohdsi.webapi.executionengine.exception.ScriptCallbackException;
@@ -18,6 +17,7 @@ import org.ohdsi.webapi.executionengine.repository.AnalysisExecutionRepository;
 import org.ohdsi.webapi.executionengine.repository.AnalysisResultFileContentRepository;
 import org.ohdsi.webapi.executionengine.repository.ExecutionEngineGenerationRepository;
 import org.ohdsi.webapi.executionengine.service.AnalysisResultFileContentSensitiveInfoService;
+import org.ohdsi.webapi.executionengine.service.AnalysisResultFileStore;
 import org.ohdsi.webapi.executionengine.service.AnalysisZipRepackService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,7 +32,12 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.core.MediaType;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.ohdsi.webapi.Constants.Variables.SOURCE;
 import static org.ohdsi.webapi.executionengine.entity.ExecutionEngineAnalysisStatus.Status.RUNNING;
@@ -50,6 +55,8 @@ public class ScriptExecutionCallbackController {
 
     private static final Logger log = LoggerFactory.getLogger(ScriptExecutionCallbackController.class);
     private static final String EXECUTION_NOT_FOUND = "Analysis execution with id {%d} not found";
+    private static final String STDOUT_FILENAME = "stdout.txt";
+    private static final String TEMPDIR_PREFIX = "webapi-exec-result";
 
     private final ExecutionEngineGenerationRepository executionEngineGenerationRepository;
 
@@ -61,6 +68,8 @@ public class ScriptExecutionCallbackController {
 
     private final AnalysisZipRepackService analysisZipRepackService;
 
+    private final AnalysisResultFileStore analysisResultFileStore;
+
     @Value("${analysis.result.zipVolumeSizeMb}")
     private int zipVolumeSizeMb;
 
@@ -69,13 +78,15 @@ public class ScriptExecutionCallbackController {
                                              AnalysisExecutionRepository analysisExecutionRepository,
                                              AnalysisResultFileContentRepository analysisResultFileContentRepository,
                                              AnalysisResultFileContentSensitiveInfoService sensitiveInfoService,
-                                             AnalysisZipRepackService analysisZipRepackService) {
+                                             AnalysisZipRepackService analysisZipRepackService,
+                                             AnalysisResultFileStore analysisResultFileStore) {
 
         this.executionEngineGenerationRepository = executionEngineGenerationRepository;
         this.analysisExecutionRepository = analysisExecutionRepository;
         this.analysisResultFileContentRepository = analysisResultFileContentRepository;
         this.sensitiveInfoService = sensitiveInfoService;
         this.analysisZipRepackService = analysisZipRepackService;
+        this.analysisResultFileStore = analysisResultFileStore;
     }
 
     /**
@@ -158,47 +169,67 @@ public class ScriptExecutionCallbackController {
     private void processAndSaveAnalysisResultFiles(
             FormDataMultiPart multiPart,
             ExecutionEngineAnalysisStatus analysisExecution,
-            AnalysisResultDTO analysisResultDTO) {
+            AnalysisResultDTO analysisResultDTO) throws IOException {
 
         Map<String, Object> variables = Collections.singletonMap(SOURCE, analysisExecution.getExecutionEngineGeneration().getSource());
 
-        List<FormDataBodyPart> bodyParts = multiPart.getFields("file");
-        AnalysisResultFileContentList contentList = new AnalysisResultFileContentList();
-        if (bodyParts != null) {
-            Map<String,Integer> duplicates = new HashMap<>();
-            for (FormDataBodyPart bodyPart : bodyParts) {
-                BodyPartEntity bodyPartEntity =
-                        (BodyPartEntity) bodyPart.getEntity();
-                String fileName = bodyPart.getContentDisposition().getFileName();
-                String extension = FilenameUtils.getExtension(fileName);
-                int count = duplicates.getOrDefault(fileName, 0) + 1;
-                duplicates.put(fileName, count);
-                if (count > 1) {
-                    fileName = FilenameUtils.getBaseName(fileName) + " (" + count + ")." + extension;
+        // Result files are spooled to disk and processed there, so large bundles are never held in memory
+        Path temporaryDir = Files.createTempDirectory(TEMPDIR_PREFIX);
+        try {
+            Map<String, String> mediaTypes = new HashMap<>();
+            List<FormDataBodyPart> bodyParts = multiPart.getFields("file");
+            if (bodyParts != null) {
+                Map<String,Integer> duplicates = new HashMap<>();
+                // the stdout file name is reserved, an uploaded file of the same name is renamed like a duplicate
+                duplicates.put(STDOUT_FILENAME, 1);
+                for (FormDataBodyPart bodyPart : bodyParts) {
+                    BodyPartEntity bodyPartEntity =
+                            (BodyPartEntity) bodyPart.getEntity();
+                    String fileName = bodyPart.getContentDisposition().getFileName();
+                    String extension = FilenameUtils.getExtension(fileName);
+                    int count = duplicates.getOrDefault(fileName, 0) + 1;
+                    duplicates.put(fileName, count);
+                    if (count > 1) {
+                        fileName = FilenameUtils.getBaseName(fileName) + " (" + count + ")." + extension;
+                    }
+                    try (InputStream in = bodyPartEntity.getInputStream()) {
+                        Files.copy(in, temporaryDir.resolve(fileName));
+                        mediaTypes.put(fileName, bodyPart.getMediaType().getType());
+                    } catch (IOException e) {
+                        throw new ScriptCallbackException("Unable to read result " + "files");
+                    }
                 }
-                try {
-                    byte[] contents = IOUtils.toByteArray(bodyPartEntity.getInputStream());
+            }
+            Files.write(temporaryDir.resolve(STDOUT_FILENAME), analysisResultDTO.getStdout().getBytes());
+            mediaTypes.put(STDOUT_FILENAME, MediaType.TEXT_PLAIN);
+
+            // We have to filter all files for current execution because of possibility of archives split into volumes
+            // Volumes will be removed during decompressing and compressing
+            try {
+                sensitiveInfoService.filterSensitiveInfo(temporaryDir, variables);
+            } catch (IOException e) {
+                log.error("Files filtering error", e);
+            }
 
-                    AnalysisResultFileContent resultFileContent = new AnalysisResultFileContent(analysisExecution, fileName,
-                            bodyPart.getMediaType().getType(), contents);
-                    contentList.getFiles().add(resultFileContent);
+            analysisZipRepackService.process(temporaryDir, zipVolumeSizeMb);
 
-                } catch (IOException e) {
-                    throw new ScriptCallbackException("Unable to read result " + "files");
+            Map<AnalysisResultFileContent, Path> contents = new HashMap<>();
+            try (Stream<Path> files = Files.list(temporaryDir)) {
+                for (Path file : files.collect(Collectors.toList())) {
+                    String fileName = file.getFileName().toString();
+                    contents.put(new AnalysisResultFileContent(analysisExecution, fileName,
+                            mediaTypes.getOrDefault(fileName, AnalysisZipRepackService.MEDIA_TYPE), null), file);
                 }
             }
+            // the rows are inserted first, the database store streams each file into its row
+            analysisResultFileContentRepository.save(contents.keySet());
+            analysisResultFileContentRepository.flush();
+            for (Map.Entry<AnalysisResultFileContent, Path> entry : contents.entrySet()) {
+                analysisResultFileStore.write(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            FileUtils.deleteQuietly(temporaryDir.toFile());
         }
-        AnalysisResultFileContent resultFileContent = new AnalysisResultFileContent(analysisExecution, "stdout.txt", MediaType.TEXT_PLAIN,
-                analysisResultDTO.getStdout().getBytes());
-        contentList.getFiles().add(resultFileContent);
-
-        // We have to filter all files for current execution because of possibility of archives split into volumes
-        // Volumes will be removed during decompressing and compressing
-        contentList = sensitiveInfoService.filterSensitiveInfo(contentList, variables);
-
-        List<AnalysisResultFileContent> analysisRepackResult = analysisZipRepackService.process(contentList.getFiles(), zipVolumeSizeMb);
-        analysisResultFileContentRepository.save(analysisRepackResult);
-
     }
 
 }
@@ -77,6 +77,11 @@ public class AnalysisResultFile {
         this.fileName = fileName;
     }
 
+    public AnalysisResultFileContent getContent() {
+
+        return content;
+    }
+
     public byte[] getContents() {
 
         return content.getContents();
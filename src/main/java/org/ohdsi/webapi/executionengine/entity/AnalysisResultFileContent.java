@@ -1,5 +1,7 @@
 package org.ohdsi.webapi.executionengine.entity;
 
+import org.hibernate.annotations.DynamicUpdate;
+
 import javax.persistence.Basic;
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -10,6 +12,8 @@ import javax.persistence.MapsId;
 import javax.persistence.OneToOne;
 
 @Entity(name = "output_file_contents")
+// the database result store writes file_contents directly, updates of the entity must not overwrite it
+@DynamicUpdate
 public class AnalysisResultFileContent {
 
     @Id
@@ -25,6 +29,12 @@ public class AnalysisResultFileContent {
     @Basic(fetch = FetchType.LAZY)
     private byte[] contents;
 
+    @Column(name = "storage_key")
+    private String storageKey;
+
+    @Column(name = "checksum")
+    private String checksum;
+
     public AnalysisResultFileContent() {
 
     }
@@ -56,4 +66,24 @@ public class AnalysisResultFileContent {
 
         this.contents = contents;
     }
+
+    public String getStorageKey() {
+
+        return storageKey;
+    }
+
+    public void setStorageKey(String storageKey) {
+
+        this.storageKey = storageKey;
+    }
+
+    public String getChecksum() {
+
+        return checksum;
+    }
+
+    public void setChecksum(String checksum) {
+
+        this.checksum = checksum;
+    }
 }
@@ -3,5 +3,15 @@ package org.ohdsi.webapi.executionengine.service;
 import org.ohdsi.webapi.common.sensitiveinfo.SensitiveInfoService;
 import org.ohdsi.webapi.executionengine.entity.AnalysisResultFileContentList;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
 public interface AnalysisResultFileContentSensitiveInfoService extends SensitiveInfoService<AnalysisResultFileContentList> {
+
+    /**
+     * Filters sensitive info in place in all result files of the directory.
+     * Multivolume archives are merged into a single volume.
+     */
+    void filterSensitiveInfo(Path directory, Map<String, Object> variables) throws IOException;
 }
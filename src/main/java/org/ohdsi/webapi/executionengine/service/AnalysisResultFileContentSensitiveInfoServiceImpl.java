@@ -14,14 +14,23 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.google.common.io.Files.createTempDir;
 
@@ -29,6 +38,7 @@ import static com.google.common.io.Files.createTempDir;
 public class AnalysisResultFileContentSensitiveInfoServiceImpl extends AbstractSensitiveInfoService implements AnalysisResultFileContentSensitiveInfoService {
     private final String EXTENSION_ALL = "*";
     private final String EXTENSION_EMPTY = "-";
+    private final String FILTERED_SUFFIX = ".filtered";
 
     private Set<String> sensitiveExtensions;
 
@@ -60,12 +70,7 @@ public class AnalysisResultFileContentSensitiveInfoServiceImpl extends AbstractS
         try {
             // Save all files to be able to process multivolume archives
             Map<AnalysisResultFileContent, Path> paths = saveFiles(temporaryDir, source.getFiles());
-            paths.forEach((file, path) -> {
-                // Archive volumes will be processed as entire archive
-                if(!AnalysisZipUtils.isArchiveVolume(path)) {
-                    processFile(path, variables);
-                }
-            });
+            filterSensitiveInfo(temporaryDir.toPath(), variables);
             for(Iterator<Map.Entry<AnalysisResultFileContent, Path>> iter = paths.entrySet().iterator(); iter.hasNext();) {
                 Map.Entry<AnalysisResultFileContent, Path> entry = iter.next();
                 AnalysisResultFileContent fileContent = entry.getKey();
@@ -90,6 +95,18 @@ public class AnalysisResultFileContentSensitiveInfoServiceImpl extends AbstractS
         return source;
     }
 
+    @Override
+    public void filterSensitiveInfo(Path directory, Map<String, Object> variables) throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.collect(Collectors.toList());
+        }
+        // Archive volumes will be processed as entire archive
+        files.stream()
+                .filter(path -> !AnalysisZipUtils.isArchiveVolume(path))
+                .forEach(path -> processFile(path, variables));
+    }
+
     @Override
     public boolean isAdmin() {
         return false;
@@ -113,9 +130,16 @@ public class AnalysisResultFileContentSensitiveInfoServiceImpl extends AbstractS
 
     private Path doFilterSensitiveInfo(Path path, Map<String, Object> variables) throws IOException {
         if (isFilteringRequired(path)) {
-            byte[] bytes = Files.readAllBytes(path);
-            final String value = filterSensitiveInfo(new String(bytes), variables, isAdmin());
-            Files.write(path, value.getBytes(), StandardOpenOption.TRUNCATE_EXISTING);
+            Path filtered = Files.createTempFile(path.getParent(), path.getFileName().toString(), FILTERED_SUFFIX);
+            try {
+                try (Reader in = new InputStreamReader(Files.newInputStream(path), Charset.defaultCharset());
+                     Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(filtered), Charset.defaultCharset()))) {
+                    filterSensitiveInfo(in, out, variables, isAdmin());
+                }
+                Files.move(filtered, path, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(filtered);
+            }
         }
         return path;
     }
@@ -0,0 +1,26 @@
+package org.ohdsi.webapi.executionengine.service;
+
+import org.ohdsi.webapi.executionengine.entity.AnalysisResultFile;
+import org.ohdsi.webapi.executionengine.entity.AnalysisResultFileContent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Storage of execution result file contents.
+ */
+public interface AnalysisResultFileStore {
+
+    /**
+     * Stores the contents of {@code file} for the given result file content entity, which must already be persisted.
+     * Stores keeping the data outside of the database update the entity to reference it, the database store writes
+     * the data to the entity's row and leaves the entity as it is.
+     */
+    void write(AnalysisResultFileContent content, Path file) throws IOException;
+
+    /**
+     * Opens the stored contents of a result file. The caller is responsible for closing the stream.
+     */
+    InputStream read(AnalysisResultFile file) throws IOException;
+}
@@ -0,0 +1,33 @@
+package org.ohdsi.webapi.executionengine.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+
+@Configuration
+public class AnalysisResultFileStoreConfig {
+
+    private static final String FILESYSTEM_STORE = "filesystem";
+
+    @Value("${analysis.result.store}")
+    private String storeType;
+
+    @Value("${analysis.result.store.path}")
+    private String storePath;
+
+    @Value("${datasource.ohdsi.schema}")
+    private String ohdsiSchema;
+
+    @Bean
+    public AnalysisResultFileStore analysisResultFileStore(JdbcTemplate jdbcTemplate) throws IOException {
+
+        AnalysisResultFileStore databaseStore = new DatabaseAnalysisResultFileStore(jdbcTemplate, ohdsiSchema);
+        if (FILESYSTEM_STORE.equalsIgnoreCase(storeType)) {
+            return new FileSystemAnalysisResultFileStore(storePath, databaseStore);
+        }
+        return databaseStore;
+    }
+}
@@ -0,0 +1,57 @@
+package org.ohdsi.webapi.executionengine.service;
+
+import org.ohdsi.webapi.service.AbstractDaoService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Removes files of the content-addressed result store which are no longer referenced, e.g. after the executions they
+ * belonged to were deleted together with their output_file_contents rows. Files written less than the configured age
+ * ago are left alone, since the rows referencing them may not be committed yet.
+ */
+@Component
+public class AnalysisResultFileSweeper extends AbstractDaoService {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalysisResultFileSweeper.class);
+
+    private static final String STORAGE_KEYS_SQL = "SELECT DISTINCT storage_key FROM %s.output_file_contents WHERE storage_key IS NOT NULL";
+
+    private final AnalysisResultFileStore analysisResultFileStore;
+
+    @Value("${analysis.result.store.sweeper.maxAge:24}")
+    private long maxAgeHours;
+
+    public AnalysisResultFileSweeper(AnalysisResultFileStore analysisResultFileStore) {
+
+        this.analysisResultFileStore = analysisResultFileStore;
+    }
+
+    @Scheduled(fixedDelayString = "${analysis.result.store.sweeper.interval:86400000}", initialDelayString = "${analysis.result.store.sweeper.interval:86400000}")
+    public void sweep() {
+
+        if (!(analysisResultFileStore instanceof FileSystemAnalysisResultFileStore)) {
+            return;
+        }
+        Instant modifiedBefore = Instant.now().minus(maxAgeHours, ChronoUnit.HOURS);
+        // keys are read before the files are listed, so a file stored meanwhile is newer than the cut-off
+        Set<String> referencedKeys = new HashSet<>(getJdbcTemplate().queryForList(
+                String.format(STORAGE_KEYS_SQL, getOhdsiSchema()), String.class));
+        try {
+            int removed = ((FileSystemAnalysisResultFileStore) analysisResultFileStore).removeUnreferenced(referencedKeys, modifiedBefore);
+            if (removed > 0) {
+                log.info("Removed {} unreferenced result files", removed);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to remove unreferenced result files", e);
+        }
+    }
+}
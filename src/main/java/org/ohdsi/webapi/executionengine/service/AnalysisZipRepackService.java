@@ -10,6 +10,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.io.FileUtils;
@@ -66,6 +67,25 @@ public class AnalysisZipRepackService {
         return analysisRepackResult;
     }
 
+    /**
+     * Splits an oversized result archive of the directory into volumes in place.
+     * The archive is streamed from disk, so its contents are never loaded into memory.
+     */
+    public void process(Path directory, int zipVolumeSizeMb) throws IOException {
+
+        long zipVolumeSizeBytes = zipVolumeSizeMb * 1024L * 1024L;
+        Path analysisResultZipPath;
+        try (Stream<Path> files = Files.list(directory)) {
+            analysisResultZipPath = files
+                    .filter(path -> AnalysisZipUtils.isResultArchive(path.getFileName().toString()))
+                    .filter(path -> path.toFile().length() > zipVolumeSizeBytes)
+                    .findFirst().orElse(null);
+        }
+        if (analysisResultZipPath != null) {
+            AnalysisZipUtils.repackZipWithMultivalue(analysisResultZipPath, zipVolumeSizeMb);
+        }
+    }
+
     private List<AnalysisResultFileContent> getContentsForMultivalueZip(File temporaryDir, AnalysisResultFileContent analysisResultContent) throws IOException {
 
         ExecutionEngineAnalysisStatus execution = analysisResultContent.getAnalysisResultFile().getExecution();
@@ -0,0 +1,50 @@
+package org.ohdsi.webapi.executionengine.service;
+
+import org.ohdsi.webapi.executionengine.entity.AnalysisResultFile;
+import org.ohdsi.webapi.executionengine.entity.AnalysisResultFileContent;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Keeps result file contents as a blob in the output_file_contents table. The blob is streamed from the file into
+ * the already inserted row, so the contents are never held in memory as a whole.
+ */
+public class DatabaseAnalysisResultFileStore implements AnalysisResultFileStore {
+
+    private static final String UPDATE_CONTENTS_SQL = "UPDATE %s.output_file_contents SET file_contents = ?, checksum = ? " +
+            "WHERE output_file_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String ohdsiSchema;
+
+    public DatabaseAnalysisResultFileStore(JdbcTemplate jdbcTemplate, String ohdsiSchema) {
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.ohdsiSchema = ohdsiSchema;
+    }
+
+    @Override
+    public void write(AnalysisResultFileContent content, Path file) throws IOException {
+
+        String checksum = ResultFileChecksum.of(file);
+        long size = Files.size(file);
+        try (InputStream in = Files.newInputStream(file)) {
+            jdbcTemplate.update(String.format(UPDATE_CONTENTS_SQL, ohdsiSchema), ps -> {
+                ps.setBinaryStream(1, in, size);
+                ps.setString(2, checksum);
+                ps.setLong(3, content.getAnalysisResultFile().getId());
+            });
+        }
+    }
+
+    @Override
+    public InputStream read(AnalysisResultFile file) throws IOException {
+
+        return new ByteArrayInputStream(file.getContents());
+    }
+}
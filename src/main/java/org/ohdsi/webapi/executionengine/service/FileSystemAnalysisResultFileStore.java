@@ -0,0 +1,103 @@
+package org.ohdsi.webapi.executionengine.service;
+
+import org.ohdsi.webapi.executionengine.entity.AnalysisResultFile;
+import org.ohdsi.webapi.executionengine.entity.AnalysisResultFileContent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store of result files on the local file system. Files are kept under their SHA-256 checksum,
+ * so identical results are stored only once, and verified against it while they are read back. Contents saved in the
+ * database before the store was enabled are still read from the database. Files which are no longer referenced by any
+ * output_file_contents row are removed by {@link AnalysisResultFileSweeper}.
+ */
+public class FileSystemAnalysisResultFileStore implements AnalysisResultFileStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileSystemAnalysisResultFileStore.class);
+
+    private final Path root;
+    private final AnalysisResultFileStore fallback;
+
+    public FileSystemAnalysisResultFileStore(String root, AnalysisResultFileStore fallback) throws IOException {
+
+        this.root = Files.createDirectories(Paths.get(root));
+        this.fallback = fallback;
+    }
+
+    @Override
+    public void write(AnalysisResultFileContent content, Path file) throws IOException {
+
+        Path temp = Files.createTempFile(root, "upload", ".tmp");
+        try {
+            String checksum;
+            try (InputStream in = Files.newInputStream(file); OutputStream out = Files.newOutputStream(temp)) {
+                checksum = ResultFileChecksum.copy(in, out);
+            }
+            Path target = resolve(checksum);
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                LOGGER.debug("Result file {} is already stored", checksum);
+                // the file is referenced again, so the sweeper must not take it for an orphan until the row is saved
+                Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+            }
+            content.setStorageKey(checksum);
+            content.setChecksum(checksum);
+            content.setContents(null);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public InputStream read(AnalysisResultFile file) throws IOException {
+
+        AnalysisResultFileContent content = file.getContent();
+        if (Objects.isNull(content) || Objects.isNull(content.getStorageKey())) {
+            return fallback.read(file);
+        }
+        return ResultFileChecksum.verifying(Files.newInputStream(resolve(content.getStorageKey())), content.getStorageKey());
+    }
+
+    /**
+     * Removes stored files which are not in {@code referencedKeys} and were last written before {@code modifiedBefore}.
+     * Newer files are kept since the rows referencing them may not be committed yet.
+     *
+     * @return the number of removed files
+     */
+    public int removeUnreferenced(Set<String> referencedKeys, Instant modifiedBefore) throws IOException {
+
+        int removed = 0;
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                String key = file.getFileName().toString();
+                if (!referencedKeys.contains(key) && Files.getLastModifiedTime(file).toInstant().isBefore(modifiedBefore)
+                        && Files.deleteIfExists(file)) {
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    private Path resolve(String checksum) {
+
+        return root.resolve(checksum.substring(0, 2)).resolve(checksum.substring(2, 4)).resolve(checksum);
+    }
+}
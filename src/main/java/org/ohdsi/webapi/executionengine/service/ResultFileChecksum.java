@@ -0,0 +1,114 @@
+package org.ohdsi.webapi.executionengine.service;
+
+import com.google.common.io.BaseEncoding;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 checksums of result files, computed chunk by chunk while the data is streamed.
+ */
+public final class ResultFileChecksum {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private ResultFileChecksum() {
+    }
+
+    public static String of(Path file) throws IOException {
+
+        try (InputStream in = Files.newInputStream(file)) {
+            return copy(in, null);
+        }
+    }
+
+    /**
+     * Copies {@code in} to {@code out} (if not null) and returns the hex encoded checksum of the copied data.
+     */
+    public static String copy(InputStream in, OutputStream out) throws IOException {
+
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[CHUNK_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+            if (out != null) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return encode(digest);
+    }
+
+    /**
+     * Wraps {@code in} so that reading it to the end fails when the data read doesn't match {@code checksum}.
+     */
+    public static InputStream verifying(InputStream in, String checksum) {
+
+        return new DigestInputStream(in, newDigest()) {
+            private boolean verified;
+
+            @Override
+            public int read() throws IOException {
+
+                return verify(super.read());
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+
+                return verify(super.read(b, off, len));
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+
+                // skipped bytes have to be digested as well
+                byte[] buffer = new byte[(int) Math.min(n, CHUNK_SIZE)];
+                long skipped = 0;
+                int read;
+                while (skipped < n && (read = read(buffer, 0, (int) Math.min(n - skipped, buffer.length))) != -1) {
+                    skipped += read;
+                }
+                return skipped;
+            }
+
+            @Override
+            public boolean markSupported() {
+
+                return false;
+            }
+
+            private int verify(int read) throws IOException {
+
+                if (read == -1 && !verified) {
+                    verified = true;
+                    String actual = encode(getMessageDigest());
+                    if (!actual.equals(checksum)) {
+                        throw new IOException(String.format("Result file checksum %s doesn't match %s", actual, checksum));
+                    }
+                }
+                return read;
+            }
+        };
+    }
+
+    private static String encode(MessageDigest digest) {
+
+        return BaseEncoding.base16().lowerCase().encode(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -112,6 +112,9 @@ class ScriptExecutionServiceImpl extends AbstractDaoService implements ScriptExe
     @Autowired
     private SourceAccessor sourceAccessor;
 
+    @Autowired
+    private AnalysisResultFileStore analysisResultFileStore;
+
     ScriptExecutionServiceImpl() throws KeyManagementException, NoSuchAlgorithmException {
 
         HttpsURLConnection.setDefaultHostnameVerifier((hostname, session) -> true);
@@ -306,12 +309,11 @@ class ScriptExecutionServiceImpl extends AbstractDaoService implements ScriptExe
     }
 
 
-    private void addFileToZip(ZipFile resultZip, AnalysisResultFile resultFile) throws ZipException {
+    private void addFileToZip(ZipFile resultZip, AnalysisResultFile resultFile) throws IOException {
 
-        resultZip.addStream(
-                new ByteArrayInputStream(resultFile.getContents()),
-                getHeadersForFilesThatWillBeAddedToZip(resultFile.getFileName())
-        );
+        try (InputStream in = analysisResultFileStore.read(resultFile)) {
+            resultZip.addStream(in, getHeadersForFilesThatWillBeAddedToZip(resultFile.getFileName()));
+        }
     }
 
     private void copyContentOfOneZipToAnotherZip(List<AnalysisResultFile> zipWithMultivolume, ZipFile resultZip, Path tempDirectory) throws IOException, ZipException {
@@ -332,10 +334,9 @@ class ScriptExecutionServiceImpl extends AbstractDaoService implements ScriptExe
             ZipFile outZipFile = new ZipFile(zipFile);
             //getFileHeaders return not generic List, that is already fixed in the last version of library
             for (FileHeader header : (List< FileHeader>) outZipFile.getFileHeaders()) {
-                resultZip.addStream(
-                        outZipFile.getInputStream(header),
-                        getHeadersForFilesThatWillBeAddedToZip(header.getFileName())
-                );
+                try (InputStream in = outZipFile.getInputStream(header)) {
+                    resultZip.addStream(in, getHeadersForFilesThatWillBeAddedToZip(header.getFileName()));
+                }
             }
         }
     }
@@ -351,7 +352,9 @@ class ScriptExecutionServiceImpl extends AbstractDaoService implements ScriptExe
     private File saveZipFileToTempDirectory(AnalysisResultFile resultFile, Path tempDirectory) throws IOException {
 
         File file = tempDirectory.resolve(resultFile.getFileName()).toFile();
-        FileUtils.writeByteArrayToFile(file, resultFile.getContents());
+        try (InputStream in = analysisResultFileStore.read(resultFile)) {
+            FileUtils.copyInputStreamToFile(in, file);
+        }
         return file;
     }
 }
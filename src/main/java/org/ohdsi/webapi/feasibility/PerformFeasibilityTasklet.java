@@ -22,7 +22,7 @@ import org.ohdsi.sql.SqlTranslate;
 import org.ohdsi.webapi.GenerationStatus;
 import org.ohdsi.webapi.cohortdefinition.CohortDefinition;
 import org.ohdsi.webapi.cohortdefinition.CohortGenerationInfo;
-import org.ohdsi.webapi.util.PreparedStatementRenderer;
+import org.ohdsi.webapi.util.MetadataBatchWriter;
 import org.ohdsi.webapi.util.SessionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -94,13 +94,14 @@ public class PerformFeasibilityTasklet implements Tasklet {
     this.jdbcTemplate.batchUpdate(sqlStatements);
     String insSql = "INSERT INTO #inclusionRules (study_id, sequence, name) VALUES (@studyId,@iteration,@ruleName)";
     String[] names = new String[]{"studyId", "iteration", "ruleName"};
+    MetadataBatchWriter writer = new MetadataBatchWriter(null, insSql, null, null, names, sessionId);
     List<InclusionRule> inclusionRules = study.getInclusionRules();
+    List<Object[]> rows = new ArrayList<>(inclusionRules.size());
     for (int i = 0; i < inclusionRules.size(); i++) {
       InclusionRule r = inclusionRules.get(i);
-      Object[] values = new Object[]{study.getId(), i, r.getName()};
-      PreparedStatementRenderer psr = new PreparedStatementRenderer(null, insSql, null, (String) null, names, values, sessionId);
-      jdbcTemplate.update(psr.getSql(), psr.getSetter());
+      rows.add(new Object[]{study.getId(), i, r.getName()});
     }
+    writer.write(jdbcTemplate, rows);
   }
 
   private void cleanupTempTables(String dialect, String sessionId) {
@@ -18,6 +18,9 @@ public class CleanupScheduler {
     @Value("${cache.generation.invalidAfterDays}")
     private Integer invalidateAfterDays;
 
+    @Value("${cache.generation.verify.enabled:false}")
+    private boolean verifyEnabled;
+
     public CleanupScheduler(GenerationCacheService generationCacheService, GenerationCacheRepository generationCacheRepository) {
 
         this.generationCacheService = generationCacheService;
@@ -33,4 +36,12 @@ public class CleanupScheduler {
         );
         caches.forEach(gc -> generationCacheService.removeCache(gc.getType(), gc.getSource(), gc.getDesignHash()));
     }
+
+    @Scheduled(fixedDelayString = "${cache.generation.verify.interval:86400000}")
+    public void verifyCache() {
+
+        if (verifyEnabled) {
+            generationCacheService.verifyCaches();
+        }
+    }
 }
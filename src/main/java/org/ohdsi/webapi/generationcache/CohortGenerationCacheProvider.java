@@ -1,5 +1,7 @@
 package org.ohdsi.webapi.generationcache;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.ohdsi.analysis.Utils;
 import org.ohdsi.circe.cohortdefinition.CohortExpression;
 import org.ohdsi.circe.helper.ResourceHelper;
@@ -17,7 +19,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.ohdsi.webapi.Constants.Params.DESIGN_HASH;
 import static org.ohdsi.webapi.Constants.Params.RESULTS_DATABASE_SCHEMA;
@@ -29,8 +42,18 @@ public class CohortGenerationCacheProvider extends AbstractDaoService implements
     private static final String CACHE_VALIDATION_TIME = "Checksum of Generation cache for designHash = {} has been calculated in {} milliseconds";
 
     private static final String COHORT_CHECKSUM_SQL_PATH = "/resources/generationcache/cohort/resultsChecksum.sql";
+    private static final String COHORT_COUNT_SQL_PATH = "/resources/generationcache/cohort/resultsCount.sql";
+    private static final String[] CHECKSUM_COLUMNS = {"row_count", "subject_sum", "start_date_sum", "end_date_sum"};
     private static final String COHORT_RESULTS_SQL = ResourceHelper.GetResourceAsString("/resources/generationcache/cohort/results.sql");
     private static final String CLEANUP_SQL = ResourceHelper.GetResourceAsString("/resources/generationcache/cohort/cleanup.sql");
+    private static final String DESIGN_HASH_COLUMNS_SQL = ResourceHelper.GetResourceAsString("/resources/generationcache/cohort/designHashColumns.sql");
+    private static final String NARROW_DESIGN_HASH = "Results schema of source {} has 32-bit design_hash columns, generation caches use the legacy design hash. " +
+            "Alter design_hash of cohort_inclusion and all cohort_*cache tables to bigint to use the collision resistant one";
+    private static final int WIDE_HASH_PRECISION = 19;
+    private static final ObjectMapper CANONICAL_MAPPER = new ObjectMapper().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    private final Set<Integer> wideHashSources = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> narrowHashSources = ConcurrentHashMap.newKeySet();
 
     @Override
     public boolean supports(CacheableGenerationType type) {
@@ -39,23 +62,89 @@ public class CohortGenerationCacheProvider extends AbstractDaoService implements
     }
 
     @Override
-    public Integer getDesignHash(String design) {
+    public Long getDesignHash(Source source, String design) {
+
+        String expression = getCleanExpression(design);
+        if (supportsWideDesignHash(source)) {
+            return getCanonicalHash(expression);
+        }
+        CohortDefinitionDetails cohortDetails = new CohortDefinitionDetails();
+        cohortDetails.setExpression(expression);
+        return cohortDetails.calculateHashCode().longValue();
+    }
+
+    /**
+     * @return expression without elements that do not determine results output (names, descriptions, etc)
+     */
+    static String getCleanExpression(String design) {
 
-        // remove elements from object that do not determine results output (names, descriptions, etc)
         CohortExpression cleanExpression = CohortExpression.fromJson(design);
         cleanExpression.title=null;
         cleanExpression.inclusionRules.forEach((rule) -> {
             rule.name = null;
             rule.description = null;
         });
-        
-        CohortDefinitionDetails cohortDetails = new CohortDefinitionDetails();
-        cohortDetails.setExpression(Utils.serialize(cleanExpression));
-        return cohortDetails.calculateHashCode();
+        return Utils.serialize(cleanExpression);
+    }
+
+    /**
+     * 64-bit prefix of SHA-256 of the expression with object keys in canonical order
+     */
+    static long getCanonicalHash(String expression) {
+
+        try {
+            Object tree = CANONICAL_MAPPER.readValue(expression, Object.class);
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(CANONICAL_MAPPER.writeValueAsBytes(tree));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot compute design hash", e);
+        }
+    }
+
+    /**
+     * Results schemas created before design hashes got wider keep 32-bit design_hash columns, their generations are
+     * keyed by the legacy hash until the columns of all tables keyed by it are altered to bigint. Since the answer may
+     * change while the columns are altered, a generation computes its hash once and passes it on.
+     */
+    private boolean supportsWideDesignHash(Source source) {
+
+        if (wideHashSources.contains(source.getSourceId())) {
+            return true;
+        }
+        String sql = SqlRender.renderSql(
+                DESIGN_HASH_COLUMNS_SQL,
+                new String[]{RESULTS_DATABASE_SCHEMA},
+                new String[]{SourceUtils.getResultsQualifier(source)}
+        );
+        sql = SqlTranslate.translateSql(sql, source.getSourceDialect());
+        boolean wide;
+        try {
+            wide = getSourceJdbcTemplate(source).query(sql, rs -> {
+                ResultSetMetaData metaData = rs.getMetaData();
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    int type = metaData.getColumnType(i);
+                    boolean wideColumn = type == Types.BIGINT
+                            || ((type == Types.NUMERIC || type == Types.DECIMAL) && metaData.getPrecision(i) >= WIDE_HASH_PRECISION);
+                    if (!wideColumn) {
+                        return false;
+                    }
+                }
+                return true;
+            });
+        } catch (Exception e) {
+            log.debug("Cannot read design hash columns of source {}", source.getSourceKey(), e);
+            wide = false;
+        }
+        if (wide) {
+            wideHashSources.add(source.getSourceId());
+        } else if (narrowHashSources.add(source.getSourceId())) {
+            log.warn(NARROW_DESIGN_HASH, source.getSourceKey());
+        }
+        return wide;
     }
 
     @Override
-    public String getResultsChecksum(Source source, Integer designHash) {
+    public String getResultsChecksum(Source source, Long designHash) {
 
         long startTime = System.currentTimeMillis();
         PreparedStatementRenderer psr = new PreparedStatementRenderer(
@@ -67,13 +156,36 @@ public class CohortGenerationCacheProvider extends AbstractDaoService implements
                 designHash,
                 SessionUtils.sessionId()
         );
-        String checksum = getSourceJdbcTemplate(source).queryForObject(psr.getSql(), psr.getOrderedParams(), String.class);
+        String checksum = getSourceJdbcTemplate(source).queryForObject(psr.getSql(), psr.getOrderedParams(), (rs, rowNum) -> {
+            List<String> parts = new ArrayList<>(CHECKSUM_COLUMNS.length);
+            for (String column : CHECKSUM_COLUMNS) {
+                // sums are null for empty results
+                BigDecimal value = rs.getBigDecimal(column);
+                parts.add(value != null ? value.toBigInteger().toString() : "0");
+            }
+            return String.join(CHECKSUM_DELIMITER, parts);
+        });
         log.info(CACHE_VALIDATION_TIME, designHash, System.currentTimeMillis() - startTime);
         return checksum;
     }
 
     @Override
-    public String getResultsSql(Integer designHash) {
+    public long getResultsCount(Source source, Long designHash) {
+
+        PreparedStatementRenderer psr = new PreparedStatementRenderer(
+                source,
+                COHORT_COUNT_SQL_PATH,
+                "@" + RESULTS_DATABASE_SCHEMA,
+                SourceUtils.getResultsQualifier(source),
+                DESIGN_HASH,
+                designHash,
+                SessionUtils.sessionId()
+        );
+        return getSourceJdbcTemplate(source).queryForObject(psr.getSql(), psr.getOrderedParams(), Long.class);
+    }
+
+    @Override
+    public String getResultsSql(Long designHash) {
 
         return SqlRender.renderSql(
                 COHORT_RESULTS_SQL,
@@ -83,7 +195,7 @@ public class CohortGenerationCacheProvider extends AbstractDaoService implements
     }
 
     @Override
-    public void remove(Source source, Integer designHash) {
+    public void remove(Source source, Long designHash) {
 
         String sql = SqlRender.renderSql(
                 CLEANUP_SQL,
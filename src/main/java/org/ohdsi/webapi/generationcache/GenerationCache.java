@@ -39,7 +39,7 @@ public class GenerationCache {
     private CacheableGenerationType type;
 
     @Column(name = "design_hash")
-    private Integer designHash;
+    private Long designHash;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "source_id")
@@ -71,12 +71,12 @@ public class GenerationCache {
         this.type = type;
     }
 
-    public Integer getDesignHash() {
+    public Long getDesignHash() {
 
         return designHash;
     }
 
-    public void setDesignHash(Integer designHash) {
+    public void setDesignHash(Long designHash) {
 
         this.designHash = designHash;
     }
@@ -5,6 +5,7 @@ import org.ohdsi.webapi.cohortdefinition.CohortDefinition;
 import org.ohdsi.webapi.cohortdefinition.CohortGenerationRequest;
 import org.ohdsi.webapi.cohortdefinition.CohortGenerationRequestBuilder;
 import org.ohdsi.webapi.cohortdefinition.CohortGenerationUtils;
+import org.ohdsi.webapi.metrics.CacheMetrics;
 import org.ohdsi.webapi.source.Source;
 import org.ohdsi.webapi.util.CancelableJdbcTemplate;
 import org.ohdsi.webapi.util.SourceUtils;
@@ -15,7 +16,9 @@ import org.springframework.stereotype.Component;
 
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
 import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import static org.ohdsi.webapi.Constants.Params.RESULTS_DATABASE_SCHEMA;
@@ -24,59 +27,99 @@ import static org.ohdsi.webapi.Constants.Params.RESULTS_DATABASE_SCHEMA;
 public class GenerationCacheHelper {
 
     private static final Logger log = LoggerFactory.getLogger(GenerationCacheHelper.class);
+    private static final String CACHE_NAME = "generation";
     private static final String CACHE_USED = "Using cached generation results for %s with id=%s and source=%s";
-    private static final ConcurrentHashMap<CacheableResource, Object> monitors = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<CacheableResource, LocalMonitor> monitors = new ConcurrentHashMap<>();
     private final TransactionTemplate transactionTemplateRequiresNew;
 
     private final GenerationCacheService generationCacheService;
+    private final GenerationLeaseManager generationLeaseManager;
 
-    public GenerationCacheHelper(GenerationCacheService generationCacheService, TransactionTemplate transactionTemplateRequiresNew) {
+    public GenerationCacheHelper(GenerationCacheService generationCacheService, TransactionTemplate transactionTemplateRequiresNew,
+                                 GenerationLeaseManager generationLeaseManager) {
 
         this.generationCacheService = generationCacheService;
         this.transactionTemplateRequiresNew = transactionTemplateRequiresNew;
+        this.generationLeaseManager = generationLeaseManager;
     }
 
-    public Integer computeHash(String expression) {
-        return generationCacheService.getDesignHash(CacheableGenerationType.COHORT, expression);
+    public Long computeHash(Source source, String expression) {
+        return generationCacheService.getDesignHash(CacheableGenerationType.COHORT, source, expression);
     }
-    public CacheResult computeCacheIfAbsent(CohortDefinition cohortDefinition, Source source, CohortGenerationRequestBuilder requestBuilder, BiConsumer<Integer, String[]> sqlExecutor) {
+    public CacheResult computeCacheIfAbsent(CohortDefinition cohortDefinition, Source source, CohortGenerationRequestBuilder requestBuilder, BiConsumer<Long, String[]> sqlExecutor) {
+
+        Long designHash = computeHash(source, cohortDefinition.getDetails().getExpression());
+        return computeCacheIfAbsent(cohortDefinition, source, designHash, requestBuilder, sqlExecutor);
+    }
+
+    public CacheResult computeCacheIfAbsent(CohortDefinition cohortDefinition, Source source, Long designHash,
+                                            CohortGenerationRequestBuilder requestBuilder, BiConsumer<Long, String[]> sqlExecutor) {
+
+        return computeCacheIfAbsent(cohortDefinition, source, designHash, requestBuilder, sqlExecutor, () -> false);
+    }
+
+    /**
+     * @param designHash hash computed by {@link #computeHash(Source, String)} for this generation. The kind of hash
+     *                   depends on the results schema, so it is computed once and used for everything the generation
+     *                   keys by it
+     * @param stopped    tells whether the generation has been stopped, then it doesn't wait for other generations of
+     *                   the same design any longer
+     */
+    public CacheResult computeCacheIfAbsent(CohortDefinition cohortDefinition, Source source, Long designHash,
+                                            CohortGenerationRequestBuilder requestBuilder, BiConsumer<Long, String[]> sqlExecutor,
+                                            BooleanSupplier stopped) {
 
         CacheableGenerationType type = CacheableGenerationType.COHORT;
-        Integer designHash = computeHash(cohortDefinition.getDetails().getExpression());
 
         log.info("Computes cache if absent for type = {}, design = {}, source id = {}", type, designHash.toString(), source.getSourceId());
 
-        synchronized (monitors.computeIfAbsent(new CacheableResource(type, designHash, source.getSourceId()), cr -> new Object())) {
-            // we execute the synchronized block in a separate transaction to make the cache changes visible immediately to all other threads
-            return transactionTemplateRequiresNew.execute(s -> {
-                log.info("Retrieves or invalidates cache for cohort id = {}", cohortDefinition.getId());
-                GenerationCache cache = generationCacheService.getCacheOrEraseInvalid(type, designHash, source.getSourceId());
-                if (cache == null) {
-                    log.info("Cache is absent for cohort id = {}. Calculating with design hash = {}", cohortDefinition.getId(), designHash);
-                    // Ensure that there are no records in results schema with which we could mess up
-                    generationCacheService.removeCache(type, source, designHash);
-                    CohortGenerationRequest cohortGenerationRequest = requestBuilder
-                            .withExpression(cohortDefinition.getDetails().getExpressionObject())
-                            .withSource(source)
-                            .withTargetId(designHash)
-                            .build();
-                    String[] sqls = CohortGenerationUtils.buildGenerationSql(cohortGenerationRequest);
-                    sqlExecutor.accept(designHash, sqls);
-                    cache = generationCacheService.cacheResults(CacheableGenerationType.COHORT, designHash, source.getSourceId());
-                } else {
-                    log.info(String.format(CACHE_USED, type, cohortDefinition.getId(), source.getSourceKey()));
-                }
-                String sql = SqlRender.renderSql(
-                        generationCacheService.getResultsSql(cache),
-                        new String[]{RESULTS_DATABASE_SCHEMA},
-                        new String[]{SourceUtils.getResultsQualifier(source)}
-                );
-                log.info("Finished computation cache if absent for cohort id = {}", cohortDefinition.getId());
-                return new CacheResult(cache.getDesignHash(), sql);
-            });                    
+        CacheableResource resource = new CacheableResource(type, designHash, source.getSourceId());
+        // threads of this node wait for the permit of the local monitor, so that only one of them polls the cluster-wide lease;
+        // whoever gets the lease after the leader has finished finds its results in the cache
+        LocalMonitor monitor = monitors.compute(resource, (r, m) -> m == null ? new LocalMonitor() : m.retain());
+        try {
+            try (GenerationLeaseManager.Lease ignored = generationLeaseManager.acquire(type, designHash, source.getSourceId(), monitor.permit, stopped)) {
+                return computeCacheIfAbsent(type, designHash, cohortDefinition, source, requestBuilder, sqlExecutor);
+            }
+        } finally {
+            monitors.computeIfPresent(resource, (r, m) -> m.release() ? null : m);
         }
     }
 
+    private CacheResult computeCacheIfAbsent(CacheableGenerationType type, Long designHash, CohortDefinition cohortDefinition, Source source,
+                                             CohortGenerationRequestBuilder requestBuilder, BiConsumer<Long, String[]> sqlExecutor) {
+
+        // we execute the computation in a separate transaction to make the cache changes visible immediately to all other threads
+        return transactionTemplateRequiresNew.execute(s -> {
+            log.info("Retrieves or invalidates cache for cohort id = {}", cohortDefinition.getId());
+            GenerationCache cache = generationCacheService.getCacheOrEraseInvalid(type, designHash, source.getSourceId());
+            if (cache == null) {
+                CacheMetrics.miss(CACHE_NAME, 1);
+                log.info("Cache is absent for cohort id = {}. Calculating with design hash = {}", cohortDefinition.getId(), designHash);
+                // Ensure that there are no records in results schema with which we could mess up
+                generationCacheService.removeCache(type, source, designHash);
+                CohortGenerationRequest cohortGenerationRequest = requestBuilder
+                        .withExpression(cohortDefinition.getDetails().getExpressionObject())
+                        .withSource(source)
+                        .withTargetId(designHash)
+                        .build();
+                String[] sqls = CohortGenerationUtils.buildGenerationSql(cohortGenerationRequest);
+                sqlExecutor.accept(designHash, sqls);
+                cache = generationCacheService.cacheResults(CacheableGenerationType.COHORT, designHash, source.getSourceId());
+            } else {
+                CacheMetrics.hit(CACHE_NAME, 1);
+                log.info(String.format(CACHE_USED, type, cohortDefinition.getId(), source.getSourceKey()));
+            }
+            String sql = SqlRender.renderSql(
+                    generationCacheService.getResultsSql(cache),
+                    new String[]{RESULTS_DATABASE_SCHEMA},
+                    new String[]{SourceUtils.getResultsQualifier(source)}
+            );
+            log.info("Finished computation cache if absent for cohort id = {}", cohortDefinition.getId());
+            return new CacheResult(cache.getDesignHash(), sql);
+        });
+    }
+
     public void runCancelableCohortGeneration(CancelableJdbcTemplate cancelableJdbcTemplate, StatementCancel stmtCancel, String sqls[]) {
 
         cancelableJdbcTemplate.batchUpdate(stmtCancel, sqls);
@@ -88,16 +131,16 @@ public class GenerationCacheHelper {
 
     public class CacheResult {
 
-        private Integer identifier;
+        private Long identifier;
         private String sql;
 
-        public CacheResult(Integer identifier, String sql) {
+        public CacheResult(Long identifier, String sql) {
 
             this.identifier = identifier;
             this.sql = sql;
         }
 
-        public Integer getIdentifier() {
+        public Long getIdentifier() {
 
             return identifier;
         }
@@ -108,13 +151,34 @@ public class GenerationCacheHelper {
         }
     }
 
+    private static class LocalMonitor {
+
+        private final Semaphore permit = new Semaphore(1);
+        // guarded by the monitors map
+        private int holders = 1;
+
+        private LocalMonitor retain() {
+
+            holders++;
+            return this;
+        }
+
+        /**
+         * @return true if there are no holders left and the monitor can be evicted
+         */
+        private boolean release() {
+
+            return --holders == 0;
+        }
+    }
+
     private static class CacheableResource {
 
         private CacheableGenerationType type;
-        private Integer designHash;
+        private Long designHash;
         private Integer sourceId;
 
-        public CacheableResource(CacheableGenerationType type, Integer designHash, Integer sourceId) {
+        public CacheableResource(CacheableGenerationType type, Long designHash, Integer sourceId) {
 
             this.type = type;
             this.designHash = designHash;
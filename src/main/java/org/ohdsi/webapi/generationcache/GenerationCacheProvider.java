@@ -4,9 +4,20 @@ import org.ohdsi.webapi.source.Source;
 
 public interface GenerationCacheProvider {
 
+    String CHECKSUM_DELIMITER = ":";
+
     boolean supports(CacheableGenerationType type);
-    Integer getDesignHash(String design);
-    String getResultsChecksum(Source source, Integer designHash);
-    String getResultsSql(Integer designHash);
-    void remove(Source source, Integer designHash);
+    /**
+     * @return hash of the parts of the design which determine the results, in the widest form the results schema of
+     * the source can store
+     */
+    Long getDesignHash(Source source, String design);
+    /**
+     * @return fingerprint of the results content, independent of the row order. Starts with the number of rows,
+     * followed by {@link #CHECKSUM_DELIMITER} and content dependent parts
+     */
+    String getResultsChecksum(Source source, Long designHash);
+    long getResultsCount(Source source, Long designHash);
+    String getResultsSql(Long designHash);
+    void remove(Source source, Long designHash);
 }
@@ -11,7 +11,7 @@ import java.util.List;
 
 interface GenerationCacheRepository extends EntityGraphJpaRepository<GenerationCache, Integer> {
 
-    GenerationCache findByTypeAndAndDesignHashAndSource(CacheableGenerationType type, Integer designHash, Source source, EntityGraph entityGraph);
+    GenerationCache findByTypeAndAndDesignHashAndSource(CacheableGenerationType type, Long designHash, Source source, EntityGraph entityGraph);
     List<GenerationCache> findAllByCreatedDateBefore(Date date, EntityGraph entityGraph);
     List<GenerationCache> findAllBySourceSourceId(int source);
 }
@@ -4,9 +4,14 @@ import org.ohdsi.webapi.source.Source;
 
 public interface GenerationCacheService {
 
-    Integer getDesignHash(CacheableGenerationType type, String design);
-    GenerationCache getCacheOrEraseInvalid(CacheableGenerationType type, Integer designHash, Integer sourceId);
+    Long getDesignHash(CacheableGenerationType type, Source source, String design);
+    GenerationCache getCacheOrEraseInvalid(CacheableGenerationType type, Long designHash, Integer sourceId);
     String getResultsSql(GenerationCache cache);
-    GenerationCache cacheResults(CacheableGenerationType type, Integer designHash, Integer sourceId);
-    void removeCache(CacheableGenerationType type, Source source, Integer designHash);
+    GenerationCache cacheResults(CacheableGenerationType type, Long designHash, Integer sourceId);
+    void removeCache(CacheableGenerationType type, Source source, Long designHash);
+
+    /**
+     * Recomputes the content fingerprint of every cache and removes the ones not matching
+     */
+    void verifyCaches();
 }
@@ -1,16 +1,19 @@
 package org.ohdsi.webapi.generationcache;
 
 import com.cosium.spring.data.jpa.entity.graph.domain.EntityGraphUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.ohdsi.webapi.source.Source;
-import org.ohdsi.webapi.source.SourceRepository;
+import org.ohdsi.webapi.source.SourceService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 public class GenerationCacheServiceImpl implements GenerationCacheService {
@@ -18,36 +21,39 @@ public class GenerationCacheServiceImpl implements GenerationCacheService {
     private static final Logger log = LoggerFactory.getLogger(GenerationCacheServiceImpl.class);
     private static final String NO_PROVIDER_ERROR = "There is no generation cache provider which supports %s";
     private static final String CACHE_CREATED = "Cached results of {} with design hash = {}";
+    private static final String CACHE_CHECKSUM_STORED = "Stored results fingerprint for cache with id={} which had only the results count";
     private static final String CACHE_INVALID = "Actual results checksum doesn't match the original checksum for cache with id={}. Invalidating cache";
 
     private static final ConcurrentHashMap<CacheableTypeSource, Integer> maxRequestedResultIds = new ConcurrentHashMap<>();
 
+    @Value("${cache.generation.verifySampleRate:0.05}")
+    private double verifySampleRate;
+
     private final List<GenerationCacheProvider> generationCacheProviderList;
     private final GenerationCacheRepository generationCacheRepository;
-    private final SourceRepository sourceRepository;
+    private final SourceService sourceService;
 
-    public GenerationCacheServiceImpl(List<GenerationCacheProvider> generationCacheProviderList, GenerationCacheRepository generationCacheRepository, SourceRepository sourceRepository) {
+    public GenerationCacheServiceImpl(List<GenerationCacheProvider> generationCacheProviderList, GenerationCacheRepository generationCacheRepository, SourceService sourceService) {
 
         this.generationCacheProviderList = generationCacheProviderList;
         this.generationCacheRepository = generationCacheRepository;
-        this.sourceRepository = sourceRepository;
+        this.sourceService = sourceService;
     }
 
     @Override
-    public Integer getDesignHash(CacheableGenerationType type, String design) {
+    public Long getDesignHash(CacheableGenerationType type, Source source, String design) {
 
-        return getProvider(type).getDesignHash(design);
+        return getProvider(type).getDesignHash(source, design);
     }
 
     @Override
-    public GenerationCache getCacheOrEraseInvalid(CacheableGenerationType type, Integer designHash, Integer sourceId) {
+    public GenerationCache getCacheOrEraseInvalid(CacheableGenerationType type, Long designHash, Integer sourceId) {
 
-        Source source = sourceRepository.findBySourceId(sourceId);
+        Source source = sourceService.findBySourceId(sourceId);
         GenerationCache generationCache = generationCacheRepository.findByTypeAndAndDesignHashAndSource(type, designHash, source, EntityGraphUtils.fromAttributePaths("source"));
-        GenerationCacheProvider provider = getProvider(type);
         if (generationCache != null) {
-            String checksum = provider.getResultsChecksum(generationCache.getSource(), generationCache.getDesignHash());
-            if (Objects.equals(generationCache.getResultChecksum(), checksum)) {
+            boolean fullCheck = ThreadLocalRandom.current().nextDouble() < verifySampleRate;
+            if (isValid(generationCache, fullCheck)) {
                 return generationCache;
             } else {
                 removeCache(generationCache.getType(), generationCache.getSource(), generationCache.getDesignHash());
@@ -57,6 +63,48 @@ public class GenerationCacheServiceImpl implements GenerationCacheService {
         return null;
     }
 
+    @Override
+    public void verifyCaches() {
+
+        generationCacheRepository.findAll(EntityGraphUtils.fromAttributePaths("source", "source.daimons")).forEach(cache -> {
+            try {
+                if (!isValid(cache, true)) {
+                    removeCache(cache.getType(), cache.getSource(), cache.getDesignHash());
+                    log.info(CACHE_INVALID, cache.getId());
+                }
+            } catch (Exception e) {
+                log.warn("Cannot verify generation cache with id={}", cache.getId(), e);
+            }
+        });
+    }
+
+    /**
+     * Cached rows are always counted, which is enough to catch removed or partially written results. The content
+     * fingerprint stored at generation time is recomputed only for a sample of the checks, or when requested.
+     * Caches created before the fingerprint keep only the row count, their fingerprint is stored on the first check
+     * that finds the count unchanged.
+     */
+    private boolean isValid(GenerationCache cache, boolean fullCheck) {
+
+        GenerationCacheProvider provider = getProvider(cache.getType());
+        String storedChecksum = cache.getResultChecksum();
+        if (!StringUtils.contains(storedChecksum, GenerationCacheProvider.CHECKSUM_DELIMITER)) {
+            String checksum = provider.getResultsChecksum(cache.getSource(), cache.getDesignHash());
+            if (!Objects.equals(storedChecksum, StringUtils.substringBefore(checksum, GenerationCacheProvider.CHECKSUM_DELIMITER))) {
+                return false;
+            }
+            cache.setResultChecksum(checksum);
+            generationCacheRepository.save(cache);
+            log.info(CACHE_CHECKSUM_STORED, cache.getId());
+            return true;
+        }
+        if (fullCheck) {
+            return Objects.equals(storedChecksum, provider.getResultsChecksum(cache.getSource(), cache.getDesignHash()));
+        }
+        String storedCount = StringUtils.substringBefore(storedChecksum, GenerationCacheProvider.CHECKSUM_DELIMITER);
+        return Objects.equals(storedCount, String.valueOf(provider.getResultsCount(cache.getSource(), cache.getDesignHash())));
+    }
+
     @Override
     public String getResultsSql(GenerationCache cache) {
 
@@ -64,9 +112,9 @@ public class GenerationCacheServiceImpl implements GenerationCacheService {
     }
 
     @Override
-    public GenerationCache cacheResults(CacheableGenerationType type, Integer designHash, Integer sourceId) {
+    public GenerationCache cacheResults(CacheableGenerationType type, Long designHash, Integer sourceId) {
 
-        Source source = sourceRepository.findBySourceId(sourceId);
+        Source source = sourceService.findBySourceId(sourceId);
         String checksum = getProvider(type).getResultsChecksum(source, designHash);
 
         GenerationCache generationCache = new GenerationCache();
@@ -84,7 +132,7 @@ public class GenerationCacheServiceImpl implements GenerationCacheService {
     }
 
     @Override
-    public void removeCache(CacheableGenerationType type, Source source, Integer designHash) {
+    public void removeCache(CacheableGenerationType type, Source source, Long designHash) {
 
         // Cleanup cached results
         getProvider(type).remove(source, designHash);
@@ -0,0 +1,179 @@
+package org.ohdsi.webapi.generationcache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Leases in the WebAPI database that let only one node of a cluster generate results of a design on a source at a
+ * time. A lease expires unless its owner keeps sending heartbeats, so the generation is taken over by another node when
+ * the owner dies. Times are taken from the database clock, so clock skew between nodes doesn't matter.
+ */
+@Component
+public class GenerationLeaseManager {
+
+    private static final Logger log = LoggerFactory.getLogger(GenerationLeaseManager.class);
+
+    private static final String ACQUIRE_SQL = "INSERT INTO %s.generation_cache_lease (type, design_hash, source_id, owner, expires, heartbeat) " +
+            "VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP + ? * INTERVAL '1 millisecond', CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (type, design_hash, source_id) DO UPDATE SET owner = EXCLUDED.owner, expires = EXCLUDED.expires, heartbeat = EXCLUDED.heartbeat " +
+            "WHERE generation_cache_lease.expires < CURRENT_TIMESTAMP " +
+            "RETURNING owner";
+    private static final String HEARTBEAT_SQL = "UPDATE %s.generation_cache_lease SET expires = CURRENT_TIMESTAMP + ? * INTERVAL '1 millisecond', heartbeat = CURRENT_TIMESTAMP " +
+            "WHERE type = ? AND design_hash = ? AND source_id = ? AND owner = ?";
+    private static final String RELEASE_SQL = "DELETE FROM %s.generation_cache_lease WHERE type = ? AND design_hash = ? AND source_id = ? AND owner = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplateRequiresNew;
+    private final ScheduledExecutorService heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "generation-lease-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${datasource.ohdsi.schema}")
+    private String ohdsiSchema;
+
+    @Value("${cache.generation.lease.duration:60000}")
+    private long leaseDuration;
+
+    @Value("${cache.generation.lease.pollInterval:2000}")
+    private long pollInterval;
+
+    @Value("${cache.generation.lease.maxWait:3600000}")
+    private long maxWait;
+
+    public GenerationLeaseManager(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplateRequiresNew) {
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplateRequiresNew = transactionTemplateRequiresNew;
+    }
+
+    public Lease acquire(CacheableGenerationType type, Long designHash, Integer sourceId) {
+
+        return acquire(type, designHash, sourceId, new Semaphore(1), () -> false);
+    }
+
+    /**
+     * Waits until the lease is acquired. The lease is written in its own transaction, so that it's visible to other
+     * nodes even if the caller runs in a long transaction. Waiting is given up when the generation is stopped or after
+     * {@code cache.generation.lease.maxWait} milliseconds.
+     *
+     * @param localPermit permit of the design on this node, so that only one of its threads polls the database. It is
+     *                    held until the lease is closed
+     * @param stopped     tells whether the generation waiting for the lease has been stopped
+     */
+    public Lease acquire(CacheableGenerationType type, Long designHash, Integer sourceId, Semaphore localPermit, BooleanSupplier stopped) {
+
+        long deadline = System.currentTimeMillis() + maxWait;
+        String owner = UUID.randomUUID().toString();
+        try {
+            while (!localPermit.tryAcquire(pollInterval, TimeUnit.MILLISECONDS)) {
+                checkWaiting(type, designHash, sourceId, deadline, stopped);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for generation lease", e);
+        }
+        try {
+            while (!tryAcquire(type, designHash, sourceId, owner)) {
+                log.debug("Generation lease for type = {}, design = {}, source id = {} is held by another node, waiting", type, designHash, sourceId);
+                checkWaiting(type, designHash, sourceId, deadline, stopped);
+                Thread.sleep(pollInterval);
+            }
+        } catch (InterruptedException e) {
+            localPermit.release();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for generation lease", e);
+        } catch (RuntimeException e) {
+            localPermit.release();
+            throw e;
+        }
+        return new Lease(type, designHash, sourceId, owner, localPermit);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+
+        heartbeatExecutor.shutdownNow();
+    }
+
+    private void checkWaiting(CacheableGenerationType type, Long designHash, Integer sourceId, long deadline, BooleanSupplier stopped) {
+
+        if (stopped.getAsBoolean()) {
+            throw new RuntimeException("Generation has been cancelled while waiting for generation lease");
+        }
+        if (System.currentTimeMillis() >= deadline) {
+            throw new RuntimeException(String.format("Generation lease for type = %s, design = %s, source id = %s wasn't acquired in %d ms",
+                    type, designHash, sourceId, maxWait));
+        }
+    }
+
+    private boolean tryAcquire(CacheableGenerationType type, Long designHash, Integer sourceId, String owner) {
+
+        List<String> owners = transactionTemplateRequiresNew.execute(s -> jdbcTemplate.queryForList(sql(ACQUIRE_SQL), String.class,
+                type.name(), designHash, sourceId, owner, leaseDuration));
+        return owners != null && !owners.isEmpty();
+    }
+
+    private String sql(String template) {
+
+        return String.format(template, ohdsiSchema);
+    }
+
+    public class Lease implements AutoCloseable {
+
+        private final CacheableGenerationType type;
+        private final Long designHash;
+        private final Integer sourceId;
+        private final String owner;
+        private final Semaphore localPermit;
+        private final ScheduledFuture<?> heartbeat;
+
+        private Lease(CacheableGenerationType type, Long designHash, Integer sourceId, String owner, Semaphore localPermit) {
+
+            this.type = type;
+            this.designHash = designHash;
+            this.sourceId = sourceId;
+            this.owner = owner;
+            this.localPermit = localPermit;
+            long heartbeatInterval = Math.max(1, leaseDuration / 3);
+            this.heartbeat = heartbeatExecutor.scheduleWithFixedDelay(this::heartbeat, heartbeatInterval, heartbeatInterval, TimeUnit.MILLISECONDS);
+        }
+
+        private void heartbeat() {
+
+            try {
+                if (jdbcTemplate.update(sql(HEARTBEAT_SQL), leaseDuration, type.name(), designHash, sourceId, owner) == 0) {
+                    log.warn("Generation lease for type = {}, design = {}, source id = {} has been lost", type, designHash, sourceId);
+                }
+            } catch (Exception e) {
+                log.warn("Cannot renew generation lease for type = {}, design = {}, source id = {}", type, designHash, sourceId, e);
+            }
+        }
+
+        @Override
+        public void close() {
+
+            heartbeat.cancel(false);
+            try {
+                transactionTemplateRequiresNew.execute(s -> jdbcTemplate.update(sql(RELEASE_SQL), type.name(), designHash, sourceId, owner));
+            } finally {
+                localPermit.release();
+            }
+        }
+    }
+}
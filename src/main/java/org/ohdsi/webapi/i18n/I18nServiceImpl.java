@@ -1,24 +1,36 @@
 package org.ohdsi.webapi.i18n;
 
 import com.fasterxml.jackson.databind.JavaType;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.ohdsi.circe.helper.ResourceHelper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
 import javax.ws.rs.InternalServerErrorException;
 import java.io.IOException;
-import java.net.URL;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.stream.Collectors;
 
 @Component
 public class I18nServiceImpl implements I18nService {
 
+  private static final long RELOAD_CHECK_INTERVAL = 1000;
+
+  @Value("${i18n.defaultLocale:en}")
+  private String defaultLocale = "en";
+
+  // re-reads bundles changed on disk, for development only
+  @Value("${i18n.hotReload:false}")
+  private boolean hotReload;
+
   private List<LocaleDTO> availableLocales;
+  private volatile MessageBundles bundles;
+  private volatile long bundlesModified;
+  private volatile long reloadCheckedAt;
 
   @PostConstruct
   public void init() throws IOException {
@@ -27,6 +39,8 @@ public class I18nServiceImpl implements I18nService {
     ObjectMapper objectMapper = new ObjectMapper();
     JavaType type = objectMapper.getTypeFactory().constructCollectionType(List.class, LocaleDTO.class);
     availableLocales = objectMapper.readValue(json, type);
+    bundlesModified = MessageBundles.lastModified(getLanguages());
+    bundles = new MessageBundles(getLanguages(), defaultLocale);
   }
 
   @Override
@@ -44,28 +58,44 @@ public class I18nServiceImpl implements I18nService {
   @Override
   public String translate(String key, String defaultValue) {
 
-    try {
-      Locale locale = LocaleContextHolder.getLocale();
-      String messages = getLocaleResource(locale);
-      ObjectMapper mapper = new ObjectMapper();
-      JsonNode root = mapper.readTree(messages);
-      String pointer = "/" + key.replaceAll("\\.", "/");
-      JsonNode node = root.at(pointer);
-      return node.isValueNode() ? node.asText() : defaultValue;
-    }catch (IOException e) {
-      throw new InternalServerErrorException(e);
-    }
+    String message = getBundles().get(LocaleContextHolder.getLocale().getLanguage(), key);
+    return message != null ? message : defaultValue;
   }
 
   @Override
   public String getLocaleResource(Locale locale) {
 
-    String resourcePath = String.format("/i18n/messages_%s.json", locale.getLanguage());
-    URL resourceURL = this.getClass().getResource(resourcePath);
-    String messages = "";
-    if (resourceURL != null) {
-      messages = ResourceHelper.GetResourceAsString(resourcePath);
+    return getBundles().getResource(locale.getLanguage());
+  }
+
+  private MessageBundles getBundles() {
+
+    if (hotReload) {
+      reloadIfModified();
     }
-    return messages;
+    return bundles;
+  }
+
+  private synchronized void reloadIfModified() {
+
+    long now = System.currentTimeMillis();
+    if (now - reloadCheckedAt < RELOAD_CHECK_INTERVAL) {
+      return;
+    }
+    reloadCheckedAt = now;
+    long modified = MessageBundles.lastModified(getLanguages());
+    if (modified > bundlesModified) {
+      try {
+        bundles = new MessageBundles(getLanguages(), defaultLocale);
+        bundlesModified = modified;
+      } catch (IOException e) {
+        throw new InternalServerErrorException(e);
+      }
+    }
+  }
+
+  private List<String> getLanguages() {
+
+    return availableLocales.stream().map(LocaleDTO::getCode).collect(Collectors.toList());
   }
 }
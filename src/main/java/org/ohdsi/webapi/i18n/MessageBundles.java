@@ -0,0 +1,108 @@
+package org.ohdsi.webapi.i18n;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.ohdsi.circe.helper.ResourceHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Message bundles of all locales loaded at once. Each bundle is flattened into a dictionary keyed by the dotted path of
+ * a message, and the messages of the default locale are merged under it, so that a translation is a single lookup.
+ */
+final class MessageBundles {
+
+    private static final String RESOURCE_PATH = "/i18n/messages_%s.json";
+
+    private final Map<String, String> resources = new HashMap<>();
+    private final Map<String, Map<String, String>> dictionaries = new HashMap<>();
+    private final Map<String, String> defaultDictionary;
+
+    MessageBundles(Collection<String> languages, String defaultLanguage) throws IOException {
+
+        ObjectMapper mapper = new ObjectMapper();
+        Set<String> all = new LinkedHashSet<>(languages);
+        all.add(defaultLanguage);
+        Map<String, Map<String, String>> flattened = new HashMap<>();
+        for (String language : all) {
+            String messages = load(language);
+            resources.put(language, messages);
+            Map<String, String> dictionary = new HashMap<>();
+            if (!messages.isEmpty()) {
+                flatten(mapper.readTree(messages), "", dictionary);
+            }
+            flattened.put(language, dictionary);
+        }
+        defaultDictionary = Collections.unmodifiableMap(flattened.get(defaultLanguage));
+        for (String language : all) {
+            Map<String, String> dictionary = new HashMap<>(defaultDictionary);
+            dictionary.putAll(flattened.get(language));
+            dictionaries.put(language, Collections.unmodifiableMap(dictionary));
+        }
+    }
+
+    /**
+     * @return message in the language, in the default language if there is no such one, or null
+     */
+    String get(String language, String key) {
+
+        return dictionaries.getOrDefault(language, defaultDictionary).get(key);
+    }
+
+    /**
+     * @return bundle of the language as is or an empty string if there is no bundle
+     */
+    String getResource(String language) {
+
+        String resource = resources.get(language);
+        return resource != null ? resource : load(language);
+    }
+
+    /**
+     * @return latest modification time of the bundles, 0 if it's unknown, e.g. when bundles are packed in a jar
+     */
+    static long lastModified(Collection<String> languages) {
+
+        long lastModified = 0;
+        for (String language : languages) {
+            URL url = MessageBundles.class.getResource(String.format(RESOURCE_PATH, language));
+            if (url != null && "file".equals(url.getProtocol())) {
+                lastModified = Math.max(lastModified, new File(url.getPath()).lastModified());
+            }
+        }
+        return lastModified;
+    }
+
+    private static String load(String language) {
+
+        String resourcePath = String.format(RESOURCE_PATH, language);
+        URL resourceURL = MessageBundles.class.getResource(resourcePath);
+        return resourceURL != null ? ResourceHelper.GetResourceAsString(resourcePath) : "";
+    }
+
+    private static void flatten(JsonNode node, String path, Map<String, String> dictionary) {
+
+        if (node.isValueNode()) {
+            dictionary.put(path, node.asText());
+        } else if (node.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                flatten(field.getValue(), path.isEmpty() ? field.getKey() : path + "." + field.getKey(), dictionary);
+            }
+        } else if (node.isArray()) {
+            for (int i = 0; i < node.size(); i++) {
+                flatten(node.get(i), path.isEmpty() ? String.valueOf(i) : path + "." + i, dictionary);
+            }
+        }
+    }
+}
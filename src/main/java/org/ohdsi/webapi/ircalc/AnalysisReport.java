@@ -16,6 +16,7 @@
 package org.ohdsi.webapi.ircalc;
 
 import java.util.List;
+import java.util.stream.Collectors;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlType;
 
@@ -33,6 +34,16 @@ public class AnalysisReport {
     public long totalPersons;
     public long timeAtRisk;
     public long cases;
+
+    Summary copy() {
+      Summary copy = new Summary();
+      copy.targetId = targetId;
+      copy.outcomeId = outcomeId;
+      copy.totalPersons = totalPersons;
+      copy.timeAtRisk = timeAtRisk;
+      copy.cases = cases;
+      return copy;
+    }
   }
   
   public static class StrataStatistic
@@ -44,10 +55,33 @@ public class AnalysisReport {
     public long totalPersons;
     public long cases;
     public long timeAtRisk;
+
+    StrataStatistic copy() {
+      StrataStatistic copy = new StrataStatistic();
+      copy.targetId = targetId;
+      copy.outcomeId = outcomeId;
+      copy.id = id;
+      copy.name = name;
+      copy.totalPersons = totalPersons;
+      copy.cases = cases;
+      copy.timeAtRisk = timeAtRisk;
+      return copy;
+    }
   }
   
   public Summary summary;
   public List<StrataStatistic> stratifyStats;
   public String treemapData;
+
+  /**
+   * Deep copy, so that a caller can change the report without affecting the others
+   */
+  public AnalysisReport copy() {
+    AnalysisReport copy = new AnalysisReport();
+    copy.summary = summary != null ? summary.copy() : null;
+    copy.stratifyStats = stratifyStats != null ? stratifyStats.stream().map(StrataStatistic::copy).collect(Collectors.toList()) : null;
+    copy.treemapData = treemapData;
+    return copy;
+  }
   
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2015 Observational Health Data Sciences and Informatics [OHDSI.org].
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ohdsi.webapi.ircalc;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of IR analysis reports, keyed by the generation ({@link ExecutionInfo} id and start time) and the
+ * target/outcome pair. A new generation of the same analysis and source starts at a different time, so reports of
+ * the previous generation are never served and simply age out. The fields of a report are public, so every caller gets
+ * its own copy of the cached report.
+ */
+public class AnalysisReportCache {
+
+  private final Map<Key, AnalysisReport> reports;
+
+  public AnalysisReportCache(final int maxSize) {
+
+    this.reports = Collections.synchronizedMap(new LinkedHashMap<Key, AnalysisReport>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, AnalysisReport> eldest) {
+        return size() > maxSize;
+      }
+    });
+  }
+
+  public AnalysisReport get(ExecutionInfo info, int targetId, int outcomeId, Supplier<AnalysisReport> loader) {
+
+    Key key = new Key(info.getId(), Objects.nonNull(info.getStartTime()) ? info.getStartTime().getTime() : null, targetId, outcomeId);
+    AnalysisReport report = reports.get(key);
+    if (report == null) {
+      report = loader.get();
+      reports.put(key, report);
+    }
+    return report.copy();
+  }
+
+  public void evict(ExecutionInfoId id) {
+
+    synchronized (reports) {
+      reports.keySet().removeIf(key -> Objects.equals(key.id, id));
+    }
+  }
+
+  private static class Key {
+    private final ExecutionInfoId id;
+    private final Long startTime;
+    private final int targetId;
+    private final int outcomeId;
+
+    Key(ExecutionInfoId id, Long startTime, int targetId, int outcomeId) {
+      this.id = id;
+      this.startTime = startTime;
+      this.targetId = targetId;
+      this.outcomeId = outcomeId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return targetId == other.targetId && outcomeId == other.outcomeId
+              && Objects.equals(id, other.id) && Objects.equals(startTime, other.startTime);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(id, startTime, targetId, outcomeId);
+    }
+  }
+}
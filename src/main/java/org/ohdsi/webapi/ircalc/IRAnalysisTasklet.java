@@ -24,6 +24,7 @@ import org.ohdsi.webapi.common.generation.CancelableTasklet;
 import org.ohdsi.webapi.source.SourceService;
 import org.ohdsi.webapi.source.Source;
 import org.ohdsi.webapi.util.CancelableJdbcTemplate;
+import org.ohdsi.webapi.util.MetadataBatchWriter;
 import org.ohdsi.webapi.util.PreparedStatementRenderer;
 import org.ohdsi.webapi.util.SourceUtils;
 import org.slf4j.LoggerFactory;
@@ -90,14 +91,16 @@ public class IRAnalysisTasklet extends CancelableTasklet {
       String insert = "INSERT INTO @results_schema.ir_strata (analysis_id, strata_sequence, name, description) VALUES (@analysis_id,@strata_sequence,@name,@description)";
 
       String [] params = {"analysis_id", "strata_sequence", "name", "description"};
+      MetadataBatchWriter strataWriter = new MetadataBatchWriter(source, insert, new String[] {"results_schema"},
+        new String[] {options.resultsSchema}, params, null);
       List<StratifyRule> strataRules = expression.strata;
+      List<Object[]> strataRows = new ArrayList<>(strataRules.size());
       for (int i = 0; i< strataRules.size(); i++)
       {
         StratifyRule r = strataRules.get(i);
-        psr = new PreparedStatementRenderer(source, insert, "results_schema",
-          options.resultsSchema, params, new Object[] { analysisId, i, r.name, r.description});
-        jdbcTemplate.update(psr.getSql(), psr.getSetter());
+        strataRows.add(new Object[] { analysisId, i, r.name, r.description});
       }
+      strataWriter.write(jdbcTemplate, stmtCancel, strataRows);
       
       String expressionSql = analysisQueryBuilder.buildAnalysisQuery(analysis, options);
       
@@ -0,0 +1,28 @@
+package org.ohdsi.webapi.metrics;
+
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Counts lookups of application caches by result, so that hit rates of each cache can be charted.
+ */
+public final class CacheMetrics {
+
+    static final String COUNTER = "webapi.cache.requests";
+
+    private CacheMetrics() {
+    }
+
+    public static void hit(String cache, long count) {
+
+        if (count > 0) {
+            Metrics.counter(COUNTER, "cache", cache, "result", "hit").increment(count);
+        }
+    }
+
+    public static void miss(String cache, long count) {
+
+        if (count > 0) {
+            Metrics.counter(COUNTER, "cache", cache, "result", "miss").increment(count);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.ohdsi.webapi.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Publishes pool size, active threads and queue depth of the task executors once they are initialized.
+ */
+@Component
+public class ExecutorMetrics implements ApplicationListener<ContextRefreshedEvent> {
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicBoolean bound = new AtomicBoolean();
+
+    public ExecutorMetrics(MeterRegistry meterRegistry) {
+
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+
+        if (!bound.compareAndSet(false, true)) {
+            return;
+        }
+        Map<String, ThreadPoolTaskExecutor> executors = event.getApplicationContext().getBeansOfType(ThreadPoolTaskExecutor.class);
+        executors.forEach((name, executor) -> {
+            if (Objects.nonNull(executor.getThreadPoolExecutor())) {
+                new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), name, Tags.empty()).bindTo(meterRegistry);
+            }
+        });
+    }
+}
@@ -0,0 +1,68 @@
+package org.ohdsi.webapi.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.glassfish.jersey.uri.UriTemplate;
+
+import java.util.List;
+
+/**
+ * Times requests to resources by the path template they matched, e.g. {@code /cohortdefinition/{id}}, rather than by
+ * the actual path, so that the number of series doesn't grow with the number of entities.
+ */
+public class JerseyMetricsListener implements ApplicationEventListener {
+
+    static final String TIMER = "webapi.http.requests";
+
+    private final MeterRegistry meterRegistry;
+
+    public JerseyMetricsListener(MeterRegistry meterRegistry) {
+
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void onEvent(ApplicationEvent event) {
+
+    }
+
+    @Override
+    public RequestEventListener onRequest(RequestEvent requestEvent) {
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return event -> {
+            if (event.getType() == RequestEvent.Type.FINISHED) {
+                ContainerResponse response = event.getContainerResponse();
+                sample.stop(Timer.builder(TIMER)
+                        .tag("method", event.getContainerRequest().getMethod())
+                        .tag("uri", getTemplate(event))
+                        .tag("status", response != null ? String.valueOf(response.getStatus()) : "500")
+                        .register(meterRegistry));
+            }
+        };
+    }
+
+    static String getTemplate(RequestEvent event) {
+
+        // templates are listed from the most specific one
+        List<UriTemplate> templates = event.getUriInfo().getMatchedTemplates();
+        if (templates.isEmpty()) {
+            return "UNMATCHED";
+        }
+        StringBuilder path = new StringBuilder();
+        for (int i = templates.size() - 1; i >= 0; i--) {
+            String template = templates.get(i).getTemplate();
+            if (!template.startsWith("/")) {
+                path.append('/');
+            }
+            path.append(template);
+        }
+        String result = path.toString().replaceAll("/{2,}", "/");
+        return result.length() > 1 && result.endsWith("/") ? result.substring(0, result.length() - 1) : result;
+    }
+}
@@ -0,0 +1,47 @@
+package org.ohdsi.webapi.metrics;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.jvm.ClassLoaderMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmGcMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmMemoryMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmThreadMetrics;
+import io.micrometer.core.instrument.binder.system.ProcessorMetrics;
+import io.micrometer.core.instrument.binder.system.UptimeMetrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PreDestroy;
+
+/**
+ * Registry of application metrics, scraped in the Prometheus text format from {@link MetricsController}.
+ * <p>
+ * The registry is also added to the global registry of Micrometer, so that objects not managed by Spring, such as
+ * source JDBC templates and results caches, record to it through {@link Metrics}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    private final PrometheusMeterRegistry meterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+
+    @Bean
+    public PrometheusMeterRegistry meterRegistry() {
+
+        new ClassLoaderMetrics().bindTo(meterRegistry);
+        new JvmMemoryMetrics().bindTo(meterRegistry);
+        new JvmGcMetrics().bindTo(meterRegistry);
+        new JvmThreadMetrics().bindTo(meterRegistry);
+        new ProcessorMetrics().bindTo(meterRegistry);
+        new UptimeMetrics().bindTo(meterRegistry);
+        Metrics.addRegistry(meterRegistry);
+        return meterRegistry;
+    }
+
+    @PreDestroy
+    public void destroy() {
+
+        Metrics.removeRegistry(meterRegistry);
+        meterRegistry.close();
+    }
+}
@@ -0,0 +1,32 @@
+package org.ohdsi.webapi.metrics;
+
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+import org.springframework.stereotype.Controller;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+@Path("/metrics")
+@Controller
+public class MetricsController {
+
+    private final PrometheusMeterRegistry meterRegistry;
+
+    public MetricsController(PrometheusMeterRegistry meterRegistry) {
+
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Get metrics of the WebAPI instance in the Prometheus text format
+     */
+    @GET
+    @Path("/")
+    @Produces(TextFormat.CONTENT_TYPE_004)
+    public String scrape() {
+
+        return meterRegistry.scrape();
+    }
+}
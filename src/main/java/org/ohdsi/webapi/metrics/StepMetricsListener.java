@@ -0,0 +1,42 @@
+package org.ohdsi.webapi.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times steps of batch jobs by step name and status.
+ */
+@Component
+public class StepMetricsListener implements StepExecutionListener {
+
+    static final String TIMER = "webapi.batch.steps";
+
+    private final MeterRegistry meterRegistry;
+
+    public StepMetricsListener(MeterRegistry meterRegistry) {
+
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+
+        if (Objects.nonNull(stepExecution.getStartTime())) {
+            long duration = System.currentTimeMillis() - stepExecution.getStartTime().getTime();
+            meterRegistry.timer(TIMER, "step", stepExecution.getStepName(), "status", stepExecution.getStatus().name())
+                    .record(duration, TimeUnit.MILLISECONDS);
+        }
+        return null;
+    }
+}
@@ -315,6 +315,7 @@ public class PathwayServiceImpl extends AbstractDaoService implements PathwaySer
 	@Override
 	public void delete(Integer id) {
 
+		unassignTagsOfDeleted(pathwayAnalysisRepository.findOne(id));
 		pathwayAnalysisRepository.delete(id);
 	}
 
@@ -409,7 +410,7 @@ public class PathwayServiceImpl extends AbstractDaoService implements PathwaySer
 		PathwayService pathwayService = this;
 
 		PathwayAnalysisEntity pathwayAnalysis = getById(pathwayAnalysisId);
-		Source source = getSourceRepository().findBySourceId(sourceId);
+		Source source = getSourceService().findBySourceId(sourceId);
 
 		JobParametersBuilder builder = new JobParametersBuilder();
 		builder.addString(JOB_NAME, String.format("Generating Pathway Analysis %d using %s (%s)", pathwayAnalysisId, source.getSourceName(), source.getSourceKey()));
@@ -457,7 +458,7 @@ public class PathwayServiceImpl extends AbstractDaoService implements PathwaySer
 	public void cancelGeneration(Integer pathwayAnalysisId, @SourceId Integer sourceId) {
 
 		PathwayAnalysisEntity entity = pathwayAnalysisRepository.findOne(pathwayAnalysisId, defaultEntityGraph);
-		String sourceKey = getSourceRepository().findBySourceId(sourceId).getSourceKey();
+		String sourceKey = getSourceService().findBySourceId(sourceId).getSourceKey();
 		entity.getTargetCohorts().forEach(tc -> cohortDefinitionService.cancelGenerateCohort(tc.getId(), sourceKey));
 		entity.getEventCohorts().forEach(ec -> cohortDefinitionService.cancelGenerateCohort(ec.getId(), sourceKey));
 		jobService.cancelJobExecution(j -> {
@@ -15,10 +15,12 @@ import org.ohdsi.webapi.pathway.dto.internal.PathwayCode;
 import org.ohdsi.webapi.source.Source;
 import org.ohdsi.webapi.source.SourceDaimon;
 import org.ohdsi.webapi.util.CancelableJdbcTemplate;
+import org.ohdsi.webapi.util.MetadataBatchWriter;
 import org.ohdsi.webapi.util.PreparedStatementRenderer;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.scope.context.ChunkContext;
 import org.springframework.core.convert.support.GenericConversionService;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.DefaultTransactionDefinition;
@@ -27,25 +29,25 @@ import org.springframework.transaction.support.TransactionTemplate;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
-import java.util.concurrent.FutureTask;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import org.ohdsi.sql.SqlRender;
 import org.ohdsi.webapi.common.generation.CancelableTasklet;
 import org.ohdsi.webapi.util.PreparedStatementRendererCreator;
-import org.springframework.jdbc.core.PreparedStatementCreator;
 
 import static org.ohdsi.webapi.Constants.Params.GENERATION_ID;
 
 public class PathwayStatisticsTasklet extends CancelableTasklet {
 	private static final String SAVE_PATHS_SQL = ResourceHelper.GetResourceAsString("/resources/pathway/savePaths.sql");
+	private static final String SAVE_CODES_SQL = ResourceHelper.GetResourceAsString("/resources/pathway/saveCodes.sql");
 
 	private final CancelableJdbcTemplate jdbcTemplate;
 	private final Source source;
 	private Long generationId;
 	private final PathwayService pathwayService;
 	private final GenericConversionService genericConversionService;
+	private final TransactionTemplate sourceTransactionTemplate;
 
 	public PathwayStatisticsTasklet(CancelableJdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, Source source,
 					PathwayService pathwayService, GenericConversionService genericConversionService) {
@@ -54,6 +56,7 @@ public class PathwayStatisticsTasklet extends CancelableTasklet {
 		this.source = source;
 		this.pathwayService = pathwayService;
 		this.genericConversionService = genericConversionService;
+		this.sourceTransactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
 	}
 
 	private List<Integer> intArrayToList(int[] intArray) {
@@ -80,13 +83,12 @@ public class PathwayStatisticsTasklet extends CancelableTasklet {
 
 		// roll up patient-level events into pathway counts and save to DB.
 		execution = () -> savePaths(source, generationId);
-		FutureTask<int[]> savePathsTask = new FutureTask<>(execution);
-		taskExecutor.execute(savePathsTask);
-		rowsUpdated.addAll(intArrayToList(waitForFuture(savePathsTask)));
+		int[] pathsUpdated = runAndWait(execution);
 
 		if (isStopped()) {
 			return null;
 		}
+		rowsUpdated.addAll(intArrayToList(pathsUpdated));
 
 		// build comboId -> combo name map
 		final PathwayAnalysisEntity design = genericConversionService
@@ -98,9 +100,12 @@ public class PathwayStatisticsTasklet extends CancelableTasklet {
 
 		// save combo lookup to DB
 		execution = () -> savePathwayCodes(pathwayCodes);
-		FutureTask<int[]> saveCodesTask = new FutureTask<>(execution);
-		taskExecutor.execute(saveCodesTask);
-		rowsUpdated.addAll(intArrayToList(waitForFuture(saveCodesTask)));
+		int[] codesUpdated = runAndWait(execution);
+
+		if (isStopped()) {
+			return null;
+		}
+		rowsUpdated.addAll(intArrayToList(codesUpdated));
 
 		return rowsUpdated.stream().mapToInt(Integer::intValue).toArray();
 	}
@@ -147,7 +152,7 @@ public class PathwayStatisticsTasklet extends CancelableTasklet {
 
 	}
 
-	private List<PathwayEventCohort> getEventCohortsByComboCode(PathwayAnalysisEntity pathwayAnalysis, Map<Integer, Integer> eventCodes, long comboCode) {
+	static List<PathwayEventCohort> getEventCohortsByComboCode(PathwayAnalysisEntity pathwayAnalysis, Map<Integer, Integer> eventCodes, long comboCode) {
 
 		return pathwayAnalysis.getEventCohorts()
 						.stream()
@@ -157,15 +162,13 @@ public class PathwayStatisticsTasklet extends CancelableTasklet {
 
 	private int[] savePathwayCodes(List<PathwayCode> pathwayCodes) {
 		String[] codeNames = new String[]{GENERATION_ID, "code", "name", "is_combo"};
-		List<PreparedStatementCreator> creators = new ArrayList<>();
-		pathwayCodes.forEach(code -> {
-			Object[] values = new Object[]{generationId, code.getCode(), code.getName(), code.isCombo() ? 1 : 0};
-			PreparedStatementRenderer psr = new PreparedStatementRenderer(source, "/resources/pathway/saveCodes.sql",
-							"target_database_schema", source.getTableQualifier(SourceDaimon.DaimonType.Results), codeNames, values);
-			creators.add(new PreparedStatementRendererCreator(psr));
-		});
+		MetadataBatchWriter writer = new MetadataBatchWriter(source, SAVE_CODES_SQL, new String[]{"target_database_schema"},
+						new String[]{source.getTableQualifier(SourceDaimon.DaimonType.Results)}, codeNames, null);
+		List<Object[]> rows = pathwayCodes.stream()
+						.map(code -> new Object[]{generationId, code.getCode(), code.getName(), code.isCombo() ? 1 : 0})
+						.collect(Collectors.toList());
 
-		return jdbcTemplate.batchUpdate(stmtCancel, creators);
+		return sourceTransactionTemplate.execute(status -> writer.write(jdbcTemplate, stmtCancel, rows));
 	}
 
 	private int[] savePaths(Source source, Long generationId) throws SQLException {
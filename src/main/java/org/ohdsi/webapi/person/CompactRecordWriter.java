@@ -0,0 +1,116 @@
+package org.ohdsi.webapi.person;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writes person records as they are read, one array per record: concept index, domain index, start day and end day,
+ * followed by start and end date when dates may be shown. Concepts and domains are collected while writing and only
+ * listed once, after the records. Days are relative to the index date, which is the first start date unless it is
+ * given, so records have to come ordered by start date.
+ */
+public class CompactRecordWriter {
+
+  private final JsonGenerator generator;
+  private final boolean showDates;
+  private LocalDateTime indexDate;
+
+  private final Map<Long, Integer> conceptIndex = new HashMap<>();
+  private final List<Long> conceptIds = new ArrayList<>();
+  private final List<String> conceptNames = new ArrayList<>();
+  private final Map<String, Integer> domainIndex = new HashMap<>();
+  private final List<String> domains = new ArrayList<>();
+  private int size = 0;
+
+  /**
+   * @param indexDate start date of the cohort of the person, null to take the start date of the first record
+   */
+  public CompactRecordWriter(JsonGenerator generator, LocalDateTime indexDate, boolean showDates) throws IOException {
+
+    this.generator = generator;
+    this.indexDate = indexDate;
+    this.showDates = showDates;
+    generator.writeArrayFieldStart("records");
+  }
+
+  public void write(long conceptId, String conceptName, String domain, Timestamp startDate, Timestamp endDate) throws IOException {
+
+    if (Objects.isNull(indexDate)) {
+      indexDate = startDate.toLocalDateTime();
+    }
+    int concept = conceptIndex.computeIfAbsent(conceptId, id -> {
+      conceptIds.add(id);
+      conceptNames.add(conceptName);
+      return conceptIds.size() - 1;
+    });
+    int recordDomain = domainIndex.computeIfAbsent(domain, d -> {
+      domains.add(d);
+      return domains.size() - 1;
+    });
+    generator.writeStartArray();
+    generator.writeNumber(concept);
+    generator.writeNumber(recordDomain);
+    generator.writeNumber(daysFromIndex(startDate));
+    generator.writeNumber(daysFromIndex(endDate != null ? endDate : startDate));
+    if (showDates) {
+      generator.writeNumber(startDate.getTime());
+      if (endDate != null) {
+        generator.writeNumber(endDate.getTime());
+      } else {
+        generator.writeNull();
+      }
+    }
+    generator.writeEndArray();
+    size++;
+  }
+
+  /**
+   * Ends the records and writes the concepts and domains they refer to
+   */
+  public void finish() throws IOException {
+
+    generator.writeEndArray();
+    generator.writeNumberField("recordCount", size);
+
+    generator.writeObjectFieldStart("concepts");
+    generator.writeArrayFieldStart("conceptId");
+    for (Long conceptId : conceptIds) {
+      generator.writeNumber(conceptId);
+    }
+    generator.writeEndArray();
+    generator.writeArrayFieldStart("conceptName");
+    for (String conceptName : conceptNames) {
+      generator.writeString(conceptName);
+    }
+    generator.writeEndArray();
+    generator.writeEndObject();
+
+    generator.writeArrayFieldStart("domains");
+    for (String domain : domains) {
+      generator.writeString(domain);
+    }
+    generator.writeEndArray();
+  }
+
+  /**
+   * @return given index date, or start date of the first record, null when there were neither
+   */
+  public LocalDateTime getIndexDate() {
+
+    return indexDate;
+  }
+
+  private int daysFromIndex(Timestamp date) {
+
+    return Math.toIntExact(ChronoUnit.DAYS.between(indexDate, date.toLocalDateTime()));
+  }
+}
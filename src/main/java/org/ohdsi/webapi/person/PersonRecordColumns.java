@@ -0,0 +1,91 @@
+package org.ohdsi.webapi.person;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented store of person records. Concepts and domains are kept once in dictionaries and every record only
+ * references them by index, so long patient histories don't repeat concept names for each event.
+ */
+public class PersonRecordColumns {
+
+  private static final long NO_DATE = Long.MIN_VALUE;
+  private static final int INITIAL_CAPACITY = 256;
+
+  private final Map<Long, Integer> conceptIndex = new HashMap<>();
+  private final List<Long> conceptIds = new ArrayList<>();
+  private final List<String> conceptNames = new ArrayList<>();
+  private final Map<String, Integer> domainIndex = new HashMap<>();
+  private final List<String> domains = new ArrayList<>();
+
+  private int[] concepts = new int[INITIAL_CAPACITY];
+  private int[] recordDomains = new int[INITIAL_CAPACITY];
+  private long[] startDates = new long[INITIAL_CAPACITY];
+  private long[] endDates = new long[INITIAL_CAPACITY];
+  private int size = 0;
+
+  public void add(long conceptId, String conceptName, String domain, Timestamp startDate, Timestamp endDate) {
+
+    ensureCapacity(size + 1);
+    concepts[size] = conceptIndex.computeIfAbsent(conceptId, id -> {
+      conceptIds.add(id);
+      conceptNames.add(conceptName);
+      return conceptIds.size() - 1;
+    });
+    recordDomains[size] = domainIndex.computeIfAbsent(domain, d -> {
+      domains.add(d);
+      return domains.size() - 1;
+    });
+    startDates[size] = startDate.getTime();
+    endDates[size] = endDate != null ? endDate.getTime() : NO_DATE;
+    size++;
+  }
+
+  public int size() {
+
+    return size;
+  }
+
+  public LocalDateTime getFirstStartDate() {
+
+    if (size == 0) {
+      return null;
+    }
+    long min = Long.MAX_VALUE;
+    for (int i = 0; i < size; i++) {
+      min = Math.min(min, startDates[i]);
+    }
+    return new Timestamp(min).toLocalDateTime();
+  }
+
+  public List<PersonRecord> toRecords() {
+
+    List<PersonRecord> records = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      PersonRecord record = new PersonRecord();
+      record.conceptId = conceptIds.get(concepts[i]);
+      record.conceptName = conceptNames.get(concepts[i]);
+      record.domain = domains.get(recordDomains[i]);
+      record.startDate = new Timestamp(startDates[i]);
+      record.endDate = endDates[i] != NO_DATE ? new Timestamp(endDates[i]) : null;
+      records.add(record);
+    }
+    return records;
+  }
+
+  private void ensureCapacity(int capacity) {
+
+    if (capacity > concepts.length) {
+      int newLength = Math.max(capacity, concepts.length * 2);
+      concepts = Arrays.copyOf(concepts, newLength);
+      recordDomains = Arrays.copyOf(recordDomains, newLength);
+      startDates = Arrays.copyOf(startDates, newLength);
+      endDates = Arrays.copyOf(endDates, newLength);
+    }
+  }
+}
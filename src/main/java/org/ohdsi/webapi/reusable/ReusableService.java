@@ -135,6 +135,7 @@ public class ReusableService extends AbstractDaoService implements HasTags<Integ
 
         checkOwnerOrAdminOrModerator(existing.getCreatedBy());
 
+        unassignTagsOfDeleted(existing);
         reusableRepository.delete(id);
     }
 
@@ -43,6 +43,7 @@ public class SourcePermissionSchema extends EntityPermissionSchema {
         put("ir:*:report:%s:get", "Get IR generation report with SourceKey = %s");
         put("ir:%s:info:*:delete", "Delete IR generation report with ID=%s");
         put("%s:person:*:get", "Get person's profile on Source with SourceKey = %s");
+        put("%s:person:*:compact:get", "Get person's compact profile on Source with SourceKey = %s");
         put("vocabulary:%s:lookup:sourcecodes:post", "Lookup source codes in Source with SourceKey = %s");
         put("cohort-characterization:*:generation:%s:post", "Generate Cohort Characterization on Source with SourceKey = %s");
         put("cohort-characterization:*:generation:%s:delete", "Cancel Generation of Cohort Characterization on Source with SourceKey = %s");
@@ -35,6 +35,7 @@ import org.ohdsi.webapi.shiro.management.Security;
 import org.ohdsi.webapi.source.Source;
 import org.ohdsi.webapi.source.SourceHelper;
 import org.ohdsi.webapi.source.SourceRepository;
+import org.ohdsi.webapi.source.SourceService;
 import org.ohdsi.webapi.tag.TagSecurityUtils;
 import org.ohdsi.webapi.tag.TagService;
 import org.ohdsi.webapi.tag.domain.Tag;
@@ -45,6 +46,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
@@ -97,12 +99,21 @@ public abstract class AbstractDaoService extends AbstractAdminService {
   @Value("${jdbc.suppressInvalidApiException}")
   protected boolean suppressApiException;
 
+  // handed to every source template, batch writers take it from there
+  @Value("${jdbc.batchSize:1000}")
+  private int batchSize;
+
   @Autowired
   private JdbcTemplate jdbcTemplate;
 
   @Autowired
   private SourceRepository sourceRepository;
 
+  // lazy because SourceService is itself a dao service
+  @Autowired
+  @Lazy
+  private SourceService sourceService;
+
   @Autowired
   private ConceptSetItemRepository conceptSetItemRepository;
 
@@ -155,6 +166,13 @@ public abstract class AbstractDaoService extends AbstractAdminService {
   public SourceRepository getSourceRepository() {
     return sourceRepository;
   }
+
+  /**
+   * @return service to look sources up on request paths, it serves copies of sources kept in memory
+   */
+  public SourceService getSourceService() {
+    return sourceService;
+  }
   
   /**
    * @return the dialect
@@ -182,6 +200,8 @@ public abstract class AbstractDaoService extends AbstractAdminService {
     DriverManagerDataSource dataSource = getDriverManagerDataSource(source);
     CancelableJdbcTemplate jdbcTemplate = new CancelableJdbcTemplate(dataSource);
     jdbcTemplate.setSuppressApiException(suppressApiException);
+    jdbcTemplate.setMetricTags(source.getSourceKey(), source.getSourceDialect());
+    jdbcTemplate.setBatchSize(batchSize);
     return jdbcTemplate;
   }
 
@@ -189,6 +209,8 @@ public abstract class AbstractDaoService extends AbstractAdminService {
     DriverManagerDataSource dataSource = getDriverManagerDataSource(source);
     CancelableJdbcTemplate jdbcTemplate = new CancelableJdbcTemplate(dataSource);
     jdbcTemplate.setSuppressApiException(suppressApiException);
+    jdbcTemplate.setMetricTags(source.getSourceKey(), source.getSourceDialect());
+    jdbcTemplate.setBatchSize(batchSize);
     DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
     TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
     transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
@@ -384,7 +406,10 @@ public abstract class AbstractDaoService extends AbstractAdminService {
         });
 
 
-        entity.getTags().add(tag);
+        if (entity.getTags().stream().noneMatch(t -> t.getId() == tagId)) {
+          entity.getTags().add(tag);
+          tagService.updateCount(tagId, 1);
+        }
       }
     }
   }
@@ -400,11 +425,23 @@ public abstract class AbstractDaoService extends AbstractAdminService {
         Set<Tag> tags = entity.getTags().stream()
                 .filter(t -> t.getId() != tagId)
                 .collect(Collectors.toSet());
+        if (tags.size() < entity.getTags().size()) {
+          tagService.updateCount(tagId, -1);
+        }
         entity.setTags(tags);
       }
     }
   }
 
+  /**
+   * Releases usages of the tags of an asset to be deleted, call before the asset is deleted.
+   */
+  protected void unassignTagsOfDeleted(CommonEntityExt<?> entity) {
+    if (Objects.nonNull(entity) && Objects.nonNull(entity.getTags())) {
+      entity.getTags().forEach(t -> tagService.updateCount(t.getId(), -1));
+    }
+  }
+
   private boolean hasPermissionToAssignProtectedTags(final CommonEntityExt<?> entity, final String method) {
     if (!isSecured()) {
       return true;
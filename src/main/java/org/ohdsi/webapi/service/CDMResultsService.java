@@ -220,7 +220,7 @@ public class CDMResultsService extends AbstractDaoService implements Initializin
     }
 
     public CDMDashboard getRawDashboard(final String sourceKey) {
-        Source source = getSourceRepository().findBySourceKey(sourceKey);
+        Source source = getSourceService().findBySourceKey(sourceKey);
         return queryRunner.getDashboard(getSourceJdbcTemplate(source), source);
     }
 
@@ -238,7 +238,7 @@ public class CDMResultsService extends AbstractDaoService implements Initializin
     }
 
     public CDMPersonSummary getRawPerson(String sourceKey) {
-        Source source = getSourceRepository().findBySourceKey(sourceKey);
+        Source source = getSourceService().findBySourceKey(sourceKey);
         return this.queryRunner.getPersonResults(this.getSourceJdbcTemplate(source), source);
     }
 
@@ -268,7 +268,7 @@ public class CDMResultsService extends AbstractDaoService implements Initializin
     @Produces(MediaType.APPLICATION_JSON)
     public JobExecutionResource refreshCache(@PathParam("sourceKey") final String sourceKey) {
         if(isSecured() && isAdmin()) {
-            Source source = getSourceRepository().findBySourceKey(sourceKey);
+            Source source = getSourceService().findBySourceKey(sourceKey);
             if (sourceAccessor.hasAccess(source)) {
                 JobExecutionResource jobExecutionResource = jobService.findJobByName(Constants.WARM_CACHE, getWarmCacheJobName(String.valueOf(source.getSourceId()),sourceKey));
                 if (jobExecutionResource == null) {
@@ -298,7 +298,7 @@ public class CDMResultsService extends AbstractDaoService implements Initializin
     }
 
     public CDMDataDensity getRawDataDesity(String sourceKey) {
-        Source source = getSourceRepository().findBySourceKey(sourceKey);
+        Source source = getSourceService().findBySourceKey(sourceKey);
         return this.queryRunner.getDataDensityResults(this.getSourceJdbcTemplate(source), source);
     }
 
@@ -317,7 +317,7 @@ public class CDMResultsService extends AbstractDaoService implements Initializin
     }
 
     public CDMDeath getRawDeath(String sourceKey) {
-        Source source = getSourceRepository().findBySourceKey(sourceKey);
+        Source source = getSourceService().findBySourceKey(sourceKey);
         return this.queryRunner.getDeathResults(this.getSourceJdbcTemplate(source), source);
     }
 
@@ -335,7 +335,7 @@ public class CDMResultsService extends AbstractDaoService implements Initializin
     }
 
     public CDMObservationPeriod getRawObservationPeriod(String sourceKey) {
-        Source source = getSourceRepository().findBySourceKey(sourceKey);
+        Source source = getSourceService().findBySourceKey(sourceKey);
         return this.queryRunner.getObservationPeriodResults(this.getSourceJdbcTemplate(source), source);
     }
 
@@ -359,7 +359,7 @@ public class CDMResultsService extends AbstractDaoService implements Initializin
 
     public ArrayNode getRawTreeMap(String domain, String sourceKey) {
 
-        Source source = getSourceRepository().findBySourceKey(sourceKey);
+        Source source = getSourceService().findBySourceKey(sourceKey);
         return queryRunner.getTreemap(this.getSourceJdbcTemplate(source), domain, source);
     }
 
@@ -387,13 +387,13 @@ public class CDMResultsService extends AbstractDaoService implements Initializin
 
     public JsonNode getRawDrilldown(String domain, int conceptId, String sourceKey) {
 
-        Source source = getSourceRepository().findBySourceKey(sourceKey);
+        Source source = getSourceService().findBySourceKey(sourceKey);
         JdbcTemplate jdbcTemplate = this.getSourceJdbcTemplate(source);
         return queryRunner.getDrilldown(jdbcTemplate, domain, conceptId, source);
     }
 
     private JobExecutionResource warmCacheByKey(String sourceKey) {
-        Source source = getSourceRepository().findBySourceKey(sourceKey);
+        Source source = getSourceService().findBySourceKey(sourceKey);
         if (jobService.findJobByName(getWarmCacheJobName(String.valueOf(source.getSourceId()), sourceKey), getWarmCacheJobName(String.valueOf(source.getSourceId()), sourceKey)) == null) {
             return warmCaches(source);
         } else {
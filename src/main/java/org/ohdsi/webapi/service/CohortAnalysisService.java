@@ -241,7 +241,7 @@ public class CohortAnalysisService extends AbstractDaoService implements Generat
 		}
 		
 		// source key comes from the client, we look it up here and hand it off to the tasklet
-		Source source = getSourceRepository().findBySourceKey(task.getSourceKey());
+		Source source = getSourceService().findBySourceKey(task.getSourceKey());
 		task.setSource(source);
 	
 		task.setSmallCellCount(Integer.parseInt(this.smallCellCount));
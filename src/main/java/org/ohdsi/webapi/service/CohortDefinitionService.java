@@ -54,7 +54,6 @@ import org.ohdsi.webapi.cohortdefinition.event.CohortDefinitionChangedEvent;
 import org.ohdsi.webapi.common.SourceMapKey;
 import org.ohdsi.webapi.common.generation.GenerateSqlResult;
 import org.ohdsi.webapi.common.sensitiveinfo.CohortGenerationSensitiveInfoService;
-import org.ohdsi.webapi.conceptset.ConceptSetExport;
 import org.ohdsi.webapi.job.JobExecutionResource;
 import org.ohdsi.webapi.job.JobTemplate;
 import org.ohdsi.webapi.security.PermissionService;
@@ -113,7 +112,7 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
-import java.io.ByteArrayOutputStream;
+import javax.ws.rs.core.StreamingOutput;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.sql.ResultSet;
@@ -572,7 +571,7 @@ public class CohortDefinitionService extends AbstractDaoService implements HasTa
 	@Transactional
 	public JobExecutionResource generateCohort(@PathParam("id") final int id, @PathParam("sourceKey") final String sourceKey) {
 
-		Source source = getSourceRepository().findBySourceKey(sourceKey);
+		Source source = getSourceService().findBySourceKey(sourceKey);
 		CohortDefinition currentDefinition = this.cohortDefinitionRepository.findOne(id);
 		UserEntity user = userRepository.findByLogin(security.getSubject());
 		return cohortGenerationService.generateCohortViaJob(user, currentDefinition, source);
@@ -599,7 +598,7 @@ public class CohortDefinitionService extends AbstractDaoService implements HasTa
 	@Path("/{id}/cancel/{sourceKey}")
 	public Response cancelGenerateCohort(@PathParam("id") final int id, @PathParam("sourceKey") final String sourceKey) {
 
-		final Source source = Optional.ofNullable(getSourceRepository().findBySourceKey(sourceKey))
+		final Source source = Optional.ofNullable(getSourceService().findBySourceKey(sourceKey))
 						.orElseThrow(NotFoundException::new);
 		getTransactionTemplateRequiresNew().execute(status -> {
 			CohortDefinition currentDefinition = cohortDefinitionRepository.findOne(id);
@@ -715,6 +714,7 @@ public class CohortDefinitionService extends AbstractDaoService implements HasTa
 											&& Objects.equals(Constants.GENERATE_COHORT, jobName);
 						});
 					});
+					unassignTagsOfDeleted(def);
 					cohortDefinitionRepository.delete(def);
 					samplingService.launchDeleteSamplesTasklet(id);
 				} else {
@@ -752,7 +752,7 @@ public class CohortDefinitionService extends AbstractDaoService implements HasTa
 		this.jobTemplate.launch(cleanupCohortJob, jobParameters);
 	}
 
-	private List<ConceptSetExport> getConceptSetExports(CohortDefinition def, SourceInfo vocabSource) throws RuntimeException {
+	private List<ConceptSet> getConceptSets(CohortDefinition def) throws RuntimeException {
 
 		CohortExpression expression;
 		try {
@@ -761,9 +761,7 @@ public class CohortDefinitionService extends AbstractDaoService implements HasTa
 			throw new RuntimeException(e);
 		}
 
-		return Arrays.stream(expression.conceptSets)
-						.map(cs -> vocabularyService.exportConceptSet(cs, vocabSource))
-						.collect(Collectors.toList());
+		return Arrays.asList(expression.conceptSets);
 	}
 
 	/**
@@ -792,8 +790,7 @@ public class CohortDefinitionService extends AbstractDaoService implements HasTa
 			throw new NotFoundException();
 		}
 
-		List<ConceptSetExport> exports = getConceptSetExports(def, new SourceInfo(source));
-		ByteArrayOutputStream exportStream = ExportUtil.writeConceptSetExportToCSVAndZip(exports);
+		StreamingOutput exportStream = vocabularyService.streamConceptSetExport(getConceptSets(def), new SourceInfo(source));
 
 		return HttpUtils.respondBinary(exportStream, String.format("cohortdefinition_%d_export.zip", def.getId()));
 	}
@@ -821,7 +818,7 @@ public class CohortDefinitionService extends AbstractDaoService implements HasTa
 					@PathParam("sourceKey") final String sourceKey,
 					@DefaultValue("0") @QueryParam("mode") int modeId) {
 
-		Source source = this.getSourceRepository().findBySourceKey(sourceKey);
+		Source source = this.getSourceService().findBySourceKey(sourceKey);
 
 		InclusionRuleReport.Summary summary = getInclusionRuleReportSummary(whitelist(id), source, modeId);
 		List<InclusionRuleReport.InclusionRuleStatistic> inclusionRuleStats = getInclusionRuleStatistics(whitelist(id), source, modeId);
@@ -102,7 +102,6 @@ public class CohortGenerationService extends AbstractDaoService implements Gener
     );
 
     ExceptionHandler exceptionHandler = new GenerationTaskExceptionHandler(new TempTableCleanupManager(getSourceJdbcTemplate(source),
-            getTransactionTemplate(),
             source.getSourceDialect(),
             jobParameters.getString(SESSION_ID),
             SourceUtils.getTempQualifierOrNull(source)
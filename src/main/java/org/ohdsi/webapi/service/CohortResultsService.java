@@ -104,7 +104,7 @@ public class CohortResultsService extends AbstractDaoService {
     List<Map<String, String>> results;
     String sqlPath = BASE_SQL_PATH + "/" + analysisGroup + "/" + analysisName + ".sql";
 
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     try {
       PreparedStatementRenderer psr = prepareGetCohortResultsRaw(id, minCovariatePersonCountParam,
         minIntervalPersonCountParam, sqlPath, source);
@@ -153,7 +153,7 @@ public class CohortResultsService extends AbstractDaoService {
     ZipOutputStream zos = new ZipOutputStream(baos);
 
     try {
-      Source source = getSourceRepository().findBySourceKey(sourceKey);
+      Source source = getSourceService().findBySourceKey(sourceKey);
       String sqlPath = BASE_SQL_PATH + "/raw/getAllResults.sql";
       String tqName = "tableQualifier";
       String tqValue = source.getTableQualifier(SourceDaimon.DaimonType.Results);
@@ -268,7 +268,7 @@ public class CohortResultsService extends AbstractDaoService {
   @Consumes(MediaType.APPLICATION_JSON)
   public Collection<String> getCompletedVisualiztion(@PathParam("id") final int id,
           @PathParam("sourceKey") final String sourceKey) {
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     List<VisualizationData> vizData = this.visualizationDataRepository.findByCohortDefinitionIdAndSourceId(id, source.getSourceId());
     Set<String> completed = new HashSet<>();
     if (CollectionUtils.isNotEmpty(vizData)) {
@@ -292,7 +292,7 @@ public class CohortResultsService extends AbstractDaoService {
   @Path("{sourceKey}/{id}/tornado")
   @Produces(MediaType.APPLICATION_JSON)
   public TornadoReport getTornadoReport(@PathParam("sourceKey") final String sourceKey, @PathParam("id") final int cohortDefinitionId) {
-        Source source = getSourceRepository().findBySourceKey(sourceKey);
+        Source source = getSourceService().findBySourceKey(sourceKey);
         TornadoReport tornadoReport = new TornadoReport();
         tornadoReport.tornadoRecords = queryRunner.getTornadoRecords(getSourceJdbcTemplate(source), cohortDefinitionId, source);
         tornadoReport.profileSamples = queryRunner.getProfileSampleRecords(getSourceJdbcTemplate(source), cohortDefinitionId, source);
@@ -320,7 +320,7 @@ public class CohortResultsService extends AbstractDaoService {
           @DefaultValue("false") @QueryParam("refresh") boolean refresh) {
 
     final String key = CohortResultsAnalysisRunner.DASHBOARD;
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     VisualizationData data = refresh ? null : this.visualizationDataRepository.findByCohortDefinitionIdAndSourceIdAndVisualizationKey(id, source.getSourceId(), key);
 
     CohortDashboard dashboard = null;
@@ -361,7 +361,7 @@ public class CohortResultsService extends AbstractDaoService {
           @QueryParam("min_interval_person_count") final Integer minIntervalPersonCountParam,
           @DefaultValue("false") @QueryParam("refresh") boolean refresh) {
 
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     final String key = CohortResultsAnalysisRunner.CONDITION;
     List<HierarchicalConceptRecord> res = null;
     VisualizationData data = refresh ? null : this.visualizationDataRepository.findByCohortDefinitionIdAndSourceIdAndVisualizationKey(id, source.getSourceId(), key);
@@ -395,7 +395,7 @@ public class CohortResultsService extends AbstractDaoService {
   public Integer getRawDistinctPersonCount(@PathParam("sourceKey") String sourceKey,
           @PathParam("id") String id,
           @DefaultValue("false") @QueryParam("refresh") boolean refresh) {
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     PreparedStatementRenderer psr = prepareGetRawDistinctPersonCount(id, source);
     Integer result = getSourceJdbcTemplate(source).query(psr.getSql(), psr.getSetter(), new ResultSetExtractor<Integer>() {
       @Override
@@ -441,7 +441,7 @@ public class CohortResultsService extends AbstractDaoService {
           @DefaultValue("false") @QueryParam("refresh") boolean refresh) {
     CohortConditionDrilldown drilldown = null;
     final String key = CohortResultsAnalysisRunner.CONDITION_DRILLDOWN;
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     VisualizationData data = refresh ? null : this.visualizationDataRepository.findByCohortDefinitionIdAndSourceIdAndVisualizationKeyAndDrilldownId(id, source.getSourceId(), key, conditionId);
 
     if (refresh || data == null) {
@@ -478,7 +478,7 @@ public class CohortResultsService extends AbstractDaoService {
           @QueryParam("min_interval_person_count") final Integer minIntervalPersonCountParam,
           @DefaultValue("false") @QueryParam("refresh") boolean refresh) {
 
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     final String key = CohortResultsAnalysisRunner.CONDITION_ERA;
     VisualizationData data = refresh ? null : this.visualizationDataRepository.findByCohortDefinitionIdAndSourceIdAndVisualizationKey(id, source.getSourceId(), key);
 
@@ -510,7 +510,7 @@ public class CohortResultsService extends AbstractDaoService {
   @Path("{sourceKey}/{id}/analyses")
   @Produces(MediaType.APPLICATION_JSON)
   public List<Integer> getCompletedAnalyses(@PathParam("sourceKey") String sourceKey, @PathParam("id") String id) {
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
 		int sourceId = source.getSourceId();
 		
     PreparedStatementRenderer psr = prepareGetCompletedAnalysis(id, sourceId);
@@ -579,7 +579,7 @@ public class CohortResultsService extends AbstractDaoService {
 
     return getTransactionTemplateRequiresNew().execute(status -> {
       org.ohdsi.webapi.cohortdefinition.CohortDefinition def = cohortDefinitionRepository.findOne(id);
-      Source source = getSourceRepository().findBySourceKey(sourceKey);
+      Source source = getSourceService().findBySourceKey(sourceKey);
       return def.getCohortAnalysisGenerationInfoList().stream()
               .filter(cd -> Objects.equals(cd.getSourceId(), source.getSourceId()))
               .findFirst().map(gen -> new GenerationInfoDTO(sourceKey, id, gen.getProgress()))
@@ -590,7 +590,7 @@ public class CohortResultsService extends AbstractDaoService {
   protected PreparedStatementRenderer prepareGetCompletedAnalysis(String id, int sourceId) {
 
     String sqlPath = BASE_SQL_PATH + "/raw/getCompletedAnalyses.sql";
-    PreparedStatementRenderer psr = new PreparedStatementRenderer(getSourceRepository().findBySourceId(sourceId)
+    PreparedStatementRenderer psr = new PreparedStatementRenderer(getSourceService().findBySourceId(sourceId)
 			, sqlPath
 			, new String[]{"tableQualifier"}, new String[] { this.getOhdsiSchema()}
 			, new String[]{"cohort_definition_id", "source_id"}, new Object[]{Integer.valueOf(id), Integer.valueOf(sourceId)});
@@ -622,7 +622,7 @@ public class CohortResultsService extends AbstractDaoService {
 
     CohortConditionEraDrilldown drilldown = null;
     final String key = CohortResultsAnalysisRunner.CONDITION_ERA_DRILLDOWN;
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     VisualizationData data = refresh ? null : this.visualizationDataRepository
             .findByCohortDefinitionIdAndSourceIdAndVisualizationKeyAndDrilldownId(id, source.getSourceId(), key, conditionId);
 
@@ -661,7 +661,7 @@ public class CohortResultsService extends AbstractDaoService {
           @PathParam("sourceKey") final String sourceKey,
           @DefaultValue("false") @QueryParam("refresh") boolean refresh) {
 
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     final String key = CohortResultsAnalysisRunner.DRUG;
     VisualizationData data = refresh ? null : this.visualizationDataRepository.findByCohortDefinitionIdAndSourceIdAndVisualizationKey(id, source.getSourceId(), key);
 
@@ -709,7 +709,7 @@ public class CohortResultsService extends AbstractDaoService {
           @DefaultValue("false") @QueryParam("refresh") boolean refresh) {
     CohortDrugDrilldown drilldown = null;
     final String key = CohortResultsAnalysisRunner.DRUG_DRILLDOWN;
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     VisualizationData data = refresh ? null : this.visualizationDataRepository.findByCohortDefinitionIdAndSourceIdAndVisualizationKeyAndDrilldownId(id, source.getSourceId(), key, drugId);
 
     if (refresh || data == null) {
@@ -747,7 +747,7 @@ public class CohortResultsService extends AbstractDaoService {
           @PathParam("sourceKey") final String sourceKey,
           @DefaultValue("false") @QueryParam("refresh") boolean refresh) {
 
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     List<HierarchicalConceptRecord> res = null;
     final String key = CohortResultsAnalysisRunner.DRUG_ERA;
     VisualizationData data = refresh ? null : this.visualizationDataRepository.findByCohortDefinitionIdAndSourceIdAndVisualizationKey(id, source.getSourceId(), key);
@@ -794,7 +794,7 @@ public class CohortResultsService extends AbstractDaoService {
           @PathParam("sourceKey") final String sourceKey,
           @DefaultValue("false") @QueryParam("refresh") boolean refresh) {
     CohortDrugEraDrilldown drilldown = null;
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     final String key = CohortResultsAnalysisRunner.DRUG_ERA_DRILLDOWN;
     VisualizationData data = refresh ? null : this.visualizationDataRepository.findByCohortDefinitionIdAndSourceIdAndVisualizationKeyAndDrilldownId(id, source.getSourceId(), key, drugId);
 
@@ -834,7 +834,7 @@ public class CohortResultsService extends AbstractDaoService {
           @DefaultValue("false") @QueryParam("refresh") boolean refresh) {
     CohortPersonSummary person = null;
     final String key = CohortResultsAnalysisRunner.PERSON;
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     VisualizationData data = refresh ? null : this.visualizationDataRepository.findByCohortDefinitionIdAndSourceIdAndVisualizationKey(id, source.getSourceId(), key);
 
     if (refresh || data == null) {
@@ -871,7 +871,7 @@ public class CohortResultsService extends AbstractDaoService {
           @PathParam("sourceKey") final String sourceKey,
           @DefaultValue("false") @QueryParam("refresh") boolean refresh) {
     CohortSpecificSummary summary = null;
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     final String key = CohortResultsAnalysisRunner.COHORT_SPECIFIC;
     VisualizationData data = refresh ? null : this.visualizationDataRepository.findByCohortDefinitionIdAndSourceIdAndVisualizationKey(id, source.getSourceId(), key);
 
@@ -911,7 +911,7 @@ public class CohortResultsService extends AbstractDaoService {
 
     CohortSpecificTreemap summary = null;
     final String key = CohortResultsAnalysisRunner.COHORT_SPECIFIC_TREEMAP;
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     VisualizationData data = refresh ? null : this.visualizationDataRepository.findByCohortDefinitionIdAndSourceIdAndVisualizationKey(id, source.getSourceId(), key);
 
     if (refresh || data == null) {
@@ -951,7 +951,7 @@ public class CohortResultsService extends AbstractDaoService {
           @DefaultValue("false") @QueryParam("refresh") boolean refresh) {
 
     List<ScatterplotRecord> records = new ArrayList<>();
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     final String key = CohortResultsAnalysisRunner.COHORT_SPECIFIC_PROCEDURE_DRILLDOWN;
     VisualizationData data = refresh ? null : visualizationDataRepository
       .findByCohortDefinitionIdAndSourceIdAndVisualizationKeyAndDrilldownId(id, source.getSourceId(), key, conceptId);
@@ -1000,7 +1000,7 @@ public class CohortResultsService extends AbstractDaoService {
           @DefaultValue("false") @QueryParam("refresh") boolean refresh) {
 
     List<ScatterplotRecord> records = new ArrayList<ScatterplotRecord>();
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     final String key = CohortResultsAnalysisRunner.COHORT_SPECIFIC_DRUG_DRILLDOWN;
     VisualizationData data = refresh ? null : this.visualizationDataRepository.findByCohortDefinitionIdAndSourceIdAndVisualizationKeyAndDrilldownId(id, source.getSourceId(), key, conceptId);
 
@@ -1042,7 +1042,7 @@ public class CohortResultsService extends AbstractDaoService {
     List<ScatterplotRecord> records = null;
 
     final String key = CohortResultsAnalysisRunner.COHORT_SPECIFIC_CONDITION_DRILLDOWN;
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     VisualizationData data = refresh ? null : this.visualizationDataRepository
             .findByCohortDefinitionIdAndSourceIdAndVisualizationKeyAndDrilldownId(id, source.getSourceId(), key, conceptId);
 
@@ -1081,7 +1081,7 @@ public class CohortResultsService extends AbstractDaoService {
           @DefaultValue("false") @QueryParam("refresh") boolean refresh) {
     List<HierarchicalConceptRecord> res = null;
 
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     final String key = CohortResultsAnalysisRunner.OBSERVATION;
     VisualizationData data = refresh ? null : this.visualizationDataRepository.findByCohortDefinitionIdAndSourceIdAndVisualizationKey(id, source.getSourceId(), key);
 
@@ -1123,7 +1123,7 @@ public class CohortResultsService extends AbstractDaoService {
           @DefaultValue("false") @QueryParam("refresh") boolean refresh) {
     CohortObservationDrilldown drilldown = new CohortObservationDrilldown();
     final String key = CohortResultsAnalysisRunner.OBSERVATION_DRILLDOWN;
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     VisualizationData data = refresh ? null : this.visualizationDataRepository.findByCohortDefinitionIdAndSourceIdAndVisualizationKeyAndDrilldownId(id, source.getSourceId(), key, conceptId);
 
     if (refresh || data == null) {
@@ -1160,7 +1160,7 @@ public class CohortResultsService extends AbstractDaoService {
           @PathParam("sourceKey") final String sourceKey,
           @DefaultValue("false") @QueryParam("refresh") boolean refresh) {
     List<HierarchicalConceptRecord> res = null;
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     final String key = CohortResultsAnalysisRunner.MEASUREMENT;
     VisualizationData data = refresh ? null : this.visualizationDataRepository.findByCohortDefinitionIdAndSourceIdAndVisualizationKey(id, source.getSourceId(), key);
 
@@ -1206,7 +1206,7 @@ public class CohortResultsService extends AbstractDaoService {
           @PathParam("sourceKey") final String sourceKey,
           @DefaultValue("false") @QueryParam("refresh") boolean refresh) {
     CohortMeasurementDrilldown drilldown = new CohortMeasurementDrilldown();
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     final String key = CohortResultsAnalysisRunner.MEASUREMENT_DRILLDOWN;
     VisualizationData data = refresh ? null : this.visualizationDataRepository.findByCohortDefinitionIdAndSourceIdAndVisualizationKeyAndDrilldownId(id, source.getSourceId(), key, conceptId);
 
@@ -1244,7 +1244,7 @@ public class CohortResultsService extends AbstractDaoService {
           @PathParam("sourceKey") final String sourceKey,
           @DefaultValue("false") @QueryParam("refresh") boolean refresh) {
     CohortObservationPeriod obsPeriod = new CohortObservationPeriod();
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     final String key = CohortResultsAnalysisRunner.OBSERVATION_PERIOD;
     VisualizationData data = refresh ? null : this.visualizationDataRepository.findByCohortDefinitionIdAndSourceIdAndVisualizationKey(id, source.getSourceId(), key);
 
@@ -1282,7 +1282,7 @@ public class CohortResultsService extends AbstractDaoService {
           @DefaultValue("false") @QueryParam("refresh") boolean refresh) {
 
     CohortDataDensity data = new CohortDataDensity();
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     final String key = CohortResultsAnalysisRunner.DATA_DENSITY;
     VisualizationData vizData = refresh ? null : this.visualizationDataRepository.findByCohortDefinitionIdAndSourceIdAndVisualizationKey(id, source.getSourceId(), key);
 
@@ -1321,7 +1321,7 @@ public class CohortResultsService extends AbstractDaoService {
           @DefaultValue("false") @QueryParam("refresh") boolean refresh) {
 
     List<HierarchicalConceptRecord> res = null;
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     final String key = CohortResultsAnalysisRunner.PROCEDURE;
     VisualizationData data = refresh ? null : this.visualizationDataRepository.findByCohortDefinitionIdAndSourceIdAndVisualizationKey(id, source.getSourceId(), key);
 
@@ -1362,7 +1362,7 @@ public class CohortResultsService extends AbstractDaoService {
           @PathParam("sourceKey") final String sourceKey,
           @DefaultValue("false") @QueryParam("refresh") boolean refresh) {
     CohortProceduresDrillDown drilldown = new CohortProceduresDrillDown();
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     final String key = CohortResultsAnalysisRunner.PROCEDURE_DRILLDOWN;
     VisualizationData data = refresh ? null : this.visualizationDataRepository.findByCohortDefinitionIdAndSourceIdAndVisualizationKeyAndDrilldownId(id, source.getSourceId(), key, conceptId);
 
@@ -1401,7 +1401,7 @@ public class CohortResultsService extends AbstractDaoService {
           @DefaultValue("false") @QueryParam("refresh") boolean refresh) {
 
     List<HierarchicalConceptRecord> res = null;
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     final String key = CohortResultsAnalysisRunner.VISIT;
     VisualizationData data = refresh ? null : this.visualizationDataRepository.findByCohortDefinitionIdAndSourceIdAndVisualizationKey(id, source.getSourceId(), key);
 
@@ -1442,7 +1442,7 @@ public class CohortResultsService extends AbstractDaoService {
           @PathParam("sourceKey") final String sourceKey,
           @DefaultValue("false") @QueryParam("refresh") boolean refresh) {
     CohortVisitsDrilldown drilldown = new CohortVisitsDrilldown();
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     final String key = CohortResultsAnalysisRunner.VISIT_DRILLDOWN;
     VisualizationData data = refresh ? null : this.visualizationDataRepository.findByCohortDefinitionIdAndSourceIdAndVisualizationKeyAndDrilldownId(id, source.getSourceId(), key, conceptId);
 
@@ -1518,7 +1518,7 @@ public class CohortResultsService extends AbstractDaoService {
           @PathParam("sourceKey") final String sourceKey,
           @DefaultValue("false") @QueryParam("refresh") boolean refresh) {
     CohortDeathData data = new CohortDeathData();
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     final String key = CohortResultsAnalysisRunner.DEATH;
     VisualizationData vizData = refresh ? null : this.visualizationDataRepository.findByCohortDefinitionIdAndSourceIdAndVisualizationKey(id, source.getSourceId(), key);
 
@@ -1572,7 +1572,7 @@ public class CohortResultsService extends AbstractDaoService {
   @Path("{sourceKey}/{id}/members/{min}-{max}")
   @Produces(MediaType.APPLICATION_JSON)
   public Collection<CohortPerson> getCohortMembers(@PathParam("id") final int id, @PathParam("sourceKey") String sourceKey, @PathParam("min") final int min, @PathParam("max") final int max) {
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     String sqlPath = "/resources/cohortresults/sql/raw/getMembers.sql";
     String tqName = "tableQualifier";
     String tqValue = source.getTableQualifier(SourceDaimon.DaimonType.Results);
@@ -1594,7 +1594,7 @@ public class CohortResultsService extends AbstractDaoService {
   @Path("{sourceKey}/{id}/breakdown")
   @Produces(MediaType.APPLICATION_JSON)
   public Collection<CohortBreakdown> getCohortBreakdown(@PathParam("id") final int id, @PathParam("sourceKey") String sourceKey) {
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     String sqlPath = "/resources/cohortresults/sql/raw/getCohortBreakdown.sql";
     String resultsTqName = "resultsTableQualifier";
     String resultsTqValue = source.getTableQualifier(SourceDaimon.DaimonType.Results);
@@ -1632,7 +1632,7 @@ public class CohortResultsService extends AbstractDaoService {
                                         @PathParam("rows") final int rows) {
 
 
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     PreparedStatementRenderer psr = prepareGetCohortMembers(id, gender,
         age, conditions, drugs, rows, source);
     return getSourceJdbcTemplate(source).query(psr.getSql(),psr.getSetter(), cohortMemberMapper);
@@ -1714,7 +1714,7 @@ public class CohortResultsService extends AbstractDaoService {
   @Path("{sourceKey}/{id}/members/count")
   @Produces(MediaType.APPLICATION_JSON)
   public Long getCohortMemberCount(@PathParam("id") final int id, @PathParam("sourceKey") String sourceKey) {
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     String sqlPath = "/resources/cohortresults/sql/raw/getMemberCount.sql";
     String tqName = "tableQualifier";
     String tqValue = source.getTableQualifier(SourceDaimon.DaimonType.CDM);
@@ -1740,7 +1740,7 @@ public class CohortResultsService extends AbstractDaoService {
           @PathParam("sourceKey") String sourceKey,
           @DefaultValue("true") @QueryParam("fullDetail") boolean retrieveFullDetail) {
 
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     String sql;
 
     if (retrieveFullDetail) {
@@ -1772,7 +1772,7 @@ public class CohortResultsService extends AbstractDaoService {
   @Consumes(MediaType.APPLICATION_JSON)
   public List<ExposureCohortResult> getExposureOutcomeCohortRates(@PathParam("sourceKey") String sourceKey, ExposureCohortSearch search) {
 
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     PreparedStatementRenderer psr = prepareGetExposureOutcomeCohortRates(search, source);
 
     return getSourceJdbcTemplate(source).query(psr.getSql(), psr.getSetter(), (rs, rowNum) -> {
@@ -1817,7 +1817,7 @@ public class CohortResultsService extends AbstractDaoService {
   @Consumes(MediaType.APPLICATION_JSON)
   public List<TimeToEventResult> getTimeToEventDrilldown(@PathParam("sourceKey") String sourceKey, ExposureCohortSearch search) {
 
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     PreparedStatementRenderer psr = prepareGetTimeToEventDrilldown(search, source);
 
     return getSourceJdbcTemplate(source).query(psr.getSql(), psr.getSetter(), (rs, rowNum) -> {
@@ -1860,7 +1860,7 @@ public class CohortResultsService extends AbstractDaoService {
   @Consumes(MediaType.APPLICATION_JSON)
   public List<PredictorResult> getExposureOutcomeCohortPredictors(@PathParam("sourceKey") String sourceKey, ExposureCohortSearch search) {
 
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     PreparedStatementRenderer psr = prepareGetExposureOutcomeCohortPredictors(search, source);
 
     return getSourceJdbcTemplate(source).query(psr.getSql(), psr.getSetter(), (rs, rowNum) -> {
@@ -1901,7 +1901,7 @@ public class CohortResultsService extends AbstractDaoService {
           @PathParam("sourceKey") final String sourceKey,
           @DefaultValue("false") @QueryParam("refresh") boolean refresh) {
       List<CohortAttribute> attrs = new ArrayList<CohortAttribute>();
-      Source source = getSourceRepository().findBySourceKey(sourceKey);
+      Source source = getSourceService().findBySourceKey(sourceKey);
       final String key = CohortResultsAnalysisRunner.HERACLES_HEEL;
       VisualizationData data = refresh ? null : this.visualizationDataRepository.findByCohortDefinitionIdAndSourceIdAndVisualizationKey(id, source.getSourceId(), key);
 
@@ -1920,7 +1920,7 @@ public class CohortResultsService extends AbstractDaoService {
   
   public List<AnalysisResults> getCohortAnalysesForDataCompleteness(final int id, String sourceKey) {
 
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     String resultsTableQualifier = source.getTableQualifier(SourceDaimon.DaimonType.Results);
     String sql = ResourceHelper.GetResourceAsString("/resources/cohortresults/sql/datacompleteness/getCohortDataCompleteness.sql");
 
@@ -2008,7 +2008,7 @@ public class CohortResultsService extends AbstractDaoService {
     public List<AnalysisResults> getCohortAnalysesEntropy(final int id, String sourceKey, int entroppAnalysisId) {
 
         String sql = ResourceHelper.GetResourceAsString("/resources/cohortresults/sql/entropy/getEntropy.sql");
-        Source source = getSourceRepository().findBySourceKey(sourceKey);
+        Source source = getSourceService().findBySourceKey(sourceKey);
         String resultsTableQualifier = source.getTableQualifier(SourceDaimon.DaimonType.Results);
         
         String[] searchStringNames = new String[] { "tableQualifier" };
@@ -2103,7 +2103,7 @@ public class CohortResultsService extends AbstractDaoService {
     public HealthcareExposureReport getHealthcareUtilizationExposureReport(@PathParam("id") final int id, @PathParam("sourceKey") String sourceKey
             , @PathParam("window") final WindowType window
             , @DefaultValue("ww") @QueryParam("periodType") final PeriodType periodType) {
-            Source source = getSourceRepository().findBySourceKey(sourceKey);
+            Source source = getSourceService().findBySourceKey(sourceKey);
             HealthcareExposureReport exposureReport = queryRunner.getHealthcareExposureReport(getSourceJdbcTemplate(source), id, window, periodType, source);
             return exposureReport;
     }
@@ -2124,7 +2124,7 @@ public class CohortResultsService extends AbstractDaoService {
                                     @PathParam("id") final int id
                                     , @PathParam("sourceKey") final String sourceKey
                                     , @PathParam("window") final WindowType window) {
-            final Source source = getSourceRepository().findBySourceKey(sourceKey);
+            final Source source = getSourceService().findBySourceKey(sourceKey);
             final List<String> periodTypes = queryRunner.getHealthcarePeriodTypes(getSourceJdbcTemplate(source), id, window, source);
             return periodTypes;
     }
@@ -2155,7 +2155,7 @@ public class CohortResultsService extends AbstractDaoService {
 		, @QueryParam("visitConcept") final Long visitConcept
 		, @QueryParam("visitTypeConcept") final Long visitTypeConcept
 		, @DefaultValue("31968") @QueryParam("costTypeConcept") final Long costTypeConcept) {
-		Source source = getSourceRepository().findBySourceKey(sourceKey);
+		Source source = getSourceService().findBySourceKey(sourceKey);
 		HealthcareVisitUtilizationReport visitUtilizationReport = queryRunner.getHealthcareVisitReport(getSourceJdbcTemplate(source), id, window, visitStat, periodType, visitConcept, visitTypeConcept, costTypeConcept, source);
 		return visitUtilizationReport;
 	}	
@@ -2182,7 +2182,7 @@ public class CohortResultsService extends AbstractDaoService {
 		, @DefaultValue("31968") @QueryParam("costType") final Long costTypeConceptId
 		
 	) {
-		Source source = getSourceRepository().findBySourceKey(sourceKey);
+		Source source = getSourceService().findBySourceKey(sourceKey);
 		HealthcareDrugUtilizationSummary report = queryRunner.getHealthcareDrugUtilizationSummary(getSourceJdbcTemplate(source), id, window, drugTypeConceptId, costTypeConceptId, source);
 		return report;
 	}	
@@ -2212,7 +2212,7 @@ public class CohortResultsService extends AbstractDaoService {
 		, @QueryParam("drugType") final Long drugTypeConceptId
 		, @DefaultValue("31968") @QueryParam("costType") final Long costTypeConceptId
 	) {	
-		Source source = getSourceRepository().findBySourceKey(sourceKey);
+		Source source = getSourceService().findBySourceKey(sourceKey);
 		HealthcareDrugUtilizationDetail report = queryRunner.getHealthcareDrugUtilizationReport(getSourceJdbcTemplate(source), id, window, drugConceptId, drugTypeConceptId, periodType, costTypeConceptId, source);
 		return report;
 	}
@@ -2233,7 +2233,7 @@ public class CohortResultsService extends AbstractDaoService {
 		, @PathParam("sourceKey") String sourceKey
 		, @QueryParam("drugConceptId") final Long drugConceptId) 
 	{	
-		Source source = getSourceRepository().findBySourceKey(sourceKey);
+		Source source = getSourceService().findBySourceKey(sourceKey);
 		return queryRunner.getDrugTypes(getSourceJdbcTemplate(source), id, drugConceptId, source);
 	}	
 	
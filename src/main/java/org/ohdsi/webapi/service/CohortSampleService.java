@@ -10,7 +10,7 @@ import org.ohdsi.webapi.cohortsample.dto.CohortSampleDTO;
 import org.ohdsi.webapi.cohortsample.dto.CohortSampleListDTO;
 import org.ohdsi.webapi.cohortsample.dto.SampleParametersDTO;
 import org.ohdsi.webapi.source.Source;
-import org.ohdsi.webapi.source.SourceRepository;
+import org.ohdsi.webapi.source.SourceService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -36,17 +36,17 @@ public class CohortSampleService {
 	private final CohortDefinitionRepository cohortDefinitionRepository;
 	private final CohortGenerationInfoRepository generationInfoRepository;
 	private final CohortSamplingService samplingService;
-	private final SourceRepository sourceRepository;
+	private final SourceService sourceService;
 
 	@Autowired
 	public CohortSampleService(
 			CohortSamplingService samplingService,
-			SourceRepository sourceRepository,
+			SourceService sourceService,
 			CohortDefinitionRepository cohortDefinitionRepository,
 			CohortGenerationInfoRepository generationInfoRepository
 	) {
 		this.samplingService = samplingService;
-		this.sourceRepository = sourceRepository;
+		this.sourceService = sourceService;
 		this.cohortDefinitionRepository = cohortDefinitionRepository;
 		this.generationInfoRepository = generationInfoRepository;
 	}
@@ -226,7 +226,7 @@ public class CohortSampleService {
 	}
 
 	private Source getSource(String sourceKey) {
-		Source source = sourceRepository.findBySourceKey(sourceKey);
+		Source source = sourceService.findBySourceKey(sourceKey);
 		if (source == null) {
 			throw new NotFoundException("Source " + sourceKey + " does not exist");
 		}
@@ -15,7 +15,6 @@
  */
 package org.ohdsi.webapi.service;
 
-import java.io.ByteArrayOutputStream;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -24,6 +23,7 @@ import javax.transaction.Transactional;
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.apache.shiro.authz.UnauthorizedException;
 import org.ohdsi.circe.vocabulary.ConceptSetExpression;
@@ -49,6 +49,7 @@ import org.ohdsi.webapi.source.SourceService;
 import org.ohdsi.webapi.tag.domain.HasTags;
 import org.ohdsi.webapi.tag.dto.TagNameListRequestDTO;
 import org.ohdsi.webapi.util.ExportUtil;
+import org.ohdsi.webapi.util.HttpUtils;
 import org.ohdsi.webapi.util.NameUtils;
 import org.ohdsi.webapi.util.ExceptionUtils;
 import org.ohdsi.webapi.versioning.domain.ConceptSetVersion;
@@ -401,29 +402,20 @@ public class ConceptSetService extends AbstractDaoService implements HasTags<Int
             throw e;
         }
 
-        ByteArrayOutputStream baos;
         Source source = sourceService.getPriorityVocabularySource();
+        SourceInfo vocabSource = new SourceInfo(source);
         ArrayList<ConceptSetExport> cs = new ArrayList<>();
-        Response response = null;
-        try {
-            // Load all of the concept sets requested
-            for (int i = 0; i < conceptSetIds.size(); i++) {
-                // Get the concept set information
-                cs.add(getConceptSetForExport(conceptSetIds.get(i), new SourceInfo(source)));
-            }
-           // Write Concept Set Expression to a CSV
-            baos = ExportUtil.writeConceptSetExportToCSVAndZip(cs);
-
-            response = Response
-                    .ok(baos)
-                    .type(MediaType.APPLICATION_OCTET_STREAM)
-                    .header("Content-Disposition", "attachment; filename=\"conceptSetExport.zip\"")
-                    .build();
-
-        } catch (Exception ex) {
-            throw ex;
+        // Load all of the concept sets requested, their concepts are looked up while the export is written
+        for (int i = 0; i < conceptSetIds.size(); i++) {
+            // Get the concept set information
+            cs.add(getConceptSetForExport(conceptSetIds.get(i)));
         }
-        return response;
+        // Write Concept Set Expression to a CSV
+        StreamingOutput stream = ExportUtil.streamConceptSetExport(cs,
+                export -> vocabService.executeIncludedConceptLookup(vocabSource.sourceKey, export.csExpression),
+                export -> vocabService.executeMappedLookup(vocabSource.sourceKey, export.csExpression));
+
+        return HttpUtils.respondBinary(stream, "conceptSetExport.zip");
     }
 
     /**
@@ -533,7 +525,7 @@ public class ConceptSetService extends AbstractDaoService implements HasTags<Int
         return dst;
     }
     
-    private ConceptSetExport getConceptSetForExport(int conceptSetId, SourceInfo vocabSource) {
+    private ConceptSetExport getConceptSetForExport(int conceptSetId) {
         ConceptSetExport cs = new ConceptSetExport();
 
         // Set the concept set id
@@ -543,11 +535,6 @@ public class ConceptSetService extends AbstractDaoService implements HasTags<Int
         // Get the concept set expression
         cs.csExpression = this.getConceptSetExpression(conceptSetId);
 
-        // Lookup the identifiers
-        cs.identifierConcepts = vocabService.executeIncludedConceptLookup(vocabSource.sourceKey, cs.csExpression); //vocabService.executeIdentifierLookup(vocabSource.sourceKey, conceptIds);
-        // Lookup the mapped items
-        cs.mappedConcepts = vocabService.executeMappedLookup(vocabSource.sourceKey, cs.csExpression);
-
         return cs;
     }
 
@@ -604,6 +591,7 @@ public class ConceptSetService extends AbstractDaoService implements HasTags<Int
 
       // Remove the concept set
       try {
+        unassignTagsOfDeleted(getConceptSetRepository().findById(id));
         getConceptSetRepository().delete(id);
       } catch (EmptyResultDataAccessException e) {
           // Ignore - there may be no data
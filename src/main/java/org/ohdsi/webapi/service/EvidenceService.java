@@ -240,7 +240,7 @@ public class EvidenceService extends AbstractDaoService implements GeneratesNoti
     @Path("{sourceKey}/info")
     @Produces(MediaType.APPLICATION_JSON)
     public Collection<EvidenceInfo> getInfo(@PathParam("sourceKey") String sourceKey) {
-        Source source = getSourceRepository().findBySourceKey(sourceKey);
+        Source source = getSourceService().findBySourceKey(sourceKey);
         String sqlPath = "/resources/evidence/sql/getInfo.sql";
         String tqName = "cem_schema";
         String tqValue = source.getTableQualifier(SourceDaimon.DaimonType.CEM);
@@ -274,7 +274,7 @@ public class EvidenceService extends AbstractDaoService implements GeneratesNoti
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
     public Collection<DrugHoiEvidence> getDrugConditionPairs(@PathParam("sourceKey") String sourceKey, DrugConditionSourceSearchParams searchParams) {
-        Source source = getSourceRepository().findBySourceKey(sourceKey);
+        Source source = getSourceService().findBySourceKey(sourceKey);
         String sql = getDrugHoiEvidenceSQL(source, searchParams);
         return getSourceJdbcTemplate(source).query(sql, (rs, rowNum) -> {
             String evidenceSource = rs.getString("SOURCE_ID");
@@ -310,7 +310,7 @@ public class EvidenceService extends AbstractDaoService implements GeneratesNoti
     @Path("{sourceKey}/drug/{id}")
     @Produces(MediaType.APPLICATION_JSON)
     public Collection<DrugEvidence> getDrugEvidence(@PathParam("sourceKey") String sourceKey, @PathParam("id") final Long id) {
-        Source source = getSourceRepository().findBySourceKey(sourceKey);
+        Source source = getSourceService().findBySourceKey(sourceKey);
         PreparedStatementRenderer psr = prepareGetEvidenceForConcept(source, id);
         return getSourceJdbcTemplate(source).query(psr.getSql(), psr.getSetter(), (rs, rowNum) -> {
             String evidenceSource = rs.getString("SOURCE_ID");
@@ -349,7 +349,7 @@ public class EvidenceService extends AbstractDaoService implements GeneratesNoti
     @Path("{sourceKey}/hoi/{id}")
     @Produces(MediaType.APPLICATION_JSON)
     public Collection<HoiEvidence> getHoiEvidence(@PathParam("sourceKey") String sourceKey, @PathParam("id") final Long id) {
-        Source source = getSourceRepository().findBySourceKey(sourceKey);
+        Source source = getSourceService().findBySourceKey(sourceKey);
         PreparedStatementRenderer psr = prepareGetEvidenceForConcept(source, id);
         return getSourceJdbcTemplate(source).query(psr.getSql(), psr.getSetter(), (rs, rowNum) -> {
             String evidenceSource = rs.getString("SOURCE_ID");
@@ -389,7 +389,7 @@ public class EvidenceService extends AbstractDaoService implements GeneratesNoti
     @Produces(MediaType.APPLICATION_JSON)
     @Consumes(MediaType.APPLICATION_JSON)
     public Collection<DrugLabelInfo> getDrugIngredientLabel(@PathParam("sourceKey") String sourceKey, long[] identifiers) {
-        Source source = getSourceRepository().findBySourceKey(sourceKey);
+        Source source = getSourceService().findBySourceKey(sourceKey);
         return executeGetDrugLabels(identifiers, source);
     }
 
@@ -406,7 +406,7 @@ public class EvidenceService extends AbstractDaoService implements GeneratesNoti
     @Path("{sourceKey}/drughoi/{key}")
     @Produces(MediaType.APPLICATION_JSON)
     public List<DrugHoiEvidence> getDrugHoiEvidence(@PathParam("sourceKey") String sourceKey, @PathParam("key") final String key) {
-        Source source = getSourceRepository().findBySourceKey(sourceKey);
+        Source source = getSourceService().findBySourceKey(sourceKey);
         PreparedStatementRenderer psr = prepareGetDrugHoiEvidence(key, source);
         return getSourceJdbcTemplate(source).query(psr.getSql(), psr.getSetter(), (rs, rowNum) -> {
             String evidenceSource = rs.getString("SOURCE_ID");
@@ -469,7 +469,7 @@ public class EvidenceService extends AbstractDaoService implements GeneratesNoti
     @Path("{sourceKey}/{id}")
     @Produces(MediaType.APPLICATION_JSON)
     public Collection<Evidence> getEvidence(@PathParam("sourceKey") String sourceKey, @PathParam("id") final Long id) {
-        Source source = getSourceRepository().findBySourceKey(sourceKey);
+        Source source = getSourceService().findBySourceKey(sourceKey);
         PreparedStatementRenderer psr = prepareGetEvidenceForConcept(source, id);
         return getSourceJdbcTemplate(source).query(psr.getSql(), psr.getSetter(), (rs, rowNum) -> {
             String evidenceSource = rs.getString("SOURCE_ID");
@@ -638,7 +638,7 @@ public class EvidenceService extends AbstractDaoService implements GeneratesNoti
         task.setOhdsiSchema(this.getOhdsiSchema());
 
         // source key comes from the client, we look it up here and hand it off to the tasklet
-        Source source = getSourceRepository().findBySourceKey(sourceKey);
+        Source source = getSourceService().findBySourceKey(sourceKey);
         // Verify the source has both the evidence & results daimon configured
         // and throw an exception if either is missing
         String cemSchema = source.getTableQualifier(SourceDaimon.DaimonType.CEM);
@@ -724,7 +724,7 @@ public class EvidenceService extends AbstractDaoService implements GeneratesNoti
     @Produces(MediaType.APPLICATION_JSON)
     @Consumes(MediaType.APPLICATION_JSON)
     public Collection<NegativeControlDTO> getNegativeControls(@PathParam("sourceKey") String sourceKey, @PathParam("conceptsetid") int conceptSetId) throws Exception {
-        Source source = getSourceRepository().findBySourceKey(sourceKey);
+        Source source = getSourceService().findBySourceKey(sourceKey);
         PreparedStatementRenderer psr = this.prepareGetNegativeControls(source, conceptSetId);
         final List<NegativeControlDTO> recs = getSourceJdbcTemplate(source).query(psr.getSql(), psr.getSetter(), new NegativeControlMapper());
         return recs;
@@ -745,7 +745,7 @@ public class EvidenceService extends AbstractDaoService implements GeneratesNoti
             @DefaultValue("DRUG") @QueryParam("targetDomain") String targetDomain,
             @DefaultValue("192671") @QueryParam("conceptOfInterest") String conceptOfInterest) {
         NegativeControlTaskParameters task = new NegativeControlTaskParameters();
-        Source source = getSourceRepository().findBySourceKey(sourceKey);
+        Source source = getSourceService().findBySourceKey(sourceKey);
         task.setSource(source);
         task.setCsToIncludeSQL("");
         task.setCsToExcludeSQL("");
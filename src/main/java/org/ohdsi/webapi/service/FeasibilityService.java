@@ -568,7 +568,7 @@ public class FeasibilityService extends AbstractDaoService {
   public JobExecutionResource performStudy(@PathParam("study_id") final int study_id, @PathParam("sourceKey") final String sourceKey) {
     Date startTime = Calendar.getInstance().getTime();
 
-    Source source = this.getSourceRepository().findBySourceKey(sourceKey);
+    Source source = this.getSourceService().findBySourceKey(sourceKey);
     String resultsTableQualifier = source.getTableQualifier(SourceDaimon.DaimonType.Results);
     String cdmTableQualifier = source.getTableQualifier(SourceDaimon.DaimonType.CDM);
 
@@ -700,7 +700,7 @@ public class FeasibilityService extends AbstractDaoService {
   @Transactional
   public FeasibilityReport getSimulationReport(@PathParam("id") final int id, @PathParam("sourceKey") final String sourceKey) {
 
-    Source source = this.getSourceRepository().findBySourceKey(sourceKey);
+    Source source = this.getSourceService().findBySourceKey(sourceKey);
 
     FeasibilityReport.Summary summary = getSimulationSummary(whitelist(id), source);
     List<FeasibilityReport.InclusionRuleStatistic> inclusionRuleStats = getSimulationInclusionRuleStatistics(whitelist(id), source);
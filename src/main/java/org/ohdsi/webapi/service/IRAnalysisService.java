@@ -18,11 +18,12 @@ package org.ohdsi.webapi.service;
 import com.cosium.spring.data.jpa.entity.graph.domain.EntityGraph;
 import com.cosium.spring.data.jpa.entity.graph.domain.EntityGraphUtils;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableMap;
 import com.opencsv.CSVWriter;
-import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.collections4.IterableUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.ohdsi.analysis.Utils;
 import org.ohdsi.circe.helper.ResourceHelper;
@@ -39,7 +40,9 @@ import org.ohdsi.webapi.common.DesignImportService;
 import org.ohdsi.webapi.common.generation.GenerateSqlResult;
 import org.ohdsi.webapi.common.generation.GenerationUtils;
 import org.ohdsi.webapi.ircalc.AnalysisReport;
+import org.ohdsi.webapi.ircalc.AnalysisReportCache;
 import org.ohdsi.webapi.ircalc.ExecutionInfo;
+import org.ohdsi.webapi.ircalc.ExecutionInfoId;
 import org.ohdsi.webapi.ircalc.IRAnalysisInfoListener;
 import org.ohdsi.webapi.ircalc.IRAnalysisQueryBuilder;
 import org.ohdsi.webapi.ircalc.IRAnalysisTasklet;
@@ -107,6 +110,7 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -114,6 +118,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -144,6 +149,11 @@ public class IRAnalysisService extends AbstractDaoService implements
 
   @Value("${security.defaultGlobalReadPermissions}")
   private boolean defaultGlobalReadPermissions;
+
+  @Value("${ir.report.cacheSize:100}")
+  private int reportCacheSize;
+
+  private AnalysisReportCache reportCache;
   
   @Autowired
   private IncidenceRateAnalysisRepository irAnalysisRepository;
@@ -249,6 +259,18 @@ public class IRAnalysisService extends AbstractDaoService implements
     return getSourceJdbcTemplate(source).query(psr.getSql(), psr.getSetter(), summaryMapper);
   }
 
+  private AnalysisReport.Summary getAnalysisSummary(int id, int targetId, int outcomeId, Source source) {
+    String tqName = "tableQualifier";
+    String tqValue = source.getTableQualifier(SourceDaimon.DaimonType.Results);
+    String sql = "select target_id, outcome_id, sum(person_count) as person_count, sum(time_at_risk) as time_at_risk," +
+      " sum(cases) as cases from @tableQualifier.ir_analysis_result" +
+      " where analysis_id = @id and target_id = @target_id and outcome_id = @outcome_id GROUP BY target_id, outcome_id";
+    String[] params = {"id", "target_id", "outcome_id"};
+    Object[] paramValues = {whitelist(id), targetId, outcomeId};
+    PreparedStatementRenderer psr = new PreparedStatementRenderer(source, sql, tqName, tqValue, params, paramValues);
+    return getSourceJdbcTemplate(source).query(psr.getSql(), psr.getSetter(), summaryMapper).stream().findFirst().orElse(null);
+  }
+
   private final RowMapper<AnalysisReport.StrataStatistic> strataRuleStatisticMapper = (rs, rowNum) -> {
     AnalysisReport.StrataStatistic statistic = new AnalysisReport.StrataStatistic();
 
@@ -265,32 +287,26 @@ public class IRAnalysisService extends AbstractDaoService implements
 
   private List<AnalysisReport.StrataStatistic> getStrataStatistics(int id, Source source) {
     String resultsTableQualifier = source.getTableQualifier(SourceDaimon.DaimonType.Results);
-    PreparedStatementRenderer psr = new PreparedStatementRenderer(source, STRATA_STATS_QUERY_TEMPLATE, "results_database_schema", resultsTableQualifier, "analysis_id", whitelist(id));
+    String[] searchRegexes = {"results_database_schema", "pair_filter"};
+    String[] replacements = {resultsTableQualifier, ""};
+    PreparedStatementRenderer psr = new PreparedStatementRenderer(source, STRATA_STATS_QUERY_TEMPLATE, searchRegexes, replacements, "analysis_id", whitelist(id));
     return getSourceJdbcTemplate(source).query(psr.getSql(), psr.getSetter(), strataRuleStatisticMapper);
   }
 
-  private int countSetBits(long n) {
-    int count = 0;
-    while (n > 0) {
-      n &= (n - 1);
-      count++;
-    }
-    return count;
+  private List<AnalysisReport.StrataStatistic> getStrataStatistics(int id, int targetId, int outcomeId, Source source) {
+    String resultsTableQualifier = source.getTableQualifier(SourceDaimon.DaimonType.Results);
+    String[] searchRegexes = {"results_database_schema", "pair_filter"};
+    String[] replacements = {resultsTableQualifier, "and r.target_id = @target_id and r.outcome_id = @outcome_id"};
+    String[] params = {"analysis_id", "target_id", "outcome_id"};
+    Object[] paramValues = {whitelist(id), targetId, outcomeId};
+    PreparedStatementRenderer psr = new PreparedStatementRenderer(source, STRATA_STATS_QUERY_TEMPLATE, searchRegexes, replacements, params, paramValues);
+    return getSourceJdbcTemplate(source).query(psr.getSql(), psr.getSetter(), strataRuleStatisticMapper);
   }
 
   private String formatBitMask(Long n, int size) {
     return StringUtils.reverse(StringUtils.leftPad(Long.toBinaryString(n), size, "0"));
   }
 
-  private final RowMapper<StratifyReportItem> stratifyResultsMapper = (rs, rowNum) -> {
-    StratifyReportItem resultItem = new StratifyReportItem();
-    resultItem.bits = rs.getLong("strata_mask");
-    resultItem.totalPersons = rs.getLong("person_count");
-    resultItem.timeAtRisk = rs.getLong("time_at_risk");
-    resultItem.cases = rs.getLong("cases");
-    return resultItem;
-  };
-
   private String getStrataTreemapData(int analysisId, int targetId, int outcomeId, int inclusionRuleCount, Source source) {
     String resultsTableQualifier = source.getTableQualifier(SourceDaimon.DaimonType.Results);
 
@@ -298,49 +314,29 @@ public class IRAnalysisService extends AbstractDaoService implements
     Object[] paramValues = {analysisId, targetId, outcomeId};
     String[] params = {"analysis_id", "target_id", "outcome_id"};
     PreparedStatementRenderer psr = new PreparedStatementRenderer(source, query, "resultsTableQualifier", resultsTableQualifier, params, paramValues, SessionUtils.sessionId());
-    // [0] is the inclusion rule bitmask, [1] is the count of the match
-    List<StratifyReportItem> items = getSourceJdbcTemplate(source).query(psr.getSql(), psr.getSetter(), stratifyResultsMapper);
-
-    Map<Integer, List<StratifyReportItem>> groups = new HashMap<>();
-    for (StratifyReportItem item : items) {
-      int bitsSet = countSetBits(item.bits);
-      if (!groups.containsKey(bitsSet)) {
-        groups.put(bitsSet, new ArrayList<>());
-      }
-      groups.get(bitsSet).add(item);
-    }
 
-    StringBuilder treemapData = new StringBuilder("{\"name\" : \"Everyone\", \"children\" : [");
-
-    List<Integer> groupKeys = new ArrayList<>(groups.keySet());
-    Collections.sort(groupKeys);
-    Collections.reverse(groupKeys);
-
-    int groupCount = 0;
-    // create a nested treemap data where more matches (more bits set in string) appear higher in the hierarchy)
-    for (Integer groupKey : groupKeys) {
-      if (groupCount > 0) {
-        treemapData.append(",");
-      }
-
-      treemapData.append(String.format("{\"name\" : \"Group %d\", \"children\" : [", groupKey));
-
-      int groupItemCount = 0;
-      for (StratifyReportItem groupItem : groups.get(groupKey)) {
-        if (groupItemCount > 0) {
-          treemapData.append(",");
-        }
+    // create a nested treemap data where more matches (more bits set in the strata mask) appear higher in the hierarchy
+    Map<Integer, ArrayNode> groups = new TreeMap<>(Comparator.reverseOrder());
+    getSourceJdbcTemplate(source).query(psr.getSql(), psr.getSetter(), rs -> {
+      long bits = rs.getLong("strata_mask");
+      groups.computeIfAbsent(Long.bitCount(bits), key -> objectMapper.createArrayNode())
+              .addObject()
+              .put("name", formatBitMask(bits, inclusionRuleCount))
+              .put("size", rs.getLong("person_count"))
+              .put("cases", rs.getLong("cases"))
+              .put("timeAtRisk", rs.getLong("time_at_risk"));
+    });
 
-        //sb_treemap.Append("{\"name\": \"" + cohort_identifer + "\", \"size\": " + cohorts[cohort_identifer].ToString() + "}");
-        treemapData.append(String.format("{\"name\": \"%s\", \"size\": %d, \"cases\": %d, \"timeAtRisk\": %d }", formatBitMask(groupItem.bits, inclusionRuleCount), groupItem.totalPersons, groupItem.cases, groupItem.timeAtRisk));
-        groupItemCount++;
-      }
-      groupCount++;
+    ObjectNode treemap = objectMapper.createObjectNode().put("name", "Everyone");
+    ArrayNode children = treemap.putArray("children");
+    groups.forEach((groupKey, items) -> children.addObject()
+            .put("name", String.format("Group %d", groupKey))
+            .set("children", items));
+    try {
+      return objectMapper.writeValueAsString(treemap);
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException(e);
     }
-
-    treemapData.append(StringUtils.repeat("]}", groupCount + 1));
-
-    return treemapData.toString();
   }
 
   @Override
@@ -495,7 +491,7 @@ public class IRAnalysisService extends AbstractDaoService implements
 
     Date startTime = Calendar.getInstance().getTime();
 
-    Source source = this.getSourceRepository().findBySourceKey(sourceKey);
+    Source source = this.getSourceService().findBySourceKey(sourceKey);
 
     ExceptionUtils.throwNotFoundExceptionIfNull(source, String.format("There is no source with sourceKey = %s", sourceKey));
     sourceAccessor.checkAccess(source);
@@ -558,7 +554,7 @@ public class IRAnalysisService extends AbstractDaoService implements
   @Override
   public void cancelAnalysis(int analysisId, String sourceKey) {
 
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
       jobService.cancelJobExecution(j -> {
           JobParameters jobParameters = j.getJobParameters();
           String jobName = j.getJobInstance().getJobName();
@@ -608,18 +604,23 @@ public class IRAnalysisService extends AbstractDaoService implements
   @Transactional
   public AnalysisReport getAnalysisReport(final int id, final String sourceKey, final int targetId, final int outcomeId ) {
 
-    Source source = this.getSourceRepository().findBySourceKey(sourceKey);
+    Source source = this.getSourceService().findBySourceKey(sourceKey);
 
-    AnalysisReport.Summary summary = IterableUtils.find(getAnalysisSummaryList(id, source), summary12 -> ((summary12.targetId == targetId) && (summary12.outcomeId == outcomeId)));
+    ExecutionInfo info = irExecutionInfoRepository.findOne(new ExecutionInfoId(id, source.getSourceId()));
+    if (Objects.nonNull(info) && Objects.equals(info.getStatus(), GenerationStatus.COMPLETE)) {
+      return reportCache.get(info, targetId, outcomeId, () -> buildAnalysisReport(id, targetId, outcomeId, source));
+    }
+    return buildAnalysisReport(id, targetId, outcomeId, source);
+  }
+
+  private AnalysisReport buildAnalysisReport(final int id, final int targetId, final int outcomeId, final Source source) {
 
-    Collection<AnalysisReport.StrataStatistic> strataStats = CollectionUtils.select(getStrataStatistics(id, source),
-            summary1 -> ((summary1.targetId == targetId) && (summary1.outcomeId == outcomeId)));
-    String treemapData = getStrataTreemapData(id, targetId, outcomeId, strataStats.size(), source);
+    List<AnalysisReport.StrataStatistic> strataStats = getStrataStatistics(id, targetId, outcomeId, source);
 
     AnalysisReport report = new AnalysisReport();
-    report.summary = summary;
-    report.stratifyStats = new ArrayList<>(strataStats);
-    report.treemapData = treemapData;
+    report.summary = getAnalysisSummary(id, targetId, outcomeId, source);
+    report.stratifyStats = strataStats;
+    report.treemapData = getStrataTreemapData(id, targetId, outcomeId, strataStats.size(), source);
 
     return report;
   }
@@ -782,6 +783,7 @@ public class IRAnalysisService extends AbstractDaoService implements
   @Override
   @Transactional
   public void delete(final int id) {
+    unassignTagsOfDeleted(irAnalysisRepository.findOne(id));
     irAnalysisRepository.delete(id);
   }
 
@@ -796,8 +798,10 @@ public class IRAnalysisService extends AbstractDaoService implements
         itemToRemove = info;
     }
 
-    if (itemToRemove != null)
+    if (itemToRemove != null) {
       analysis.getExecutionInfoList().remove(itemToRemove);
+      reportCache.evict(itemToRemove.getId());
+    }
 
     irAnalysisRepository.save(analysis);
   }
@@ -895,6 +899,7 @@ public class IRAnalysisService extends AbstractDaoService implements
   @PostConstruct
   public void init() {
 
+    reportCache = new AnalysisReportCache(reportCacheSize);
     invalidateIRExecutions();
   }
 
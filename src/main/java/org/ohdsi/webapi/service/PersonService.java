@@ -15,44 +15,94 @@
  */
 package org.ohdsi.webapi.service;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.time.Instant;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.ServiceUnavailableException;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
 import org.apache.shiro.SecurityUtils;
+import org.ohdsi.circe.helper.ResourceHelper;
+import org.ohdsi.webapi.person.CompactRecordWriter;
 import org.ohdsi.webapi.person.ObservationPeriod;
 import org.ohdsi.webapi.person.PersonRecord;
 import org.ohdsi.webapi.person.CohortPerson;
 import org.ohdsi.webapi.person.PersonProfile;
+import org.ohdsi.webapi.person.PersonRecordColumns;
 import org.ohdsi.webapi.shiro.management.Security;
 import org.ohdsi.webapi.source.Source;
 import org.ohdsi.webapi.source.SourceDaimon;
+import org.ohdsi.webapi.util.CancelableJdbcTemplate;
 import org.ohdsi.webapi.util.PreparedStatementRenderer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 
 @Path("{sourceKey}/person/")
 @Component
 public class PersonService extends AbstractDaoService {
 
+  private static final String RECORDS_SQL = "/resources/person/sql/getRecords.sql";
+
   @Value("${person.viewDates}")
   private Boolean viewDatesPermitted;
 	
   @Value("#{!'${security.provider}'.equals('DisabledSecurity')}")
   private boolean securityEnabled;
 
+  @Value("${person.profile.queryThreads:8}")
+  private int queryThreads;
+
+  @Value("${person.profile.queueSize:64}")
+  private int queueSize;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  private ExecutorService profileExecutor;
+
+  @PostConstruct
+  public void init() {
+
+    // Queries beyond the queue are rejected rather than piling up behind slow sources
+    profileExecutor = new ThreadPoolExecutor(queryThreads, queryThreads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueSize), new CustomizableThreadFactory("person-profile-"),
+            new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  @PreDestroy
+  public void destroy() {
+
+    profileExecutor.shutdownNow();
+  }
+
   /**
    * Get the complete medical history for a single person in a single database
    * @summary Get complete patient profile
@@ -69,110 +119,239 @@ public class PersonService extends AbstractDaoService {
   public PersonProfile getPersonProfile(@PathParam("sourceKey") String sourceKey, @PathParam("personId") String personId,
                                         @DefaultValue("0") @QueryParam("cohort") Long cohortId)
   {
-    final PersonProfile profile = new PersonProfile();
+    boolean showDates = this.canViewDates();
 
+    Source source = getSourceService().findBySourceKey(sourceKey);
+    PersonRecordColumns columns = new PersonRecordColumns();
+    final PersonProfile profile = loadProfile(source, personId, columns);
+    profile.records.addAll(columns.toRecords());
+
+    LocalDateTime cohortStartDate = getIndexDate(profile, cohortId, columns);
+
+    for(PersonRecord record : profile.records){
+      record.startDay = Math.toIntExact(ChronoUnit.DAYS.between(cohortStartDate, record.startDate.toLocalDateTime()));
+      record.endDay = Objects.nonNull(record.endDate) ? Math.toIntExact(ChronoUnit.DAYS.between(cohortStartDate,
+              record.endDate.toLocalDateTime())) : record.startDay;
+      if (!showDates) {
+        record.startDate = null;
+        record.endDate = null;
+      }
+    }
+    adjustObservationPeriods(profile, cohortStartDate, showDates);
+
+    return profile;
+  }
+
+  /**
+   * Get the complete medical history for a single person in a compact form. Records are streamed as they are read from
+   * the source, each as an array of concept index, domain index, start and end day (and start and end date when dates
+   * may be viewed). Concept names and domains are listed once, after the records. The response is gzip encoded when
+   * the client accepts it.
+   * @summary Get complete patient profile in compact form
+   * @param sourceKey Data source to extract from
+   * @param personId Person whose profile to extract
+   * @param cohortId (optional) Cohort used to adjust start and end dates. If the person is a member of the cohort then
+   *                 start and end dates will be adjusted so they are relative to the cohort start date.
+   * @return All records in a patient profile with start and end days relative to cohort start date or initial date of
+   * observation
+   */
+  @Path("{personId}/compact")
+  @GET
+  @Produces(MediaType.APPLICATION_JSON)
+  public StreamingOutput getPersonProfileCompact(@PathParam("sourceKey") String sourceKey, @PathParam("personId") String personId,
+                                                 @DefaultValue("0") @QueryParam("cohort") Long cohortId)
+  {
     boolean showDates = this.canViewDates();
 
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
+    List<Future<?>> queries = new ArrayList<>();
+    final PersonProfile profile = await(queries, submit(queries, () -> loadPersonInfo(source, personId)));
+    LocalDateTime cohortStartDate = getCohortStartDate(profile, cohortId).orElse(null);
+
+    // records are ordered by start date, so that the first one gives the index date when there is no cohort
+    PreparedStatementRenderer psrRecords = new PreparedStatementRenderer(source,
+            "SELECT * FROM (" + ResourceHelper.GetResourceAsString(RECORDS_SQL) + ") records ORDER BY start_date",
+            "tableQualifier", source.getTableQualifier(SourceDaimon.DaimonType.CDM), "personId", Long.valueOf(personId));
+
+    return out -> {
+      try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+        generator.writeStartObject();
+        generator.writeStringField("gender", profile.gender);
+        generator.writeNumberField("yearOfBirth", profile.yearOfBirth);
+        generator.writeObjectField("cohorts", profile.cohorts);
+
+        CompactRecordWriter records = new CompactRecordWriter(generator, cohortStartDate, showDates);
+        try {
+          getSourceJdbcTemplate(source).query(psrRecords.getSql(), psrRecords.getSetter(), (RowCallbackHandler) resultSet -> {
+            try {
+              records.write(resultSet.getLong("concept_id"),
+                      resultSet.getString("concept_name"),
+                      resultSet.getString("domain"),
+                      resultSet.getTimestamp("start_date"),
+                      resultSet.getTimestamp("end_date"));
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          });
+        } catch (UncheckedIOException e) {
+          throw e.getCause();
+        }
+        records.finish();
+
+        LocalDateTime indexDate = records.getIndexDate();
+        setAgeAtIndex(profile, indexDate);
+        adjustObservationPeriods(profile, indexDate, showDates);
+        generator.writeNumberField("ageAtIndex", profile.ageAtIndex);
+        generator.writeObjectField("observationPeriods", profile.observationPeriods);
+        generator.writeEndObject();
+      }
+    };
+  }
+
+  /**
+   * Loads the person, observation periods and cohorts over one connection while the records are read over another.
+   * Records are collected into {@code records}, everything else into the returned profile.
+   */
+  private PersonProfile loadProfile(Source source, String personId, PersonRecordColumns records) {
+
+    PreparedStatementRenderer psrPersonProfile = prepareGetPersonProfile(personId, source);
+    List<Future<?>> queries = new ArrayList<>();
+    Future<PersonProfile> personInfo = submit(queries, () -> loadPersonInfo(source, personId));
+    Future<Object> personRecords = submit(queries, () -> {
+      getSourceJdbcTemplate(source).query(psrPersonProfile.getSql(), psrPersonProfile.getSetter(), (RowCallbackHandler) resultSet ->
+        records.add(resultSet.getLong("concept_id"),
+                resultSet.getString("concept_name"),
+                resultSet.getString("domain"),
+                resultSet.getTimestamp("start_date"),
+                resultSet.getTimestamp("end_date"))
+      );
+      return null;
+    });
+
+    PersonProfile profile = await(queries, personInfo);
+    await(queries, personRecords);
+    return profile;
+  }
+
+  private PersonProfile loadPersonInfo(Source source, String personId) {
+
+    final PersonProfile profile = new PersonProfile();
     profile.gender = "not found";
     profile.yearOfBirth = 0;
 
-    PreparedStatementRenderer psrPersonInfo = preparePersonInfoSql(personId, source);
-    getSourceJdbcTemplate(source).query(psrPersonInfo.getSql(), psrPersonInfo.getSetter(), new RowMapper<Void>() {
-      @Override
-      public Void mapRow(ResultSet resultSet, int arg1) throws SQLException {
+    CancelableJdbcTemplate jdbcTemplate = getSourceJdbcTemplate(source);
+    // the queries are short, so they share a connection instead of opening one each
+    SingleConnectionDataSource dataSource = new SingleConnectionDataSource(DataSourceUtils.getConnection(jdbcTemplate.getDataSource()), true);
+    jdbcTemplate.setDataSource(dataSource);
+    try {
+      PreparedStatementRenderer psrPersonInfo = preparePersonInfoSql(personId, source);
+      jdbcTemplate.query(psrPersonInfo.getSql(), psrPersonInfo.getSetter(), (RowCallbackHandler) resultSet -> {
         profile.yearOfBirth = resultSet.getInt("year_of_birth");
         profile.gender = resultSet.getString("gender");
-        return null;
+      });
+      if (profile.gender.equals("not found")) {
+        throw new RuntimeException("Can't find person " + personId);
       }
-    });
-    if (profile.gender.equals("not found")) {
-        throw new RuntimeException("Can't find person " + personId);        
-    }
 
-    // get observation periods
-    PreparedStatementRenderer psrObservationPeriods = prepareObservationPeriodsSql(personId, source);
-    getSourceJdbcTemplate(source).query(psrObservationPeriods.getSql(), psrObservationPeriods.getSetter(), new RowMapper<Void>() {
-      @Override
-      public Void mapRow(ResultSet resultSet, int arg1) throws SQLException {
+      // get observation periods
+      PreparedStatementRenderer psrObservationPeriods = prepareObservationPeriodsSql(personId, source);
+      profile.observationPeriods.addAll(jdbcTemplate.query(psrObservationPeriods.getSql(), psrObservationPeriods.getSetter(), (resultSet, arg1) -> {
         ObservationPeriod op = new ObservationPeriod();
-        
+
         op.startDate = resultSet.getTimestamp("start_date");
         op.endDate = resultSet.getTimestamp("end_date");
         op.type = resultSet.getString("observation_period_type");
         op.id = resultSet.getInt("observation_period_id");
-        
-        profile.observationPeriods.add(op);
-        return null;
-      }
-    });
-    // get simplified records
-    PreparedStatementRenderer psrPersonProfile = prepareGetPersonProfile(personId, source);
-    getSourceJdbcTemplate(source).query(psrPersonProfile.getSql(), psrPersonProfile.getSetter(), new RowMapper<Void>() {
-
-      @Override
-      public Void mapRow(ResultSet resultSet, int arg1) throws SQLException {
-        PersonRecord item = new PersonRecord();
-        
-        item.conceptId = resultSet.getLong("concept_id");
-        item.conceptName = resultSet.getString("concept_name");
-        item.domain = resultSet.getString("domain");
-        item.startDate = resultSet.getTimestamp("start_date");
-        item.endDate = resultSet.getTimestamp("end_date");
-        
-        profile.records.add(item);
-        return null;
-      }
-    });
+        return op;
+      }));
 
-    PreparedStatementRenderer psrGetCohorts = prepareGetCohortsSql(personId, source);
-    getSourceJdbcTemplate(source).query(psrGetCohorts.getSql(), psrGetCohorts.getSetter(), new RowMapper<Void>() {
-      @Override
-      public Void mapRow(ResultSet resultSet, int arg1) throws SQLException {
+      PreparedStatementRenderer psrGetCohorts = prepareGetCohortsSql(personId, source);
+      profile.cohorts.addAll(jdbcTemplate.query(psrGetCohorts.getSql(), psrGetCohorts.getSetter(), (resultSet, arg1) -> {
         CohortPerson item = new CohortPerson();
-        
+
         item.startDate = resultSet.getTimestamp("cohort_start_date");
         item.endDate = resultSet.getTimestamp("cohort_end_date");
         item.cohortDefinitionId = resultSet.getLong("cohort_definition_id");
-        
-        profile.cohorts.add(item);
-        return null;
+        return item;
+      }));
+    } finally {
+      dataSource.destroy();
+    }
+    return profile;
+  }
+
+  /**
+   * Submits a query to the profile executor. When the executor is saturated, the queries submitted before for the
+   * same profile are cancelled, so that they don't hold threads for a response which is not going to be sent.
+   */
+  private <T> Future<T> submit(List<Future<?>> submitted, Callable<T> query) {
+
+    try {
+      Future<T> future = profileExecutor.submit(query);
+      submitted.add(future);
+      return future;
+    } catch (RejectedExecutionException e) {
+      submitted.forEach(f -> f.cancel(true));
+      throw new ServiceUnavailableException("Too many person profiles are being loaded, try again later");
+    }
+  }
+
+  /**
+   * Waits for the query, when it fails the other queries of the profile are cancelled.
+   */
+  private <T> T await(List<Future<?>> submitted, Future<T> query) {
+
+    try {
+      return query.get();
+    } catch (InterruptedException e) {
+      submitted.forEach(f -> f.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      submitted.forEach(f -> f.cancel(true));
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
       }
-    });
+      throw new IllegalStateException(e.getCause());
+    }
+  }
 
+  private Optional<LocalDateTime> getCohortStartDate(PersonProfile profile, Long cohortId) {
 
-    LocalDateTime cohortStartDate = null;
     Optional<CohortPerson> cohort = cohortId > 0 ? profile.cohorts.stream().filter(c -> c.cohortDefinitionId.equals(cohortId)).findFirst() :
             Optional.empty();
-    cohortStartDate = cohort.map(c -> c.startDate.toLocalDateTime()).orElseGet(() ->
-      profile.records.stream().min(Comparator.comparing(c -> c.startDate))
-        .map(r -> r.startDate.toLocalDateTime()).orElse(null));
+    return cohort.map(c -> c.startDate.toLocalDateTime());
+  }
 
-		if (cohortStartDate != null && profile.yearOfBirth > 0) {
-			profile.ageAtIndex = cohortStartDate.getYear() - profile.yearOfBirth;
+  private LocalDateTime getIndexDate(PersonProfile profile, Long cohortId, PersonRecordColumns records) {
+
+    LocalDateTime cohortStartDate = getCohortStartDate(profile, cohortId).orElseGet(records::getFirstStartDate);
+    setAgeAtIndex(profile, cohortStartDate);
+    return cohortStartDate;
+  }
+
+  private void setAgeAtIndex(PersonProfile profile, LocalDateTime indexDate) {
+
+		if (indexDate != null && profile.yearOfBirth > 0) {
+			profile.ageAtIndex = indexDate.getYear() - profile.yearOfBirth;
 		}
-		
-    for(PersonRecord record : profile.records){
-      record.startDay = Math.toIntExact(ChronoUnit.DAYS.between(cohortStartDate, record.startDate.toLocalDateTime()));
-      record.endDay = Objects.nonNull(record.endDate) ? Math.toIntExact(ChronoUnit.DAYS.between(cohortStartDate,
-              record.endDate.toLocalDateTime())) : record.startDay;
-      if (!showDates) {
-        record.startDate = null;
-        record.endDate = null;
-      }
-    }
+  }
+
+  private void adjustObservationPeriods(PersonProfile profile, LocalDateTime cohortStartDate, boolean showDates) {
+
     for(ObservationPeriod period : profile.observationPeriods){
-      period.x1 = Math.toIntExact(ChronoUnit.DAYS.between(cohortStartDate,
-              period.startDate.toLocalDateTime()));
-      period.x2 = Math.toIntExact(ChronoUnit.DAYS.between(cohortStartDate,
-              period.endDate.toLocalDateTime()));
+      // a person without records has no index date unless it is in the cohort
+      if (cohortStartDate != null) {
+        period.x1 = Math.toIntExact(ChronoUnit.DAYS.between(cohortStartDate,
+                period.startDate.toLocalDateTime()));
+        period.x2 = Math.toIntExact(ChronoUnit.DAYS.between(cohortStartDate,
+                period.endDate.toLocalDateTime()));
+      }
       if (!showDates) {
         period.startDate = null;
         period.endDate = null;
       }
     }
-    
-    return profile;
   }
 
   protected PreparedStatementRenderer prepareObservationPeriodsSql(String personId, Source source) {
@@ -196,7 +375,7 @@ public class PersonService extends AbstractDaoService {
   protected PreparedStatementRenderer prepareGetPersonProfile(String personId, Source source) {
 
     String tqValue = source.getTableQualifier(SourceDaimon.DaimonType.CDM);
-    return new PreparedStatementRenderer(source, "/resources/person/sql/getRecords.sql", "tableQualifier", tqValue, "personId", Long.valueOf(personId));
+    return new PreparedStatementRenderer(source, RECORDS_SQL, "tableQualifier", tqValue, "personId", Long.valueOf(personId));
   }
 	
 	private Boolean canViewDates() {
@@ -63,7 +63,7 @@ public class TherapyPathResultsService extends AbstractDaoService {
   public List<TherapyPathReport> getReports(@PathParam("sourceKey") String sourceKey) {
     try {
 
-      Source source = getSourceRepository().findBySourceKey(sourceKey);
+      Source source = getSourceService().findBySourceKey(sourceKey);
       PreparedStatementRenderer psr = prepareGetReports(source);
       return getSourceJdbcTemplate(source).query(psr.getSql(),psr.getSetter(), new RowMapper<TherapyPathReport>() {
         @Override
@@ -110,7 +110,7 @@ public class TherapyPathResultsService extends AbstractDaoService {
   public List<TherapyPathVector> getTherapyPathVectors(@PathParam("id") String id, @PathParam("sourceKey") String sourceKey) {
     try {
       
-      Source source = getSourceRepository().findBySourceKey(sourceKey);
+      Source source = getSourceService().findBySourceKey(sourceKey);
       PreparedStatementRenderer psr = prepareGetTherapyVectors(id, source);
       return getSourceJdbcTemplate(source).query(psr.getSql(),psr.getSetter(), new RowMapper<TherapyPathVector>() {
         @Override
@@ -146,7 +146,7 @@ public class TherapyPathResultsService extends AbstractDaoService {
   @Consumes(MediaType.APPLICATION_JSON)
   public List<TherapySummary> getSummaries(@PathParam("sourceKey") String sourceKey, String[] identifiers) {
     try {
-      Source source = getSourceRepository().findBySourceKey(sourceKey);
+      Source source = getSourceService().findBySourceKey(sourceKey);
       PreparedStatementRenderer psr = prepareGetSummaries(identifiers, source);
       return getSourceJdbcTemplate(source).query(psr.getSql(),psr.getSetter(), new RowMapper<TherapySummary>() {
         @Override
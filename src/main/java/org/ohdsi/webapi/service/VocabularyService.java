@@ -25,6 +25,7 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -51,6 +52,7 @@ import org.ohdsi.webapi.source.Source;
 import org.ohdsi.webapi.source.SourceService;
 import org.ohdsi.webapi.source.SourceDaimon;
 import org.ohdsi.webapi.source.SourceInfo;
+import org.ohdsi.webapi.util.ExportUtil;
 import org.ohdsi.webapi.util.PreparedSqlRender;
 import org.ohdsi.webapi.util.PreparedStatementRenderer;
 import org.ohdsi.webapi.vocabulary.ConceptRecommendedNotInstalledException;
@@ -62,6 +64,7 @@ import org.ohdsi.webapi.vocabulary.RecommendedConcept;
 import org.ohdsi.webapi.vocabulary.RelatedConcept;
 import org.ohdsi.webapi.vocabulary.RelatedConceptSearch;
 import org.ohdsi.webapi.vocabulary.Vocabulary;
+import org.ohdsi.webapi.vocabulary.VocabularyCache;
 import org.ohdsi.webapi.vocabulary.VocabularyInfo;
 import org.ohdsi.webapi.vocabulary.VocabularySearchService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -82,7 +85,6 @@ import org.springframework.stereotype.Component;
 @Component
 public class VocabularyService extends AbstractDaoService {
 
-  private static Hashtable<String, VocabularyInfo> vocabularyInfoCache = null;
   public static final String DEFAULT_SEARCH_ROWS = "20000";
 
   @Autowired
@@ -96,6 +98,9 @@ public class VocabularyService extends AbstractDaoService {
 
   @Autowired
   private ConceptSetCompareService conceptSetCompareService;
+
+  @Autowired
+  private VocabularyCache vocabularyCache;
   
   @Value("${datasource.driverClassName}")
   private String driver;
@@ -142,6 +147,19 @@ public class VocabularyService extends AbstractDaoService {
     export.mappedConcepts = executeMappedLookup(vocabSource.sourceKey, conceptSet.expression);
     return export;
   }
+
+  /**
+   * Streams concept sets as a zip of CSV files, concepts of each concept set are looked up only when it is written
+   */
+  public StreamingOutput streamConceptSetExport(List<ConceptSet> conceptSets, SourceInfo vocabSource) {
+
+    List<ConceptSetExport> exports = conceptSets.stream()
+            .map(conceptSet -> conversionService.convert(conceptSet, ConceptSetExport.class))
+            .collect(Collectors.toList());
+    return ExportUtil.streamConceptSetExport(exports,
+            export -> executeIncludedConceptLookup(vocabSource.sourceKey, export.csExpression),
+            export -> executeMappedLookup(vocabSource.sourceKey, export.csExpression));
+  }
   
   /**
    * Calculates the full set of ancestor and descendant concepts for a list of 
@@ -161,7 +179,7 @@ public class VocabularyService extends AbstractDaoService {
   @Consumes(MediaType.APPLICATION_JSON)
   public Map<Long, List<Long>> calculateAscendants(@PathParam("sourceKey") String sourceKey, Ids ids) {
 
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     
     if (CollectionUtils.isEmpty(ids.ancestors) || CollectionUtils.isEmpty(ids.descendants)) { 
         return new HashMap<>();
@@ -234,7 +252,7 @@ public class VocabularyService extends AbstractDaoService {
   @Produces(MediaType.APPLICATION_JSON)
   @Consumes(MediaType.APPLICATION_JSON)
   public Collection<Concept> executeIdentifierLookup(@PathParam("sourceKey") String sourceKey, long[] identifiers) {
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     return executeIdentifierLookup(source, identifiers);
   }
 
@@ -289,7 +307,7 @@ public class VocabularyService extends AbstractDaoService {
   }  
   
   public Collection<Concept> executeIncludedConceptLookup(String sourceKey, ConceptSetExpression conceptSetExpression) {
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     String tqValue = source.getTableQualifier(SourceDaimon.DaimonType.Vocabulary);
     ConceptSetExpressionQueryBuilder builder = new ConceptSetExpressionQueryBuilder();
     String query = builder.buildExpressionQuery(conceptSetExpression);
@@ -321,7 +339,7 @@ public class VocabularyService extends AbstractDaoService {
       return new ArrayList<>();
     }
 
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     PreparedStatementRenderer psr = prepareExecuteSourcecodeLookup(sourcecodes, source);
     return getSourceJdbcTemplate(source).query(psr.getSql(), psr.getSetter(), this.rowMapper);
   }
@@ -373,7 +391,7 @@ public class VocabularyService extends AbstractDaoService {
   @Produces(MediaType.APPLICATION_JSON)
   @Consumes(MediaType.APPLICATION_JSON)
   public Collection<Concept> executeMappedLookup(@PathParam("sourceKey") String sourceKey, long[] identifiers) {
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     return executeMappedLookup(source, identifiers);
   }
 
@@ -430,7 +448,7 @@ public class VocabularyService extends AbstractDaoService {
   }
   
   public Collection<Concept> executeMappedLookup(String sourceKey, ConceptSetExpression conceptSetExpression) {
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     String tableQualifier = source.getTableQualifier(SourceDaimon.DaimonType.Vocabulary);
 
     ConceptSetExpressionQueryBuilder builder = new ConceptSetExpressionQueryBuilder();
@@ -456,7 +474,7 @@ public class VocabularyService extends AbstractDaoService {
   @Produces(MediaType.APPLICATION_JSON)
   @Consumes(MediaType.APPLICATION_JSON)
   public Collection<Concept> executeSearch(@PathParam("sourceKey") String sourceKey, ConceptSearch search) {
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
 
     PreparedStatementRenderer psr = prepareExecuteSearch(search, source);
     return getSourceJdbcTemplate(source).query(psr.getSql(), psr.getSetter(), rowMapper);
@@ -665,7 +683,7 @@ public class VocabularyService extends AbstractDaoService {
     
     Collection<Concept> concepts = new ArrayList<>();
     try {
-        Source source = getSourceRepository().findBySourceKey(sourceKey);
+        Source source = getSourceService().findBySourceKey(sourceKey);
         VocabularyInfo vocabularyInfo = getInfo(sourceKey);
         String versionKey = vocabularyInfo.version.replace(' ', '_');
         SearchProviderConfig searchConfig = new SearchProviderConfig(source.getSourceKey(), versionKey);
@@ -718,7 +736,7 @@ public class VocabularyService extends AbstractDaoService {
   @Path("{sourceKey}/concept/{id}")
   @Produces(MediaType.APPLICATION_JSON)
   public Concept getConcept(@PathParam("sourceKey") final String sourceKey, @PathParam("id") final long id) {
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     String sqlPath = "/resources/vocabulary/sql/getConcept.sql";
     String tqValue = source.getTableQualifier(SourceDaimon.DaimonType.Vocabulary);
     PreparedStatementRenderer psr = new PreparedStatementRenderer(source, sqlPath, "CDM_schema", tqValue, "id", whitelist(id));
@@ -770,7 +788,7 @@ public class VocabularyService extends AbstractDaoService {
   @Produces(MediaType.APPLICATION_JSON)
   public Collection<RelatedConcept> getRelatedConcepts(@PathParam("sourceKey") String sourceKey, @PathParam("id") final Long id) {
     final Map<Long, RelatedConcept> concepts = new HashMap<>();
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     String sqlPath = "/resources/vocabulary/sql/getRelatedConcepts.sql";
     String tqValue = source.getTableQualifier(SourceDaimon.DaimonType.Vocabulary);
     PreparedStatementRenderer psr = new PreparedStatementRenderer(source, sqlPath, "CDM_schema", tqValue, "id", whitelist(id));
@@ -797,7 +815,7 @@ public class VocabularyService extends AbstractDaoService {
   @Produces(MediaType.APPLICATION_JSON)
   public Collection<RelatedConcept> getConceptAncestorAndDescendant(@PathParam("sourceKey") String sourceKey, @PathParam("id") final Long id) {
     final Map<Long, RelatedConcept> concepts = new HashMap<>();
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     String sqlPath = "/resources/vocabulary/sql/getConceptAncestorAndDescendant.sql";
     String tqValue = source.getTableQualifier(SourceDaimon.DaimonType.Vocabulary);
     PreparedStatementRenderer psr = new PreparedStatementRenderer(source, sqlPath, "CDM_schema", tqValue, "id", whitelist(id));
@@ -844,7 +862,7 @@ public class VocabularyService extends AbstractDaoService {
   @Produces(MediaType.APPLICATION_JSON)
   @Consumes(MediaType.APPLICATION_JSON)
   public Collection<RelatedConcept> getCommonAncestors(@PathParam("sourceKey") String sourceKey, Object[] identifiers) {
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     PreparedStatementRenderer psr = prepareGetCommonAncestors(identifiers, source);
     final Map<Long, RelatedConcept> concepts = new HashMap<>();
     getSourceJdbcTemplate(source).query(psr.getSql(), psr.getSetter(), (RowMapper<Void>) (resultSet, arg1) -> {
@@ -904,7 +922,7 @@ public class VocabularyService extends AbstractDaoService {
   @Produces(MediaType.APPLICATION_JSON)
   @Consumes(MediaType.APPLICATION_JSON)
   public Collection<Long> resolveConceptSetExpression(@PathParam("sourceKey") String sourceKey, ConceptSetExpression conceptSetExpression) {
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     PreparedStatementRenderer psr = new ConceptSetStrategy(conceptSetExpression).prepareStatement(source, null);
     final ArrayList<Long> identifiers = new ArrayList<>();
     getSourceJdbcTemplate(source).query(psr.getSql(), psr.getSetter(), new RowCallbackHandler() {
@@ -953,7 +971,7 @@ public class VocabularyService extends AbstractDaoService {
   @Consumes(MediaType.APPLICATION_JSON)
   public Integer countIncludedConceptSets(@PathParam("sourceKey") String sourceKey, ConceptSetExpression conceptSetExpression) {
 
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     String query = new ConceptSetStrategy(conceptSetExpression).prepareStatement(source, sql -> "select count(*) from (" + sql + ") Q;").getSql();
     return getSourceJdbcTemplate(source).query(query, rs -> rs.next() ? rs.getInt(1) : 0);
   }
@@ -1013,7 +1031,7 @@ public class VocabularyService extends AbstractDaoService {
   @Produces(MediaType.APPLICATION_JSON)
   public Collection<RelatedConcept> getDescendantConcepts(@PathParam("sourceKey") String sourceKey, @PathParam("id") final Long id) {
     final Map<Long, RelatedConcept> concepts = new HashMap<>();
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     String sqlPath = "/resources/vocabulary/sql/getDescendantConcepts.sql";
     String tqValue = source.getTableQualifier(SourceDaimon.DaimonType.Vocabulary);
     PreparedStatementRenderer psr = new PreparedStatementRenderer(source, sqlPath, "CDM_schema", tqValue, "id", whitelist(id));
@@ -1060,7 +1078,11 @@ public class VocabularyService extends AbstractDaoService {
   @Path("{sourceKey}/domains")
   @Produces(MediaType.APPLICATION_JSON)
   public Collection<Domain> getDomains(@PathParam("sourceKey") String sourceKey) {
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    return vocabularyCache.get(VocabularyCache.DOMAINS, sourceKey, getInfo(sourceKey).version, () -> loadDomains(sourceKey));
+  }
+
+  private Collection<Domain> loadDomains(String sourceKey) {
+    Source source = getSourceService().findBySourceKey(sourceKey);
     String tableQualifier = source.getTableQualifier(SourceDaimon.DaimonType.Vocabulary);
     String sqlPath = "/resources/vocabulary/sql/getDomains.sql";
     PreparedStatementRenderer psr = new PreparedStatementRenderer(source, sqlPath, "CDM_schema", tableQualifier);
@@ -1108,7 +1130,11 @@ public class VocabularyService extends AbstractDaoService {
   @Path("{sourceKey}/vocabularies")
   @Produces(MediaType.APPLICATION_JSON)
   public Collection<Vocabulary> getVocabularies(@PathParam("sourceKey") String sourceKey) {
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    return vocabularyCache.get(VocabularyCache.VOCABULARIES, sourceKey, getInfo(sourceKey).version, () -> loadVocabularies(sourceKey));
+  }
+
+  private Collection<Vocabulary> loadVocabularies(String sourceKey) {
+    Source source = getSourceService().findBySourceKey(sourceKey);
     String sqlPath = "/resources/vocabulary/sql/getVocabularies.sql";
     String tableQualifier = source.getTableQualifier(SourceDaimon.DaimonType.Vocabulary);
     PreparedStatementRenderer psr = new PreparedStatementRenderer(source, sqlPath, "CDM_schema", tableQualifier);
@@ -1188,31 +1214,27 @@ public class VocabularyService extends AbstractDaoService {
   @Path("{sourceKey}/info")
   @Produces(MediaType.APPLICATION_JSON)
   public VocabularyInfo getInfo(@PathParam("sourceKey") String sourceKey) {
-    if (vocabularyInfoCache == null) {
-      vocabularyInfoCache = new Hashtable<>();
-    }
+    return vocabularyCache.getInfo(sourceKey, () -> loadInfo(sourceKey));
+  }
 
-    if (!vocabularyInfoCache.containsKey(sourceKey)) {
-      final VocabularyInfo info = new VocabularyInfo();
-      Source source = getSourceRepository().findBySourceKey(sourceKey);
-      String sqlPath = "/resources/vocabulary/sql/getInfo.sql";
-      String tqValue = source.getTableQualifier(SourceDaimon.DaimonType.Vocabulary);
-      PreparedStatementRenderer psr = new PreparedStatementRenderer(source, sqlPath, "CDM_schema", tqValue);
-      info.dialect = source.getSourceDialect();
-      vocabularyInfoCache.put(sourceKey, getSourceJdbcTemplate(source).queryForObject(psr.getSql(), psr.getOrderedParams(), new RowMapper<VocabularyInfo>() {
-        @Override
-        public VocabularyInfo mapRow(final ResultSet resultSet, final int arg1) throws SQLException {
-          info.version = resultSet.getString("VOCABULARY_VERSION");
-          return info;
-        }
-      }));
-    }
-    
-    return vocabularyInfoCache.get(sourceKey);
+  private VocabularyInfo loadInfo(String sourceKey) {
+    final VocabularyInfo info = new VocabularyInfo();
+    Source source = getSourceService().findBySourceKey(sourceKey);
+    String sqlPath = "/resources/vocabulary/sql/getInfo.sql";
+    String tqValue = source.getTableQualifier(SourceDaimon.DaimonType.Vocabulary);
+    PreparedStatementRenderer psr = new PreparedStatementRenderer(source, sqlPath, "CDM_schema", tqValue);
+    info.dialect = source.getSourceDialect();
+    return getSourceJdbcTemplate(source).queryForObject(psr.getSql(), psr.getOrderedParams(), new RowMapper<VocabularyInfo>() {
+      @Override
+      public VocabularyInfo mapRow(final ResultSet resultSet, final int arg1) throws SQLException {
+        info.version = resultSet.getString("VOCABULARY_VERSION");
+        return info;
+      }
+    });
   }
 
   public void clearVocabularyInfoCache() {
-    vocabularyInfoCache = null;
+    vocabularyCache.clear();
   }
   
   /**
@@ -1233,7 +1255,7 @@ public class VocabularyService extends AbstractDaoService {
   public Collection<Concept> getDescendantOfAncestorConcepts(@PathParam("sourceKey") String sourceKey, DescendentOfAncestorSearch search) {
     Tracker.trackActivity(ActivityType.Search, "getDescendantOfAncestorConcepts");
     
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     PreparedStatementRenderer psr = prepareGetDescendantOfAncestorConcepts(search, source);
     return getSourceJdbcTemplate(source).query(psr.getSql(), psr.getSetter(), this.rowMapper);
   }
@@ -1288,7 +1310,7 @@ public class VocabularyService extends AbstractDaoService {
   public Collection<Concept> getRelatedConcepts(@PathParam("sourceKey") String sourceKey, RelatedConceptSearch search) {
     Tracker.trackActivity(ActivityType.Search, "getRelatedConcepts");
     
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     PreparedStatementRenderer psr = prepareGetRelatedConcepts(search, source);
     return getSourceJdbcTemplate(source).query(psr.getSql(), psr.getSetter(), this.rowMapper);
   }
@@ -1353,7 +1375,7 @@ public class VocabularyService extends AbstractDaoService {
   @Consumes(MediaType.APPLICATION_JSON)
   public Collection<RelatedConcept> getDescendantConceptsByList(@PathParam("sourceKey") String sourceKey, String[] conceptList) {
     final Map<Long, RelatedConcept> concepts = new HashMap<>();
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     PreparedStatementRenderer psr = prepareGetDescendantConceptsByList(conceptList, source);
     getSourceJdbcTemplate(source).query(psr.getSql(), psr.getSetter(), new RowMapper<Void>() {
       @Override
@@ -1413,7 +1435,7 @@ public class VocabularyService extends AbstractDaoService {
     }
     try {
       final Map<Long, RecommendedConcept> concepts = new HashMap<>();
-      Source source = getSourceRepository().findBySourceKey(sourceKey);
+      Source source = getSourceService().findBySourceKey(sourceKey);
       PreparedStatementRenderer psr = prepareGetRecommendedConceptsByList(conceptList, source);
       getSourceJdbcTemplate(source).query(psr.getSql(), psr.getSetter(), new RowMapper<Void>() {
         @Override
@@ -1470,7 +1492,7 @@ public class VocabularyService extends AbstractDaoService {
     if (conceptSetExpressionList.length != 2) {
       throw new Exception("You must specify two concept set expressions in order to use this method.");
     }
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     String vocabSchema = source.getTableQualifier(SourceDaimon.DaimonType.Vocabulary);
     
     // Get the comparison script
@@ -1558,7 +1580,7 @@ public class VocabularyService extends AbstractDaoService {
   @Produces(MediaType.APPLICATION_JSON)
   @Consumes(MediaType.APPLICATION_JSON)
   public ConceptSetOptimizationResult optimizeConceptSet(@PathParam("sourceKey") String sourceKey, ConceptSetExpression conceptSetExpression) throws Exception {
-    Source source = getSourceRepository().findBySourceKey(sourceKey);
+    Source source = getSourceService().findBySourceKey(sourceKey);
     String tableQualifier = source.getTableQualifier(SourceDaimon.DaimonType.Vocabulary);
     
     // Get the optimization script
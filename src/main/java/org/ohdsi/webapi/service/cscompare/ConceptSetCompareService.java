@@ -1,7 +1,7 @@
 package org.ohdsi.webapi.service.cscompare;
 
+import com.google.common.collect.Lists;
 import org.apache.commons.lang3.StringUtils;
-import org.ohdsi.circe.helper.ResourceHelper;
 import org.ohdsi.circe.vocabulary.ConceptSetExpression;
 import org.ohdsi.circe.vocabulary.ConceptSetExpressionQueryBuilder;
 import org.ohdsi.sql.SqlRender;
@@ -10,26 +10,30 @@ import org.ohdsi.webapi.conceptset.ConceptSetComparison;
 import org.ohdsi.webapi.service.AbstractDaoService;
 import org.ohdsi.webapi.source.Source;
 import org.ohdsi.webapi.source.SourceDaimon;
+import org.ohdsi.webapi.util.LazyResource;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.transaction.support.TransactionCallback;
 
-import java.sql.PreparedStatement;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.UUID;
-import java.util.function.Function;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 @Service
 public class ConceptSetCompareService extends AbstractDaoService {
-    private static final String TEMP_TABLE_CREATE_TEMPLATE = ResourceHelper.GetResourceAsString("/resources/vocabulary/sql/createConceptSetTempTable.sql");
-    private static final String TEMP_TABLE_FILL_TEMPLATE = ResourceHelper.GetResourceAsString("/resources/vocabulary/sql/fillConceptSetTempTable.sql");
-    private final String CONCEPT_SET_QUERY_TEMPLATE = ResourceHelper.GetResourceAsString("/resources/vocabulary/sql/getConceptByCodeAndVocabulary.sql");
-    private final String COMPARE_STATEMENT = ResourceHelper.GetResourceAsString("/resources/vocabulary/sql/compareConceptSets.sql");
-    private static final String TEMP_TABLE_NAME_TEMPLATE = "cs_code_%s";
-    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final LazyResource<String> CONCEPT_SET_QUERY_TEMPLATE = LazyResource.sql("/resources/vocabulary/sql/getConceptByCodeAndVocabulary.sql");
+    private static final LazyResource<String> COMPARE_STATEMENT = LazyResource.sql("/resources/vocabulary/sql/compareConceptSets.sql");
+    private static final String CONCEPT_FILTER = "@concept_filter";
+    // Oracle doesn't allow more than 1000 items in an IN list
+    static final int MAX_IN_LIST_SIZE = 1000;
+    // SQL Server doesn't allow more than 2100 parameters in a statement, each of the two expressions gets a half
+    static final int MAX_EXPRESSION_PARAMETERS = 1000;
 
     public static final RowMapper<ConceptSetComparison> CONCEPT_SET_COMPARISON_ROW_MAPPER = (rs, rowNum) -> {
         ConceptSetComparison csc = new ConceptSetComparison();
@@ -56,67 +60,120 @@ public class ConceptSetCompareService extends AbstractDaoService {
             throw new Exception("You must specify two concept set expressions in order to use this method.");
         }
 
-        final Source source = getSourceRepository().findBySourceKey(sourceKey);
+        final Source source = getSourceService().findBySourceKey(sourceKey);
         final String vocabSchema = source.getTableQualifier(SourceDaimon.DaimonType.Vocabulary);
-
-        final Function<JdbcTemplate, TransactionCallback<Collection<ConceptSetComparison>>> callbackFunction =
-                jdbcTemplate -> (TransactionCallback<Collection<ConceptSetComparison>>) transactionStatus -> {
-            try {
-                final String csQuery1 = getQuery(csExpressionList[0], dto.types[0], source, jdbcTemplate);
-                final String csQuery2 = getQuery(csExpressionList[1], dto.types[1], source, jdbcTemplate);
-
-                // Insert the queries into the overall comparison script
-                String sql = SqlRender.renderSql(COMPARE_STATEMENT, new String[]{"cs1_expression", "cs2_expression"}, new String[]{csQuery1, csQuery2});
-                sql = SqlRender.renderSql(sql, new String[]{"vocabulary_database_schema"}, new String[]{vocabSchema});
-                sql = SqlTranslate.translateSql(sql, source.getSourceDialect());
-
-                // Execute the query
-                return jdbcTemplate.query(sql, CONCEPT_SET_COMPARISON_ROW_MAPPER);
-            } catch (Exception ex) {
-                log.error("An error occurred during the comparing of concept sets", ex);
-                throw ex;
-            }
-        };
-
-
-        return executeInTransaction(source, callbackFunction);
+        final JdbcTemplate jdbcTemplate = getSourceJdbcTemplate(source);
+
+        try {
+            // Each expression is resolved once and both are compared in a single pass of a full outer join
+            final List<Object> params = new ArrayList<>();
+            final String csQuery1 = getQuery(csExpressionList[0], dto.types[0], source, vocabSchema, jdbcTemplate, params);
+            final String csQuery2 = getQuery(csExpressionList[1], dto.types[1], source, vocabSchema, jdbcTemplate, params);
+
+            // Insert the queries into the overall comparison script
+            String sql = SqlRender.renderSql(COMPARE_STATEMENT.get(), new String[]{"cs1_expression", "cs2_expression"}, new String[]{csQuery1, csQuery2});
+            sql = SqlRender.renderSql(sql, new String[]{"vocabulary_database_schema"}, new String[]{vocabSchema});
+            sql = SqlTranslate.translateSql(sql, source.getSourceDialect());
+
+            // Execute the query
+            return jdbcTemplate.query(sql, params.toArray(), CONCEPT_SET_COMPARISON_ROW_MAPPER);
+        } catch (Exception ex) {
+            log.error("An error occurred during the comparing of concept sets", ex);
+            throw ex;
+        }
     }
 
-    private String getQuery(final ConceptSetExpression csExpression, final ExpressionType type,
-                            final Source source, final JdbcTemplate jdbcTemplate) {
+    private String getQuery(final ConceptSetExpression csExpression, final ExpressionType type, final Source source,
+                            final String vocabSchema, final JdbcTemplate jdbcTemplate, final List<Object> params) {
         if (type == ExpressionType.CONCEPT_NAME_CODE_AND_VOCABULARY_ID_ONLY) {
-            final String tempTableName = createTempTable(source, jdbcTemplate);
-            fillTable(tempTableName, csExpression, jdbcTemplate);
-            return StringUtils.replace(CONCEPT_SET_QUERY_TEMPLATE, "@temp_table", tempTableName);
+            final Map<String, Set<String>> codesByVocabulary = getCodesByVocabulary(csExpression);
+            final List<Object> expressionParams = new ArrayList<>();
+            final String filter = buildCodeFilter(codesByVocabulary, expressionParams);
+            if (expressionParams.size() <= MAX_EXPRESSION_PARAMETERS) {
+                params.addAll(expressionParams);
+                return StringUtils.replace(CONCEPT_SET_QUERY_TEMPLATE.get(), CONCEPT_FILTER, filter);
+            }
+            // Too many codes to be bound to the statement, resolve them to concept ids in batches beforehand
+            final Set<Long> conceptIds = findConceptIds(codesByVocabulary, source, vocabSchema, jdbcTemplate);
+            return StringUtils.replace(CONCEPT_SET_QUERY_TEMPLATE.get(), CONCEPT_FILTER, buildIdFilter(conceptIds));
         } else {
             final ConceptSetExpressionQueryBuilder builder = new ConceptSetExpressionQueryBuilder();
             return builder.buildExpressionQuery(csExpression);
         }
     }
 
-    private String createTempTable(final Source source, final JdbcTemplate jdbcTemplate) {
-        final String tableName = String.format(TEMP_TABLE_NAME_TEMPLATE,
-                StringUtils.replace(UUID.randomUUID().toString(), "-", ""));
-
-        String createStatement = SqlRender.renderSql(TEMP_TABLE_CREATE_TEMPLATE, new String[]{"temp_table"}, new String[]{tableName});
-        createStatement = SqlTranslate.translateSql(createStatement, source.getSourceDialect());
+    private Set<Long> findConceptIds(final Map<String, Set<String>> codesByVocabulary, final Source source,
+                                     final String vocabSchema, final JdbcTemplate jdbcTemplate) {
+        final Set<Long> conceptIds = new TreeSet<>();
+        for (Map<String, Set<String>> batch : partition(codesByVocabulary, MAX_EXPRESSION_PARAMETERS / 2)) {
+            final List<Object> batchParams = new ArrayList<>();
+            String sql = StringUtils.replace(CONCEPT_SET_QUERY_TEMPLATE.get(), CONCEPT_FILTER, buildCodeFilter(batch, batchParams));
+            sql = SqlRender.renderSql(sql, new String[]{"vocabulary_database_schema"}, new String[]{vocabSchema});
+            sql = SqlTranslate.translateSql(sql, source.getSourceDialect());
+            conceptIds.addAll(jdbcTemplate.queryForList(sql, batchParams.toArray(), Long.class));
+        }
+        return conceptIds;
+    }
 
-        jdbcTemplate.execute(createStatement);
+    static Map<String, Set<String>> getCodesByVocabulary(final ConceptSetExpression expression) {
+        final Map<String, Set<String>> codesByVocabulary = new LinkedHashMap<>();
+        for (ConceptSetExpression.ConceptSetItem item : expression.items) {
+            if (item.concept != null && item.concept.conceptCode != null && item.concept.vocabularyId != null) {
+                codesByVocabulary.computeIfAbsent(item.concept.vocabularyId, vocabularyId -> new LinkedHashSet<>())
+                        .add(item.concept.conceptCode);
+            }
+        }
+        return codesByVocabulary;
+    }
 
-        return tableName;
+    /**
+     * Builds the condition matching concepts by vocabulary and code, codes of the same vocabulary are matched by an IN
+     * list so that the index on the concept code is used.
+     *
+     * @param params the values of the parameters of the condition are added to
+     */
+    static String buildCodeFilter(final Map<String, Set<String>> codesByVocabulary, final List<Object> params) {
+        final List<String> conditions = new ArrayList<>();
+        codesByVocabulary.forEach((vocabularyId, codes) -> {
+            for (List<String> chunk : Lists.partition(new ArrayList<>(codes), MAX_IN_LIST_SIZE)) {
+                conditions.add("(c.vocabulary_id = ? and c.concept_code in ("
+                        + chunk.stream().map(code -> "?").collect(Collectors.joining(", ")) + "))");
+                params.add(vocabularyId);
+                params.addAll(chunk);
+            }
+        });
+        return conditions.isEmpty() ? "1 = 0" : String.join(" or ", conditions);
     }
 
-    private void fillTable(final String tableName, final ConceptSetExpression expression, final JdbcTemplate jdbcTemplate) {
-        if (expression.items.length > 0) {
-            final String insertStatement = SqlRender.renderSql(TEMP_TABLE_FILL_TEMPLATE, new String[]{"temp_table"}, new String[]{tableName});
-            jdbcTemplate.batchUpdate(insertStatement,
-                    Arrays.asList(expression.items),
-                    DEFAULT_BATCH_SIZE,
-                    (PreparedStatement ps, ConceptSetExpression.ConceptSetItem item) -> {
-                        ps.setString(1, item.concept.conceptCode);
-                        ps.setString(2, item.concept.vocabularyId);
-                    });
+    static String buildIdFilter(final Collection<Long> conceptIds) {
+        final List<String> conditions = new ArrayList<>();
+        for (List<Long> chunk : Lists.partition(new ArrayList<>(conceptIds), MAX_IN_LIST_SIZE)) {
+            conditions.add("c.concept_id in (" + chunk.stream().map(String::valueOf).collect(Collectors.joining(", ")) + ")");
+        }
+        return conditions.isEmpty() ? "1 = 0" : String.join(" or ", conditions);
+    }
 
+    /**
+     * Splits codes into batches having no more than the given number of codes
+     */
+    static List<Map<String, Set<String>>> partition(final Map<String, Set<String>> codesByVocabulary, final int size) {
+        final List<Map<String, Set<String>>> batches = new ArrayList<>();
+        Map<String, Set<String>> batch = new LinkedHashMap<>();
+        int count = 0;
+        for (Map.Entry<String, Set<String>> entry : codesByVocabulary.entrySet()) {
+            for (String code : entry.getValue()) {
+                if (count == size) {
+                    batches.add(batch);
+                    batch = new LinkedHashMap<>();
+                    count = 0;
+                }
+                batch.computeIfAbsent(entry.getKey(), vocabularyId -> new LinkedHashSet<>()).add(code);
+                count++;
+            }
+        }
+        if (count > 0) {
+            batches.add(batch);
         }
+        return batches;
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,10 @@
 package org.ohdsi.webapi.shiro.Entities;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.repository.CrudRepository;
 
 /**
@@ -19,4 +21,7 @@ public interface UserRepository extends CrudRepository<UserEntity, Long> {
     public UserEntity getTestUser();
 
     List<UserEntity> findByOrigin(UserOrigin origin);
+
+    @Query("SELECT DISTINCT u FROM UserEntity u LEFT JOIN FETCH u.userRoles ur LEFT JOIN FETCH ur.role WHERE u.login IN :logins")
+    List<UserEntity> findByLoginInWithRoles(@Param("logins") Collection<String> logins);
 }
@@ -6,44 +6,78 @@ import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 
 import java.util.Date;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Failed attempts are kept in a {@link LockoutStore}, with a {@link LockoutFrontTier} in front of it. A principal gets
+ * into the store only once it has failed {@code admissionThreshold} times within the window on this node, so one-off
+ * failures, the bulk of credential stuffing traffic, don't reach the store, while locked principals are rejected
+ * from the front tier without a store lookup. As every node admits principals on its own, a cluster of N nodes allows
+ * up to N * (admissionThreshold - 1) attempts on top of {@code maxAttempts} before the lock.
+ */
 public class DefaultLockoutPolicy implements LockoutPolicy {
 
+    private static final LockEntry DEFAULT_LOCK = new LockEntry(0, LockEntry.EXPIRED_NOT_SET);
+    private static final long DEFAULT_WINDOW = TimeUnit.HOURS.toMillis(1);
+
     private LockoutStrategy lockoutStrategy;
     private int maxAttempts;
-    private Map<String, LockEntry> lockEntryMap = new ConcurrentHashMap<>();
-    private static final LockEntry DEFAULT_LOCK = new LockEntry(0, LockEntry.EXPIRED_NOT_SET);
     private ApplicationEventPublisher eventPublisher;
+    private final LockoutStore lockoutStore;
+    private final LockoutFrontTier frontTier;
+    private final int admissionThreshold;
+    private final long window;
 
     public DefaultLockoutPolicy(LockoutStrategy lockoutStrategy, int maxAttempts, ApplicationEventPublisher eventPublisher) {
 
+        this(lockoutStrategy, maxAttempts, eventPublisher, new InMemoryLockoutStore(), 1, DEFAULT_WINDOW);
+    }
+
+    /**
+     * @param admissionThreshold failures on a node before the principal is written to the store, 1 to write every failure
+     * @param window             period in milliseconds after which failures below the lock threshold are forgotten
+     */
+    public DefaultLockoutPolicy(LockoutStrategy lockoutStrategy, int maxAttempts, ApplicationEventPublisher eventPublisher,
+                                LockoutStore lockoutStore, int admissionThreshold, long window) {
+
         if (maxAttempts > 0) {
             this.lockoutStrategy = lockoutStrategy;
             this.maxAttempts = maxAttempts;
         } else {
             throw new IllegalArgumentException("maxAttempts should be greater than 0");
         }
+        if (admissionThreshold < 1) {
+            throw new IllegalArgumentException("admissionThreshold should be greater than 0");
+        }
         this.eventPublisher = eventPublisher;
+        this.lockoutStore = lockoutStore;
+        this.admissionThreshold = admissionThreshold;
+        this.window = window;
+        this.frontTier = new LockoutFrontTier(window);
     }
 
     @Scheduled(fixedRate = 60000)
     private void checkLockout() {
-        lockEntryMap.forEach((principal, entry) -> {
-            if (!isLockedOut(entry) && entry.getAttempts() >= maxAttempts) {
-                eventPublisher.publishEvent(new LockoutStopEvent(this, principal));
-                lockEntryMap.remove(principal);
-            }
-        });
+        long now = new Date().getTime();
+        lockoutStore.removeExpiredLocks(maxAttempts, now)
+                .forEach(principal -> eventPublisher.publishEvent(new LockoutStopEvent(this, principal)));
+        lockoutStore.removeStale(maxAttempts, now - window);
+        frontTier.sweep(now);
     }
 
     @Override
     public boolean isLockedOut(String principal) {
 
-        LockEntry lockEntry = lockEntryMap.getOrDefault(principal, DEFAULT_LOCK);
         long now = new Date().getTime();
-        return lockEntry.getExpired() != LockEntry.EXPIRED_NOT_SET && now < lockEntry.getExpired();
+        if (frontTier.isLocked(principal, now)) {
+            return true;
+        }
+        LockEntry lockEntry = getLockEntry(principal);
+        if (isLockedOut(lockEntry)) {
+            frontTier.locked(principal, lockEntry.getExpired());
+            return true;
+        }
+        return false;
     }
 
     @Override
@@ -56,33 +90,48 @@ public class DefaultLockoutPolicy implements LockoutPolicy {
     @Override
     public long getLockExpiration(String principal) {
 
-        LockEntry lockEntry = lockEntryMap.getOrDefault(principal, DEFAULT_LOCK);
-        return lockEntry.getExpired();
+        long expired = frontTier.getLockExpiration(principal);
+        return expired != LockEntry.EXPIRED_NOT_SET ? expired : getLockEntry(principal).getExpired();
     }
 
     @Override
     public void loginFailed(String principal) {
 
-        LockEntry lockEntry = lockEntryMap.getOrDefault(principal,
-                new LockEntry(0, LockEntry.EXPIRED_NOT_SET));
-        int attempts = lockEntry.getAttempts();
-        long expired = lockEntry.getExpired();
-        if (++attempts >= maxAttempts) {
-            if (!isLockedOut(principal)) {
+        long now = new Date().getTime();
+        int previous = frontTier.estimate(principal, now);
+        int failures = frontTier.recordFailure(principal, now);
+        if (failures < admissionThreshold) {
+            return;
+        }
+        // on admission the failures counted so far on this node are carried to the store, later ones one by one
+        int attempts = previous < admissionThreshold ? failures : 1;
+        LockEntry lockEntry = lockoutStore.addAttempts(principal, attempts);
+        if (lockEntry.getAttempts() >= maxAttempts) {
+            if (!isLockedOut(lockEntry)) {
                 eventPublisher.publishEvent(new LockoutStartEvent(this, principal));
             }
-            long duration = lockoutStrategy.getLockDuration(attempts);
-            long now = new Date().getTime();
-            expired = now + duration;
+            long expired = now + lockoutStrategy.getLockDuration(lockEntry.getAttempts());
+            lockoutStore.lock(principal, lockEntry.getAttempts(), expired);
+            frontTier.locked(principal, expired);
         }
-        lockEntry = new LockEntry(attempts, expired);
-        lockEntryMap.put(principal, lockEntry);
     }
 
+    /**
+     * The store entry is removed whenever it holds failed attempts, including ones counted by other nodes only, so that
+     * they don't add up with later failures. Regular logins of principals without failures only read the store.
+     */
     @Override
     public void loginSucceeded(String principal) {
 
-        lockEntryMap.remove(principal);
+        frontTier.reset(principal, new Date().getTime());
+        if (getLockEntry(principal).getAttempts() > 0) {
+            lockoutStore.remove(principal);
+        }
     }
 
+    private LockEntry getLockEntry(String principal) {
+
+        LockEntry lockEntry = lockoutStore.get(principal);
+        return lockEntry != null ? lockEntry : DEFAULT_LOCK;
+    }
 }
@@ -0,0 +1,75 @@
+package org.ohdsi.webapi.shiro.lockout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lockout store of a single node, counters are lost on restart.
+ */
+public class InMemoryLockoutStore implements LockoutStore {
+
+    private final Map<String, StoredEntry> entries = new ConcurrentHashMap<>();
+
+    @Override
+    public LockEntry get(String principal) {
+
+        StoredEntry entry = entries.get(principal);
+        return entry != null ? entry.lockEntry : null;
+    }
+
+    @Override
+    public LockEntry addAttempts(String principal, int attempts) {
+
+        return entries.compute(principal, (p, entry) -> {
+            LockEntry lockEntry = entry != null ? entry.lockEntry : new LockEntry(0, LockEntry.EXPIRED_NOT_SET);
+            return new StoredEntry(new LockEntry(lockEntry.getAttempts() + attempts, lockEntry.getExpired()));
+        }).lockEntry;
+    }
+
+    @Override
+    public void lock(String principal, int attempts, long expired) {
+
+        entries.computeIfPresent(principal, (p, entry) -> entry.lockEntry.getAttempts() == attempts
+                ? new StoredEntry(new LockEntry(attempts, expired))
+                : entry);
+    }
+
+    @Override
+    public void remove(String principal) {
+
+        entries.remove(principal);
+    }
+
+    @Override
+    public List<String> removeExpiredLocks(int maxAttempts, long now) {
+
+        List<String> unlocked = new ArrayList<>();
+        entries.forEach((principal, entry) -> {
+            LockEntry lockEntry = entry.lockEntry;
+            if (lockEntry.getAttempts() >= maxAttempts && lockEntry.getExpired() != LockEntry.EXPIRED_NOT_SET
+                    && lockEntry.getExpired() <= now && entries.remove(principal, entry)) {
+                unlocked.add(principal);
+            }
+        });
+        return unlocked;
+    }
+
+    @Override
+    public void removeStale(int maxAttempts, long updatedBefore) {
+
+        entries.entrySet().removeIf(e -> e.getValue().lockEntry.getAttempts() < maxAttempts && e.getValue().updated < updatedBefore);
+    }
+
+    private static class StoredEntry {
+
+        private final LockEntry lockEntry;
+        private final long updated = System.currentTimeMillis();
+
+        StoredEntry(LockEntry lockEntry) {
+
+            this.lockEntry = lockEntry;
+        }
+    }
+}
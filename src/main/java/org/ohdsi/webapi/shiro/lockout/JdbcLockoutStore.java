@@ -0,0 +1,76 @@
+package org.ohdsi.webapi.shiro.lockout;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.List;
+
+/**
+ * Lockout store in the WebAPI database, shared by all nodes and kept over restarts. Attempts are counted with an
+ * atomic upsert, so concurrent failures on different nodes are never lost.
+ */
+public class JdbcLockoutStore implements LockoutStore {
+
+    private static final String SELECT_SQL = "SELECT attempts, expired FROM %s.sec_login_lockout WHERE principal = ?";
+    private static final String ADD_ATTEMPTS_SQL = "INSERT INTO %s.sec_login_lockout (principal, attempts, expired, updated) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (principal) DO UPDATE SET attempts = sec_login_lockout.attempts + EXCLUDED.attempts, updated = EXCLUDED.updated " +
+            "RETURNING attempts, expired";
+    private static final String LOCK_SQL = "UPDATE %s.sec_login_lockout SET expired = ?, updated = ? WHERE principal = ? AND attempts = ?";
+    private static final String DELETE_SQL = "DELETE FROM %s.sec_login_lockout WHERE principal = ?";
+    private static final String DELETE_EXPIRED_SQL = "DELETE FROM %s.sec_login_lockout WHERE attempts >= ? AND expired <> ? AND expired <= ? RETURNING principal";
+    private static final String DELETE_STALE_SQL = "DELETE FROM %s.sec_login_lockout WHERE attempts < ? AND updated < ?";
+
+    private static final RowMapper<LockEntry> LOCK_ENTRY_MAPPER = (rs, rowNum) -> new LockEntry(rs.getInt("attempts"), rs.getLong("expired"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String ohdsiSchema;
+
+    public JdbcLockoutStore(JdbcTemplate jdbcTemplate, String ohdsiSchema) {
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.ohdsiSchema = ohdsiSchema;
+    }
+
+    @Override
+    public LockEntry get(String principal) {
+
+        List<LockEntry> entries = jdbcTemplate.query(sql(SELECT_SQL), LOCK_ENTRY_MAPPER, principal);
+        return entries.isEmpty() ? null : entries.get(0);
+    }
+
+    @Override
+    public LockEntry addAttempts(String principal, int attempts) {
+
+        return jdbcTemplate.queryForObject(sql(ADD_ATTEMPTS_SQL), LOCK_ENTRY_MAPPER,
+                principal, attempts, LockEntry.EXPIRED_NOT_SET, System.currentTimeMillis());
+    }
+
+    @Override
+    public void lock(String principal, int attempts, long expired) {
+
+        jdbcTemplate.update(sql(LOCK_SQL), expired, System.currentTimeMillis(), principal, attempts);
+    }
+
+    @Override
+    public void remove(String principal) {
+
+        jdbcTemplate.update(sql(DELETE_SQL), principal);
+    }
+
+    @Override
+    public List<String> removeExpiredLocks(int maxAttempts, long now) {
+
+        return jdbcTemplate.queryForList(sql(DELETE_EXPIRED_SQL), String.class, maxAttempts, LockEntry.EXPIRED_NOT_SET, now);
+    }
+
+    @Override
+    public void removeStale(int maxAttempts, long updatedBefore) {
+
+        jdbcTemplate.update(sql(DELETE_STALE_SQL), maxAttempts, updatedBefore);
+    }
+
+    private String sql(String template) {
+
+        return String.format(template, ohdsiSchema);
+    }
+}
@@ -0,0 +1,175 @@
+package org.ohdsi.webapi.shiro.lockout;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Node-local, fixed size view of recent login failures kept in front of the {@link LockoutStore}.
+ * <p>
+ * Failures are counted in a count-min sketch split into a wheel of time slots: the slot of the current period is
+ * cleared and reused when the wheel comes round, so counts older than the window are forgotten and the memory used
+ * doesn't depend on the number of distinct principals. Estimates may be higher than the real count on hash
+ * collisions, never lower. Principals known to be locked are kept until their lock expires, so that repeated
+ * attempts against them are rejected without a store lookup.
+ */
+public class LockoutFrontTier {
+
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 4096;
+    private static final int SLOTS = 6;
+    private static final int MAX_LOCKED = 10_000;
+
+    private final long slotDuration;
+    private final AtomicIntegerArray[] counters = new AtomicIntegerArray[SLOTS];
+    private final AtomicLongArray slotPeriods = new AtomicLongArray(SLOTS);
+    private final Map<String, Long> locked = new ConcurrentHashMap<>();
+
+    /**
+     * @param window period in milliseconds during which failures are remembered
+     */
+    public LockoutFrontTier(long window) {
+
+        if (window < SLOTS) {
+            throw new IllegalArgumentException("window should be at least " + SLOTS + " ms");
+        }
+        this.slotDuration = window / SLOTS;
+        for (int i = 0; i < SLOTS; i++) {
+            counters[i] = new AtomicIntegerArray(DEPTH * WIDTH);
+            slotPeriods.set(i, -1);
+        }
+    }
+
+    /**
+     * @return estimated number of failures of the principal within the window, including this one
+     */
+    public int recordFailure(String principal, long now) {
+
+        AtomicIntegerArray slot = currentSlot(now);
+        int[] cells = cells(principal);
+        for (int cell : cells) {
+            slot.incrementAndGet(cell);
+        }
+        return estimate(cells, now);
+    }
+
+    public int estimate(String principal, long now) {
+
+        return estimate(cells(principal), now);
+    }
+
+    /**
+     * Forgets failures of the principal. Counts can't be removed from the sketch exactly, so the principal's estimate is
+     * subtracted from its cells, which may also lower the estimates of principals sharing all of them.
+     */
+    public void reset(String principal, long now) {
+
+        int[] cells = cells(principal);
+        for (int i = 0; i < SLOTS; i++) {
+            if (!isLive(i, now)) {
+                continue;
+            }
+            AtomicIntegerArray slot = counters[i];
+            int min = Integer.MAX_VALUE;
+            for (int cell : cells) {
+                min = Math.min(min, slot.get(cell));
+            }
+            if (min > 0) {
+                for (int cell : cells) {
+                    int value;
+                    do {
+                        value = slot.get(cell);
+                    } while (!slot.compareAndSet(cell, value, Math.max(0, value - min)));
+                }
+            }
+        }
+        locked.remove(principal);
+    }
+
+    public void locked(String principal, long expired) {
+
+        if (locked.size() < MAX_LOCKED || locked.containsKey(principal)) {
+            locked.put(principal, expired);
+        }
+    }
+
+    public boolean isLocked(String principal, long now) {
+
+        Long expired = locked.get(principal);
+        return expired != null && now < expired;
+    }
+
+    /**
+     * @return lock expiration known to this node or {@link LockEntry#EXPIRED_NOT_SET}
+     */
+    public long getLockExpiration(String principal) {
+
+        return locked.getOrDefault(principal, LockEntry.EXPIRED_NOT_SET);
+    }
+
+    public void sweep(long now) {
+
+        locked.values().removeIf(expired -> expired <= now);
+    }
+
+    private int estimate(int[] cells, long now) {
+
+        int estimate = Integer.MAX_VALUE;
+        for (int cell : cells) {
+            int sum = 0;
+            for (int i = 0; i < SLOTS; i++) {
+                if (isLive(i, now)) {
+                    sum += counters[i].get(cell);
+                }
+            }
+            estimate = Math.min(estimate, sum);
+        }
+        return estimate;
+    }
+
+    private boolean isLive(int slot, long now) {
+
+        long period = slotPeriods.get(slot);
+        return period >= 0 && now / slotDuration - period < SLOTS;
+    }
+
+    private AtomicIntegerArray currentSlot(long now) {
+
+        long period = now / slotDuration;
+        int index = (int) (period % SLOTS);
+        if (slotPeriods.get(index) != period) {
+            synchronized (counters[index]) {
+                if (slotPeriods.get(index) != period) {
+                    AtomicIntegerArray slot = counters[index];
+                    for (int i = 0; i < slot.length(); i++) {
+                        slot.set(i, 0);
+                    }
+                    slotPeriods.set(index, period);
+                }
+            }
+        }
+        return counters[index];
+    }
+
+    private int[] cells(String principal) {
+
+        int hash = mix(principal.hashCode());
+        int hash2 = mix(hash ^ 0x5bd1e995) | 1;
+        int[] cells = new int[DEPTH];
+        for (int i = 0; i < DEPTH; i++) {
+            cells[i] = i * WIDTH + ((hash + i * hash2) & (WIDTH - 1));
+        }
+        return cells;
+    }
+
+    private static int mix(int h) {
+
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,41 @@
+package org.ohdsi.webapi.shiro.lockout;
+
+import java.util.List;
+
+/**
+ * Storage of failed login attempts. Implementations must apply {@link #addAttempts(String, int)} atomically, since
+ * the same principal may fail on several nodes at once.
+ */
+public interface LockoutStore {
+
+    /**
+     * @return lock entry or null when the principal has no failed attempts
+     */
+    LockEntry get(String principal);
+
+    /**
+     * Increments failed attempts of the principal, creating the entry if needed.
+     *
+     * @return entry after the increment
+     */
+    LockEntry addAttempts(String principal, int attempts);
+
+    /**
+     * Sets lock expiration, unless the entry has been changed since it had the given number of attempts.
+     */
+    void lock(String principal, int attempts, long expired);
+
+    void remove(String principal);
+
+    /**
+     * Removes entries locked with at least {@code maxAttempts} whose lock expired before {@code now}.
+     *
+     * @return principals whose lock ended
+     */
+    List<String> removeExpiredLocks(int maxAttempts, long now);
+
+    /**
+     * Removes entries below the lock threshold not updated since {@code updatedBefore}.
+     */
+    void removeStale(int maxAttempts, long updatedBefore);
+}
@@ -68,6 +68,9 @@ public abstract class AtlasSecurity extends Security {
   @Value("${security.ssl.enabled}")
   private boolean sslEnabled;
 
+  @Value("${metrics.endpoint.anonymous:false}")
+  private boolean metricsAnonymous;
+
   private final EntityPermissionSchemaResolver permissionSchemaResolver;
 
   protected final Set<String> defaultRoles = new LinkedHashSet<>();
@@ -96,9 +99,16 @@ public abstract class AtlasSecurity extends Security {
 
   protected FilterChainBuilder setupProtectedPaths(FilterChainBuilder filterChainBuilder) {
 
+    if (metricsAnonymous) {
+      // lets Prometheus scrape metrics without logging in
+      filterChainBuilder.addRestPath("/metrics");
+    }
     return filterChainBuilder
             // version info
             .addRestPath("/info")
+            // liveness and readiness probes
+            .addRestPath("/health/live")
+            .addRestPath("/health/ready")
             // DDL service
             .addRestPath("/ddl/results")
             .addRestPath("/ddl/cemresults")
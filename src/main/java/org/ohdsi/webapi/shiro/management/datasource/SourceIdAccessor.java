@@ -1,21 +1,22 @@
 package org.ohdsi.webapi.shiro.management.datasource;
 
 import org.ohdsi.webapi.source.Source;
-import org.ohdsi.webapi.source.SourceRepository;
+import org.ohdsi.webapi.source.SourceService;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
 @Component
 public class SourceIdAccessor extends BaseDataSourceAccessor<Integer> {
 
-  private SourceRepository sourceRepository;
+  private SourceService sourceService;
 
-  public SourceIdAccessor(SourceRepository sourceRepository) {
-    this.sourceRepository = sourceRepository;
+  public SourceIdAccessor(@Lazy SourceService sourceService) {
+    this.sourceService = sourceService;
   }
 
   @Override
   protected Source extractSource(Integer sourceId) {
 
-    return sourceRepository.findBySourceId(sourceId);
+    return sourceService.findBySourceId(sourceId);
   }
 }
@@ -1,21 +1,22 @@
 package org.ohdsi.webapi.shiro.management.datasource;
 
 import org.ohdsi.webapi.source.Source;
-import org.ohdsi.webapi.source.SourceRepository;
+import org.ohdsi.webapi.source.SourceService;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
 @Component
 public class SourceKeyAccessor extends BaseDataSourceAccessor<String> {
 
-  private SourceRepository sourceRepository;
+  private SourceService sourceService;
 
-  public SourceKeyAccessor(SourceRepository sourceRepository) {
-    this.sourceRepository = sourceRepository;
+  public SourceKeyAccessor(@Lazy SourceService sourceService) {
+    this.sourceService = sourceService;
   }
 
   @Override
   protected Source extractSource(String sourceKey) {
 
-    return sourceRepository.findBySourceKey(sourceKey);
+    return sourceService.findBySourceKey(sourceKey);
   }
 }
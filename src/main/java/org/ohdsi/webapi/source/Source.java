@@ -24,6 +24,7 @@ import java.util.Objects;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.FetchType;
@@ -49,6 +50,7 @@ import org.ohdsi.webapi.source.SourceDaimon.DaimonType;
 @Table(name="source")
 @SQLDelete(sql = "UPDATE {h-schema}source SET deleted_date = current_timestamp WHERE SOURCE_ID = ?")
 @Where(clause = "deleted_date IS NULL")
+@EntityListeners(SourceChangeListener.class)
 public class Source extends CommonEntity<Integer> implements Serializable {
 
   public static final String MASQUERADED_USERNAME = "<username>";
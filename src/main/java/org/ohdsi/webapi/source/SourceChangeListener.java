@@ -0,0 +1,48 @@
+package org.ohdsi.webapi.source;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts changes of sources and their daimons written on this node, whatever the path they are written through, so
+ * that {@link SourceService} knows when its registry is out of date. Changes are counted once their transaction
+ * commits, so that a registry reloaded because of a change always sees it. Changes made by other nodes are picked up
+ * when the registry expires.
+ */
+public class SourceChangeListener {
+
+    private static final AtomicLong version = new AtomicLong();
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+
+                    changed();
+                }
+            });
+        } else {
+            changed();
+        }
+    }
+
+    static void changed() {
+
+        version.incrementAndGet();
+    }
+
+    static long getVersion() {
+
+        return version.get();
+    }
+}
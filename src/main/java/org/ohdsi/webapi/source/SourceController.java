@@ -120,7 +120,7 @@ public class SourceController extends AbstractDaoService {
   @GET
   @Produces(MediaType.APPLICATION_JSON)
   public SourceInfo getSource(@PathParam("key") final String sourceKey) {
-    return sourceRepository.findBySourceKey(sourceKey).getSourceInfo();
+    return sourceService.findBySourceKey(sourceKey).getSourceInfo();
   }
 
 	/**
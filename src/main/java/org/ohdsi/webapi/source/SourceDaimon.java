@@ -19,6 +19,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
@@ -41,6 +42,7 @@ import java.util.Objects;
 @Table(name="source_daimon")
 @SQLDelete(sql = "UPDATE {h-schema}source_daimon SET priority = -1 WHERE SOURCE_DAIMON_ID = ?")
 //@Where(clause = "priority >= 0")
+@EntityListeners(SourceChangeListener.class)
 public class SourceDaimon implements Serializable {
   public enum DaimonType { CDM, Vocabulary, Results, CEM, CEMResults, Temp };
   
@@ -0,0 +1,85 @@
+package org.ohdsi.webapi.source;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable view of all sources, built from {@link SourceSnapshot snapshots} at once and replaced as a whole when
+ * sources change, so that readers never see a partially updated registry and never need a lock.
+ */
+final class SourceRegistry {
+
+    private final List<SourceSnapshot> sources;
+    private final Map<String, SourceSnapshot> byKey;
+    private final Map<Integer, SourceSnapshot> byId;
+    private final Map<SourceDaimon.DaimonType, List<SourceSnapshot>> byDaimonPriority;
+    private final long version;
+    private final long loadedAt;
+
+    SourceRegistry(Collection<Source> entities, long version) {
+
+        List<SourceSnapshot> snapshots = entities.stream()
+                .map(SourceSnapshot::new)
+                .sorted(Comparator.comparing(SourceSnapshot::getSourceKey))
+                .collect(Collectors.toList());
+        this.sources = Collections.unmodifiableList(snapshots);
+        this.byKey = snapshots.stream().collect(Collectors.toMap(SourceSnapshot::getSourceKey, Function.identity(), (a, b) -> a, HashMap::new));
+        this.byId = snapshots.stream().collect(Collectors.toMap(SourceSnapshot::getSourceId, Function.identity(), (a, b) -> a, HashMap::new));
+        this.byDaimonPriority = new EnumMap<>(SourceDaimon.DaimonType.class);
+        for (SourceDaimon.DaimonType daimonType : SourceDaimon.DaimonType.values()) {
+            byDaimonPriority.put(daimonType, sortByPriority(snapshots, daimonType));
+        }
+        this.version = version;
+        this.loadedAt = System.currentTimeMillis();
+    }
+
+    List<SourceSnapshot> getSources() {
+
+        return sources;
+    }
+
+    SourceSnapshot findBySourceKey(String sourceKey) {
+
+        return byKey.get(sourceKey);
+    }
+
+    SourceSnapshot findBySourceId(Integer sourceId) {
+
+        return sourceId != null ? byId.get(sourceId) : null;
+    }
+
+    /**
+     * @return sources having the daimon, the highest priority first, as {@link SourceRepository#findAllSortedByDiamonPrioirty}
+     */
+    List<SourceSnapshot> findAllSortedByDaimonPriority(SourceDaimon.DaimonType daimonType) {
+
+        return byDaimonPriority.get(daimonType);
+    }
+
+    boolean isStale(long currentVersion, long ttl) {
+
+        return version != currentVersion || System.currentTimeMillis() - loadedAt > ttl;
+    }
+
+    private static List<SourceSnapshot> sortByPriority(List<SourceSnapshot> sources, SourceDaimon.DaimonType daimonType) {
+
+        List<SourceSnapshot> result = new ArrayList<>();
+        Map<SourceSnapshot, Integer> priorities = new HashMap<>();
+        for (SourceSnapshot source : sources) {
+            source.getPriority(daimonType).ifPresent(priority -> {
+                result.add(source);
+                priorities.put(source, priority);
+            });
+        }
+        result.sort(Comparator.comparing(priorities::get, Comparator.reverseOrder()));
+        return Collections.unmodifiableList(result);
+    }
+}
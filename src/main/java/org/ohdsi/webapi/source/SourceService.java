@@ -21,16 +21,20 @@ import java.util.stream.Collectors;
 @Service
 public class SourceService extends AbstractDaoService {
 
-    private static Collection<Source> cachedSources = null;
-
     @Value("${jasypt.encryptor.enabled}")
     private boolean encryptorEnabled;
 
     @Value("${datasource.ohdsi.schema}")
     private String schema;
 
+    @Value("${source.registry.ttl:60000}")
+    private long registryTtl;
+
     private Map<Source, Boolean> connectionAvailability = Collections.synchronizedMap(new PassiveExpiringMap<>(5000));
 
+    // sources are served from an immutable registry replaced as a whole on changes, see getRegistry()
+    private volatile SourceRegistry registry;
+
 
     private final SourceRepository sourceRepository;
     private final JdbcTemplate jdbcTemplate;
@@ -64,13 +68,19 @@ public class SourceService extends AbstractDaoService {
                         int id = rs.getInt("source_id");
                         String username = rs.getString("username");
                         String password = rs.getString("password");
+                        boolean plain = false;
                         if (username != null && !PropertyValueEncryptionUtils.isEncryptedValue(username)) {
                             username = "ENC(" + defaultStringEncryptor.encrypt(username) + ")";
+                            plain = true;
                         }
                         if (password != null && !PropertyValueEncryptionUtils.isEncryptedValue(password)) {
                             password = "ENC(" + defaultStringEncryptor.encrypt(password) + ")";
+                            plain = true;
+                        }
+                        // sources encrypted on a previous start aren't written again
+                        if (plain) {
+                            jdbcTemplate.update(update, username, password, id);
                         }
-                        jdbcTemplate.update(update, username, password, id);
                     });
                 }
             });
@@ -79,22 +89,23 @@ public class SourceService extends AbstractDaoService {
 
     public Collection<Source> getSources() {
 
-        if (cachedSources == null) {
-            List<Source> sources = sourceRepository.findAll();
-            Collections.sort(sources, new SortByKey());
-            cachedSources = sources;
-        }
-        return cachedSources;
+        return toSources(getRegistry().getSources());
     }
 
+    /**
+     * @return detached copy of the source, changes to it are not saved, use {@link SourceRepository} for that
+     */
     public Source findBySourceKey(final String sourceKey) {
 
-        return sourceRepository.findBySourceKey(sourceKey);
+        return toSource(getRegistry().findBySourceKey(sourceKey));
     }
 
+    /**
+     * @return detached copy of the source, changes to it are not saved, use {@link SourceRepository} for that
+     */
     public Source findBySourceId(final Integer sourceId) {
 
-        return sourceRepository.findBySourceId(sourceId);
+        return toSource(getRegistry().findBySourceId(sourceId));
     }
 
     public <T> Map<T, Source> getSourcesMap(SourceMapKey<T> mapKey) {
@@ -112,9 +123,10 @@ public class SourceService extends AbstractDaoService {
 
     public Source getPrioritySourceForDaimon(SourceDaimon.DaimonType daimonType) {
 
-        List<Source> sourcesByDaimonPriority = sourceRepository.findAllSortedByDiamonPrioirty(daimonType);
+        List<SourceSnapshot> sourcesByDaimonPriority = getRegistry().findAllSortedByDaimonPriority(daimonType);
 
-        for (Source source : sourcesByDaimonPriority) {
+        for (SourceSnapshot snapshot : sourcesByDaimonPriority) {
+            Source source = snapshot.toSource();
             if (!(sourceAccessor.hasAccess(source) && connectionAvailability.computeIfAbsent(source, this::checkConnectionSafe))) {
                 continue;
             }
@@ -139,8 +151,8 @@ public class SourceService extends AbstractDaoService {
         Map<SourceDaimon.DaimonType, Source> priorityDaimons = new HashMap<>();
         Arrays.asList(SourceDaimon.DaimonType.values()).forEach(d -> {
 
-            List<Source> sources = sourceRepository.findAllSortedByDiamonPrioirty(d);
-            Optional<Source> source = sources.stream().filter(sourceValidator::isSourceAvaialble)
+            List<SourceSnapshot> sources = getRegistry().findAllSortedByDaimonPriority(d);
+            Optional<Source> source = sources.stream().map(SourceSnapshot::toSource).filter(sourceValidator::isSourceAvaialble)
                     .findFirst();
             source.ifPresent(s -> priorityDaimons.put(d, s));
         });
@@ -162,35 +174,44 @@ public class SourceService extends AbstractDaoService {
 
     public void invalidateCache() {
 
-        this.cachedSources = null;
+        SourceChangeListener.changed();
+        this.registry = null;
     }
 
-    private boolean checkConnectionSafe(Source source) {
+    private Source toSource(SourceSnapshot snapshot) {
 
-        try {
-            checkConnection(source);
-            return true;
-        } catch (CannotGetJdbcConnectionException ex) {
-            return false;
-        }
+        return snapshot != null ? snapshot.toSource() : null;
     }
 
-    private class SortByKey implements Comparator<Source> {
-        private boolean isAscending;
-
-        public SortByKey(boolean ascending) {
+    private List<Source> toSources(List<SourceSnapshot> snapshots) {
 
-            isAscending = ascending;
-        }
-
-        public SortByKey() {
+        return snapshots.stream().map(SourceSnapshot::toSource).collect(Collectors.toList());
+    }
 
-            this(true);
+    private SourceRegistry getRegistry() {
+
+        SourceRegistry current = registry;
+        if (current == null || current.isStale(SourceChangeListener.getVersion(), registryTtl)) {
+            synchronized (this) {
+                current = registry;
+                long version = SourceChangeListener.getVersion();
+                if (current == null || current.isStale(version, registryTtl)) {
+                    // credentials are decrypted here once per reload instead of on every lookup
+                    current = new SourceRegistry(sourceRepository.findAll(), version);
+                    registry = current;
+                }
+            }
         }
+        return current;
+    }
 
-        public int compare(Source s1, Source s2) {
+    private boolean checkConnectionSafe(Source source) {
 
-            return s1.getSourceKey().compareTo(s2.getSourceKey()) * (isAscending ? 1 : -1);
+        try {
+            checkConnection(source);
+            return true;
+        } catch (CannotGetJdbcConnectionException ex) {
+            return false;
         }
     }
 }
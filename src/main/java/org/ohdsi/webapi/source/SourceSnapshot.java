@@ -0,0 +1,167 @@
+package org.ohdsi.webapi.source;
+
+import com.odysseusinc.arachne.execution_engine_common.api.v1.dto.KerberosAuthMechanism;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Read-only view of a source, detached from the persistence context and shared between threads by
+ * {@link SourceRegistry}. Daimons are resolved to table qualifiers once and credentials are kept as already decrypted
+ * by the entity. Callers get their own {@link Source} built by {@link #toSource()}, so changing it doesn't affect
+ * the view or anyone else.
+ */
+public final class SourceSnapshot {
+
+    private final int sourceId;
+    private final String sourceName;
+    private final String sourceDialect;
+    private final String sourceConnection;
+    private final String sourceKey;
+    private final String username;
+    private final String password;
+    private final byte[] keyfile;
+    private final String keyfileName;
+    private final String krbAdminServer;
+    private final KerberosAuthMechanism krbAuthMethod;
+    private final boolean cacheEnabled;
+    private final boolean checkConnection;
+    private final Date createdDate;
+    private final Date modifiedDate;
+    private final List<Daimon> daimons;
+    private final Map<SourceDaimon.DaimonType, String> qualifiers;
+
+    SourceSnapshot(Source source) {
+
+        this.sourceId = source.getSourceId();
+        this.sourceName = source.getSourceName();
+        this.sourceDialect = source.getSourceDialect();
+        this.sourceConnection = source.getSourceConnection();
+        this.sourceKey = source.getSourceKey();
+        this.username = source.getUsername();
+        this.password = source.getPassword();
+        this.keyfile = source.getKeyfile() != null ? source.getKeyfile().clone() : null;
+        this.keyfileName = source.getKeyfileName();
+        this.krbAdminServer = source.getKrbAdminServer();
+        this.krbAuthMethod = source.getKrbAuthMethod();
+        this.cacheEnabled = source.isIsCacheEnabled();
+        this.checkConnection = source.isCheckConnection();
+        this.createdDate = copy(source.getCreatedDate());
+        this.modifiedDate = copy(source.getModifiedDate());
+        List<Daimon> daimonList = new ArrayList<>();
+        if (source.getDaimons() != null) {
+            source.getDaimons().forEach(d -> daimonList.add(new Daimon(d)));
+        }
+        this.daimons = Collections.unmodifiableList(daimonList);
+        Map<SourceDaimon.DaimonType, String> resolved = new EnumMap<>(SourceDaimon.DaimonType.class);
+        for (SourceDaimon.DaimonType daimonType : SourceDaimon.DaimonType.values()) {
+            String qualifier = source.getTableQualifierOrNull(daimonType);
+            if (qualifier != null) {
+                resolved.put(daimonType, qualifier);
+            }
+        }
+        this.qualifiers = Collections.unmodifiableMap(resolved);
+    }
+
+    /**
+     * @return new detached source with its own daimons, which the caller may change
+     */
+    public Source toSource() {
+
+        Source source = new Source();
+        source.setSourceId(sourceId);
+        source.setSourceName(sourceName);
+        source.setSourceDialect(sourceDialect);
+        source.setSourceConnection(sourceConnection);
+        source.setSourceKey(sourceKey);
+        source.setUsername(username);
+        source.setPassword(password);
+        source.setKeyfile(keyfile != null ? keyfile.clone() : null);
+        source.setKeyfileName(keyfileName);
+        source.setKrbAdminServer(krbAdminServer);
+        source.setKrbAuthMethod(krbAuthMethod);
+        source.setIsCacheEnabled(cacheEnabled);
+        source.setCheckConnection(checkConnection);
+        source.setCreatedDate(copy(createdDate));
+        source.setModifiedDate(copy(modifiedDate));
+        List<SourceDaimon> sourceDaimons = new ArrayList<>(daimons.size());
+        for (Daimon daimon : daimons) {
+            sourceDaimons.add(daimon.toSourceDaimon(source));
+        }
+        source.setDaimons(sourceDaimons);
+        return source;
+    }
+
+    public int getSourceId() {
+
+        return sourceId;
+    }
+
+    public String getSourceKey() {
+
+        return sourceKey;
+    }
+
+    public String getSourceName() {
+
+        return sourceName;
+    }
+
+    public String getSourceDialect() {
+
+        return sourceDialect;
+    }
+
+    public String getTableQualifierOrNull(SourceDaimon.DaimonType daimonType) {
+
+        return qualifiers.get(daimonType);
+    }
+
+    /**
+     * @return the highest priority of the daimons of the type, as {@link SourceRepository#findAllSortedByDiamonPrioirty}
+     * only considers daimons with a priority of 0 or more
+     */
+    Optional<Integer> getPriority(SourceDaimon.DaimonType daimonType) {
+
+        return daimons.stream()
+                .filter(d -> d.daimonType == daimonType && d.priority != null && d.priority >= 0)
+                .map(d -> d.priority)
+                .max(Integer::compare);
+    }
+
+    private static Date copy(Date date) {
+
+        return date != null ? new Date(date.getTime()) : null;
+    }
+
+    private static final class Daimon {
+
+        private final int sourceDaimonId;
+        private final SourceDaimon.DaimonType daimonType;
+        private final String tableQualifier;
+        private final Integer priority;
+
+        private Daimon(SourceDaimon daimon) {
+
+            this.sourceDaimonId = daimon.getSourceDaimonId();
+            this.daimonType = daimon.getDaimonType();
+            this.tableQualifier = daimon.getTableQualifier();
+            this.priority = daimon.getPriority();
+        }
+
+        private SourceDaimon toSourceDaimon(Source source) {
+
+            SourceDaimon daimon = new SourceDaimon(source);
+            daimon.setSourceDaimonId(sourceDaimonId);
+            daimon.setDaimonType(daimonType);
+            daimon.setTableQualifier(tableQualifier);
+            daimon.setPriority(priority);
+            return daimon;
+        }
+    }
+}
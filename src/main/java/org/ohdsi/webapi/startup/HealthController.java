@@ -0,0 +1,85 @@
+package org.ohdsi.webapi.startup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Controller;
+
+import javax.sql.DataSource;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Probes for orchestrators. Liveness tells whether the instance responds at all and should be restarted otherwise,
+ * readiness whether it can serve requests: startup has finished and the WebAPI database is reachable.
+ */
+@Path("/health")
+@Controller
+public class HealthController {
+
+    private static final Logger log = LoggerFactory.getLogger(HealthController.class);
+
+    private static final String UP = "UP";
+    private static final String DOWN = "DOWN";
+
+    private final ResourcePreloader resourcePreloader;
+    private final DataSource dataSource;
+
+    @Value("${health.ready.timeout:2}")
+    private int timeout;
+
+    public HealthController(ResourcePreloader resourcePreloader, DataSource dataSource) {
+
+        this.resourcePreloader = resourcePreloader;
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Check that the WebAPI instance is alive
+     */
+    @GET
+    @Path("/live")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Map<String, String> live() {
+
+        return status(UP);
+    }
+
+    /**
+     * Check that the WebAPI instance is ready to serve requests
+     *
+     * @return 200 when ready, 503 otherwise
+     */
+    @GET
+    @Path("/ready")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response ready() {
+
+        boolean ready = resourcePreloader.isDone() && isDatabaseReachable();
+        return Response.status(ready ? Response.Status.OK : Response.Status.SERVICE_UNAVAILABLE)
+                .entity(status(ready ? UP : DOWN))
+                .build();
+    }
+
+    private boolean isDatabaseReachable() {
+
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.isValid(timeout);
+        } catch (SQLException e) {
+            log.warn("WebAPI database isn't reachable", e);
+            return false;
+        }
+    }
+
+    private Map<String, String> status(String status) {
+
+        return Collections.singletonMap("status", status);
+    }
+}
@@ -0,0 +1,67 @@
+package org.ohdsi.webapi.startup;
+
+import org.ohdsi.webapi.util.LazyResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads {@link LazyResource lazy resources} in parallel in the background once the application has started, so that
+ * they don't delay the startup and yet aren't loaded by the first requests. The application is reported
+ * {@link HealthController ready} when the preloading has finished.
+ */
+@Component
+public class ResourcePreloader {
+
+    private static final Logger log = LoggerFactory.getLogger(ResourcePreloader.class);
+
+    @Value("${startup.preload.threads:4}")
+    private int threads;
+
+    private volatile boolean done;
+
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+
+        List<LazyResource<?>> resources = LazyResource.getRegistered();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread thread = new Thread(r, "resource-preloader-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.currentTimeMillis();
+        CompletableFuture<?>[] loads = resources.stream()
+                .map(resource -> CompletableFuture.runAsync(() -> load(resource), executor))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(loads).whenComplete((result, e) -> {
+            executor.shutdown();
+            done = true;
+            log.info("{} resources preloaded in {} ms", resources.size(), System.currentTimeMillis() - start);
+        });
+    }
+
+    public boolean isDone() {
+
+        return done;
+    }
+
+    private void load(LazyResource<?> resource) {
+
+        try {
+            resource.get();
+        } catch (RuntimeException e) {
+            // the resource is loaded again on first use, which reports the error to the caller
+            log.warn("Cannot preload resource {}", resource.getName(), e);
+        }
+    }
+}
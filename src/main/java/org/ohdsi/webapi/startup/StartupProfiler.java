@@ -0,0 +1,110 @@
+package org.ohdsi.webapi.startup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long each bean takes to be created, injected and initialized, and logs the slowest ones once the
+ * application is ready. Beans created while another one is injected are nested in its time, so the time of each bean
+ * is reported without the time of beans it has caused to be created.
+ * <p>
+ * The profiler is a bean post processor and so is created before other beans, that's why it reads its settings from
+ * the environment rather than through injection.
+ */
+@Component
+public class StartupProfiler extends InstantiationAwareBeanPostProcessorAdapter
+        implements ApplicationListener<ApplicationReadyEvent>, EnvironmentAware {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupProfiler.class);
+
+    private final ThreadLocal<Deque<Frame>> frames = ThreadLocal.withInitial(ArrayDeque::new);
+    private final Map<String, Long> selfTimes = new ConcurrentHashMap<>();
+    private volatile boolean enabled = true;
+    private int top = 20;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+
+        enabled = environment.getProperty("startup.profiler.enabled", Boolean.class, true);
+        top = environment.getProperty("startup.profiler.top", Integer.class, 20);
+    }
+
+    @Override
+    public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) throws BeansException {
+
+        if (enabled) {
+            frames.get().push(new Frame(beanName, System.nanoTime()));
+        }
+        return null;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+
+        Deque<Frame> stack = frames.get();
+        if (!enabled || stack.stream().noneMatch(frame -> frame.beanName.equals(beanName))) {
+            // e.g. objects created by factory beans, which aren't instantiated by the container
+            return bean;
+        }
+        long now = System.nanoTime();
+        Frame frame;
+        // frames of beans which failed to be created are never completed
+        do {
+            frame = stack.pop();
+        } while (!frame.beanName.equals(beanName));
+        long total = now - frame.start;
+        selfTimes.merge(beanName, total - frame.nested, Long::sum);
+        Frame parent = stack.peek();
+        if (parent != null) {
+            parent.nested += total;
+        }
+        return bean;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+
+        if (!enabled) {
+            return;
+        }
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        long beansTime = selfTimes.values().stream().mapToLong(Long::longValue).sum();
+        StringBuilder report = new StringBuilder();
+        selfTimes.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(top)
+                .forEach(entry -> report.append(String.format("%n%10d ms  %s", TimeUnit.NANOSECONDS.toMillis(entry.getValue()), entry.getKey())));
+        log.info("Application started in {} ms, {} beans initialized in {} ms, the slowest ones:{}",
+                uptime, selfTimes.size(), TimeUnit.NANOSECONDS.toMillis(beansTime), report);
+        // beans created later, e.g. prototypes, aren't part of the startup
+        enabled = false;
+        selfTimes.clear();
+    }
+
+    private static class Frame {
+
+        private final String beanName;
+        private final long start;
+        private long nested;
+
+        private Frame(String beanName, long start) {
+
+            this.beanName = beanName;
+            this.start = start;
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package org.ohdsi.webapi.tag;
 
 import org.apache.shiro.SecurityUtils;
-import org.glassfish.jersey.internal.util.Producer;
 import org.ohdsi.webapi.service.AbstractDaoService;
 import org.ohdsi.webapi.tag.domain.Tag;
 import org.ohdsi.webapi.tag.domain.TagInfo;
@@ -12,24 +11,35 @@ import org.ohdsi.webapi.tag.repository.TagRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.convert.ConversionService;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class TagService extends AbstractDaoService {
     private static final Logger logger = LoggerFactory.getLogger(TagService.class);
+    private static final String UPDATE_COUNT_SQL = "UPDATE %s.tag SET count = count + ? WHERE id = ?";
+    private static final String CORRECT_COUNT_SQL = "UPDATE %s.tag SET count = ? WHERE id = ? AND count = ?";
     private final TagRepository tagRepository;
     private final EntityManager entityManager;
     private final ConversionService conversionService;
 
-    private final ArrayList<Producer<List<TagInfo>>> infoProducers;
+    private final List<Function<Collection<Integer>, List<TagInfo>>> infoProducers;
+
+    @Value("${tag.refreshStat.sampleSize:100}")
+    private int refreshSampleSize;
+
+    // tags are checked round-robin, a few at each refresh
+    private int lastCheckedTagId;
 
     @Autowired
     public TagService(
@@ -145,48 +155,53 @@ public class TagService extends AbstractDaoService {
         return tagRepository.findOne(tag.getId());
     }
 
+    /**
+     * Changes usage count of the tag in place, so that concurrent assignments don't overwrite each other. Counts are
+     * kept up to date by assignments, unassignments and deletions of assets, {@link #refreshTagStatistics()} corrects
+     * the drift left by other paths. This is the only way counts are written, the entity never updates them.
+     */
+    public void updateCount(int tagId, int delta) {
+        getJdbcTemplate().update(String.format(UPDATE_COUNT_SQL, getOhdsiSchema()), delta, tagId);
+    }
+
     @Transactional
     @Scheduled(fixedDelayString = "${tag.refreshStat.period}")
     public void refreshTagStatistics() {
         logger.info("Starting tags statistics refreshing");
         try {
+            List<TagInfo> tags = tagRepository.findTagCounts(lastCheckedTagId, new PageRequest(0, refreshSampleSize));
+            if (tags.size() < refreshSampleSize) {
+                // the end is reached, next refresh starts over
+                lastCheckedTagId = 0;
+            } else {
+                lastCheckedTagId = tags.get(tags.size() - 1).getId();
+            }
+            if (tags.isEmpty()) {
+                return;
+            }
             // Getting tag statistics in one query with multiple join clauses
             // will take significant amount of time
-            // So we'll get this information for each asset in series
-            Map<Integer, TagDTO> infoMap = new HashMap<>();
-            this.infoProducers.forEach(producer -> processTagInfo(producer, infoMap));
-
-            List<Tag> tags = tagRepository.findAll();
-            tags = tags.stream()
-                    .peek(tag -> {
-                        TagDTO info = infoMap.get(tag.getId());
-                        if (Objects.nonNull(info)) {
-                            tag.setCount(info.getCount());
-                        }
-                    })
-                    .collect(Collectors.toList());
-            tagRepository.save(tags);
+            // So we'll get this information for each asset in series, only for the sampled tags
+            List<Integer> tagIds = tags.stream().map(TagInfo::getId).collect(Collectors.toList());
+            Map<Integer, Integer> counts = new HashMap<>();
+            this.infoProducers.forEach(producer -> producer.apply(tagIds)
+                    .forEach(info -> counts.merge(info.getId(), info.getCount(), Integer::sum)));
+
+            // only drifted counts are written, and only if they haven't been changed since they were read
+            int corrected = 0;
+            for (TagInfo tag : tags) {
+                int count = counts.getOrDefault(tag.getId(), 0);
+                if (count != tag.getCount()) {
+                    corrected += getJdbcTemplate().update(String.format(CORRECT_COUNT_SQL, getOhdsiSchema()), count, tag.getId(), tag.getCount());
+                }
+            }
+            logger.info("Corrected statistics of {} of {} tags", corrected, tags.size());
         } catch (Exception e) {
-            logger.error("Cannot refresh tags statistics");
+            logger.error("Cannot refresh tags statistics", e);
         }
         logger.info("Finishing tags statistics refreshing");
     }
 
-    private void processTagInfo(Producer<List<TagInfo>> infoProducer,
-                                Map<Integer, TagDTO> infoMap) {
-        List<TagInfo> tagInfos = infoProducer.call();
-        tagInfos.forEach(info -> {
-            int id = info.getId();
-            TagDTO dto = infoMap.get(id);
-            if (Objects.isNull(dto)) {
-                infoMap.put(id, new TagDTO());
-                dto = infoMap.get(id);
-            }
-            int count = dto.getCount() + info.getCount();
-            dto.setCount(count);
-        });
-    }
-
     public List<Tag> findMandatoryTags() {
         return tagRepository.findMandatoryTags();
     }
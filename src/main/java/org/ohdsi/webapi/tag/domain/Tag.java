@@ -46,7 +46,8 @@ public class Tag extends CommonEntity<Integer> {
     @Convert(converter = TagTypeConverter.class)
     private TagType type;
 
-    @Column(name = "count")
+    // maintained by TagService.updateCount only, saving a possibly stale entity must not overwrite it
+    @Column(name = "count", updatable = false)
     private int count;
 
     @Column(name = "show_group")
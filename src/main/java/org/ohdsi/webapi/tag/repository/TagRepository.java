@@ -2,9 +2,11 @@ package org.ohdsi.webapi.tag.repository;
 
 import org.ohdsi.webapi.tag.domain.Tag;
 import org.ohdsi.webapi.tag.domain.TagInfo;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface TagRepository extends JpaRepository<Tag, Integer> {
@@ -16,38 +18,47 @@ public interface TagRepository extends JpaRepository<Tag, Integer> {
     @Query("SELECT ct.assetId.tagId as id, " +
             "COUNT(ct.assetId.tagId) AS count " +
             "FROM CohortTag ct " +
+            "WHERE ct.assetId.tagId IN ?1 " +
             "GROUP BY ct.assetId.tagId")
-    List<TagInfo> findCohortTagInfo();
+    List<TagInfo> findCohortTagInfo(Collection<Integer> tagIds);
 
     @Query("SELECT cct.assetId.tagId as id, " +
             "COUNT(cct.assetId.tagId) AS count " +
             "FROM CohortCharacterizationTag cct " +
+            "WHERE cct.assetId.tagId IN ?1 " +
             "GROUP BY cct.assetId.tagId")
-    List<TagInfo> findCcTagInfo();
+    List<TagInfo> findCcTagInfo(Collection<Integer> tagIds);
 
     @Query("SELECT cst.assetId.tagId as id, " +
             "COUNT(cst.assetId.tagId) AS count " +
             "FROM ConceptSetTag cst " +
+            "WHERE cst.assetId.tagId IN ?1 " +
             "GROUP BY cst.assetId.tagId")
-    List<TagInfo> findConceptSetTagInfo();
+    List<TagInfo> findConceptSetTagInfo(Collection<Integer> tagIds);
 
     @Query("SELECT it.assetId.tagId as id, " +
             "COUNT(it.assetId.tagId) AS count " +
             "FROM IrTag it " +
+            "WHERE it.assetId.tagId IN ?1 " +
             "GROUP BY it.assetId.tagId")
-    List<TagInfo> findIrTagInfo();
+    List<TagInfo> findIrTagInfo(Collection<Integer> tagIds);
 
     @Query("SELECT pt.assetId.tagId as id, " +
             "COUNT(pt.assetId.tagId) AS count " +
             "FROM PathwayTag pt " +
+            "WHERE pt.assetId.tagId IN ?1 " +
             "GROUP BY pt.assetId.tagId")
-    List<TagInfo> findPathwayTagInfo();
+    List<TagInfo> findPathwayTagInfo(Collection<Integer> tagIds);
 
     @Query("SELECT rt.assetId.tagId as id, " +
             "COUNT(rt.assetId.tagId) AS count " +
             "FROM ReusableTag rt " +
+            "WHERE rt.assetId.tagId IN ?1 " +
             "GROUP BY rt.assetId.tagId")
-    List<TagInfo> findReusableTagInfo();
+    List<TagInfo> findReusableTagInfo(Collection<Integer> tagIds);
+
+    @Query("SELECT t.id as id, t.count as count FROM Tag t WHERE t.id > ?1 ORDER BY t.id")
+    List<TagInfo> findTagCounts(int afterId, Pageable pageable);
 
     @Query("SELECT t FROM Tag t WHERE t.mandatory = 'TRUE'")
     List<Tag> findMandatoryTags();
@@ -16,6 +16,7 @@ public abstract class BaseUserImportJobDTOToUserImportJobConverter<T extends Use
 
     target.setProviderType(source.getProviderType());
     target.setPreserveRoles(source.getPreserveRoles());
+    target.setIncremental(source.getIncremental());
     target.setUserRoles(source.getUserRoles());
     if (source.getRoleGroupMapping() != null) {
       target.setRoleGroupMapping(RoleGroupMappingConverter.convertRoleGroupMapping(source.getRoleGroupMapping()));
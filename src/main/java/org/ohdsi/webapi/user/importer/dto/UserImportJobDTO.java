@@ -11,6 +11,8 @@ public class UserImportJobDTO extends ArachneJobDTO {
 
   private Boolean preserveRoles;
 
+  private Boolean incremental;
+
   private String userRoles;
 
   private Date lastExecuted;
@@ -45,6 +47,14 @@ public class UserImportJobDTO extends ArachneJobDTO {
     this.preserveRoles = preserveRoles;
   }
 
+  public Boolean getIncremental() {
+    return incremental;
+  }
+
+  public void setIncremental(Boolean incremental) {
+    this.incremental = incremental;
+  }
+
   public Date getLastExecuted() {
     return lastExecuted;
   }
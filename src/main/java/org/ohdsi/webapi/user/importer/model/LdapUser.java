@@ -8,6 +8,8 @@ public class LdapUser extends LdapObject {
 
   private String login;
 
+  private String changeMarker;
+
   public LdapUser() {
   }
 
@@ -30,4 +32,12 @@ public class LdapUser extends LdapObject {
   public void setLogin(String login) {
     this.login = login;
   }
+
+  public String getChangeMarker() {
+    return changeMarker;
+  }
+
+  public void setChangeMarker(String changeMarker) {
+    this.changeMarker = changeMarker;
+  }
 }
@@ -0,0 +1,15 @@
+package org.ohdsi.webapi.user.importer.model;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Users of the directory read page by page through a single connection. Paged results cookies are bound to the
+ * connection they were issued on, so all pages of a search are read through the same one. The connection is released
+ * after the last page or on {@link #close()}, whichever comes first.
+ */
+public interface LdapUserPages extends Iterator<List<LdapUser>>, AutoCloseable {
+
+  @Override
+  void close();
+}
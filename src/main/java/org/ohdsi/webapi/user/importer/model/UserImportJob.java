@@ -52,6 +52,12 @@ public class UserImportJob extends ArachneJob {
   @Column(name = "user_roles")
   private String userRoles;
 
+  @Column(name = "incremental")
+  private Boolean incremental;
+
+  @Column(name = "change_marker")
+  private String changeMarker;
+
   @Override
   public List<DayOfWeek> getWeekDays() {
 
@@ -94,4 +100,20 @@ public class UserImportJob extends ArachneJob {
   public void setUserRoles(String userRoles) {
     this.userRoles = userRoles;
   }
+
+  public Boolean getIncremental() {
+    return incremental;
+  }
+
+  public void setIncremental(Boolean incremental) {
+    this.incremental = incremental;
+  }
+
+  public String getChangeMarker() {
+    return changeMarker;
+  }
+
+  public void setChangeMarker(String changeMarker) {
+    this.changeMarker = changeMarker;
+  }
 }
@@ -0,0 +1,66 @@
+package org.ohdsi.webapi.user.importer.model;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Users of the directory read page by page, a page is only read when it is asked for. Unlike {@link UserSearchResult}
+ * users which already exist with the same roles are included, with the {@link LdapUserImportStatus#EXISTS} status.
+ * Pages are read through one directory connection, see {@link LdapUserPages}.
+ */
+public class UserSearchPages implements Iterator<List<AtlasUserRoles>>, AutoCloseable {
+
+  private final LdapUserPages pages;
+
+  private final Function<List<LdapUser>, List<AtlasUserRoles>> converter;
+
+  private final Comparator<String> markerComparator;
+
+  private String changeMarker;
+
+  public UserSearchPages(LdapUserPages pages, Function<List<LdapUser>, List<AtlasUserRoles>> converter,
+                         Comparator<String> markerComparator) {
+
+    this.pages = pages;
+    this.converter = converter;
+    this.markerComparator = markerComparator;
+  }
+
+  @Override
+  public boolean hasNext() {
+
+    return pages.hasNext();
+  }
+
+  @Override
+  public List<AtlasUserRoles> next() {
+
+    List<LdapUser> page = pages.next();
+    page.stream()
+            .map(LdapUser::getChangeMarker)
+            .filter(Objects::nonNull)
+            .forEach(marker -> {
+              if (Objects.isNull(changeMarker) || markerComparator.compare(marker, changeMarker) > 0) {
+                changeMarker = marker;
+              }
+            });
+    return converter.apply(page);
+  }
+
+  @Override
+  public void close() {
+
+    pages.close();
+  }
+
+  /**
+   * @return highest change marker of the users read so far
+   */
+  public String getChangeMarker() {
+
+    return changeMarker;
+  }
+}
@@ -0,0 +1,27 @@
+package org.ohdsi.webapi.user.importer.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class UserSearchResult {
+
+  private final List<AtlasUserRoles> users = new ArrayList<>();
+
+  private String changeMarker;
+
+  public List<AtlasUserRoles> getUsers() {
+    return users;
+  }
+
+  /**
+   * @return highest change marker of the users read from the directory, to be used as starting point of the next
+   * incremental import
+   */
+  public String getChangeMarker() {
+    return changeMarker;
+  }
+
+  public void setChangeMarker(String changeMarker) {
+    this.changeMarker = changeMarker;
+  }
+}
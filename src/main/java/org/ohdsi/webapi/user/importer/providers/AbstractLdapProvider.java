@@ -4,16 +4,25 @@ import org.apache.commons.lang3.StringUtils;
 import org.ohdsi.webapi.user.importer.model.LdapGroup;
 import org.ohdsi.webapi.user.importer.model.LdapObject;
 import org.ohdsi.webapi.user.importer.model.LdapUser;
+import org.ohdsi.webapi.user.importer.model.LdapUserPages;
+import org.springframework.ldap.control.PagedResultsDirContextProcessor;
 import org.springframework.ldap.core.AttributesMapper;
 import org.springframework.ldap.core.CollectingNameClassPairCallbackHandler;
 import org.springframework.ldap.core.LdapTemplate;
+import org.springframework.ldap.core.support.SingleContextSource;
 import org.springframework.ldap.filter.AndFilter;
 import org.springframework.ldap.filter.EqualsFilter;
+import org.springframework.ldap.filter.GreaterThanOrEqualsFilter;
 import org.springframework.ldap.support.LdapEncoder;
 import org.springframework.ldap.support.LdapUtils;
 
+import javax.naming.directory.SearchControls;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -26,6 +35,8 @@ public abstract class AbstractLdapProvider implements LdapProvider {
   public static final String OBJECTCLASS_ATTR = "objectclass";
   public static final String CN_ATTR = "cn";
 
+  protected static final int PAGE_SIZE = 500;
+
   @Override
   public List<LdapGroup> findGroups(String searchStr) {
     LdapTemplate ldapTemplate = getLdapTemplate();
@@ -56,11 +67,133 @@ public abstract class AbstractLdapProvider implements LdapProvider {
   @Override
   public List<LdapUser> findUsers() {
 
+    List<LdapUser> users = new ArrayList<>();
+    findUsers(null, users::addAll);
+    return users;
+  }
+
+  @Override
+  public void findUsers(String changedSince, Consumer<List<LdapUser>> pageConsumer) {
+
+    try (LdapUserPages pages = findUserPages(changedSince)) {
+      pages.forEachRemaining(pageConsumer);
+    }
+  }
+
+  @Override
+  public LdapUserPages findUserPages(String changedSince) {
+
     CollectingNameClassPairCallbackHandler<LdapUser> handler = getUserSearchCallbackHandler(getUserAttributesMapper());
-    return search(getUserFilter(), handler);
+    return searchPages(getUserFilter(changedSince), handler);
+  }
+
+  abstract LdapUserPages searchPages(String filter, CollectingNameClassPairCallbackHandler<LdapUser> handler);
+
+  /**
+   * Runs the search with the paged results control, a page is only requested from the server when the previous one
+   * has been taken from the iterator. Servers not supporting the control return everything as a single page. All pages
+   * are requested through one connection, which is opened with the first page.
+   *
+   * @param countLimit max number of users to read, 0 for no limit
+   */
+  protected LdapUserPages searchPaged(String filter, SearchControls searchControls, long countLimit,
+                                                 CollectingNameClassPairCallbackHandler<LdapUser> handler) {
+
+    return new PagedSearch(filter, searchControls, countLimit, handler);
+  }
+
+  private class PagedSearch implements LdapUserPages {
+
+    private final String filter;
+    private final SearchControls searchControls;
+    private final long countLimit;
+    private final CollectingNameClassPairCallbackHandler<LdapUser> handler;
+    private PagedResultsDirContextProcessor pager = new PagedResultsDirContextProcessor(PAGE_SIZE);
+    private SingleContextSource contextSource;
+    private LdapTemplate ldapTemplate;
+    private List<LdapUser> page;
+    private boolean completed;
+    private long found;
+
+    PagedSearch(String filter, SearchControls searchControls, long countLimit,
+                CollectingNameClassPairCallbackHandler<LdapUser> handler) {
+
+      this.filter = filter;
+      this.searchControls = searchControls;
+      this.countLimit = countLimit;
+      this.handler = handler;
+    }
+
+    @Override
+    public boolean hasNext() {
+
+      while (Objects.isNull(page) && !completed) {
+        try {
+          getTemplate().search(LdapUtils.emptyLdapName(), filter, searchControls, handler, pager);
+        } catch (RuntimeException e) {
+          close();
+          throw e;
+        }
+        List<LdapUser> users = handler.getList();
+        found += users.size();
+        if (!users.isEmpty()) {
+          page = new ArrayList<>(users);
+          users.clear();
+        }
+        pager = new PagedResultsDirContextProcessor(PAGE_SIZE, pager.getCookie());
+        completed = pager.getCookie() == null || pager.getCookie().getCookie() == null
+                || (countLimit != 0 && found >= countLimit);
+        if (completed) {
+          close();
+        }
+      }
+      return Objects.nonNull(page);
+    }
+
+    private LdapTemplate getTemplate() {
+
+      if (Objects.isNull(ldapTemplate)) {
+        // the template keeps the settings of the provider, only its context source is replaced by a single connection
+        ldapTemplate = getLdapTemplate();
+        contextSource = new SingleContextSource(ldapTemplate.getContextSource().getReadOnlyContext());
+        ldapTemplate.setContextSource(contextSource);
+      }
+      return ldapTemplate;
+    }
+
+    @Override
+    public List<LdapUser> next() {
+
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      List<LdapUser> result = page;
+      page = null;
+      return result;
+    }
+
+    @Override
+    public void close() {
+
+      completed = true;
+      if (Objects.nonNull(contextSource)) {
+        contextSource.destroy();
+        contextSource = null;
+      }
+    }
   }
 
-  abstract List<LdapUser> search(String filter, CollectingNameClassPairCallbackHandler<LdapUser> handler);
+  private String getUserFilter(String changedSince) {
+
+    String filter = getUserFilter();
+    if (StringUtils.isBlank(changedSince)) {
+      return filter;
+    }
+    if (!filter.startsWith("(")) {
+      filter = "(" + filter + ")";
+    }
+    return "(&" + filter + new GreaterThanOrEqualsFilter(getChangeMarkerAttributeName(), changedSince).encode() + ")";
+  }
 
   private String getUserFilter () {
 
@@ -77,6 +210,7 @@ public abstract class AbstractLdapProvider implements LdapProvider {
     return attributes -> {
       LdapUser user = getAttributesMapper(LdapUser::new).mapFromAttributes(attributes);
       user.setLogin(valueAsString(attributes.get(getLoginAttributeName())));
+      user.setChangeMarker(StringUtils.defaultIfEmpty(valueAsString(attributes.get(getChangeMarkerAttributeName())), null));
       List<LdapGroup> groups = getLdapGroups(attributes);
       user.setGroups(groups);
       return user;
@@ -4,13 +4,12 @@ import com.google.common.collect.ImmutableSet;
 import org.apache.commons.lang.StringUtils;
 import org.ohdsi.webapi.user.importer.model.LdapGroup;
 import org.ohdsi.webapi.user.importer.model.LdapUser;
+import org.ohdsi.webapi.user.importer.model.LdapUserPages;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.ldap.control.PagedResultsDirContextProcessor;
 import org.springframework.ldap.core.*;
 import org.springframework.ldap.core.support.LdapContextSource;
 import org.springframework.ldap.core.support.SimpleDirContextAuthenticationStrategy;
-import org.springframework.ldap.support.LdapUtils;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
@@ -18,6 +17,7 @@ import javax.naming.NamingException;
 import javax.naming.directory.Attributes;
 import javax.naming.directory.SearchControls;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -68,7 +68,8 @@ public class ActiveDirectoryProvider extends AbstractLdapProvider {
 
   private static final Set<String> USER_CLASSES = ImmutableSet.of("user");
 
-  private static final int PAGE_SIZE = 500;
+  // Update sequence numbers are assigned per domain controller, so incremental import expects the same controller behind security.ad.url
+  private static final String USN_CHANGED_ATTR = "uSNChanged";
 
   @Override
   public LdapTemplate getLdapTemplate() {
@@ -118,17 +119,19 @@ public class ActiveDirectoryProvider extends AbstractLdapProvider {
   }
 
   @Override
-  public List<LdapUser> search(String filter, CollectingNameClassPairCallbackHandler<LdapUser> handler) {
+  LdapUserPages searchPages(String filter, CollectingNameClassPairCallbackHandler<LdapUser> handler) {
 
-    PagedResultsDirContextProcessor pager = new PagedResultsDirContextProcessor(PAGE_SIZE);
-    do {
-        getLdapTemplate().search(LdapUtils.emptyLdapName(), filter, getUserSearchControls(), handler, pager);
-        pager = new PagedResultsDirContextProcessor(PAGE_SIZE, pager.getCookie());
+    return searchPaged(filter, getUserSearchControls(), countLimit, handler);
+  }
 
-    } while (pager.getCookie() != null && pager.getCookie().getCookie() != null
-            && (countLimit == 0 || handler.getList().size() < countLimit));
+  @Override
+  public String getChangeMarkerAttributeName() {
+    return USN_CHANGED_ATTR;
+  }
 
-    return  handler.getList();
+  @Override
+  public Comparator<String> getChangeMarkerComparator() {
+    return Comparator.comparing(Long::valueOf);
   }
 
   @Override
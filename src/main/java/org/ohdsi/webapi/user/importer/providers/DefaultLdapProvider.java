@@ -4,6 +4,7 @@ import com.google.common.collect.ImmutableSet;
 import org.apache.commons.lang3.StringUtils;
 import org.ohdsi.webapi.user.importer.model.LdapGroup;
 import org.ohdsi.webapi.user.importer.model.LdapUser;
+import org.ohdsi.webapi.user.importer.model.LdapUserPages;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.ldap.core.AttributesMapper;
@@ -25,6 +26,7 @@ import javax.naming.directory.SearchControls;
 import javax.naming.directory.SearchResult;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -38,7 +40,9 @@ public class DefaultLdapProvider extends AbstractLdapProvider {
 
   private static final String DN = "DN";
   private static final String[] RETURNING_ATTRS = {DN, "cn", "ou"};
-  private static final String[] USER_ATTRIBUTES = {DN, "uid", "cn"};
+  private static final String MODIFY_TIMESTAMP_ATTR = "modifyTimestamp";
+  // modifyTimestamp is operational and is only returned when requested explicitly
+  private static final String[] USER_ATTRIBUTES = {DN, "uid", "cn", MODIFY_TIMESTAMP_ATTR};
   @Value("${security.ldap.url}")
   private String ldapUrl;
 
@@ -142,10 +146,32 @@ public class DefaultLdapProvider extends AbstractLdapProvider {
   }
 
   @Override
-  public List<LdapUser> search(String filter, CollectingNameClassPairCallbackHandler<LdapUser> handler) {
+  LdapUserPages searchPages(String filter, CollectingNameClassPairCallbackHandler<LdapUser> handler) {
 
-    getLdapTemplate().search(LdapUtils.emptyLdapName(), filter, getUserSearchControls(), handler);
-    return handler.getList();
+    return searchPaged(filter, getUserSearchControls(), 0, handler);
+  }
+
+  @Override
+  public String getChangeMarkerAttributeName() {
+    return MODIFY_TIMESTAMP_ATTR;
+  }
+
+  @Override
+  public Comparator<String> getChangeMarkerComparator() {
+    return Comparator.comparing(DefaultLdapProvider::normalizeGeneralizedTime);
+  }
+
+  /**
+   * Operational timestamps are returned in UTC, but may or may not carry fractions of a second
+   * (e.g. 20240101120000Z and 20240101120000.123Z), so they are padded to comparable strings.
+   */
+  static String normalizeGeneralizedTime(String value) {
+
+    String time = StringUtils.removeEnd(value, "Z");
+    int fractionStart = StringUtils.indexOfAny(time, '.', ',');
+    String seconds = fractionStart < 0 ? time : time.substring(0, fractionStart);
+    String fraction = fractionStart < 0 ? "" : time.substring(fractionStart + 1);
+    return StringUtils.rightPad(seconds, 14, '0') + StringUtils.rightPad(fraction, 9, '0');
   }
 
   @Override
@@ -2,13 +2,16 @@ package org.ohdsi.webapi.user.importer.providers;
 
 import org.ohdsi.webapi.user.importer.model.LdapGroup;
 import org.ohdsi.webapi.user.importer.model.LdapUser;
+import org.ohdsi.webapi.user.importer.model.LdapUserPages;
 import org.springframework.ldap.core.*;
 
 import javax.naming.NamingException;
 import javax.naming.directory.Attributes;
 import javax.naming.directory.SearchControls;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public interface LdapProvider {
 
@@ -26,6 +29,28 @@ public interface LdapProvider {
 
   List<LdapUser> findUsers();
 
+  /**
+   * Streams users page by page instead of collecting the whole directory.
+   *
+   * @param changedSince change marker (see {@link #getChangeMarkerAttributeName()}) of the previous synchronization,
+   *                     only users changed since then are returned. Null for a full search
+   */
+  void findUsers(String changedSince, Consumer<List<LdapUser>> pageConsumer);
+
+  /**
+   * Same as {@link #findUsers(String, Consumer)}, but the next page is only read from the directory when the caller
+   * asks for it, so that pages can be processed in separate transactions. The caller closes the pages when it stops
+   * reading them before the last one.
+   */
+  LdapUserPages findUserPages(String changedSince);
+
+  /**
+   * @return attribute which grows with every change of the entry and is used as high-water mark for incremental import
+   */
+  String getChangeMarkerAttributeName();
+
+  Comparator<String> getChangeMarkerComparator();
+
   List<LdapGroup> findGroups(String searchStr);
 
   String getLoginAttributeName();
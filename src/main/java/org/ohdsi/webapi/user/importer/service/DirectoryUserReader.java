@@ -0,0 +1,94 @@
+package org.ohdsi.webapi.user.importer.service;
+
+import org.ohdsi.webapi.Constants;
+import org.ohdsi.webapi.user.importer.converter.RoleGroupMappingConverter;
+import org.ohdsi.webapi.user.importer.model.AtlasUserRoles;
+import org.ohdsi.webapi.user.importer.model.RoleGroupMapping;
+import org.ohdsi.webapi.user.importer.model.UserImportJob;
+import org.ohdsi.webapi.user.importer.model.UserSearchPages;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * Reads the users of the directory of an import job. The next page is only requested from the directory once the
+ * users of the previous one are handed out, so the directory is never held in memory. All pages are read through one
+ * directory connection, which is released when the step closes its streams.
+ */
+public class DirectoryUserReader implements ItemReader<AtlasUserRoles>, ItemStream, StepExecutionListener {
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final UserImportService userImportService;
+
+  private Long userImportId;
+
+  private UserSearchPages pages;
+
+  private Iterator<AtlasUserRoles> page = Collections.emptyIterator();
+
+  public DirectoryUserReader(TransactionTemplate transactionTemplate, UserImportService userImportService) {
+
+    this.transactionTemplate = transactionTemplate;
+    this.userImportService = userImportService;
+  }
+
+  @Override
+  public void beforeStep(StepExecution stepExecution) {
+
+    userImportId = Long.valueOf(stepExecution.getJobParameters().getString(Constants.Params.USER_IMPORT_ID));
+    pages = transactionTemplate.execute(status -> {
+      UserImportJob userImportJob = userImportService.getImportUserJob(userImportId);
+      RoleGroupMapping roleGroupMapping = RoleGroupMappingConverter.convertRoleGroupMapping(
+              userImportJob.getProviderType().toString(), userImportJob.getRoleGroupMapping());
+      String changedSince = Boolean.TRUE.equals(userImportJob.getIncremental()) ? userImportJob.getChangeMarker() : null;
+      return userImportService.findUserPages(userImportJob.getProviderType(), roleGroupMapping, changedSince);
+    });
+  }
+
+  @Override
+  public AtlasUserRoles read() {
+
+    while (!page.hasNext() && pages.hasNext()) {
+      page = pages.next().iterator();
+    }
+    return page.hasNext() ? page.next() : null;
+  }
+
+  @Override
+  public void open(ExecutionContext executionContext) {
+  }
+
+  @Override
+  public void update(ExecutionContext executionContext) {
+  }
+
+  @Override
+  public void close() {
+
+    if (Objects.nonNull(pages)) {
+      pages.close();
+    }
+  }
+
+  @Override
+  public ExitStatus afterStep(StepExecution stepExecution) {
+
+    // the marker only moves on when all users changed since the previous one are imported,
+    // it is kept when nothing has changed since
+    if (Objects.nonNull(pages) && Objects.nonNull(pages.getChangeMarker())
+            && BatchStatus.COMPLETED.equals(stepExecution.getStatus())) {
+      userImportService.saveChangeMarker(userImportId, pages.getChangeMarker());
+    }
+    return null;
+  }
+}
@@ -7,6 +7,7 @@ import com.odysseusinc.scheduler.model.ScheduledTask;
 import com.odysseusinc.scheduler.service.BaseJobServiceImpl;
 import org.ohdsi.webapi.Constants;
 import org.ohdsi.webapi.job.JobTemplate;
+import org.ohdsi.webapi.user.importer.model.AtlasUserRoles;
 import org.ohdsi.webapi.user.importer.model.LdapProviderType;
 import org.ohdsi.webapi.user.importer.model.RoleGroupEntity;
 import org.ohdsi.webapi.user.importer.model.UserImportJob;
@@ -39,6 +40,9 @@ import static org.ohdsi.webapi.Constants.SYSTEM_USER;
 @Transactional
 public class UserImportJobServiceImpl extends BaseJobServiceImpl<UserImportJob> implements UserImportJobService {
 
+  // users imported and committed together
+  private static final int IMPORT_CHUNK_SIZE = 500;
+
   private final UserImportService userImportService;
   private final UserImportJobRepository jobRepository;
   private final RoleGroupRepository roleGroupRepository;
@@ -111,6 +115,11 @@ public class UserImportJobServiceImpl extends BaseJobServiceImpl<UserImportJob>
       existMapping.addAll(roleGroupRepository.save(created));
     }
     exists.setPreserveRoles(updated.getPreserveRoles());
+    exists.setIncremental(updated.getIncremental());
+    if (!deleted.isEmpty() || !created.isEmpty()) {
+      // users unchanged in the directory may be mapped to other roles now, next import has to read all of them
+      exists.setChangeMarker(null);
+    }
   }
 
   @Override
@@ -151,24 +160,23 @@ public class UserImportJobServiceImpl extends BaseJobServiceImpl<UserImportJob>
             .build();
   }
 
-  Job buildJobForUserImportTasklet(UserImportJob job) {
+  Step directoryUserImportStep() {
 
-    FindUsersToImportTasklet findUsersTasklet = new FindUsersToImportTasklet(transactionTemplate, userImportService);
-    Step findUsersStep = stepBuilderFactory.get("findUsersForImport")
-            .tasklet(findUsersTasklet)
+    // reader and writer are registered as step listeners by the builder, the reader also as a stream
+    return stepBuilderFactory.get("importUsers")
+            .<AtlasUserRoles, AtlasUserRoles>chunk(IMPORT_CHUNK_SIZE)
+            .reader(new DirectoryUserReader(transactionTemplate, userImportService))
+            .writer(new UserImportWriter(transactionTemplate, userImportService))
             .build();
+  }
 
-    if (job.getUserRoles() != null) {
-        // when user roles are already defined then we do not need to look for them
-        return jobBuilders.get(Constants.USERS_IMPORT)
-                .start(userImportStep())
-                .build();
-    } else {
-        return jobBuilders.get(Constants.USERS_IMPORT)
-                .start(findUsersStep)
-                .next(userImportStep())
-                .build();
-    }
+  Job buildJobForUserImportTasklet(UserImportJob job) {
+
+    // when user roles are already defined then we do not need to look for them
+    Step step = job.getUserRoles() != null ? userImportStep() : directoryUserImportStep();
+    return jobBuilders.get(Constants.USERS_IMPORT)
+            .start(step)
+            .build();
   }
 
   private class UserImportScheduledTask extends ScheduledTask<UserImportJob> {
@@ -3,6 +3,7 @@ package org.ohdsi.webapi.user.importer.service;
 import org.ohdsi.webapi.user.importer.model.*;
 
 import java.util.List;
+import java.util.Set;
 
 public interface UserImportService {
 
@@ -10,8 +11,30 @@ public interface UserImportService {
 
   List<AtlasUserRoles> findUsers(LdapProviderType providerType, RoleGroupMapping mapping);
 
+  /**
+   * @param changedSince change marker of the previous import, only users changed since then are looked for.
+   *                     Null to search the whole directory
+   */
+  UserSearchResult findUsers(LdapProviderType providerType, RoleGroupMapping mapping, String changedSince);
+
+  /**
+   * Same as {@link #findUsers(LdapProviderType, RoleGroupMapping, String)}, but users are read from the directory page
+   * by page while they are iterated, instead of being collected
+   */
+  UserSearchPages findUserPages(LdapProviderType providerType, RoleGroupMapping mapping, String changedSince);
+
   UserImportResult importUsers(List<AtlasUserRoles> users, LdapProviderType providerType, boolean preserveRoles);
 
+  /**
+   * @param incremental when set, users are only added or updated: users of the provider missing in the list keep their roles
+   */
+  UserImportResult importUsers(List<AtlasUserRoles> users, LdapProviderType providerType, boolean preserveRoles, boolean incremental);
+
+  /**
+   * Removes roles of users of the provider which aren't among the imported ones
+   */
+  void removeMissingUsers(Set<String> importedLogins, LdapProviderType providerType);
+
   void saveRoleGroupMapping(LdapProviderType providerType, List<RoleGroupEntity> mappingEntities);
 
   List<RoleGroupEntity> getRoleGroupMapping(LdapProviderType providerType);
@@ -19,4 +42,6 @@ public interface UserImportService {
   void testConnection(LdapProviderType provider);
 
   UserImportJob getImportUserJob(Long userImportId);
+
+  void saveChangeMarker(Long userImportId, String changeMarker);
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package org.ohdsi.webapi.user.importer.service;
 
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
 import org.ohdsi.webapi.shiro.Entities.RoleEntity;
 import org.ohdsi.webapi.shiro.Entities.UserEntity;
 import org.ohdsi.webapi.shiro.Entities.UserOrigin;
@@ -9,13 +10,15 @@ import org.ohdsi.webapi.shiro.PermissionManager;
 import org.ohdsi.webapi.user.Role;
 import org.ohdsi.webapi.user.importer.model.AtlasUserRoles;
 import org.ohdsi.webapi.user.importer.model.LdapGroup;
+import org.ohdsi.webapi.user.importer.model.LdapUser;
 import org.ohdsi.webapi.user.importer.model.LdapProviderType;
 import org.ohdsi.webapi.user.importer.model.LdapUserImportStatus;
 import org.ohdsi.webapi.user.importer.model.RoleGroupEntity;
 import org.ohdsi.webapi.user.importer.model.RoleGroupMapping;
-import org.ohdsi.webapi.user.importer.model.RoleGroupsMap;
 import org.ohdsi.webapi.user.importer.model.UserImportJob;
 import org.ohdsi.webapi.user.importer.model.UserImportResult;
+import org.ohdsi.webapi.user.importer.model.UserSearchPages;
+import org.ohdsi.webapi.user.importer.model.UserSearchResult;
 import org.ohdsi.webapi.user.importer.providers.ActiveDirectoryProvider;
 import org.ohdsi.webapi.user.importer.providers.DefaultLdapProvider;
 import org.ohdsi.webapi.user.importer.providers.LdapProvider;
@@ -34,12 +37,16 @@ import org.springframework.ldap.support.LdapUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static org.ohdsi.webapi.user.importer.providers.AbstractLdapProvider.OBJECTCLASS_ATTR;
@@ -51,6 +58,8 @@ public class UserImportServiceImpl implements UserImportService {
 
   private static final Logger logger = LoggerFactory.getLogger(UserImportService.class);
 
+  private static final int IMPORT_BATCH_SIZE = 500;
+
   private final Map<LdapProviderType, LdapProvider> providersMap = new HashMap<>();
 
   private final UserRepository userRepository;
@@ -94,84 +103,159 @@ public class UserImportServiceImpl implements UserImportService {
   @Override
   public List<AtlasUserRoles> findUsers(LdapProviderType providerType, RoleGroupMapping mapping) {
 
+    return findUsers(providerType, mapping, null).getUsers();
+  }
+
+  @Override
+  public UserSearchResult findUsers(LdapProviderType providerType, RoleGroupMapping mapping, String changedSince) {
+
+    UserSearchResult result = new UserSearchResult();
+    try (UserSearchPages pages = findUserPages(providerType, mapping, changedSince)) {
+      pages.forEachRemaining(page -> page.stream()
+              .filter(user -> !LdapUserImportStatus.EXISTS.equals(user.getStatus()))
+              .forEach(result.getUsers()::add));
+      result.setChangeMarker(pages.getChangeMarker());
+    }
+    return result;
+  }
+
+  @Override
+  public UserSearchPages findUserPages(LdapProviderType providerType, RoleGroupMapping mapping, String changedSince) {
+
     LdapProvider provider = getProvider(providerType).orElseThrow(IllegalArgumentException::new);
+    Map<String, Set<Role>> rolesByGroup = getRolesByGroup(mapping);
+    return new UserSearchPages(provider.findUserPages(changedSince), page -> toAtlasUsers(page, rolesByGroup),
+            provider.getChangeMarkerComparator());
+  }
 
-    return provider.findUsers().stream()
-            .map(user -> {
-              AtlasUserRoles atlasUser = new AtlasUserRoles();
-              atlasUser.setDisplayName(user.getDisplayName());
-              atlasUser.setLogin(UserUtils.toLowerCase(user.getLogin()));
-              List<Role> roles = user.getGroups().stream()
-                      .flatMap(g -> mapping.getRoleGroups()
-                              .stream()
-                              .filter(m -> m.getGroups().stream().anyMatch(group -> Objects.equals(g.getDistinguishedName(), group.getDistinguishedName())))
-                              .map(RoleGroupsMap::getRole))
-                      .distinct()
-                      .collect(Collectors.toList());
-              atlasUser.setRoles(roles);
-              atlasUser.setStatus(getStatus(atlasUser));
-              return atlasUser;
-            })
-            .filter(user -> !LdapUserImportStatus.EXISTS.equals(user.getStatus()))
-            .collect(Collectors.toList());
+  private List<AtlasUserRoles> toAtlasUsers(List<LdapUser> page, Map<String, Set<Role>> rolesByGroup) {
+
+    Map<String, UserEntity> existingUsers = findExistingUsers(page.stream()
+            .map(user -> UserUtils.toLowerCase(user.getLogin()))
+            .collect(Collectors.toSet()));
+    return page.stream().map(user -> {
+      AtlasUserRoles atlasUser = new AtlasUserRoles();
+      atlasUser.setDisplayName(user.getDisplayName());
+      atlasUser.setLogin(UserUtils.toLowerCase(user.getLogin()));
+      List<Role> roles = user.getGroups().stream()
+              .map(g -> rolesByGroup.get(g.getDistinguishedName()))
+              .filter(Objects::nonNull)
+              .flatMap(Set::stream)
+              .distinct()
+              .collect(Collectors.toList());
+      atlasUser.setRoles(roles);
+      atlasUser.setStatus(getStatus(existingUsers.get(atlasUser.getLogin()), roles));
+      return atlasUser;
+    }).collect(Collectors.toList());
   }
 
   @Override
   @Transactional
   public UserImportResult importUsers(List<AtlasUserRoles> users, LdapProviderType providerType, boolean preserveRoles) {
 
+    return importUsers(users, providerType, preserveRoles, false);
+  }
+
+  @Override
+  @Transactional
+  public UserImportResult importUsers(List<AtlasUserRoles> users, LdapProviderType providerType, boolean preserveRoles, boolean incremental) {
+
     UserImportResult result = new UserImportResult();
     UserOrigin userOrigin = UserOrigin.getFrom(providerType);
-    users.forEach(user -> {
-      String login = UserUtils.toLowerCase(user.getLogin());
-      Set<String> roles = user.getRoles().stream().map(role -> role.role).collect(Collectors.toSet());
-      roles.addAll(defaultRoles);
-      try {
-        UserEntity userEntity = userRepository.findByLogin(login);
-        if (Objects.nonNull(userEntity)) {
-          userEntity.setName(user.getDisplayName());
-          userEntity.setOrigin(userOrigin);
-          if (LdapUserImportStatus.MODIFIED.equals(getStatus(userEntity, user.getRoles()))) {
-            Set<RoleEntity> userRoles = userManager.getUserRoles(userEntity.getId());
-            if (!preserveRoles) {
-              //Overrides assigned roles
-              userRoles.stream().filter(role -> !role.getName().equalsIgnoreCase(login)).forEach(r -> {
-                try {
-                  userManager.removeUserFromRole(r.getName(), userEntity.getLogin(), null);
-                } catch (Exception e) {
-                  logger.warn("Failed to remove user {} from role {}", userEntity.getLogin(), r.getName(), e);
-                }
-              });
-            } else {
-              //Filter roles that is already assigned
-              roles = roles.stream()
-                      .filter(role -> userRoles.stream().noneMatch(ur -> Objects.equals(ur.getName(), role)))
-                      .collect(Collectors.toSet());
-            }
-            roles.forEach(r -> {
+    Set<String> importedLogins = new HashSet<>();
+    for (List<AtlasUserRoles> batch : ListUtils.partition(users, IMPORT_BATCH_SIZE)) {
+      Map<String, UserEntity> existingUsers = findExistingUsers(batch.stream()
+              .map(user -> UserUtils.toLowerCase(user.getLogin()))
+              .collect(Collectors.toSet()));
+      batch.forEach(user -> {
+        String login = UserUtils.toLowerCase(user.getLogin());
+        importedLogins.add(login);
+        importUser(user, login, existingUsers.get(login), userOrigin, preserveRoles, result);
+      });
+    }
+    if (!incremental) {
+      // incremental import only sees changed users, so absence in the directory can't be told from being unchanged
+      removeMissingUsers(importedLogins, providerType);
+    }
+    return result;
+  }
+
+  @Override
+  @Transactional
+  public void removeMissingUsers(Set<String> importedLogins, LdapProviderType providerType) {
+
+    UserOrigin userOrigin = UserOrigin.getFrom(providerType);
+    userRepository.findByOrigin(userOrigin).stream()
+            .filter(existingUser -> !importedLogins.contains(existingUser.getLogin()))
+            .forEach(deletedUser -> deletedUser.getUserRoles().stream()
+                    .filter(role -> !role.getRole().getName().equalsIgnoreCase(deletedUser.getLogin()))
+                    .forEach(role -> userManager.removeUserFromRole(role.getRole().getName(), deletedUser.getLogin(), userOrigin)));
+  }
+
+  private void importUser(AtlasUserRoles user, String login, UserEntity userEntity, UserOrigin userOrigin,
+                          boolean preserveRoles, UserImportResult result) {
+
+    Set<String> roles = user.getRoles().stream().map(role -> role.role).collect(Collectors.toSet());
+    roles.addAll(defaultRoles);
+    try {
+      if (Objects.nonNull(userEntity)) {
+        userEntity.setName(user.getDisplayName());
+        userEntity.setOrigin(userOrigin);
+        if (LdapUserImportStatus.MODIFIED.equals(getStatus(userEntity, user.getRoles()))) {
+          Set<RoleEntity> userRoles = userManager.getUserRoles(userEntity.getId());
+          if (!preserveRoles) {
+            //Overrides assigned roles
+            userRoles.stream().filter(role -> !role.getName().equalsIgnoreCase(login)).forEach(r -> {
               try {
-                userManager.addUserToRole(r, userEntity.getLogin(), userOrigin);
+                userManager.removeUserFromRole(r.getName(), userEntity.getLogin(), null);
               } catch (Exception e) {
-                logger.error("Failed to add user {} to role {}", userEntity.getLogin(), r, e);
+                logger.warn("Failed to remove user {} from role {}", userEntity.getLogin(), r.getName(), e);
               }
             });
-            result.incUpdated();
+          } else {
+            //Filter roles that is already assigned
+            Set<String> assignedRoles = userRoles.stream().map(RoleEntity::getName).collect(Collectors.toSet());
+            roles.removeAll(assignedRoles);
           }
-        } else {
-          userManager.registerUser(login, user.getDisplayName(), userOrigin, roles);
-          result.incCreated();
+          roles.forEach(r -> {
+            try {
+              userManager.addUserToRole(r, userEntity.getLogin(), userOrigin);
+            } catch (Exception e) {
+              logger.error("Failed to add user {} to role {}", userEntity.getLogin(), r, e);
+            }
+          });
+          result.incUpdated();
         }
-      } catch (Exception e) {
-        logger.error("Failed to register user {}", login, e);
+      } else {
+        userManager.registerUser(login, user.getDisplayName(), userOrigin, roles);
+        result.incCreated();
       }
-    });
-    userRepository.findByOrigin(userOrigin).stream()
-            .filter(existingUser -> users.stream()
-                    .noneMatch(user -> UserUtils.toLowerCase(user.getLogin()).equals(existingUser.getLogin())))
-            .forEach(deletedUser -> deletedUser.getUserRoles().stream()
-                    .filter(role -> !role.getRole().getName().equalsIgnoreCase(deletedUser.getLogin()))
-                    .forEach(role -> userManager.removeUserFromRole(role.getRole().getName(), deletedUser.getLogin(), userOrigin)));
-    return result;
+    } catch (Exception e) {
+      logger.error("Failed to register user {}", login, e);
+    }
+  }
+
+  private Map<String, UserEntity> findExistingUsers(Set<String> logins) {
+
+    if (logins.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    return userRepository.findByLoginInWithRoles(logins).stream()
+            .collect(Collectors.toMap(UserEntity::getLogin, Function.identity(), (u1, u2) -> u1));
+  }
+
+  /**
+   * Inverts the mapping into group DN to roles, so that the roles of a user are resolved by lookups of the user groups
+   * instead of matching each group against every mapping entry. Roles keep the order of the mapping.
+   */
+  private Map<String, Set<Role>> getRolesByGroup(RoleGroupMapping mapping) {
+
+    Map<String, Set<Role>> rolesByGroup = new HashMap<>();
+    if (Objects.nonNull(mapping) && Objects.nonNull(mapping.getRoleGroups())) {
+      mapping.getRoleGroups().forEach(roleGroups -> roleGroups.getGroups().forEach(group ->
+              rolesByGroup.computeIfAbsent(group.getDistinguishedName(), dn -> new LinkedHashSet<>()).add(roleGroups.getRole())));
+    }
+    return rolesByGroup;
   }
 
   @Override
@@ -211,10 +295,15 @@ public class UserImportServiceImpl implements UserImportService {
       return userImportJobRepository.getOne(userImportId);
     }
 
-    private LdapUserImportStatus getStatus(AtlasUserRoles atlasUser) {
+  @Override
+  @Transactional
+  public void saveChangeMarker(Long userImportId, String changeMarker) {
 
-    UserEntity userEntity = userRepository.findByLogin(atlasUser.getLogin());
-    return getStatus(userEntity, atlasUser.getRoles());
+    UserImportJob job = userImportJobRepository.findOne(userImportId);
+    if (Objects.nonNull(job)) {
+      job.setChangeMarker(changeMarker);
+      userImportJobRepository.save(job);
+    }
   }
 
   private LdapUserImportStatus getStatus(UserEntity userEntity,  List<Role> atlasUserRoles) {
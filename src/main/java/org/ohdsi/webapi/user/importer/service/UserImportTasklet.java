@@ -1,24 +1,23 @@
 package org.ohdsi.webapi.user.importer.service;
 
 import org.ohdsi.analysis.Utils;
-import org.ohdsi.webapi.Constants;
 import org.ohdsi.webapi.user.importer.model.AtlasUserRoles;
 import org.ohdsi.webapi.user.importer.model.UserImportJob;
 import org.ohdsi.webapi.user.importer.model.UserImportResult;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.ExitStatus;
 import org.springframework.batch.core.StepContribution;
-import org.springframework.batch.core.StepExecution;
-import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.scope.context.ChunkContext;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 import java.util.Objects;
 
-public class UserImportTasklet extends BaseUserImportTasklet<UserImportResult> implements StepExecutionListener {
-
-  private List<AtlasUserRoles> users;
+/**
+ * Imports users which are set explicitly on the job, users of the directory are imported by
+ * {@link DirectoryUserReader} and {@link UserImportWriter}.
+ */
+public class UserImportTasklet extends BaseUserImportTasklet<UserImportResult> {
 
   private UserImportResult result;
 
@@ -30,13 +29,12 @@ public class UserImportTasklet extends BaseUserImportTasklet<UserImportResult> i
   @Override
   protected UserImportResult doUserImportTask(ChunkContext chunkContext, UserImportJob userImportJob) {
 
-    if (Objects.isNull(users)) {
-      if (Objects.isNull(userImportJob.getUserRoles())) {
-        throw new IllegalArgumentException("userRoles is required for user import task");
-      }
-      users = Utils.deserialize(userImportJob.getUserRoles(), factory -> factory.constructCollectionType(List.class, AtlasUserRoles.class));
+    if (Objects.isNull(userImportJob.getUserRoles())) {
+      throw new IllegalArgumentException("userRoles is required for user import task");
     }
-    return result = userImportService.importUsers(users, userImportJob.getProviderType(), userImportJob.getPreserveRoles());
+    List<AtlasUserRoles> users = Utils.deserialize(userImportJob.getUserRoles(), factory -> factory.constructCollectionType(List.class, AtlasUserRoles.class));
+    result = userImportService.importUsers(users, userImportJob.getProviderType(), userImportJob.getPreserveRoles());
+    return result;
   }
 
   @Override
@@ -46,18 +44,4 @@ public class UserImportTasklet extends BaseUserImportTasklet<UserImportResult> i
               String.format("Created %d new users, updated %d users", result.getCreated(), result.getUpdated())));
     }
   }
-
-  @Override
-  public void beforeStep(StepExecution stepExecution) {
-
-    String userRolesJson = stepExecution.getJobExecution().getExecutionContext().getString(Constants.Params.USER_ROLES, null);
-    if (Objects.nonNull(userRolesJson)){
-      users = Utils.deserialize(userRolesJson, factory -> factory.constructCollectionType(List.class, AtlasUserRoles.class));
-    }
-  }
-
-  @Override
-  public ExitStatus afterStep(StepExecution stepExecution) {
-    return null;
-  }
 }
@@ -0,0 +1,83 @@
+package org.ohdsi.webapi.user.importer.service;
+
+import org.ohdsi.webapi.Constants;
+import org.ohdsi.webapi.user.importer.model.AtlasUserRoles;
+import org.ohdsi.webapi.user.importer.model.LdapProviderType;
+import org.ohdsi.webapi.user.importer.model.UserImportJob;
+import org.ohdsi.webapi.user.importer.model.UserImportResult;
+import org.ohdsi.webapi.util.UserUtils;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Imports users chunk by chunk, every chunk is committed on its own. Users of the provider which are missing in the
+ * directory lose their roles once all chunks are written, unless the import is incremental. Only logins are kept
+ * between chunks for that.
+ */
+public class UserImportWriter implements ItemWriter<AtlasUserRoles>, StepExecutionListener {
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final UserImportService userImportService;
+
+  private final Set<String> importedLogins = new HashSet<>();
+
+  private final UserImportResult result = new UserImportResult();
+
+  private LdapProviderType providerType;
+
+  private boolean preserveRoles;
+
+  private boolean incremental;
+
+  public UserImportWriter(TransactionTemplate transactionTemplate, UserImportService userImportService) {
+
+    this.transactionTemplate = transactionTemplate;
+    this.userImportService = userImportService;
+  }
+
+  @Override
+  public void beforeStep(StepExecution stepExecution) {
+
+    Long userImportId = Long.valueOf(stepExecution.getJobParameters().getString(Constants.Params.USER_IMPORT_ID));
+    transactionTemplate.execute(status -> {
+      UserImportJob userImportJob = userImportService.getImportUserJob(userImportId);
+      providerType = userImportJob.getProviderType();
+      preserveRoles = Boolean.TRUE.equals(userImportJob.getPreserveRoles());
+      incremental = Boolean.TRUE.equals(userImportJob.getIncremental());
+      return null;
+    });
+  }
+
+  @Override
+  public void write(List<? extends AtlasUserRoles> users) {
+
+    // missing users can only be told when all chunks are written, so every chunk is imported as a delta
+    UserImportResult chunkResult = userImportService.importUsers(new ArrayList<>(users), providerType, preserveRoles, true);
+    result.setCreated(result.getCreated() + chunkResult.getCreated());
+    result.setUpdated(result.getUpdated() + chunkResult.getUpdated());
+    users.forEach(user -> importedLogins.add(UserUtils.toLowerCase(user.getLogin())));
+  }
+
+  @Override
+  public ExitStatus afterStep(StepExecution stepExecution) {
+
+    if (!BatchStatus.COMPLETED.equals(stepExecution.getStatus())) {
+      return null;
+    }
+    if (!incremental) {
+      userImportService.removeMissingUsers(importedLogins, providerType);
+    }
+    return new ExitStatus(ExitStatus.COMPLETED.getExitCode(),
+            String.format("Created %d new users, updated %d users", result.getCreated(), result.getUpdated()));
+  }
+}
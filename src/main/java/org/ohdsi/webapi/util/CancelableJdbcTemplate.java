@@ -1,5 +1,8 @@
 package org.ohdsi.webapi.util;
 
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import org.ohdsi.sql.BigQuerySparkTranslate;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
@@ -12,10 +15,16 @@ import javax.sql.DataSource;
 import java.sql.*;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 public class CancelableJdbcTemplate extends JdbcTemplate {
 
+  public static final String TIMER = "webapi.jdbc";
+  public static final int DEFAULT_BATCH_SIZE = 1000;
+
   private boolean suppressApiException = true;
+  private Tags metricTags;
+  private int batchSize = DEFAULT_BATCH_SIZE;
 
   public CancelableJdbcTemplate() {
   }
@@ -36,6 +45,59 @@ public class CancelableJdbcTemplate extends JdbcTemplate {
     this.suppressApiException = suppressApiException;
   }
 
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * Sets the number of rows sent to the database at once by writers which batch their statements through this template.
+   */
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Enables timing of statements, all operations of the template go through one of the execute methods.
+   */
+  public void setMetricTags(String sourceKey, String dialect) {
+    this.metricTags = Tags.of("source", String.valueOf(sourceKey), "dialect", String.valueOf(dialect));
+  }
+
+  @Override
+  public <T> T execute(ConnectionCallback<T> action) throws DataAccessException {
+    return timed(() -> super.execute(action));
+  }
+
+  @Override
+  public <T> T execute(StatementCallback<T> action) throws DataAccessException {
+    return timed(() -> super.execute(action));
+  }
+
+  @Override
+  public <T> T execute(PreparedStatementCreator psc, PreparedStatementCallback<T> action) throws DataAccessException {
+    return timed(() -> super.execute(psc, action));
+  }
+
+  @Override
+  public <T> T execute(CallableStatementCreator csc, CallableStatementCallback<T> action) throws DataAccessException {
+    return timed(() -> super.execute(csc, action));
+  }
+
+  private <T> T timed(Supplier<T> operation) {
+    if (metricTags == null) {
+      return operation.get();
+    }
+    Timer.Sample sample = Timer.start(Metrics.globalRegistry);
+    String outcome = "error";
+    try {
+      T result = operation.get();
+      outcome = "success";
+      return result;
+    } finally {
+      sample.stop(Metrics.timer(TIMER, metricTags.and("outcome", outcome)));
+    }
+  }
+
   public int[] batchUpdate(StatementCancel cancelOp, String... sql) throws DataAccessException {
     Assert.notEmpty(sql, "SQL array must not be empty");
     if (logger.isDebugEnabled()) {
@@ -152,6 +214,70 @@ public class CancelableJdbcTemplate extends JdbcTemplate {
     return execute(new BatchUpdateConnectionCallback());
   }
 
+  /**
+   * Executes a single parameterized statement for every row of {@code batchArgs}. The statement is prepared once and the
+   * rows are sent to the database in JDBC batches of {@code batchSize}; for drivers without batch support every row is
+   * executed separately against the same prepared statement.
+   */
+  public int[] batchUpdate(StatementCancel cancelOp, String sql, List<Object[]> batchArgs, int batchSize) {
+
+    Assert.hasText(sql, "SQL must not be empty");
+    Assert.isTrue(batchSize > 0, "Batch size must be positive");
+    if (logger.isDebugEnabled()) {
+      logger.debug("Executing SQL batch update of " + batchArgs.size() + " rows with batch size " + batchSize);
+    }
+
+    class BatchUpdateArgsCallback implements ConnectionCallback<int[]>, SqlProvider {
+
+      @Override
+      public int[] doInConnection(Connection con) throws SQLException, DataAccessException {
+        int[] rowsAffected = new int[batchArgs.size()];
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+          cancelOp.setStatement(ps);
+          boolean batchSupported = supportsBatchUpdates(con);
+          int pending = 0;
+          for (int i = 0; i < batchArgs.size(); i++) {
+            new ArgumentPreparedStatementSetter(batchArgs.get(i)).setValues(ps);
+            if (batchSupported) {
+              ps.addBatch();
+              if (++pending == batchSize || i == batchArgs.size() - 1) {
+                int[] counts = executeBatch(ps);
+                System.arraycopy(counts, 0, rowsAffected, i + 1 - pending, counts.length);
+                pending = 0;
+              }
+            } else {
+              rowsAffected[i] = ps.executeUpdate();
+            }
+            if (cancelOp.isCanceled()) {
+              break;
+            }
+          }
+        }
+        return rowsAffected;
+      }
+
+      private int[] executeBatch(PreparedStatement ps) throws SQLException {
+        try {
+          return ps.executeBatch();
+        } catch (BatchUpdateException ex) {
+          SQLException reason = ex.getNextException();
+          if (Objects.nonNull(reason)) {
+            throw reason;
+          } else {
+            throw new SQLException("Failed to execute batch update", ex);
+          }
+        }
+      }
+
+      @Override
+      public String getSql() {
+        return sql;
+      }
+    }
+
+    return execute(new BatchUpdateArgsCallback());
+  }
+
   private boolean supportsBatchUpdates(Connection connection) throws SQLException {
 
     // NOTE:
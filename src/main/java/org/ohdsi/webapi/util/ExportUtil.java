@@ -12,115 +12,119 @@ import org.ohdsi.webapi.prediction.specification.PatientLevelPredictionAnalysisI
 import org.ohdsi.webapi.service.dto.CommonEntityDTO;
 import org.ohdsi.webapi.service.dto.CommonEntityExtDTO;
 
-import java.io.ByteArrayOutputStream;
+import javax.ws.rs.core.StreamingOutput;
 import java.io.IOException;
-import java.io.StringWriter;
-import java.util.ArrayList;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Function;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 public class ExportUtil {
-    public static ByteArrayOutputStream writeConceptSetExportToCSVAndZip(List<ConceptSetExport> conceptSetExportList) throws RuntimeException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ZipOutputStream zos = new ZipOutputStream(baos);
-        StringWriter sw;
-        CSVWriter csvWriter;
-        String[] headings;
-        try {
-            // Write Concept Set Expression to a CSV
-            sw = new StringWriter();
-            csvWriter = new CSVWriter(sw);
-            ArrayList<String[]> allLines = new ArrayList<String[]>();
-            headings = "Concept Set ID#Name#Concept ID#Concept Code#Concept Name#Domain#Vocabulary#Standard Concept#Exclude#Descendants#Mapped".split("#");
-            allLines.add(headings);
-            for (ConceptSetExport cs : conceptSetExportList) {
-                for (ConceptSetExpression.ConceptSetItem item : cs.csExpression.items) {
-                    ArrayList<String> csItem = new ArrayList<String>();
-                    csItem.add(String.valueOf(cs.ConceptSetId));
-                    csItem.add(cs.ConceptSetName);
-                    csItem.add(String.valueOf(item.concept.conceptId));
-                    csItem.add(String.valueOf(item.concept.conceptCode));
-                    csItem.add(item.concept.conceptName);
-                    csItem.add(item.concept.domainId);
-                    csItem.add(item.concept.vocabularyId);
-                    csItem.add(item.concept.standardConcept);
-                    csItem.add(String.valueOf(item.isExcluded));
-                    csItem.add(String.valueOf(item.includeDescendants));
-                    csItem.add(String.valueOf(item.includeMapped));
-                    allLines.add(csItem.toArray(new String[0]));
-                }
-            }
-            csvWriter.writeAll(allLines);
-            csvWriter.close();
-
-            ZipEntry resultsEntry = new ZipEntry("conceptSetExpression.csv");
-            zos.putNextEntry(resultsEntry);
-            zos.write(sw.getBuffer().toString().getBytes());
-
-            // Write included concepts to a CSV
-            sw = new StringWriter();
-            csvWriter = new CSVWriter(sw);
-            allLines = new ArrayList<>();
-            headings = "Concept Set ID#Name#Concept ID#Concept Code#Concept Name#Concept Class ID#Domain#Vocabulary".split("#");
-            allLines.add(headings);
-            for (ConceptSetExport cs : conceptSetExportList) {
-                for (Concept c : cs.identifierConcepts) {
-                    ArrayList<String> csItem = new ArrayList<>();
-                    csItem.add(String.valueOf(cs.ConceptSetId));
-                    csItem.add(cs.ConceptSetName);
-                    csItem.add(String.valueOf(c.conceptId));
-                    csItem.add(String.valueOf(c.conceptCode));
-                    csItem.add(c.conceptName);
-                    csItem.add(c.conceptClassId);
-                    csItem.add(c.domainId);
-                    csItem.add(c.vocabularyId);
-                    allLines.add(csItem.toArray(new String[0]));
-                }
+    private static final String[] EXPRESSION_HEADINGS = "Concept Set ID#Name#Concept ID#Concept Code#Concept Name#Domain#Vocabulary#Standard Concept#Exclude#Descendants#Mapped".split("#");
+    private static final String[] CONCEPT_HEADINGS = "Concept Set ID#Name#Concept ID#Concept Code#Concept Name#Concept Class ID#Domain#Vocabulary".split("#");
+
+    /**
+     * Streams concept sets with their resolved concepts as a zip of CSV files
+     */
+    public static StreamingOutput streamConceptSetExport(List<ConceptSetExport> conceptSetExportList) {
+
+        return streamConceptSetExport(conceptSetExportList, cs -> cs.identifierConcepts, cs -> cs.mappedConcepts);
+    }
+
+    /**
+     * Streams concept sets as a zip of CSV files, included and mapped concepts of a concept set are resolved only
+     * when its rows are written and are released right after, so memory doesn't depend on the number of concept sets.
+     * The rows are written to the response as they are produced, so a slow client slows down the resolution too.
+     *
+     * @param conceptSetExportList concept sets with their expressions, concepts are taken from the lookups
+     * @param includedConceptsLookup resolves included concepts of a concept set
+     * @param mappedConceptsLookup resolves mapped concepts of a concept set
+     */
+    public static StreamingOutput streamConceptSetExport(List<ConceptSetExport> conceptSetExportList,
+                                                         Function<ConceptSetExport, Collection<? extends Concept>> includedConceptsLookup,
+                                                         Function<ConceptSetExport, Collection<? extends Concept>> mappedConceptsLookup) {
+
+        return out -> writeConceptSetExportToCSVAndZip(conceptSetExportList, includedConceptsLookup, mappedConceptsLookup, out);
+    }
+
+    public static void writeConceptSetExportToCSVAndZip(List<ConceptSetExport> conceptSetExportList,
+                                                        Function<ConceptSetExport, Collection<? extends Concept>> includedConceptsLookup,
+                                                        Function<ConceptSetExport, Collection<? extends Concept>> mappedConceptsLookup,
+                                                        OutputStream out) throws IOException {
+
+        ZipOutputStream zos = new ZipOutputStream(out);
+        // the writer isn't closed as it would close the stream, which belongs to the caller
+        CSVWriter csvWriter = new CSVWriter(new OutputStreamWriter(zos, StandardCharsets.UTF_8));
+
+        // Write Concept Set Expression to a CSV
+        zos.putNextEntry(new ZipEntry("conceptSetExpression.csv"));
+        csvWriter.writeNext(EXPRESSION_HEADINGS);
+        for (ConceptSetExport cs : conceptSetExportList) {
+            for (ConceptSetExpression.ConceptSetItem item : cs.csExpression.items) {
+                csvWriter.writeNext(new String[]{
+                        String.valueOf(cs.ConceptSetId),
+                        cs.ConceptSetName,
+                        String.valueOf(item.concept.conceptId),
+                        String.valueOf(item.concept.conceptCode),
+                        item.concept.conceptName,
+                        item.concept.domainId,
+                        item.concept.vocabularyId,
+                        item.concept.standardConcept,
+                        String.valueOf(item.isExcluded),
+                        String.valueOf(item.includeDescendants),
+                        String.valueOf(item.includeMapped)
+                });
             }
-            csvWriter.writeAll(allLines);
-            csvWriter.close();
-
-            resultsEntry = new ZipEntry("includedConcepts.csv");
-            zos.putNextEntry(resultsEntry);
-            zos.write(sw.getBuffer().toString().getBytes());
-
-            // Write mapped concepts to a CSV
-            sw = new StringWriter();
-            csvWriter = new CSVWriter(sw);
-            allLines = new ArrayList<>();
-            headings = "Concept Set ID#Name#Concept ID#Concept Code#Concept Name#Concept Class ID#Domain#Vocabulary".split("#");
-            allLines.add(headings);
-            for (ConceptSetExport cs : conceptSetExportList) {
-                for (Concept c : cs.mappedConcepts) {
-                    ArrayList<String> csItem = new ArrayList<>();
-                    csItem.add(String.valueOf(cs.ConceptSetId));
-                    csItem.add(cs.ConceptSetName);
-                    csItem.add(String.valueOf(c.conceptId));
-                    csItem.add(String.valueOf(c.conceptCode));
-                    csItem.add(c.conceptName);
-                    csItem.add(c.conceptClassId);
-                    csItem.add(c.domainId);
-                    csItem.add(c.vocabularyId);
-                    allLines.add(csItem.toArray(new String[0]));
-                }
+            flush(csvWriter);
+        }
+        zos.closeEntry();
+
+        // Write included concepts to a CSV
+        writeConcepts("includedConcepts.csv", conceptSetExportList, includedConceptsLookup, zos, csvWriter);
+
+        // Write mapped concepts to a CSV
+        writeConcepts("mappedConcepts.csv", conceptSetExportList, mappedConceptsLookup, zos, csvWriter);
+
+        zos.finish();
+        out.flush();
+    }
+
+    private static void writeConcepts(String entryName, List<ConceptSetExport> conceptSetExportList,
+                                      Function<ConceptSetExport, Collection<? extends Concept>> conceptsLookup,
+                                      ZipOutputStream zos, CSVWriter csvWriter) throws IOException {
+
+        zos.putNextEntry(new ZipEntry(entryName));
+        csvWriter.writeNext(CONCEPT_HEADINGS);
+        for (ConceptSetExport cs : conceptSetExportList) {
+            for (Concept c : conceptsLookup.apply(cs)) {
+                csvWriter.writeNext(new String[]{
+                        String.valueOf(cs.ConceptSetId),
+                        cs.ConceptSetName,
+                        String.valueOf(c.conceptId),
+                        String.valueOf(c.conceptCode),
+                        c.conceptName,
+                        c.conceptClassId,
+                        c.domainId,
+                        c.vocabularyId
+                });
             }
-            csvWriter.writeAll(allLines);
-            csvWriter.close();
-
-            resultsEntry = new ZipEntry("mappedConcepts.csv");
-            zos.putNextEntry(resultsEntry);
-            zos.write(sw.getBuffer().toString().getBytes());
-
-            zos.closeEntry();
-            zos.close();
-            baos.flush();
-            baos.close();
-            return baos;
-        } catch (IOException ex) {
-            throw new RuntimeException(ex);
+            // hand the rows of each concept set over to the stream, so that they aren't buffered
+            flush(csvWriter);
         }
+        zos.closeEntry();
+    }
 
+    private static void flush(CSVWriter csvWriter) throws IOException {
+
+        csvWriter.flush();
+        // the writer swallows errors, stop resolving concept sets when the client has gone
+        if (csvWriter.checkError()) {
+            throw new IOException("Cannot write concept set export");
+        }
     }
 
     public static void clearCreateAndUpdateInfo(CommonEntityDTO commonEntityDTO) {
@@ -2,14 +2,25 @@ package org.ohdsi.webapi.util;
 
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import java.io.OutputStream;
 
 public class HttpUtils {
 
   public static Response respondBinary(OutputStream stream, String filename) {
 
+    return binary(stream, filename);
+  }
+
+  public static Response respondBinary(StreamingOutput stream, String filename) {
+
+    return binary(stream, filename);
+  }
+
+  private static Response binary(Object entity, String filename) {
+
     return  Response
-            .ok(stream)
+            .ok(entity)
             .type(MediaType.APPLICATION_OCTET_STREAM)
             .header("Content-Disposition", String.format("attachment; filename=\"%s\"", filename))
             .build();
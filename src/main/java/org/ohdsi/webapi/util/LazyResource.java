@@ -0,0 +1,71 @@
+package org.ohdsi.webapi.util;
+
+import org.ohdsi.circe.helper.ResourceHelper;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Value loaded from resources on first use instead of during class initialization, so that beans holding SQL
+ * templates or parsed CSV files don't slow down startup. Every lazy resource is registered, which lets
+ * {@link org.ohdsi.webapi.startup.ResourcePreloader} load them in parallel once the application has started.
+ */
+public final class LazyResource<T> implements Supplier<T> {
+
+    private static final List<LazyResource<?>> registered = new CopyOnWriteArrayList<>();
+
+    private final String name;
+    private final Supplier<T> loader;
+    private volatile T value;
+
+    private LazyResource(String name, Supplier<T> loader) {
+
+        this.name = name;
+        this.loader = loader;
+    }
+
+    public static LazyResource<String> sql(String path) {
+
+        return of(path, () -> ResourceHelper.GetResourceAsString(path));
+    }
+
+    public static <T> LazyResource<T> of(String name, Supplier<T> loader) {
+
+        LazyResource<T> resource = new LazyResource<>(name, loader);
+        registered.add(resource);
+        return resource;
+    }
+
+    public static List<LazyResource<?>> getRegistered() {
+
+        return Collections.unmodifiableList(registered);
+    }
+
+    @Override
+    public T get() {
+
+        T result = value;
+        if (result == null) {
+            synchronized (this) {
+                result = value;
+                if (result == null) {
+                    result = loader.get();
+                    value = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    public boolean isLoaded() {
+
+        return value != null;
+    }
+
+    public String getName() {
+
+        return name;
+    }
+}
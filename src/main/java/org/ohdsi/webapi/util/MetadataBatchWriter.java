@@ -0,0 +1,93 @@
+package org.ohdsi.webapi.util;
+
+import org.ohdsi.webapi.source.Source;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Writes generation metadata rows (inclusion rules, strata etc.) with a single insert statement. The statement is
+ * rendered and translated for the source dialect once, and the rows are sent in JDBC batches, or one by one over the
+ * same prepared statement when the driver doesn't support batching. The batch size is the one of the source template,
+ * i.e. {@code jdbc.batchSize}.
+ */
+public class MetadataBatchWriter {
+
+  private final Source source;
+  private final String insertSql;
+  private final String[] searchRegexes;
+  private final String[] replacements;
+  private final String[] columnNames;
+  private final String sessionId;
+
+  private final String sql;
+  private final int[] parameterOrder;
+
+  /**
+   * @param insertSql   parameterized insert, e.g. {@code INSERT INTO @schema.t (a, b) VALUES (@a, @b)}
+   * @param columnNames names of the parameters, in the same order as the values of each row
+   */
+  public MetadataBatchWriter(Source source, String insertSql, String[] searchRegexes, String[] replacements,
+                             String[] columnNames, String sessionId) {
+
+    this.source = source;
+    this.insertSql = insertSql;
+    this.searchRegexes = searchRegexes;
+    this.replacements = replacements;
+    this.columnNames = columnNames;
+    this.sessionId = sessionId;
+
+    // Column positions are rendered in place of values: they are never inlined as NULL, and the ordered parameters
+    // tell which row value goes to which placeholder
+    Object[] positions = IntStream.range(0, columnNames.length).boxed().toArray();
+    PreparedStatementRenderer psr = new PreparedStatementRenderer(source, insertSql, searchRegexes, replacements, columnNames, positions, sessionId);
+    this.sql = psr.getSql();
+    this.parameterOrder = psr.getOrderedParamsList().stream().mapToInt(Integer.class::cast).toArray();
+  }
+
+  public int[] write(JdbcTemplate jdbcTemplate, List<Object[]> rows) {
+
+    return write(jdbcTemplate, new StatementCancel(), rows);
+  }
+
+  public int[] write(JdbcTemplate jdbcTemplate, StatementCancel cancelOp, List<Object[]> rows) {
+
+    if (rows.isEmpty()) {
+      return new int[0];
+    }
+    CancelableJdbcTemplate template = jdbcTemplate instanceof CancelableJdbcTemplate
+            ? (CancelableJdbcTemplate) jdbcTemplate
+            : new CancelableJdbcTemplate(jdbcTemplate.getDataSource());
+    if (isNullUnsafe() && rows.stream().anyMatch(row -> Arrays.stream(row).anyMatch(Objects::isNull))) {
+      return writeRendered(template, cancelOp, rows);
+    }
+    List<Object[]> batchArgs = rows.stream()
+            .map(row -> Arrays.stream(parameterOrder).mapToObj(i -> row[i]).toArray())
+            .collect(Collectors.toList());
+    return template.batchUpdate(cancelOp, sql, batchArgs, template.getBatchSize());
+  }
+
+  public String getSql() {
+
+    return sql;
+  }
+
+  // BigQuery driver fails on NULL statement parameters, PreparedStatementRenderer inlines them into the statement instead
+  private boolean isNullUnsafe() {
+
+    return Objects.nonNull(source) && Source.BIGQUERY_DATASOURCE.equals(source.getSourceDialect());
+  }
+
+  private int[] writeRendered(CancelableJdbcTemplate template, StatementCancel cancelOp, List<Object[]> rows) {
+
+    return template.batchUpdate(cancelOp, rows.stream()
+            .map(row -> (PreparedStatementCreator) new PreparedStatementRendererCreator(
+                    new PreparedStatementRenderer(source, insertSql, searchRegexes, replacements, columnNames, row, sessionId)))
+            .collect(Collectors.toList()));
+  }
+}
@@ -4,23 +4,30 @@ import com.google.common.collect.ImmutableSet;
 import com.odysseusinc.arachne.commons.types.DBMSType;
 import org.ohdsi.sql.SqlSplit;
 import org.ohdsi.sql.SqlTranslate;
-import org.ohdsi.webapi.common.generation.GenerationUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.RowMapperResultSetExtractor;
-import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.jdbc.core.StatementCallback;
 
-import java.sql.Connection;
-import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
+/**
+ * Drops tables which emulate temp tables of a session on dialects without real temp tables. Tables are listed with a
+ * single metadata query and dropped in parallel by a few connections, each statement with a timeout, so that a
+ * hanging drop doesn't block the cleanup.
+ */
 public class TempTableCleanupManager {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(TempTableCleanupManager.class);
@@ -36,16 +43,17 @@ public class TempTableCleanupManager {
     DBMSType.MS_SQL_SERVER.getOhdsiDB(),
     DBMSType.PDW.getOhdsiDB()
   );
+  // Tables are dropped by separate connections, few enough not to exhaust the source
+  private static final int DROP_THREADS = 4;
+  private static final int DROP_TIMEOUT_SECONDS = 60;
 
   private JdbcTemplate jdbcTemplate;
-  private TransactionTemplate transactionTemplate;
   private String dialect;
   private String sessionId;
   private String tempSchema;
 
-  public TempTableCleanupManager(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, String dialect, String sessionId, String tempSchema) {
+  public TempTableCleanupManager(JdbcTemplate jdbcTemplate, String dialect, String sessionId, String tempSchema) {
     this.jdbcTemplate = jdbcTemplate;
-    this.transactionTemplate = transactionTemplate;
     this.dialect = dialect;
     this.sessionId = sessionId;
     this.tempSchema = tempSchema;
@@ -55,32 +63,90 @@ public class TempTableCleanupManager {
     return APPLICABLE_DIALECTS.contains(dialect);
   }
 
+  public boolean isApplicable() {
+    return isApplicable(dialect);
+  }
+
   public void cleanupTempTables() {
+    if (!isApplicable()) {
+      return;
+    }
     LOGGER.info("Removing temp tables at {}", tempSchema);
-    transactionTemplate.execute(status -> {
-      try {
-        Connection c = jdbcTemplate.getDataSource().getConnection();
-        if (isApplicable(this.dialect)) {
-          removeTempTables(c, sessionId + "%");
+    dropTables(listTables(sessionId + "%"));
+  }
+
+  /**
+   * @param tablePattern pattern of table names, as in a LIKE condition
+   * @return names of matching tables in the temp schema, qualified by their schema
+   */
+  public List<String> listTables(String tablePattern) {
+
+    // the connection is released by the template
+    return jdbcTemplate.execute((ConnectionCallback<List<String>>) c -> {
+      List<String> tableNames = new ArrayList<>();
+      try (ResultSet resultSet = c.getMetaData().getTables(null, tempSchema, tablePattern, TABLE_TYPES)) {
+        while (resultSet.next()) {
+          String schema = tempSchema != null ? tempSchema : resultSet.getString("TABLE_SCHEM");
+          String table = resultSet.getString("TABLE_NAME");
+          tableNames.add(schema != null ? schema + "." + table : table);
         }
-      } catch (SQLException e) {
-        LOGGER.error("Failed to cleanup temp tables", e);
-        throw new RuntimeException(e);
       }
-      return null;
+      return tableNames;
     });
   }
 
-  private void removeTempTables(Connection c, String tablePrefix) throws SQLException {
+  /**
+   * Drops tables in parallel. All tables are attempted even when some drops fail.
+   *
+   * @param tableNames qualified names of tables
+   */
+  public void dropTables(Collection<String> tableNames) {
 
-      DatabaseMetaData metaData = c.getMetaData();
-      try (ResultSet resultSet = metaData.getTables(null, tempSchema, tablePrefix, TABLE_TYPES)) {
-        RowMapperResultSetExtractor<String> extractor = new RowMapperResultSetExtractor<>((rs, rowNum) -> rs.getString("TABLE_NAME"));
-        List<String> tableNames = extractor.extractData(resultSet);
-        String sql = tableNames.stream().map(table -> String.format(DROP_TABLE_STATEMENT, tempSchema + "." + table)).collect(Collectors.joining());
-        String translatedSql = SqlTranslate.translateSql(sql, dialect);
-        Arrays.asList(SqlSplit.splitSql(translatedSql)).forEach(jdbcTemplate::execute);
+    if (tableNames.isEmpty()) {
+      return;
+    }
+    AtomicInteger threadNumber = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(DROP_THREADS, tableNames.size()), r -> {
+      Thread thread = new Thread(r, "temp-table-cleanup-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      List<CompletableFuture<RuntimeException>> drops = tableNames.stream()
+              .map(table -> CompletableFuture.supplyAsync(() -> dropTable(table), executor))
+              .collect(Collectors.toList());
+      List<RuntimeException> failures = drops.stream()
+              .map(CompletableFuture::join)
+              .filter(Objects::nonNull)
+              .collect(Collectors.toList());
+      if (!failures.isEmpty()) {
+        LOGGER.error("Failed to remove {} of {} temp tables at {}", failures.size(), tableNames.size(), tempSchema);
+        RuntimeException e = failures.get(0);
+        failures.stream().skip(1).forEach(e::addSuppressed);
+        throw e;
+      }
+    } catch (CompletionException e) {
+      throw new RuntimeException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private RuntimeException dropTable(String table) {
+
+    try {
+      String translatedSql = SqlTranslate.translateSql(String.format(DROP_TABLE_STATEMENT, table), dialect);
+      for (String sql : SqlSplit.splitSql(translatedSql)) {
+        jdbcTemplate.execute((StatementCallback<Boolean>) stmt -> {
+          stmt.setQueryTimeout(DROP_TIMEOUT_SECONDS);
+          return stmt.execute(sql);
+        });
       }
+      return null;
+    } catch (RuntimeException e) {
+      LOGGER.warn("Failed to remove temp table {}", table, e);
+      return e;
+    }
   }
 
 }
@@ -2,6 +2,7 @@ package org.ohdsi.webapi.versioning.domain;
 
 import org.ohdsi.webapi.shiro.Entities.UserEntity;
 
+import javax.persistence.Basic;
 import javax.persistence.Column;
 import javax.persistence.EmbeddedId;
 import javax.persistence.FetchType;
@@ -22,9 +23,19 @@ public abstract class Version {
     @Column(name = "archived")
     private boolean archived;
 
-    @Column(name = "asset_json")
+    // Versions are immutable: the payload is never updated, which also allows to fill it in for delta versions
+    @Column(name = "asset_json", updatable = false)
     private String assetJson;
 
+    // Version which asset_patch applies to, null for full snapshots
+    @Column(name = "base_version", updatable = false)
+    private Integer baseVersion;
+
+    // GZIP compressed JSON patch from the base version
+    @Column(name = "asset_patch", updatable = false, columnDefinition = "BYTEA")
+    @Basic(fetch = FetchType.LAZY)
+    private byte[] assetPatch;
+
     @Column(name = "created_date", updatable = false)
     private Date createdDate;
 
@@ -64,6 +75,22 @@ public abstract class Version {
         this.assetJson = assetJson;
     }
 
+    public Integer getBaseVersion() {
+        return baseVersion;
+    }
+
+    public void setBaseVersion(Integer baseVersion) {
+        this.baseVersion = baseVersion;
+    }
+
+    public byte[] getAssetPatch() {
+        return assetPatch;
+    }
+
+    public void setAssetPatch(byte[] assetPatch) {
+        this.assetPatch = assetPatch;
+    }
+
     public Date getCreatedDate() {
         return createdDate;
     }
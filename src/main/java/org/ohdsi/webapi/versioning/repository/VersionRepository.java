@@ -22,6 +22,9 @@ public interface VersionRepository<T extends Version> extends JpaRepository<T, V
             "WHERE v.pk.assetId = ?1")
     List<VersionBase> findAllVersions(long assetId);
 
+    @Query("SELECT count(v) FROM #{#entityName} v WHERE v.pk.assetId = ?1 AND v.baseVersion = ?2")
+    long countByBaseVersion(long assetId, int baseVersion);
+
     @Query("SELECT v from #{#entityName} v WHERE v.pk.assetId = ?1")
     List<T> findAll(int assetId);
 }
@@ -0,0 +1,169 @@
+package org.ohdsi.webapi.versioning.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON Patch (RFC 6902) support, limited to the {@code add}, {@code remove} and {@code replace} operations.
+ * Arrays are compared by trimming their common head and tail, which keeps the patch small for the usual edits of
+ * an asset: items appended, inserted, removed or changed in place.
+ */
+final class JsonPatch {
+
+    private static final String OP = "op";
+    private static final String PATH = "path";
+    private static final String VALUE = "value";
+    private static final String ADD = "add";
+    private static final String REMOVE = "remove";
+    private static final String REPLACE = "replace";
+
+    private JsonPatch() {
+    }
+
+    static ArrayNode diff(JsonNode source, JsonNode target) {
+
+        ArrayNode patch = JsonNodeFactory.instance.arrayNode();
+        diff(source, target, "", patch);
+        return patch;
+    }
+
+    static JsonNode apply(JsonNode document, JsonNode patch) {
+
+        JsonNode result = document.deepCopy();
+        for (JsonNode operation : patch) {
+            String op = operation.get(OP).asText();
+            List<String> path = parsePath(operation.get(PATH).asText());
+            JsonNode value = operation.get(VALUE);
+            if (path.isEmpty()) {
+                if (!REPLACE.equals(op)) {
+                    throw new IllegalArgumentException("Unsupported operation on document root: " + op);
+                }
+                result = value.deepCopy();
+                continue;
+            }
+            JsonNode parent = result.at(toPointer(path.subList(0, path.size() - 1)));
+            String key = path.get(path.size() - 1);
+            if (parent.isObject()) {
+                ObjectNode object = (ObjectNode) parent;
+                if (REMOVE.equals(op)) {
+                    object.remove(key);
+                } else {
+                    object.set(key, value.deepCopy());
+                }
+            } else if (parent.isArray()) {
+                ArrayNode array = (ArrayNode) parent;
+                int index = Integer.parseInt(key);
+                switch (op) {
+                    case ADD:
+                        array.insert(index, value.deepCopy());
+                        break;
+                    case REMOVE:
+                        array.remove(index);
+                        break;
+                    case REPLACE:
+                        array.set(index, value.deepCopy());
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unsupported operation: " + op);
+                }
+            } else {
+                throw new IllegalArgumentException("Path doesn't exist in document: " + operation.get(PATH).asText());
+            }
+        }
+        return result;
+    }
+
+    private static void diff(JsonNode source, JsonNode target, String path, ArrayNode patch) {
+
+        if (source.equals(target)) {
+            return;
+        }
+        if (source.isObject() && target.isObject()) {
+            Iterator<String> sourceFields = source.fieldNames();
+            while (sourceFields.hasNext()) {
+                String field = sourceFields.next();
+                if (!target.has(field)) {
+                    addOperation(patch, REMOVE, path + "/" + escape(field), null);
+                }
+            }
+            Iterator<Map.Entry<String, JsonNode>> targetFields = target.fields();
+            while (targetFields.hasNext()) {
+                Map.Entry<String, JsonNode> field = targetFields.next();
+                String fieldPath = path + "/" + escape(field.getKey());
+                if (source.has(field.getKey())) {
+                    diff(source.get(field.getKey()), field.getValue(), fieldPath, patch);
+                } else {
+                    addOperation(patch, ADD, fieldPath, field.getValue());
+                }
+            }
+        } else if (source.isArray() && target.isArray()) {
+            int sourceSize = source.size();
+            int targetSize = target.size();
+            int head = 0;
+            while (head < sourceSize && head < targetSize && source.get(head).equals(target.get(head))) {
+                head++;
+            }
+            int tail = 0;
+            while (tail < sourceSize - head && tail < targetSize - head
+                    && source.get(sourceSize - 1 - tail).equals(target.get(targetSize - 1 - tail))) {
+                tail++;
+            }
+            int sourceChanged = sourceSize - head - tail;
+            int targetChanged = targetSize - head - tail;
+            int common = Math.min(sourceChanged, targetChanged);
+            for (int i = head; i < head + common; i++) {
+                diff(source.get(i), target.get(i), path + "/" + i, patch);
+            }
+            for (int i = common; i < sourceChanged; i++) {
+                addOperation(patch, REMOVE, path + "/" + (head + common), null);
+            }
+            for (int i = common; i < targetChanged; i++) {
+                addOperation(patch, ADD, path + "/" + (head + i), target.get(head + i));
+            }
+        } else {
+            addOperation(patch, REPLACE, path, target);
+        }
+    }
+
+    private static void addOperation(ArrayNode patch, String op, String path, JsonNode value) {
+
+        ObjectNode operation = patch.addObject();
+        operation.put(OP, op);
+        operation.put(PATH, path);
+        if (value != null) {
+            operation.set(VALUE, value);
+        }
+    }
+
+    private static List<String> parsePath(String path) {
+
+        List<String> tokens = new ArrayList<>();
+        if (!path.isEmpty()) {
+            for (String token : path.substring(1).split("/", -1)) {
+                tokens.add(token.replace("~1", "/").replace("~0", "~"));
+            }
+        }
+        return tokens;
+    }
+
+    private static String toPointer(List<String> tokens) {
+
+        StringBuilder pointer = new StringBuilder();
+        for (String token : tokens) {
+            pointer.append('/').append(escape(token));
+        }
+        return pointer.toString();
+    }
+
+    private static String escape(String token) {
+
+        return token.replace("~", "~0").replace("/", "~1");
+    }
+}
@@ -1,5 +1,11 @@
 package org.ohdsi.webapi.versioning.service;
 
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import org.apache.commons.io.IOUtils;
 import org.ohdsi.webapi.exception.AtlasException;
 import org.ohdsi.webapi.service.AbstractDaoService;
 import org.ohdsi.webapi.versioning.domain.Version;
@@ -22,23 +28,51 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceException;
 import javax.ws.rs.NotFoundException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
+/**
+ * Stores asset versions as periodic full snapshots with compressed JSON patches in between. Every
+ * {@code versioning.snapshotInterval}-th version of an asset is a snapshot, the others keep a patch from the
+ * previous version, so restoring a version applies at most {@code snapshotInterval - 1} patches. A patch is only
+ * kept when the restored payload is the exact string that was saved. Restored payloads are kept in a bounded LRU
+ * cache since versions never change once saved.
+ */
 @Service
 @Transactional
 public class VersionService<T extends Version> extends AbstractDaoService {
-    @Value("${versioning.maxAttempt}")
-    private int maxAttempt;
+    private static final String ALLOCATE_VERSION_SQL = "INSERT INTO %s.asset_version_counter (asset_type, asset_id, last_version) VALUES (?, ?, 1) " +
+            "ON CONFLICT (asset_type, asset_id) DO UPDATE SET last_version = asset_version_counter.last_version + 1 " +
+            "RETURNING last_version";
+
+    @Value("${versioning.snapshotInterval:10}")
+    private int snapshotInterval;
+
+    @Value("${versioning.cacheSize:100}")
+    private int cacheSize;
 
     private static final Logger logger = LoggerFactory.getLogger(VersionService.class);
     private final EntityManager entityManager;
     private final Map<VersionType, VersionRepository<T>> repositoryMap;
+    private final ObjectMapper mapper = new ObjectMapper()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+            .setNodeFactory(JsonNodeFactory.withExactBigDecimals(true));
+    private Map<String, String> assetJsonCache;
 
     @Autowired
     private VersionService<T> versionService;
@@ -63,6 +97,16 @@ public class VersionService<T extends Version> extends AbstractDaoService {
         this.repositoryMap.put(VersionType.REUSABLE, (VersionRepository<T>) reusableRepository);
     }
 
+    @PostConstruct
+    public void init() {
+        assetJsonCache = Collections.synchronizedMap(new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
     private VersionRepository<T> getRepository(VersionType type) {
         return repositoryMap.get(type);
     }
@@ -72,31 +116,15 @@ public class VersionService<T extends Version> extends AbstractDaoService {
     }
 
     public T create(VersionType type, T assetVersion) {
-        int attemptsCounter = 0;
-        boolean saved = false;
-        // Trying to save current version. Current version is selected from database
-        // If current version number is already used - get latest version from database again and try to save.
-        while (!saved && attemptsCounter < maxAttempt) {
-            attemptsCounter++;
-
-            Integer latestVersion = getRepository(type).getLatestVersion(assetVersion.getAssetId());
-            if (Objects.nonNull(latestVersion)) {
-                assetVersion.setVersion(latestVersion + 1);
-            } else {
-                assetVersion.setVersion(1);
-            }
-
-            try {
-                assetVersion = versionService.save(type, assetVersion);
-                saved = true;
-            } catch (PersistenceException e) {
-                logger.warn("Error during saving version", e);
-            }
-        }
-        if (!saved) {
-            log.error("Error during saving version");
+        String assetJson = assetVersion.getAssetJson();
+        try {
+            assetVersion = versionService.saveNew(type, assetVersion);
+        } catch (PersistenceException e) {
+            logger.error("Error during saving version", e);
             throw new AtlasException("Error during saving version");
         }
+        assetVersion.setAssetJson(assetJson);
+        assetJsonCache.put(cacheKey(type, assetVersion.getAssetId(), assetVersion.getVersion()), assetJson);
         return assetVersion;
     }
 
@@ -113,16 +141,40 @@ public class VersionService<T extends Version> extends AbstractDaoService {
 
     public void delete(VersionType type, long assetId, int version) {
         VersionPK pk = new VersionPK(assetId, version);
-        T currentVersion = getRepository(type).getOne(pk);
+        T currentVersion = getRepository(type).findOne(pk);
         if (Objects.isNull(currentVersion)) {
             throw new NotFoundException("Version not found");
         }
         currentVersion.setArchived(true);
+        removeUnreferenced(type, currentVersion);
+    }
+
+    /**
+     * Removes an archived version once no other version is patched against it, then does the same for its base, so
+     * deleting the last version that references a base removes the base as well. The latest version of an asset is
+     * only archived since the next saved version is patched against it.
+     */
+    private void removeUnreferenced(VersionType type, T assetVersion) {
+        VersionRepository<T> repository = getRepository(type);
+        long assetId = assetVersion.getAssetId();
+        int latestVersion = repository.getLatestVersion(assetId);
+        while (Objects.nonNull(assetVersion) && assetVersion.isArchived() && assetVersion.getVersion() < latestVersion
+                && repository.countByBaseVersion(assetId, assetVersion.getVersion()) == 0) {
+            Integer baseVersion = assetVersion.getBaseVersion();
+            repository.delete(assetVersion);
+            repository.flush();
+            assetJsonCache.remove(cacheKey(type, assetId, assetVersion.getVersion()));
+            assetVersion = Objects.nonNull(baseVersion) ? repository.findOne(new VersionPK(assetId, baseVersion)) : null;
+        }
     }
 
     public T getById(VersionType type, long assetId, int version) {
         VersionPK pk = new VersionPK(assetId, version);
-        return getRepository(type).findOne(pk);
+        T assetVersion = getRepository(type).findOne(pk);
+        if (Objects.nonNull(assetVersion) && Objects.nonNull(assetVersion.getBaseVersion())) {
+            assetVersion.setAssetJson(restoreAssetJson(type, assetVersion));
+        }
+        return assetVersion;
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
@@ -131,4 +183,93 @@ public class VersionService<T extends Version> extends AbstractDaoService {
         entityManager.refresh(version);
         return getRepository(type).getOne(version.getPk());
     }
+
+    /**
+     * Allocates the version number and inserts the version in one transaction, independent of the caller's one, so
+     * that the counter never gets ahead of or behind the saved versions when either transaction is rolled back. The
+     * counter row stays locked until the insert commits, so concurrent saves of the same asset get consecutive
+     * version numbers instead of retrying on a conflict.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public T saveNew(VersionType type, T assetVersion) {
+        assetVersion.setVersion(allocateVersion(type, assetVersion.getAssetId()));
+        storeAsDelta(type, assetVersion);
+        return save(type, assetVersion);
+    }
+
+    private int allocateVersion(VersionType type, long assetId) {
+        return getJdbcTemplate().queryForObject(String.format(ALLOCATE_VERSION_SQL, getOhdsiSchema()), Integer.class,
+                type.name(), assetId);
+    }
+
+    private void storeAsDelta(VersionType type, T assetVersion) {
+        int version = assetVersion.getVersion();
+        if (snapshotInterval <= 1 || (version - 1) % snapshotInterval == 0 || Objects.isNull(assetVersion.getAssetJson())) {
+            return;
+        }
+        T base = getById(type, assetVersion.getAssetId(), version - 1);
+        if (Objects.isNull(base) || Objects.isNull(base.getAssetJson())) {
+            return;
+        }
+        try {
+            JsonNode source = mapper.readTree(base.getAssetJson());
+            JsonNode target = mapper.readTree(assetVersion.getAssetJson());
+            if (Objects.isNull(source) || Objects.isNull(target) || source.isMissingNode() || target.isMissingNode()) {
+                return;
+            }
+            ArrayNode patch = JsonPatch.diff(source, target);
+            byte[] compressed = compress(mapper.writeValueAsBytes(patch));
+            // Keep the full payload if the patch doesn't save anything or doesn't restore the exact string, e.g. when
+            // the payload has whitespace or a key order that re-serialization would not reproduce
+            if (compressed.length < assetVersion.getAssetJson().length()
+                    && mapper.writeValueAsString(JsonPatch.apply(source, patch)).equals(assetVersion.getAssetJson())) {
+                assetVersion.setBaseVersion(base.getVersion());
+                assetVersion.setAssetPatch(compressed);
+                assetVersion.setAssetJson(null);
+            }
+        } catch (IOException e) {
+            logger.warn("Cannot build patch for version {} of {} {}, storing full snapshot", version, type, assetVersion.getAssetId(), e);
+        }
+    }
+
+    private String restoreAssetJson(VersionType type, T assetVersion) {
+        String key = cacheKey(type, assetVersion.getAssetId(), assetVersion.getVersion());
+        String assetJson = assetJsonCache.get(key);
+        if (Objects.nonNull(assetJson)) {
+            return assetJson;
+        }
+        T base = getRepository(type).findOne(new VersionPK(assetVersion.getAssetId(), assetVersion.getBaseVersion()));
+        if (Objects.isNull(base)) {
+            throw new AtlasException(String.format("Base version %d of %s %d not found",
+                    assetVersion.getBaseVersion(), type, assetVersion.getAssetId()));
+        }
+        String baseJson = Objects.nonNull(base.getBaseVersion()) ? restoreAssetJson(type, base) : base.getAssetJson();
+        try {
+            JsonNode patch = mapper.readTree(decompress(assetVersion.getAssetPatch()));
+            assetJson = mapper.writeValueAsString(JsonPatch.apply(mapper.readTree(baseJson), patch));
+        } catch (IOException e) {
+            throw new AtlasException(String.format("Cannot restore version %d of %s %d",
+                    assetVersion.getVersion(), type, assetVersion.getAssetId()), e);
+        }
+        assetJsonCache.put(key, assetJson);
+        return assetJson;
+    }
+
+    private String cacheKey(VersionType type, long assetId, int version) {
+        return type + ":" + assetId + ":" + version;
+    }
+
+    private static byte[] compress(byte[] data) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(result)) {
+            out.write(data);
+        }
+        return result.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] data) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return IOUtils.toByteArray(in);
+        }
+    }
 }
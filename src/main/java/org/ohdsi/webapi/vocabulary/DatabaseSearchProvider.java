@@ -7,7 +7,7 @@ import org.ohdsi.vocabulary.SearchProvider;
 import org.ohdsi.vocabulary.SearchProviderConfig;
 import org.ohdsi.webapi.service.VocabularyService;
 import org.ohdsi.webapi.source.Source;
-import org.ohdsi.webapi.source.SourceRepository;
+import org.ohdsi.webapi.source.SourceService;
 import org.ohdsi.webapi.util.PreparedStatementRenderer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -15,7 +15,7 @@ import org.springframework.stereotype.Component;
 @Component
 public class DatabaseSearchProvider implements SearchProvider {
     @Autowired
-    private SourceRepository sourceRepository;
+    private SourceService sourceService;
 
     private final static int VOCABULARY_PRIORITY = Integer.MAX_VALUE;
 
@@ -34,7 +34,7 @@ public class DatabaseSearchProvider implements SearchProvider {
 
     @Override
     public Collection<Concept> executeSearch(SearchProviderConfig config, String query, String rows) throws Exception {
-        Source source = sourceRepository.findBySourceKey(config.getSourceKey());
+        Source source = sourceService.findBySourceKey(config.getSourceKey());
 
         PreparedStatementRenderer psr = vocabService.prepareExecuteSearchWithQuery(query, source);
         return vocabService.getSourceJdbcTemplate(source).query(psr.getSql(), psr.getSetter(), vocabService.getRowMapper());
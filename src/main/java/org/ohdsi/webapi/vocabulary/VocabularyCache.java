@@ -0,0 +1,83 @@
+package org.ohdsi.webapi.vocabulary;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Caches vocabulary metadata per source. The metadata only changes when the vocabulary is reloaded, which changes its
+ * version, so it is cached by source and version. The version itself expires shortly and is probed again, entries of
+ * the previous version are evicted when the probe finds a new one.
+ */
+@Component
+public class VocabularyCache {
+
+    public static final String INFO = "vocabularyInfo";
+    public static final String DOMAINS = "vocabularyDomains";
+    public static final String VOCABULARIES = "vocabularies";
+
+    private static final List<String> VERSIONED = Arrays.asList(DOMAINS, VOCABULARIES);
+
+    private final CacheManager cacheManager;
+    private final Map<String, String> versions = new ConcurrentHashMap<>();
+
+    public VocabularyCache(CacheManager cacheManager) {
+
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * @param probe queries the vocabulary version of the source
+     */
+    public VocabularyInfo getInfo(String sourceKey, Supplier<VocabularyInfo> probe) {
+
+        return get(INFO, sourceKey, () -> {
+            VocabularyInfo info = probe.get();
+            String previous = versions.put(sourceKey, String.valueOf(info.version));
+            if (previous != null && !Objects.equals(previous, String.valueOf(info.version))) {
+                VERSIONED.forEach(name -> cacheManager.getCache(name).evict(key(sourceKey, previous)));
+            }
+            return info;
+        });
+    }
+
+    /**
+     * @param version the current vocabulary version of the source
+     */
+    public <T> T get(String cacheName, String sourceKey, String version, Supplier<T> loader) {
+
+        return get(cacheName, key(sourceKey, version), loader);
+    }
+
+    public void clear() {
+
+        cacheManager.getCache(INFO).clear();
+        VERSIONED.forEach(name -> cacheManager.getCache(name).clear());
+        versions.clear();
+    }
+
+    private <T> T get(String cacheName, String key, Supplier<T> loader) {
+
+        try {
+            return cacheManager.getCache(cacheName).get(key, loader::get);
+        } catch (Cache.ValueRetrievalException e) {
+            // errors of the source are reported as if there was no cache
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private String key(String sourceKey, String version) {
+
+        return sourceKey + "@" + version;
+    }
+}
@@ -0,0 +1 @@
+ALTER TABLE ${ohdsiSchema}.cohort_sample ADD COLUMN seed BIGINT NULL;
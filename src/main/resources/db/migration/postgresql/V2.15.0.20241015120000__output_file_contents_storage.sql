@@ -0,0 +1,2 @@
+ALTER TABLE ${ohdsiSchema}.output_file_contents ADD COLUMN storage_key VARCHAR(64) NULL;
+ALTER TABLE ${ohdsiSchema}.output_file_contents ADD COLUMN checksum VARCHAR(64) NULL;
@@ -0,0 +1,44 @@
+ALTER TABLE ${ohdsiSchema}.cohort_version ALTER COLUMN asset_json DROP NOT NULL;
+ALTER TABLE ${ohdsiSchema}.cohort_version ADD COLUMN base_version INTEGER NULL;
+ALTER TABLE ${ohdsiSchema}.cohort_version ADD COLUMN asset_patch BYTEA NULL;
+
+ALTER TABLE ${ohdsiSchema}.cohort_characterization_version ALTER COLUMN asset_json DROP NOT NULL;
+ALTER TABLE ${ohdsiSchema}.cohort_characterization_version ADD COLUMN base_version INTEGER NULL;
+ALTER TABLE ${ohdsiSchema}.cohort_characterization_version ADD COLUMN asset_patch BYTEA NULL;
+
+ALTER TABLE ${ohdsiSchema}.concept_set_version ALTER COLUMN asset_json DROP NOT NULL;
+ALTER TABLE ${ohdsiSchema}.concept_set_version ADD COLUMN base_version INTEGER NULL;
+ALTER TABLE ${ohdsiSchema}.concept_set_version ADD COLUMN asset_patch BYTEA NULL;
+
+ALTER TABLE ${ohdsiSchema}.ir_version ALTER COLUMN asset_json DROP NOT NULL;
+ALTER TABLE ${ohdsiSchema}.ir_version ADD COLUMN base_version INTEGER NULL;
+ALTER TABLE ${ohdsiSchema}.ir_version ADD COLUMN asset_patch BYTEA NULL;
+
+ALTER TABLE ${ohdsiSchema}.pathway_version ALTER COLUMN asset_json DROP NOT NULL;
+ALTER TABLE ${ohdsiSchema}.pathway_version ADD COLUMN base_version INTEGER NULL;
+ALTER TABLE ${ohdsiSchema}.pathway_version ADD COLUMN asset_patch BYTEA NULL;
+
+ALTER TABLE ${ohdsiSchema}.reusable_version ALTER COLUMN asset_json DROP NOT NULL;
+ALTER TABLE ${ohdsiSchema}.reusable_version ADD COLUMN base_version INTEGER NULL;
+ALTER TABLE ${ohdsiSchema}.reusable_version ADD COLUMN asset_patch BYTEA NULL;
+
+CREATE TABLE ${ohdsiSchema}.asset_version_counter
+(
+    asset_type   VARCHAR(50) NOT NULL,
+    asset_id     int8        NOT NULL,
+    last_version int4        NOT NULL,
+    CONSTRAINT pk_asset_version_counter PRIMARY KEY (asset_type, asset_id)
+);
+
+INSERT INTO ${ohdsiSchema}.asset_version_counter (asset_type, asset_id, last_version)
+SELECT 'COHORT', asset_id, MAX(version) FROM ${ohdsiSchema}.cohort_version GROUP BY asset_id
+UNION ALL
+SELECT 'CHARACTERIZATION', asset_id, MAX(version) FROM ${ohdsiSchema}.cohort_characterization_version GROUP BY asset_id
+UNION ALL
+SELECT 'CONCEPT_SET', asset_id, MAX(version) FROM ${ohdsiSchema}.concept_set_version GROUP BY asset_id
+UNION ALL
+SELECT 'INCIDENCE_RATE', asset_id, MAX(version) FROM ${ohdsiSchema}.ir_version GROUP BY asset_id
+UNION ALL
+SELECT 'PATHWAY', asset_id, MAX(version) FROM ${ohdsiSchema}.pathway_version GROUP BY asset_id
+UNION ALL
+SELECT 'REUSABLE', asset_id, MAX(version) FROM ${ohdsiSchema}.reusable_version GROUP BY asset_id;
@@ -0,0 +1,2 @@
+ALTER TABLE ${ohdsiSchema}.user_import_job ADD incremental BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE ${ohdsiSchema}.user_import_job ADD change_marker VARCHAR(255);
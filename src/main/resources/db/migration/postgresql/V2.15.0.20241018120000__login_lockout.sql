@@ -0,0 +1,9 @@
+CREATE TABLE ${ohdsiSchema}.sec_login_lockout (
+  principal VARCHAR(255) NOT NULL,
+  attempts  INTEGER      NOT NULL,
+  expired   BIGINT       NOT NULL,
+  updated   BIGINT       NOT NULL,
+  CONSTRAINT pk_sec_login_lockout PRIMARY KEY (principal)
+);
+
+CREATE INDEX idx_sec_login_lockout_expired ON ${ohdsiSchema}.sec_login_lockout (expired);
@@ -0,0 +1,9 @@
+CREATE TABLE ${ohdsiSchema}.generation_cache_lease (
+  type        VARCHAR(255) NOT NULL,
+  design_hash INTEGER      NOT NULL,
+  source_id   INTEGER      NOT NULL,
+  owner       VARCHAR(255) NOT NULL,
+  expires     TIMESTAMP    NOT NULL,
+  heartbeat   TIMESTAMP    NOT NULL,
+  CONSTRAINT pk_generation_cache_lease PRIMARY KEY (type, design_hash, source_id)
+);
@@ -0,0 +1,2 @@
+ALTER TABLE ${ohdsiSchema}.generation_cache ALTER COLUMN design_hash TYPE BIGINT;
+ALTER TABLE ${ohdsiSchema}.generation_cache_lease ALTER COLUMN design_hash TYPE BIGINT;
@@ -0,0 +1,6 @@
+CREATE TABLE ${ohdsiSchema}.flyway_fingerprint (
+  resolvers     VARCHAR(255) NOT NULL,
+  fingerprint   VARCHAR(64)  NOT NULL,
+  modified_date TIMESTAMP    NOT NULL,
+  CONSTRAINT pk_flyway_fingerprint PRIMARY KEY (resolvers)
+);
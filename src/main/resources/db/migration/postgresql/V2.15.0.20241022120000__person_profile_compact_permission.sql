@@ -0,0 +1,22 @@
+-- The compact person profile is granted wherever the person profile is
+INSERT INTO ${ohdsiSchema}.sec_permission (id, value, description)
+SELECT nextval('${ohdsiSchema}.sec_permission_id_seq'),
+       REPLACE(sp.value, ':person:*:get', ':person:*:compact:get'),
+       REPLACE(sp.description, 'profile', 'compact profile')
+FROM ${ohdsiSchema}.sec_permission sp
+WHERE sp.value LIKE '%:person:*:get'
+  AND NOT EXISTS (
+    SELECT 1 FROM ${ohdsiSchema}.sec_permission cp
+    WHERE cp.value = REPLACE(sp.value, ':person:*:get', ':person:*:compact:get')
+  );
+
+INSERT INTO ${ohdsiSchema}.sec_role_permission (id, role_id, permission_id)
+SELECT nextval('${ohdsiSchema}.sec_role_permission_sequence'), srp.role_id, cp.id
+FROM ${ohdsiSchema}.sec_role_permission srp
+JOIN ${ohdsiSchema}.sec_permission sp ON sp.id = srp.permission_id
+JOIN ${ohdsiSchema}.sec_permission cp ON cp.value = REPLACE(sp.value, ':person:*:get', ':person:*:compact:get')
+WHERE sp.value LIKE '%:person:*:get'
+  AND NOT EXISTS (
+    SELECT 1 FROM ${ohdsiSchema}.sec_role_permission crp
+    WHERE crp.role_id = srp.role_id AND crp.permission_id = cp.id
+  );
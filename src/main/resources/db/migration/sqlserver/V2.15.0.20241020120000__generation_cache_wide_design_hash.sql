@@ -0,0 +1,3 @@
+ALTER TABLE ${ohdsiSchema}.generation_cache DROP CONSTRAINT uq_gc_hash;
+ALTER TABLE ${ohdsiSchema}.generation_cache ALTER COLUMN design_hash BIGINT NOT NULL;
+ALTER TABLE ${ohdsiSchema}.generation_cache ADD CONSTRAINT uq_gc_hash UNIQUE (type, design_hash, source_id);
@@ -1,5 +1,5 @@
 IF OBJECT_ID('@results_schema.cohort_censor_stats_cache', 'U') IS NULL
 CREATE TABLE @results_schema.cohort_censor_stats_cache (
-  design_hash int NOT NULL,
+  design_hash bigint NOT NULL,
   lost_count BIGINT NOT NULL
 );
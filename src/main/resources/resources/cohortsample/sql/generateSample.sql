@@ -10,5 +10,4 @@ FROM (
 ) AS cte
 WHERE cohort_definition_id = @cohort_definition_id
       @expression
-ORDER BY RAND()
 ;
\ No newline at end of file
@@ -0,0 +1,7 @@
+SELECT cc.design_hash AS cache_design_hash, ci.design_hash AS inclusion_design_hash,
+  circ.design_hash AS inclusion_result_design_hash, cisc.design_hash AS inclusion_stats_design_hash,
+  cssc.design_hash AS summary_stats_design_hash, ccsc.design_hash AS censor_stats_design_hash
+FROM @results_database_schema.cohort_cache cc, @results_database_schema.cohort_inclusion ci,
+  @results_database_schema.cohort_inclusion_result_cache circ, @results_database_schema.cohort_inclusion_stats_cache cisc,
+  @results_database_schema.cohort_summary_stats_cache cssc, @results_database_schema.cohort_censor_stats_cache ccsc
+WHERE 1 = 0;
@@ -1,5 +1,7 @@
-
-SELECT COUNT_BIG(*) as checksum
+SELECT COUNT_BIG(*) AS row_count,
+  SUM(CAST(subject_id AS NUMERIC(38, 0))) AS subject_sum,
+  SUM(CAST(subject_id AS NUMERIC(38, 0)) * (DATEDIFF(dd, DATEFROMPARTS(1970, 1, 1), cohort_start_date) + 1)) AS start_date_sum,
+  SUM(CAST(subject_id AS NUMERIC(38, 0)) * (DATEDIFF(dd, DATEFROMPARTS(1970, 1, 1), cohort_end_date) + 1)) AS end_date_sum
 FROM @results_database_schema.cohort_cache
 WHERE design_hash = @design_hash
 ;
@@ -0,0 +1,4 @@
+SELECT COUNT_BIG(*) as row_count
+FROM @results_database_schema.cohort_cache
+WHERE design_hash = @design_hash
+;
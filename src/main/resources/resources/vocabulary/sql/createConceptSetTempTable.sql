@@ -1,5 +0,0 @@
-CREATE TABLE #@temp_table
-(
-    concept_code  varchar,
-    vocabulary_id varchar
-);
\ No newline at end of file
@@ -1 +0,0 @@
-INSERT INTO @temp_table (concept_code, vocabulary_id) VALUES (?, ?)
\ No newline at end of file
@@ -1,2 +1,2 @@
-select concept_id from @vocabulary_database_schema.CONCEPT c
-inner join @temp_table t on t.concept_code = c.concept_code and t.vocabulary_id = c.vocabulary_id
\ No newline at end of file
+select distinct c.concept_id from @vocabulary_database_schema.CONCEPT c
+where @concept_filter
@@ -0,0 +1,159 @@
+package org.ohdsi.webapi.audittrail;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.ohdsi.webapi.cohortsample.dto.CohortSampleDTO;
+import org.ohdsi.webapi.cohortsample.dto.SampleElementDTO;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.ws.rs.core.Response;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Expected lines are the ones written by the audit trail before events were captured and formatted asynchronously.
+ */
+public class AuditTrailServiceImplTest {
+
+    private static final String CONCEPT_FIELDS = "{id::Integer,name::String}";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AuditTrailServiceImpl service = new AuditTrailServiceImpl();
+
+    @After
+    public void tearDown() {
+
+        if (ReflectionTestUtils.getField(service, "buffer") != null) {
+            service.destroy();
+        }
+    }
+
+    @Test
+    public void messagesMatchBaseline() {
+
+        Assert.assertEquals("User successfully logged in: admin, sessionId = s1, remote-host = 10.0.0.1",
+                service.format(AuditTrailEvent.message("User successfully logged in: %s, sessionId = %s, remote-host = %s", "admin", "s1", "10.0.0.1")));
+        Assert.assertEquals("admin - Job 12 execution started: generation",
+                service.format(AuditTrailEvent.message("%s - Job %s execution started: %s", "admin", 12L, "generation")));
+    }
+
+    @Test
+    public void restCallsMatchBaseline() {
+
+        Assert.assertEquals("admin 10.0.0.1 s1 - /cohortdefinition - GET /WebAPI/conceptset/1?mode=full - " + CONCEPT_FIELDS,
+                format(entry("admin", "s1", "/cohortdefinition", "mode=full", new Concept()), true));
+        Assert.assertEquals("anonymous 10.0.0.1 NO_SESSION - NO_LOCATION - GET /WebAPI/conceptset/1 - FAILURE (see application log for details)",
+                format(entry(null, null, null, null, new Concept()), false));
+        Assert.assertEquals("admin 10.0.0.1 s1 - /cohortdefinition - GET /WebAPI/conceptset/1",
+                format(entry("admin", "s1", "/cohortdefinition", null, "not an ohdsi class"), true));
+        Assert.assertEquals("admin 10.0.0.1 s1 - /cohortdefinition - GET /WebAPI/conceptset/1",
+                format(entry("admin", "s1", "/cohortdefinition", null, null), true));
+    }
+
+    @Test
+    public void returnedCollectionsMatchBaseline() {
+
+        Assert.assertEquals("admin 10.0.0.1 s1 - /cohortdefinition - GET /WebAPI/conceptset/1 - list of 2 objects " + CONCEPT_FIELDS,
+                format(entry("admin", "s1", "/cohortdefinition", null, Arrays.asList(new Concept(), new Concept())), true));
+        Assert.assertEquals("admin 10.0.0.1 s1 - /cohortdefinition - GET /WebAPI/conceptset/1 - empty list",
+                format(entry("admin", "s1", "/cohortdefinition", null, Collections.emptyList()), true));
+        Assert.assertEquals("admin 10.0.0.1 s1 - /cohortdefinition - GET /WebAPI/conceptset/1 - map (key: String) of 1 objects " + CONCEPT_FIELDS,
+                format(entry("admin", "s1", "/cohortdefinition", null, Collections.singletonMap("a", new Concept())), true));
+        Assert.assertEquals("admin 10.0.0.1 s1 - /cohortdefinition - GET /WebAPI/conceptset/1 - empty map",
+                format(entry("admin", "s1", "/cohortdefinition", null, Collections.emptyMap()), true));
+    }
+
+    @Test
+    public void returnedFilesAndSamplesMatchBaseline() throws Exception {
+
+        File file = folder.newFile("export.zip");
+        Files.write(file.toPath(), new byte[]{1, 2, 3});
+        Assert.assertEquals("admin 10.0.0.1 s1 - /cohortdefinition - GET /WebAPI/conceptset/1 - file export.zip (3 bytes)",
+                format(entry("admin", "s1", "/cohortdefinition", null, Response.ok(file).build()), true));
+        Assert.assertEquals("admin 10.0.0.1 s1 - /cohortdefinition - GET /WebAPI/conceptset/1",
+                format(entry("admin", "s1", "/cohortdefinition", null, Response.ok("text").build()), true));
+
+        CohortSampleDTO sample = new CohortSampleDTO();
+        sample.setElements(Arrays.asList(element("11"), element("12")));
+        Assert.assertEquals("admin 10.0.0.1 s1 - /cohortdefinition - GET /WebAPI/conceptset/1 - "
+                        + "{id::int,name::String,size::int,createdDate::Date,createdBy::UserDTO,cohortDefinitionId::Integer,"
+                        + "sourceId::Integer,age::AgeDTO,gender::GenderDTO,seed::Long,elements::List} Patient IDs (2): 11 12 ",
+                format(entry("admin", "s1", "/cohortdefinition", null, sample), true));
+        sample.setElements(Collections.emptyList());
+        Assert.assertTrue(format(entry("admin", "s1", "/cohortdefinition", null, sample), true).endsWith("} Patient IDs (0): none"));
+    }
+
+    @Test
+    public void pendingAndDroppedEventsAreGauged() {
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(service, "meterRegistry", registry);
+        ReflectionTestUtils.setField(service, "bufferSize", 2);
+        ReflectionTestUtils.setField(service, "overflowPolicyName", "drop");
+        service.init();
+
+        Assert.assertEquals(0, registry.get("webapi.audit.events.dropped").gauge().value(), 0);
+        Assert.assertEquals(0, registry.get("webapi.audit.events.pending").gauge().value(), 0);
+    }
+
+    @Test
+    public void writerIsWokenByPublishedEvent() throws InterruptedException {
+
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "auditTrailEnabled", true);
+        ReflectionTestUtils.setField(service, "bufferSize", 16);
+        ReflectionTestUtils.setField(service, "batchSize", 4);
+        ReflectionTestUtils.setField(service, "overflowPolicyName", "block");
+        service.init();
+
+        for (int i = 0; i < 100; i++) {
+            service.logSuccessfulLogout("user" + i);
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (service.getPendingEvents() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        Assert.assertEquals(0, service.getPendingEvents());
+        Assert.assertEquals(0, service.getDroppedEvents());
+    }
+
+    private String format(AuditTrailEntry entry, boolean success) {
+
+        return service.format(AuditTrailEvent.restCall(entry, success));
+    }
+
+    private AuditTrailEntry entry(String user, String sessionId, String location, String queryString, Object returned) {
+
+        AuditTrailEntry entry = new AuditTrailEntry();
+        entry.setCurrentUser(user);
+        entry.setRemoteHost("10.0.0.1");
+        entry.setSessionId(sessionId);
+        entry.setActionLocation(location);
+        entry.setRequestMethod("GET");
+        entry.setRequestUri("/WebAPI/conceptset/1");
+        entry.setQueryString(queryString);
+        entry.setReturnedObject(returned);
+        return entry;
+    }
+
+    private SampleElementDTO element(String personId) {
+
+        SampleElementDTO element = new SampleElementDTO();
+        element.setPersonId(personId);
+        return element;
+    }
+
+    static class Concept {
+
+        private Integer id;
+        private String name;
+    }
+}
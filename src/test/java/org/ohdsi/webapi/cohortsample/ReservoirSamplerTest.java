@@ -0,0 +1,76 @@
+package org.ohdsi.webapi.cohortsample;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public class ReservoirSamplerTest {
+
+  @Test
+  public void sameSeedProducesSameSampleRegardlessOfRowOrder() {
+
+    List<Long> persons = new ArrayList<>();
+    for (long i = 1; i <= 10_000; i++) {
+      persons.add(i);
+    }
+
+    List<Long> first = sample(persons, 100, 42L);
+    Collections.shuffle(persons, new Random(7));
+    List<Long> second = sample(persons, 100, 42L);
+
+    Assert.assertEquals(100, first.size());
+    Assert.assertEquals(first, second);
+    Assert.assertNotEquals(first, sample(persons, 100, 43L));
+  }
+
+  @Test
+  public void personIsSampledOnlyOnce() {
+
+    List<Long> persons = new ArrayList<>();
+    for (int repeat = 0; repeat < 3; repeat++) {
+      for (long i = 1; i <= 5; i++) {
+        persons.add(i);
+      }
+    }
+
+    List<Long> sampled = sample(persons, 10, 1L);
+
+    Assert.assertEquals(5, sampled.size());
+    Assert.assertEquals(5, sampled.stream().distinct().count());
+  }
+
+  @Test
+  public void ranksFollowSampleOrder() {
+
+    ReservoirSampler sampler = new ReservoirSampler(3, 5L);
+    for (long i = 1; i <= 50; i++) {
+      sampler.offer(element(i));
+    }
+
+    List<SampleElement> sample = sampler.getSample();
+    for (int i = 0; i < sample.size(); i++) {
+      Assert.assertEquals(i, sample.get(i).getRank());
+    }
+  }
+
+  private List<Long> sample(List<Long> persons, int size, long seed) {
+
+    ReservoirSampler sampler = new ReservoirSampler(size, seed);
+    persons.forEach(personId -> sampler.offer(element(personId)));
+    return sampler.getSample().stream()
+            .map(SampleElement::getPersonId)
+            .collect(Collectors.toList());
+  }
+
+  private SampleElement element(long personId) {
+
+    SampleElement element = new SampleElement();
+    element.setPersonId(personId);
+    return element;
+  }
+}
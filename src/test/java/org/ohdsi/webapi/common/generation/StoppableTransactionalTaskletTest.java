@@ -0,0 +1,70 @@
+package org.ohdsi.webapi.common.generation;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.scope.context.ChunkContext;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class StoppableTransactionalTaskletTest {
+
+    private static class TestTasklet extends StoppableTransactionalTasklet<int[]> {
+
+        TestTasklet() {
+            super(LoggerFactory.getLogger(TestTasklet.class), null);
+        }
+
+        @Override
+        protected int[] doTask(ChunkContext chunkContext) {
+            return null;
+        }
+    }
+
+    @Test
+    public void resultIsReturnedOnCompletion() {
+
+        TestTasklet tasklet = new TestTasklet();
+        long start = System.nanoTime();
+        int[] result = tasklet.runAndWait(() -> new int[]{1, 2});
+
+        Assert.assertArrayEquals(new int[]{1, 2}, result);
+        Assert.assertTrue("No polling delay", System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+        tasklet.taskExecutor.shutdown();
+    }
+
+    @Test
+    public void stopInterruptsExecutionAndReturnsAtOnce() throws Exception {
+
+        TestTasklet tasklet = new TestTasklet();
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        new Thread(() -> {
+            try {
+                started.await();
+            } catch (InterruptedException ignored) {
+            }
+            tasklet.stop();
+        }).start();
+
+        long start = System.nanoTime();
+        int[] result = tasklet.runAndWait(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+            return new int[0];
+        });
+
+        Assert.assertNull(result);
+        Assert.assertTrue(tasklet.isStopped());
+        Assert.assertTrue("Stop is not delayed", System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        tasklet.taskExecutor.shutdown();
+        Assert.assertTrue(tasklet.taskExecutor.awaitTermination(5, TimeUnit.SECONDS));
+        Assert.assertTrue("Execution is interrupted", interrupted.get());
+    }
+}
@@ -0,0 +1,145 @@
+package org.ohdsi.webapi.common.generation;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.ohdsi.webapi.AbstractDatabaseTest;
+import org.ohdsi.webapi.source.Source;
+import org.ohdsi.webapi.source.SourceDaimon;
+import org.ohdsi.webapi.source.SourceService;
+import org.ohdsi.webapi.util.CancelableJdbcTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.StatementCallback;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.ohdsi.webapi.Constants.Params.SESSION_ID;
+
+public class TempTableSweeperTest extends AbstractDatabaseTest {
+
+    private static final long FIRST_ID = 990001;
+
+    @Value("${datasource.ohdsi.schema}")
+    private String ohdsiSchema;
+
+    private long nextId = FIRST_ID;
+
+    @After
+    public void tearDown() {
+
+        jdbcTemplate.update(String.format("DELETE FROM %s.batch_job_execution_params WHERE job_execution_id >= ?", ohdsiSchema), FIRST_ID);
+        jdbcTemplate.update(String.format("DELETE FROM %s.batch_job_execution WHERE job_execution_id >= ?", ohdsiSchema), FIRST_ID);
+        jdbcTemplate.update(String.format("DELETE FROM %s.batch_job_instance WHERE job_instance_id >= ?", ohdsiSchema), FIRST_ID);
+    }
+
+    @Test
+    public void tablesAreGroupedBySessionPrefix() {
+
+        Map<String, List<String>> tablesBySession = TempTableSweeper.groupBySession(Arrays.asList(
+                "temp.ABCD1234CODESETS", "temp.abcd1234events", "temp.efgh5678codesets", "temp.cohort"));
+
+        Assert.assertEquals(2, tablesBySession.size());
+        Assert.assertEquals(Arrays.asList("temp.ABCD1234CODESETS", "temp.abcd1234events"), tablesBySession.get("abcd1234"));
+        Assert.assertEquals(Arrays.asList("temp.efgh5678codesets"), tablesBySession.get("efgh5678"));
+    }
+
+    @Test
+    public void onlyTablesOfSessionsEndedLongAgoAreDropped() throws Exception {
+
+        long twoDaysAgo = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2);
+        long instance = jobInstance();
+        jobExecution(instance, "AAAA1111", new Timestamp(twoDaysAgo));
+        // restarted, the new execution of the same instance is still running
+        long restarted = jobInstance();
+        jobExecution(restarted, "bbbb2222", new Timestamp(twoDaysAgo));
+        jobExecution(restarted, "bbbb2222", null);
+        jobExecution(jobInstance(), "cccc3333", new Timestamp(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1)));
+
+        CancelableJdbcTemplate sourceJdbcTemplate = mock(CancelableJdbcTemplate.class);
+        when(sourceJdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn(Arrays.asList(
+                "temp.aaaa1111codesets", "temp.aaaa1111events", "temp.bbbb2222codesets", "temp.cccc3333codesets", "temp.dddd4444codesets"));
+        Statement statement = mock(Statement.class);
+        doAnswer(invocation -> ((StatementCallback<?>) invocation.getArguments()[0]).doInStatement(statement))
+                .when(sourceJdbcTemplate).execute(any(StatementCallback.class));
+
+        sweeper(sourceJdbcTemplate).sweep();
+
+        verify(statement).execute(contains("DROP TABLE temp.aaaa1111codesets"));
+        verify(statement).execute(contains("DROP TABLE temp.aaaa1111events"));
+        verify(statement, never()).execute(contains("bbbb2222"));
+        verify(statement, never()).execute(contains("cccc3333"));
+        verify(statement, never()).execute(contains("dddd4444"));
+    }
+
+    private TempTableSweeper sweeper(CancelableJdbcTemplate sourceJdbcTemplate) {
+
+        Source source = mock(Source.class);
+        when(source.getSourceKey()).thenReturn("source");
+        when(source.getSourceDialect()).thenReturn("sql server");
+        when(source.getTableQualifierOrNull(SourceDaimon.DaimonType.Temp)).thenReturn("temp");
+        SourceService sourceService = mock(SourceService.class);
+        when(sourceService.getSources()).thenReturn(Collections.singletonList(source));
+
+        TempTableSweeper sweeper = new TempTableSweeper() {
+            @Override
+            public SourceService getSourceService() {
+
+                return sourceService;
+            }
+
+            @Override
+            public CancelableJdbcTemplate getSourceJdbcTemplate(Source source) {
+
+                return sourceJdbcTemplate;
+            }
+
+            @Override
+            public JdbcTemplate getJdbcTemplate() {
+
+                return AbstractDatabaseTest.jdbcTemplate;
+            }
+
+            @Override
+            public String getOhdsiSchema() {
+
+                return TempTableSweeperTest.this.ohdsiSchema;
+            }
+        };
+        ReflectionTestUtils.setField(sweeper, "enabled", true);
+        ReflectionTestUtils.setField(sweeper, "maxAgeHours", 24L);
+        return sweeper;
+    }
+
+    private long jobInstance() {
+
+        long id = nextId++;
+        jdbcTemplate.update(String.format("INSERT INTO %s.batch_job_instance (job_instance_id, version, job_name, job_key) VALUES (?, 0, ?, ?)", ohdsiSchema),
+                id, "sweeperTest", String.valueOf(id));
+        return id;
+    }
+
+    private void jobExecution(long instance, String sessionId, Timestamp endTime) {
+
+        long id = nextId++;
+        jdbcTemplate.update(String.format("INSERT INTO %s.batch_job_execution (job_execution_id, version, job_instance_id, create_time, end_time) VALUES (?, 0, ?, ?, ?)", ohdsiSchema),
+                id, instance, new Timestamp(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(3)), endTime);
+        jdbcTemplate.update(String.format("INSERT INTO %s.batch_job_execution_params (job_execution_id, type_cd, key_name, string_val, identifying) VALUES (?, 'STRING', ?, ?, 'Y')", ohdsiSchema),
+                id, SESSION_ID, sessionId);
+    }
+}
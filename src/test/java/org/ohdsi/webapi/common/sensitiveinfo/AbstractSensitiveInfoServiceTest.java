@@ -0,0 +1,108 @@
+package org.ohdsi.webapi.common.sensitiveinfo;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ohdsi.webapi.source.Source;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.Map;
+
+public class AbstractSensitiveInfoServiceTest {
+
+  private static final String TEXT = "Connecting to jdbc:postgresql://localhost:5432/cdm?ssl=true\n"
+          + "user = 'admin'\n"
+          + "Password: 'secret'\n"
+          + "Done\n";
+
+  private AbstractSensitiveInfoService service;
+
+  @Before
+  public void setUp() {
+
+    service = new AbstractSensitiveInfoService();
+    service.init();
+  }
+
+  @Test
+  public void filterReplacesAllFilters() {
+
+    String result = service.filterSensitiveInfo(TEXT, variables(), false);
+
+    Assert.assertEquals("Connecting to [CDM connection string]\n"
+            + "[CDM username]\n"
+            + "[CDM password]\n"
+            + "Done\n", result);
+  }
+
+  @Test
+  public void stringFilterKeepsBaselineMatches() {
+
+    // values may span lines and end at the next quote only
+    Assert.assertEquals("[CDM password]", service.filterSensitiveInfo("password: secret\nuser=admin\r\nDone\n", variables(), false));
+    Assert.assertEquals("[CDM password]", service.filterSensitiveInfo("password:\n  secret", variables(), false));
+    Assert.assertEquals("[CDM password]cret'", service.filterSensitiveInfo("password = 'se\"cret'", variables(), false));
+    Assert.assertEquals("[CDM username]", service.filterSensitiveInfo("USERNAME:admin", variables(), false));
+  }
+
+  @Test
+  public void streamedUnquotedValueEndsAtLineBreak() throws Exception {
+
+    StringWriter out = new StringWriter();
+
+    service.filterSensitiveInfo(new StringReader("password: secret\nuser=admin\r\nDone\n"), out, variables(), false);
+
+    Assert.assertEquals("[CDM password]\n[CDM username]\r\nDone\n", out.toString());
+  }
+
+  @Test
+  public void streamingFilterMasksSingleLineBaselineCases() throws Exception {
+
+    for (String text : new String[]{"password = 'se\"cret'", "USERNAME:admin", "user=\"admin\" host=localhost"}) {
+      StringWriter out = new StringWriter();
+
+      service.filterSensitiveInfo(new StringReader(text), out, variables(), false);
+
+      Assert.assertEquals(service.filterSensitiveInfo(text, variables(), false), out.toString());
+    }
+  }
+
+  @Test
+  public void filterIsSkippedForAdmin() {
+
+    Assert.assertEquals(TEXT, service.filterSensitiveInfo(TEXT, variables(), true));
+  }
+
+  @Test
+  public void streamingFilterMatchesStringFilter() throws Exception {
+
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      text.append(i).append(' ').append(TEXT);
+    }
+    StringWriter out = new StringWriter();
+
+    service.filterSensitiveInfo(new StringReader(text.toString()), out, variables(), false);
+
+    Assert.assertEquals(service.filterSensitiveInfo(text.toString(), variables(), false), out.toString());
+  }
+
+  @Test
+  public void streamingFilterUsesDefaultNameWithoutSource() throws Exception {
+
+    StringWriter out = new StringWriter();
+
+    service.filterSensitiveInfo(new StringReader("url=jdbc:oracle:thin:@host"), out, null, false);
+
+    Assert.assertEquals("url=[Datasource connection string]", out.toString());
+  }
+
+  private Map<String, Object> variables() {
+
+    Source source = new Source();
+    source.setSourceName("CDM");
+    return Collections.singletonMap("source", source);
+  }
+}
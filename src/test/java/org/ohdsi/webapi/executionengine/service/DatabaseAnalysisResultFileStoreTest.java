@@ -0,0 +1,64 @@
+package org.ohdsi.webapi.executionengine.service;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.ohdsi.webapi.executionengine.entity.AnalysisResultFileContent;
+import org.ohdsi.webapi.executionengine.entity.ExecutionEngineAnalysisStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class DatabaseAnalysisResultFileStoreTest {
+
+    private static final byte[] DATA = "analysis_id,count_value\n1,42\n".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void fileIsStreamedIntoRow() throws Exception {
+
+        Path file = folder.getRoot().toPath().resolve("result.csv");
+        Files.write(file, DATA);
+        AnalysisResultFileContent content = new AnalysisResultFileContent(new ExecutionEngineAnalysisStatus(), "result.csv", "text/csv", null);
+        content.getAnalysisResultFile().setId(7L);
+
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        doAnswer(invocation -> {
+            ((PreparedStatementSetter) invocation.getArguments()[1]).setValues(ps);
+            return 1;
+        }).when(jdbcTemplate).update(anyString(), any(PreparedStatementSetter.class));
+        byte[][] streamed = new byte[1][];
+        doAnswer(invocation -> {
+            streamed[0] = IOUtils.toByteArray((InputStream) invocation.getArguments()[1]);
+            return null;
+        }).when(ps).setBinaryStream(eq(1), any(InputStream.class), anyLong());
+
+        new DatabaseAnalysisResultFileStore(jdbcTemplate, "ohdsi").write(content, file);
+
+        verify(jdbcTemplate).update(eq("UPDATE ohdsi.output_file_contents SET file_contents = ?, checksum = ? WHERE output_file_id = ?"),
+                any(PreparedStatementSetter.class));
+        Assert.assertArrayEquals(DATA, streamed[0]);
+        verify(ps).setBinaryStream(eq(1), any(InputStream.class), eq((long) DATA.length));
+        verify(ps).setString(2, ResultFileChecksum.of(file));
+        verify(ps).setLong(3, 7L);
+        Assert.assertNull(content.getContents());
+    }
+}
@@ -0,0 +1,143 @@
+package org.ohdsi.webapi.executionengine.service;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.ohdsi.webapi.executionengine.entity.AnalysisResultFile;
+import org.ohdsi.webapi.executionengine.entity.AnalysisResultFileContent;
+import org.ohdsi.webapi.executionengine.entity.ExecutionEngineAnalysisStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FileSystemAnalysisResultFileStoreTest {
+
+    private static final byte[] DATA = "analysis_id,count_value\n1,42\n".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path root;
+    private FileSystemAnalysisResultFileStore store;
+
+    @Before
+    public void setUp() throws Exception {
+
+        root = folder.newFolder("store").toPath();
+        store = new FileSystemAnalysisResultFileStore(root.toString(), mock(AnalysisResultFileStore.class));
+    }
+
+    @Test
+    public void storedFileIsReadBack() throws Exception {
+
+        AnalysisResultFileContent content = write(DATA);
+
+        Assert.assertNull(content.getContents());
+        Assert.assertEquals(ResultFileChecksum.of(folder.getRoot().toPath().resolve("result.csv")), content.getStorageKey());
+        Assert.assertEquals(content.getStorageKey(), content.getChecksum());
+        try (InputStream in = store.read(fileOf(content))) {
+            Assert.assertArrayEquals(DATA, IOUtils.toByteArray(in));
+        }
+    }
+
+    @Test
+    public void identicalFilesAreStoredOnce() throws Exception {
+
+        AnalysisResultFileContent first = write(DATA);
+        AnalysisResultFileContent second = write(DATA);
+
+        Assert.assertEquals(first.getStorageKey(), second.getStorageKey());
+        try (Stream<Path> files = Files.walk(root)) {
+            Assert.assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void changedFileFailsChecksum() throws Exception {
+
+        AnalysisResultFileContent content = write(DATA);
+        Path stored = storedFile(content);
+        Files.write(stored, "analysis_id,count_value\n1,43\n".getBytes(StandardCharsets.UTF_8));
+
+        try (InputStream in = store.read(fileOf(content))) {
+            IOUtils.toByteArray(in);
+        }
+    }
+
+    @Test(expected = NoSuchFileException.class)
+    public void missingFileFailsRead() throws Exception {
+
+        AnalysisResultFileContent content = write(DATA);
+        Files.delete(storedFile(content));
+
+        store.read(fileOf(content));
+    }
+
+    @Test
+    public void unreferencedFilesAreRemoved() throws Exception {
+
+        AnalysisResultFileContent referenced = write(DATA);
+        AnalysisResultFileContent unreferenced = write("analysis_id,count_value\n1,43\n".getBytes(StandardCharsets.UTF_8));
+
+        int removed = store.removeUnreferenced(Collections.singleton(referenced.getStorageKey()), Instant.now().plusSeconds(60));
+
+        Assert.assertEquals(1, removed);
+        Assert.assertTrue(Files.exists(storedFile(referenced)));
+        try (Stream<Path> files = Files.walk(root)) {
+            Assert.assertFalse(files.anyMatch(file -> file.getFileName().toString().equals(unreferenced.getStorageKey())));
+        }
+    }
+
+    @Test
+    public void recentFilesAreKept() throws Exception {
+
+        AnalysisResultFileContent content = write(DATA);
+        Files.setLastModifiedTime(storedFile(content), FileTime.from(Instant.now().minus(2, ChronoUnit.DAYS)));
+        // storing the same file again makes it recent, its new row may not be committed yet
+        write(DATA);
+
+        int removed = store.removeUnreferenced(Collections.emptySet(), Instant.now().minus(1, ChronoUnit.DAYS));
+
+        Assert.assertEquals(0, removed);
+        Assert.assertTrue(Files.exists(storedFile(content)));
+    }
+
+    private AnalysisResultFileContent write(byte[] data) throws IOException {
+
+        Path file = folder.getRoot().toPath().resolve("result.csv");
+        Files.write(file, data);
+        AnalysisResultFileContent content = new AnalysisResultFileContent(new ExecutionEngineAnalysisStatus(), "result.csv", "text/csv", null);
+        store.write(content, file);
+        return content;
+    }
+
+    private Path storedFile(AnalysisResultFileContent content) throws IOException {
+
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(file -> file.getFileName().toString().equals(content.getStorageKey())).findFirst()
+                    .orElseThrow(() -> new AssertionError("Stored file not found"));
+        }
+    }
+
+    private AnalysisResultFile fileOf(AnalysisResultFileContent content) {
+
+        AnalysisResultFile file = mock(AnalysisResultFile.class);
+        when(file.getContent()).thenReturn(content);
+        return file;
+    }
+}
@@ -3,6 +3,7 @@ package org.ohdsi.webapi.executionengine.service;
 import static org.mockito.Matchers.*;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 
 import java.io.File;
@@ -29,6 +30,7 @@ import org.ohdsi.webapi.executionengine.entity.ExecutionEngineAnalysisStatus;
 import org.ohdsi.webapi.executionengine.entity.ExecutionEngineGenerationEntity;
 import org.ohdsi.webapi.executionengine.repository.ExecutionEngineGenerationRepository;
 import org.ohdsi.webapi.shiro.management.datasource.SourceAccessor;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ScriptExecutionServiceImplTest {
@@ -40,6 +42,9 @@ public class ScriptExecutionServiceImplTest {
     @Mock
     private SourceAccessor sourceAccessor;
 
+    @Spy
+    private AnalysisResultFileStore analysisResultFileStore = new DatabaseAnalysisResultFileStore(mock(JdbcTemplate.class), "ohdsi");
+
     @InjectMocks
     @Spy
     private ScriptExecutionServiceImpl scriptExecutionService;
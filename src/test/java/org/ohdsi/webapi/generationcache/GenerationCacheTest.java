@@ -4,6 +4,7 @@ import com.odysseusinc.arachne.commons.types.DBMSType;
 import com.odysseusinc.arachne.execution_engine_common.api.v1.dto.KerberosAuthMechanism;
 import net.lingala.zip4j.ZipFile;
 import net.lingala.zip4j.exception.ZipException;
+import org.apache.commons.lang3.StringUtils;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -35,6 +36,10 @@ import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
@@ -66,6 +71,9 @@ public class GenerationCacheTest extends AbstractDatabaseTest {
     @Autowired
     private GenerationCacheHelper generationCacheHelper;
 
+    @Autowired
+    private GenerationLeaseManager generationLeaseManager;
+
     @Autowired
     private SourceRepository sourceRepository;
 
@@ -183,28 +191,156 @@ public class GenerationCacheTest extends AbstractDatabaseTest {
                 (resId, sqls) -> {}
         );
 
-        GenerationCache generationCache = generationCacheService.getCacheOrEraseInvalid(type, generationCacheService.getDesignHash(type, cohortDefinition.getDetails().getExpression()), source.getSourceId());
+        GenerationCache generationCache = generationCacheService.getCacheOrEraseInvalid(type, generationCacheService.getDesignHash(type, source, cohortDefinition.getDetails().getExpression()), source.getSourceId());
         Assert.assertNotNull("Empty result set is cached", generationCache);
     }
 
+    @Test
+    public void generationIsKeyedByGivenDesignHash() {
+
+        CohortDefinition cohortDefinition = cohortDefinitionRepository.findOneWithDetail(cohortId);
+        Source source = sourceRepository.findBySourceKey(SOURCE_KEY);
+        Long designHash = generationCacheHelper.computeHash(source, cohortDefinition.getDetails().getExpression());
+
+        GenerationCacheHelper.CacheResult res = generationCacheHelper.computeCacheIfAbsent(
+                cohortDefinition,
+                source,
+                designHash,
+                cohortGenerationRequestBuilder,
+                (resId, sqls) -> Assert.assertEquals("SQL is generated for the given hash", designHash, resId)
+        );
+
+        Assert.assertEquals("Cache is keyed by the given hash", designHash, res.getIdentifier());
+    }
+
+    @Test
+    public void verifyDetectsChangedContent() {
+
+        CohortDefinition cohortDefinition = cohortDefinitionRepository.findOneWithDetail(cohortId);
+        Source source = sourceRepository.findBySourceKey(SOURCE_KEY);
+
+        generationCacheHelper.computeCacheIfAbsent(
+                cohortDefinition,
+                source,
+                cohortGenerationRequestBuilder,
+                (resId, sqls) -> executeCohort(new AtomicBoolean(), resId)
+        );
+
+        generationCacheService.verifyCaches();
+        Assert.assertEquals("Valid cache is kept", 1, generationCacheRepository.count());
+
+        // same number of rows, different content
+        jdbcTemplate.execute(String.format("UPDATE %s.cohort_cache SET cohort_end_date = cohort_end_date + 1;", RESULT_SCHEMA_NAME));
+
+        generationCacheService.verifyCaches();
+        Assert.assertEquals("Cache with changed content is removed", 0, generationCacheRepository.count());
+    }
+
+    @Test
+    public void countOnlyChecksumIsBackfilled() {
+
+        CohortDefinition cohortDefinition = cohortDefinitionRepository.findOneWithDetail(cohortId);
+        Source source = sourceRepository.findBySourceKey(SOURCE_KEY);
+
+        generationCacheHelper.computeCacheIfAbsent(
+                cohortDefinition,
+                source,
+                cohortGenerationRequestBuilder,
+                (resId, sqls) -> executeCohort(new AtomicBoolean(), resId)
+        );
+        GenerationCache generationCache = generationCacheRepository.findAll().get(0);
+        String fingerprint = generationCache.getResultChecksum();
+        // checksum of a cache created before the content fingerprint
+        generationCache.setResultChecksum(StringUtils.substringBefore(fingerprint, GenerationCacheProvider.CHECKSUM_DELIMITER));
+        generationCacheRepository.saveAndFlush(generationCache);
+
+        generationCacheService.verifyCaches();
+
+        Assert.assertEquals("Cache with count-only checksum is kept", 1, generationCacheRepository.count());
+        Assert.assertEquals("Fingerprint is stored", fingerprint, generationCacheRepository.findAll().get(0).getResultChecksum());
+    }
+
+    @Test
+    public void leaseIsHeldByOneOwnerAtATime() throws Exception {
+
+        Integer sourceId = sourceRepository.findBySourceKey(SOURCE_KEY).getSourceId();
+        GenerationLeaseManager.Lease lease = generationLeaseManager.acquire(CacheableGenerationType.COHORT, 1L, sourceId);
+
+        CompletableFuture<GenerationLeaseManager.Lease> follower = CompletableFuture.supplyAsync(
+                () -> generationLeaseManager.acquire(CacheableGenerationType.COHORT, 1L, sourceId));
+        Thread.sleep(500);
+        Assert.assertFalse("Follower waits while the lease is held", follower.isDone());
+
+        lease.close();
+        follower.get(10, TimeUnit.SECONDS).close();
+    }
+
+    @Test
+    public void stoppedGenerationGivesUpWaitingForLease() throws Exception {
+
+        Integer sourceId = sourceRepository.findBySourceKey(SOURCE_KEY).getSourceId();
+        try (GenerationLeaseManager.Lease ignored = generationLeaseManager.acquire(CacheableGenerationType.COHORT, 3L, sourceId)) {
+            AtomicBoolean stopped = new AtomicBoolean();
+            CompletableFuture<GenerationLeaseManager.Lease> follower = CompletableFuture.supplyAsync(
+                    () -> generationLeaseManager.acquire(CacheableGenerationType.COHORT, 3L, sourceId, new Semaphore(1), stopped::get));
+            Thread.sleep(500);
+            Assert.assertFalse("Follower waits while the lease is held", follower.isDone());
+
+            stopped.set(true);
+            try {
+                follower.get(10, TimeUnit.SECONDS);
+                Assert.fail("Stopped follower doesn't get the lease");
+            } catch (ExecutionException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void expiredLeaseIsTakenOver() throws Exception {
+
+        Integer sourceId = sourceRepository.findBySourceKey(SOURCE_KEY).getSourceId();
+        // lease of a node which died without releasing it
+        jdbcTemplate.update(String.format("INSERT INTO %s.generation_cache_lease (type, design_hash, source_id, owner, expires, heartbeat) " +
+                "VALUES (?, ?, ?, 'dead', CURRENT_TIMESTAMP - INTERVAL '1 minute', CURRENT_TIMESTAMP - INTERVAL '2 minute')", ohdsiSchema),
+                CacheableGenerationType.COHORT.name(), 2L, sourceId);
+
+        CompletableFuture.supplyAsync(() -> generationLeaseManager.acquire(CacheableGenerationType.COHORT, 2L, sourceId))
+                .get(10, TimeUnit.SECONDS)
+                .close();
+    }
+
     @Test
     public void checkHashEquivalence() {
 
         CohortDefinition cohortDefinition = cohortDefinitionRepository.findOneWithDetail(cohortId);
+        Source source = sourceRepository.findBySourceKey(SOURCE_KEY);
         
-        Integer originalHash = generationCacheHelper.computeHash(cohortDefinition.getDetails().getExpression());
+        Long originalHash = generationCacheHelper.computeHash(source, cohortDefinition.getDetails().getExpression());
 
         // modify the inclusion rule name/description, but should lead to same hash result
         CohortExpression expression = CohortExpression.fromJson(cohortDefinition.getDetails().getExpression());
         expression.inclusionRules.get(0).name += "...updated name";
         expression.inclusionRules.get(0).description += "..updated description";
 
-        Integer updatedHash = generationCacheHelper.computeHash(Utils.serialize(expression));
+        Long updatedHash = generationCacheHelper.computeHash(source, Utils.serialize(expression));
         
         Assert.assertEquals("Expression with different name and descritpion results in same hash", originalHash,updatedHash);
     }
 
-    private void executeCohort(AtomicBoolean isSqlExecuted, Integer resId) {
+    @Test
+    public void canonicalHashDoesNotDependOnKeyOrder() {
+
+        Assert.assertEquals(
+                CohortGenerationCacheProvider.getCanonicalHash("{\"a\":1,\"b\":{\"c\":[1,2],\"d\":\"x\"}}"),
+                CohortGenerationCacheProvider.getCanonicalHash("{\"b\":{\"d\":\"x\",\"c\":[1,2]},\"a\":1}")
+        );
+        Assert.assertNotEquals(
+                CohortGenerationCacheProvider.getCanonicalHash("{\"b\":{\"c\":[1,2]}}"),
+                CohortGenerationCacheProvider.getCanonicalHash("{\"b\":{\"c\":[2,1]}}")
+        );
+    }
+
+    private void executeCohort(AtomicBoolean isSqlExecuted, Long resId) {
 
         String mockSqlList = SqlRender.renderSql(
                 INSERT_COHORT_RESULTS_SQL,
@@ -217,7 +353,7 @@ public class GenerationCacheTest extends AbstractDatabaseTest {
         isSqlExecuted.set(true);
     }
 
-    private Map<String, Long> retrieveCohortGenerationCounts(Integer generationId) {
+    private Map<String, Long> retrieveCohortGenerationCounts(Long generationId) {
 
         String cohortCountsSql = SqlRender.renderSql(
                 COHORT_COUNTS_SQL,
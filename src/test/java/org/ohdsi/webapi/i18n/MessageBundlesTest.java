@@ -0,0 +1,32 @@
+package org.ohdsi.webapi.i18n;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class MessageBundlesTest {
+
+    private static final String KEY = "pathways.manager.messages.notfound";
+
+    @Test
+    public void messagesAreLookedUpByDottedKey() throws Exception {
+
+        MessageBundles bundles = new MessageBundles(Arrays.asList("en", "ru"), "en");
+
+        Assert.assertEquals("There is no pathway analysis with id = %d.", bundles.get("en", KEY));
+        Assert.assertNotEquals(bundles.get("en", KEY), bundles.get("ru", KEY));
+        Assert.assertNull(bundles.get("en", "pathways.manager"));
+        Assert.assertNull(bundles.get("en", "no.such.key"));
+    }
+
+    @Test
+    public void unknownLanguageFallsBackToDefault() throws Exception {
+
+        MessageBundles bundles = new MessageBundles(Arrays.asList("en", "ru"), "en");
+
+        Assert.assertEquals(bundles.get("en", KEY), bundles.get("xx", KEY));
+        Assert.assertEquals("", bundles.getResource("xx"));
+        Assert.assertFalse(bundles.getResource("ru").isEmpty());
+    }
+}
@@ -0,0 +1,110 @@
+package org.ohdsi.webapi.ircalc;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AnalysisReportCacheTest {
+
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @Test
+  public void reportIsLoadedOncePerGenerationAndPair() {
+
+    AnalysisReportCache cache = new AnalysisReportCache(10);
+    ExecutionInfo info = executionInfo(1, 2, 1000L);
+
+    cache.get(info, 10, 20, this::load);
+    cache.get(info, 10, 20, this::load);
+    cache.get(info, 10, 21, this::load);
+
+    Assert.assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void callerChangesDontAffectCachedReport() {
+
+    AnalysisReportCache cache = new AnalysisReportCache(10);
+    ExecutionInfo info = executionInfo(1, 2, 1000L);
+
+    AnalysisReport first = cache.get(info, 10, 20, this::load);
+    first.summary.cases = 100;
+    first.stratifyStats.get(0).name = "changed";
+    first.stratifyStats.clear();
+
+    AnalysisReport second = cache.get(info, 10, 20, this::load);
+    Assert.assertNotSame(first, second);
+    Assert.assertEquals(5, second.summary.cases);
+    Assert.assertEquals(1, second.stratifyStats.size());
+    Assert.assertEquals("strata", second.stratifyStats.get(0).name);
+    Assert.assertEquals("{}", second.treemapData);
+    Assert.assertEquals(1, loads.get());
+  }
+
+  @Test
+  public void newGenerationIsNotServedFromCache() {
+
+    AnalysisReportCache cache = new AnalysisReportCache(10);
+    AnalysisReport first = cache.get(executionInfo(1, 2, 1000L), 10, 20, this::load);
+
+    Assert.assertNotSame(first, cache.get(executionInfo(1, 2, 2000L), 10, 20, this::load));
+  }
+
+  @Test
+  public void evictRemovesAllPairsOfGeneration() {
+
+    AnalysisReportCache cache = new AnalysisReportCache(10);
+    ExecutionInfo info = executionInfo(1, 2, 1000L);
+    ExecutionInfo other = executionInfo(1, 3, 1000L);
+    cache.get(info, 10, 20, this::load);
+    cache.get(info, 10, 21, this::load);
+    cache.get(other, 10, 20, this::load);
+
+    cache.evict(info.getId());
+    cache.get(info, 10, 20, this::load);
+    cache.get(other, 10, 20, this::load);
+
+    Assert.assertEquals(4, loads.get());
+  }
+
+  @Test
+  public void leastRecentlyUsedReportIsDropped() {
+
+    AnalysisReportCache cache = new AnalysisReportCache(2);
+    ExecutionInfo info = executionInfo(1, 2, 1000L);
+    cache.get(info, 1, 1, this::load);
+    cache.get(info, 1, 2, this::load);
+    cache.get(info, 1, 1, this::load);
+    cache.get(info, 1, 3, this::load);
+
+    cache.get(info, 1, 1, this::load);
+    Assert.assertEquals(3, loads.get());
+    cache.get(info, 1, 2, this::load);
+    Assert.assertEquals(4, loads.get());
+  }
+
+  private AnalysisReport load() {
+
+    loads.incrementAndGet();
+    AnalysisReport report = new AnalysisReport();
+    report.summary = new AnalysisReport.Summary();
+    report.summary.cases = 5;
+    AnalysisReport.StrataStatistic strata = new AnalysisReport.StrataStatistic();
+    strata.name = "strata";
+    report.stratifyStats = new ArrayList<>(Collections.singletonList(strata));
+    report.treemapData = "{}";
+    return report;
+  }
+
+  private ExecutionInfo executionInfo(int analysisId, int sourceId, long startTime) {
+
+    ExecutionInfo info = new ExecutionInfo();
+    info.setId(new ExecutionInfoId(analysisId, sourceId));
+    info.setStartTime(new Date(startTime));
+    return info;
+  }
+}
@@ -0,0 +1,85 @@
+package org.ohdsi.webapi.metrics;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.uri.UriTemplate;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ohdsi.webapi.util.CancelableJdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MetricsTest {
+
+    private final PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+
+    @Before
+    public void setUp() {
+
+        Metrics.addRegistry(registry);
+    }
+
+    @After
+    public void tearDown() {
+
+        Metrics.removeRegistry(registry);
+    }
+
+    @Test
+    public void sourceStatementsAreTimedAndScraped() throws Exception {
+
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(mock(Statement.class));
+        CancelableJdbcTemplate jdbcTemplate = new CancelableJdbcTemplate(dataSource);
+        jdbcTemplate.setMetricTags("source1", "postgresql");
+
+        jdbcTemplate.execute("SELECT 1");
+        jdbcTemplate.execute("SELECT 2");
+
+        Assert.assertEquals(2, registry.get(CancelableJdbcTemplate.TIMER)
+                .tag("source", "source1").tag("dialect", "postgresql").tag("outcome", "success")
+                .timer().count());
+        String scrape = new MetricsController(registry).scrape();
+        Assert.assertTrue(scrape.contains("webapi_jdbc_seconds_count"));
+        Assert.assertTrue(scrape.contains("source=\"source1\""));
+    }
+
+    @Test
+    public void cacheRequestsAreCountedByResult() {
+
+        CacheMetrics.hit("test", 3);
+        CacheMetrics.miss("test", 1);
+        CacheMetrics.miss("test", 0);
+
+        Assert.assertEquals(3, registry.get(CacheMetrics.COUNTER).tag("cache", "test").tag("result", "hit").counter().count(), 0);
+        Assert.assertEquals(1, registry.get(CacheMetrics.COUNTER).tag("cache", "test").tag("result", "miss").counter().count(), 0);
+    }
+
+    @Test
+    public void requestsAreTaggedWithPathTemplate() {
+
+        RequestEvent event = mock(RequestEvent.class);
+        ExtendedUriInfo uriInfo = mock(ExtendedUriInfo.class);
+        when(event.getUriInfo()).thenReturn(uriInfo);
+
+        when(uriInfo.getMatchedTemplates()).thenReturn(Arrays.asList(new UriTemplate("/{id}/"), new UriTemplate("/cohortdefinition/")));
+        Assert.assertEquals("/cohortdefinition/{id}", JerseyMetricsListener.getTemplate(event));
+
+        when(uriInfo.getMatchedTemplates()).thenReturn(Collections.emptyList());
+        Assert.assertEquals("UNMATCHED", JerseyMetricsListener.getTemplate(event));
+    }
+}
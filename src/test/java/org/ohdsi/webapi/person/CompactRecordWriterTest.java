@@ -0,0 +1,88 @@
+package org.ohdsi.webapi.person;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import org.junit.Test;
+
+public class CompactRecordWriterTest {
+
+  private static final Timestamp JAN_1 = Timestamp.valueOf("2020-01-01 00:00:00");
+  private static final Timestamp JAN_5 = Timestamp.valueOf("2020-01-05 00:00:00");
+  private static final Timestamp FEB_1 = Timestamp.valueOf("2020-02-01 00:00:00");
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  public void recordsReferenceConceptsAndDomainsByIndex() throws IOException {
+
+    JsonNode profile = write(null, true, writer -> {
+      writer.write(1L, "Aspirin", "drug", JAN_1, JAN_5);
+      writer.write(2L, "Headache", "condition", JAN_5, null);
+      writer.write(1L, "Aspirin", "drug", FEB_1, null);
+    });
+
+    assertEquals(3, profile.get("recordCount").asInt());
+    assertEquals("[1,2]", profile.get("concepts").get("conceptId").toString());
+    assertEquals("[\"Aspirin\",\"Headache\"]", profile.get("concepts").get("conceptName").toString());
+    assertEquals("[\"drug\",\"condition\"]", profile.get("domains").toString());
+
+    JsonNode records = profile.get("records");
+    assertEquals("[0,0,0,4," + JAN_1.getTime() + "," + JAN_5.getTime() + "]", records.get(0).toString());
+    assertEquals("[1,1,4,4," + JAN_5.getTime() + ",null]", records.get(1).toString());
+    assertEquals("[0,0,31,31," + FEB_1.getTime() + ",null]", records.get(2).toString());
+  }
+
+  @Test
+  public void daysAreRelativeToGivenIndexDate() throws IOException {
+
+    JsonNode profile = write(LocalDateTime.of(2020, 1, 5, 0, 0), false, writer -> {
+      writer.write(1L, "Aspirin", "drug", JAN_1, FEB_1);
+    });
+
+    assertEquals("[0,0,-4,27]", profile.get("records").get(0).toString());
+  }
+
+  @Test
+  public void noRecords() throws IOException {
+
+    StringWriter out = new StringWriter();
+    CompactRecordWriter writer;
+    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+      generator.writeStartObject();
+      writer = new CompactRecordWriter(generator, null, true);
+      writer.finish();
+      generator.writeEndObject();
+    }
+
+    JsonNode profile = objectMapper.readTree(out.toString());
+    assertEquals(0, profile.get("recordCount").asInt());
+    assertEquals(0, profile.get("records").size());
+    assertNull(writer.getIndexDate());
+  }
+
+  private JsonNode write(LocalDateTime indexDate, boolean showDates, Records records) throws IOException {
+
+    StringWriter out = new StringWriter();
+    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+      generator.writeStartObject();
+      CompactRecordWriter writer = new CompactRecordWriter(generator, indexDate, showDates);
+      records.write(writer);
+      writer.finish();
+      generator.writeEndObject();
+    }
+    return objectMapper.readTree(out.toString());
+  }
+
+  private interface Records {
+
+    void write(CompactRecordWriter writer) throws IOException;
+  }
+}
@@ -0,0 +1,64 @@
+package org.ohdsi.webapi.person;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.Test;
+
+public class PersonRecordColumnsTest {
+
+  private static final Timestamp JAN_1 = Timestamp.valueOf("2020-01-01 00:00:00");
+  private static final Timestamp JAN_5 = Timestamp.valueOf("2020-01-05 00:00:00");
+  private static final Timestamp FEB_1 = Timestamp.valueOf("2020-02-01 00:00:00");
+
+  @Test
+  public void recordsAreReturnedAsAdded() {
+
+    PersonRecordColumns columns = new PersonRecordColumns();
+    columns.add(1L, "Aspirin", "drug", JAN_5, FEB_1);
+    columns.add(2L, "Headache", "condition", JAN_1, null);
+    columns.add(1L, "Aspirin", "drug", FEB_1, null);
+
+    List<PersonRecord> records = columns.toRecords();
+    assertEquals(3, records.size());
+    assertRecord(records.get(0), 1L, "Aspirin", "drug", JAN_5, FEB_1);
+    assertRecord(records.get(1), 2L, "Headache", "condition", JAN_1, null);
+    assertRecord(records.get(2), 1L, "Aspirin", "drug", FEB_1, null);
+  }
+
+  @Test
+  public void firstStartDateIsEarliestStartDate() {
+
+    PersonRecordColumns columns = new PersonRecordColumns();
+    assertNull(columns.getFirstStartDate());
+
+    columns.add(1L, "Aspirin", "drug", JAN_5, FEB_1);
+    columns.add(2L, "Headache", "condition", JAN_1, null);
+    assertEquals(LocalDateTime.of(2020, 1, 1, 0, 0), columns.getFirstStartDate());
+  }
+
+  @Test
+  public void columnsGrowBeyondInitialCapacity() {
+
+    PersonRecordColumns columns = new PersonRecordColumns();
+    for (int i = 0; i < 1000; i++) {
+      columns.add(i % 10, "concept " + (i % 10), "domain " + (i % 3), new Timestamp(JAN_1.getTime() + i), null);
+    }
+
+    assertEquals(1000, columns.size());
+    List<PersonRecord> records = columns.toRecords();
+    assertRecord(records.get(999), 9L, "concept 9", "domain 0", new Timestamp(JAN_1.getTime() + 999), null);
+  }
+
+  private void assertRecord(PersonRecord record, long conceptId, String conceptName, String domain, Timestamp startDate, Timestamp endDate) {
+
+    assertEquals(Long.valueOf(conceptId), record.conceptId);
+    assertEquals(conceptName, record.conceptName);
+    assertEquals(domain, record.domain);
+    assertEquals(startDate, record.startDate);
+    assertEquals(endDate, record.endDate);
+  }
+}
@@ -1,11 +1,41 @@
 package org.ohdsi.webapi.service;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import javax.sql.DataSource;
+import javax.ws.rs.ServiceUnavailableException;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.ohdsi.webapi.person.CohortPerson;
+import org.ohdsi.webapi.person.ObservationPeriod;
+import org.ohdsi.webapi.source.Source;
+import org.ohdsi.webapi.source.SourceService;
+import org.ohdsi.webapi.util.CancelableJdbcTemplate;
 import org.ohdsi.webapi.util.PreparedStatementRenderer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
 
 public class PersonServiceTest extends AbstractServiceTest {
 
@@ -44,4 +74,120 @@ public class PersonServiceTest extends AbstractServiceTest {
       Assert.assertEquals(param, 5555L);
     }
   }
+
+  @Test
+  public void compactProfileIsStreamedInStartDateOrder() throws Exception {
+
+    CancelableJdbcTemplate jdbcTemplate = mockSourceQueries();
+    PersonService service = personServiceOver(jdbcTemplate);
+    service.init();
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      service.getPersonProfileCompact("source", "5555", 7L).write(out);
+      JsonNode profile = new ObjectMapper().readTree(out.toByteArray());
+
+      Assert.assertEquals("FEMALE", profile.get("gender").asText());
+      Assert.assertEquals(1970, profile.get("yearOfBirth").asInt());
+      Assert.assertEquals(50, profile.get("ageAtIndex").asInt());
+      Assert.assertEquals(3, profile.get("recordCount").asInt());
+      Assert.assertEquals("[1,2]", profile.get("concepts").get("conceptId").toString());
+      Assert.assertEquals("[\"drug\",\"condition\"]", profile.get("domains").toString());
+      // days are relative to the start of cohort 7
+      Assert.assertEquals("[0,0,-4,0]", profile.get("records").get(0).toString());
+      Assert.assertEquals("[1,1,0,0]", profile.get("records").get(1).toString());
+      Assert.assertEquals("[0,0,27,27]", profile.get("records").get(2).toString());
+      Assert.assertEquals(-4, profile.get("observationPeriods").get(0).get("x1").asInt());
+      Assert.assertTrue(profile.get("observationPeriods").get(0).get("startDate").isNull());
+
+      verify(jdbcTemplate).query(contains("ORDER BY start_date"), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+    } finally {
+      service.destroy();
+    }
+  }
+
+  @Test
+  public void submittedQueriesAreCancelledWhenProfileIsRejected() throws SQLException {
+
+    PersonService service = personServiceOver(mockSourceQueries());
+    ExecutorService executor = mock(ExecutorService.class);
+    Future<?> submitted = mock(Future.class);
+    doAnswer(invocation -> submitted).doThrow(new RejectedExecutionException()).when(executor).submit(any(Callable.class));
+    ReflectionTestUtils.setField(service, "profileExecutor", executor);
+
+    try {
+      service.getPersonProfile("source", "5555", 0L);
+      Assert.fail("profile should be rejected");
+    } catch (ServiceUnavailableException e) {
+      verify(submitted).cancel(true);
+    }
+  }
+
+  private PersonService personServiceOver(CancelableJdbcTemplate jdbcTemplate) {
+
+    SourceService sourceService = mock(SourceService.class);
+    when(sourceService.findBySourceKey("source")).thenReturn(getSource());
+    PersonService service = new PersonService() {
+      @Override
+      public SourceService getSourceService() {
+
+        return sourceService;
+      }
+
+      @Override
+      public CancelableJdbcTemplate getSourceJdbcTemplate(Source source) {
+
+        return jdbcTemplate;
+      }
+    };
+    ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+    ReflectionTestUtils.setField(service, "viewDatesPermitted", false);
+    ReflectionTestUtils.setField(service, "queryThreads", 2);
+    ReflectionTestUtils.setField(service, "queueSize", 2);
+    return service;
+  }
+
+  private CancelableJdbcTemplate mockSourceQueries() throws SQLException {
+
+    CancelableJdbcTemplate jdbcTemplate = mock(CancelableJdbcTemplate.class);
+    DataSource dataSource = mock(DataSource.class);
+    when(dataSource.getConnection()).thenReturn(mock(Connection.class));
+    when(jdbcTemplate.getDataSource()).thenReturn(dataSource);
+
+    ResultSet person = mock(ResultSet.class);
+    when(person.getInt("year_of_birth")).thenReturn(1970);
+    when(person.getString("gender")).thenReturn("FEMALE");
+    doAnswer(invocation -> {
+      ((RowCallbackHandler) invocation.getArguments()[2]).processRow(person);
+      return null;
+    }).when(jdbcTemplate).query(contains("year_of_birth"), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+
+    ObservationPeriod period = new ObservationPeriod();
+    period.startDate = Timestamp.valueOf("2020-01-01 00:00:00");
+    period.endDate = Timestamp.valueOf("2020-12-31 00:00:00");
+    when(jdbcTemplate.query(contains("observation_period_id"), any(PreparedStatementSetter.class), any(RowMapper.class)))
+            .thenReturn(Collections.singletonList(period));
+
+    CohortPerson cohort = new CohortPerson();
+    cohort.cohortDefinitionId = 7L;
+    cohort.startDate = Timestamp.valueOf("2020-01-05 00:00:00");
+    cohort.endDate = Timestamp.valueOf("2020-02-05 00:00:00");
+    when(jdbcTemplate.query(contains("cohort_definition_id"), any(PreparedStatementSetter.class), any(RowMapper.class)))
+            .thenReturn(Collections.singletonList(cohort));
+
+    ResultSet records = mock(ResultSet.class);
+    when(records.getLong("concept_id")).thenReturn(1L, 2L, 1L);
+    when(records.getString("concept_name")).thenReturn("Aspirin", "Headache", "Aspirin");
+    when(records.getString("domain")).thenReturn("drug", "condition", "drug");
+    when(records.getTimestamp("start_date")).thenReturn(Timestamp.valueOf("2020-01-01 00:00:00"),
+            Timestamp.valueOf("2020-01-05 00:00:00"), Timestamp.valueOf("2020-02-01 00:00:00"));
+    when(records.getTimestamp("end_date")).thenReturn(Timestamp.valueOf("2020-01-05 00:00:00"), null, null);
+    doAnswer(invocation -> {
+      RowCallbackHandler handler = (RowCallbackHandler) invocation.getArguments()[2];
+      for (int i = 0; i < 3; i++) {
+        handler.processRow(records);
+      }
+      return null;
+    }).when(jdbcTemplate).query(contains("drug_exposure"), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+    return jdbcTemplate;
+  }
 }
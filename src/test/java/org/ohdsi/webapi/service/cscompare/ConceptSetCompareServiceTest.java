@@ -0,0 +1,75 @@
+package org.ohdsi.webapi.service.cscompare;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ConceptSetCompareServiceTest {
+
+    @Test
+    public void codesAreMatchedByVocabulary() {
+
+        Map<String, Set<String>> codesByVocabulary = new LinkedHashMap<>();
+        codesByVocabulary.put("ICD10CM", new LinkedHashSet<>(Arrays.asList("E11", "E11.9")));
+        codesByVocabulary.put("SNOMED", new LinkedHashSet<>(Arrays.asList("44054006")));
+        List<Object> params = new ArrayList<>();
+
+        String filter = ConceptSetCompareService.buildCodeFilter(codesByVocabulary, params);
+
+        Assert.assertEquals("(c.vocabulary_id = ? and c.concept_code in (?, ?)) or (c.vocabulary_id = ? and c.concept_code in (?))", filter);
+        Assert.assertEquals(Arrays.asList("ICD10CM", "E11", "E11.9", "SNOMED", "44054006"), params);
+    }
+
+    @Test
+    public void emptyExpressionMatchesNothing() {
+
+        List<Object> params = new ArrayList<>();
+
+        Assert.assertEquals("1 = 0", ConceptSetCompareService.buildCodeFilter(new LinkedHashMap<>(), params));
+        Assert.assertTrue(params.isEmpty());
+        Assert.assertEquals("1 = 0", ConceptSetCompareService.buildIdFilter(new ArrayList<>()));
+    }
+
+    @Test
+    public void largeListsAreSplit() {
+
+        Set<String> codes = new LinkedHashSet<>();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < ConceptSetCompareService.MAX_IN_LIST_SIZE + 1; i++) {
+            codes.add("code" + i);
+            ids.add((long) i);
+        }
+        Map<String, Set<String>> codesByVocabulary = new LinkedHashMap<>();
+        codesByVocabulary.put("SNOMED", codes);
+        List<Object> params = new ArrayList<>();
+
+        String filter = ConceptSetCompareService.buildCodeFilter(codesByVocabulary, params);
+
+        Assert.assertEquals(2, filter.split(" or ").length);
+        Assert.assertEquals(codes.size() + 2, params.size());
+        Assert.assertEquals(2, ConceptSetCompareService.buildIdFilter(ids).split(" or ").length);
+    }
+
+    @Test
+    public void batchesHaveLimitedNumberOfCodes() {
+
+        Map<String, Set<String>> codesByVocabulary = new LinkedHashMap<>();
+        codesByVocabulary.put("ICD10CM", new LinkedHashSet<>(Arrays.asList("E11", "E11.9", "E10")));
+        codesByVocabulary.put("SNOMED", new LinkedHashSet<>(Arrays.asList("44054006", "46635009")));
+
+        List<Map<String, Set<String>>> batches = ConceptSetCompareService.partition(codesByVocabulary, 2);
+
+        Assert.assertEquals(3, batches.size());
+        Assert.assertEquals(new LinkedHashSet<>(Arrays.asList("E11", "E11.9")), batches.get(0).get("ICD10CM"));
+        Assert.assertEquals(new LinkedHashSet<>(Arrays.asList("E10")), batches.get(1).get("ICD10CM"));
+        Assert.assertEquals(new LinkedHashSet<>(Arrays.asList("44054006")), batches.get(1).get("SNOMED"));
+        Assert.assertEquals(new LinkedHashSet<>(Arrays.asList("46635009")), batches.get(2).get("SNOMED"));
+    }
+}
@@ -0,0 +1,131 @@
+package org.ohdsi.webapi.shiro.lockout;
+
+import com.odysseusinc.logging.event.LockoutStartEvent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DefaultLockoutPolicyTest {
+
+    private static final long WINDOW = TimeUnit.HOURS.toMillis(1);
+
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final LockoutStrategy strategy = attempts -> TimeUnit.MINUTES.toMillis(1);
+
+    @Test
+    public void principalIsLockedAfterMaxAttempts() {
+
+        DefaultLockoutPolicy policy = new DefaultLockoutPolicy(strategy, 3, eventPublisher);
+
+        policy.loginFailed("user");
+        policy.loginFailed("user");
+        Assert.assertFalse(policy.isLockedOut("user"));
+        policy.loginFailed("user");
+        Assert.assertTrue(policy.isLockedOut("user"));
+        Assert.assertFalse(policy.isLockedOut("other"));
+        verify(eventPublisher, times(1)).publishEvent(any(LockoutStartEvent.class));
+    }
+
+    @Test
+    public void successfulLoginResetsAttempts() {
+
+        DefaultLockoutPolicy policy = new DefaultLockoutPolicy(strategy, 3, eventPublisher);
+
+        policy.loginFailed("user");
+        policy.loginFailed("user");
+        policy.loginSucceeded("user");
+        policy.loginFailed("user");
+        policy.loginFailed("user");
+        Assert.assertFalse(policy.isLockedOut("user"));
+    }
+
+    @Test
+    public void successfulLoginWithoutFailuresDoesntWriteStore() {
+
+        LockoutStore store = mock(LockoutStore.class);
+        when(store.addAttempts(anyString(), anyInt())).thenReturn(new LockEntry(1, LockEntry.EXPIRED_NOT_SET));
+        when(store.get("user")).thenReturn(null, new LockEntry(1, LockEntry.EXPIRED_NOT_SET));
+        DefaultLockoutPolicy policy = new DefaultLockoutPolicy(strategy, 3, eventPublisher, store, 1, WINDOW);
+
+        policy.loginSucceeded("user");
+        verify(store, never()).remove("user");
+
+        policy.loginFailed("user");
+        policy.loginSucceeded("user");
+        verify(store, times(1)).remove("user");
+    }
+
+    @Test
+    public void failuresBelowAdmissionThresholdDontReachStore() {
+
+        InMemoryLockoutStore store = new InMemoryLockoutStore();
+        DefaultLockoutPolicy policy = new DefaultLockoutPolicy(strategy, 3, eventPublisher, store, 2, WINDOW);
+
+        for (int i = 0; i < 1000; i++) {
+            policy.loginFailed("user" + i);
+        }
+        Assert.assertNull(store.get("user1"));
+
+        policy.loginFailed("user1");
+        Assert.assertEquals(2, store.get("user1").getAttempts());
+        policy.loginFailed("user1");
+        Assert.assertEquals(3, store.get("user1").getAttempts());
+        Assert.assertTrue(policy.isLockedOut("user1"));
+    }
+
+    @Test
+    public void sharedStoreCountsFailuresOfAllNodes() {
+
+        InMemoryLockoutStore store = new InMemoryLockoutStore();
+        DefaultLockoutPolicy node1 = new DefaultLockoutPolicy(strategy, 3, eventPublisher, store, 1, WINDOW);
+        DefaultLockoutPolicy node2 = new DefaultLockoutPolicy(strategy, 3, eventPublisher, store, 1, WINDOW);
+
+        node1.loginFailed("user");
+        node2.loginFailed("user");
+        node1.loginFailed("user");
+        Assert.assertTrue(node2.isLockedOut("user"));
+    }
+
+    @Test
+    public void successfulLoginClearsFailuresOfOtherNodes() {
+
+        InMemoryLockoutStore store = new InMemoryLockoutStore();
+        DefaultLockoutPolicy node1 = new DefaultLockoutPolicy(strategy, 3, eventPublisher, store, 1, WINDOW);
+        DefaultLockoutPolicy node2 = new DefaultLockoutPolicy(strategy, 3, eventPublisher, store, 1, WINDOW);
+
+        node2.loginFailed("user");
+        node2.loginFailed("user");
+        node1.loginSucceeded("user");
+        Assert.assertNull(store.get("user"));
+
+        node2.loginFailed("user");
+        node2.loginFailed("user");
+        Assert.assertFalse(node1.isLockedOut("user"));
+    }
+
+    @Test
+    public void frontTierForgetsFailuresOutsideWindow() {
+
+        LockoutFrontTier frontTier = new LockoutFrontTier(WINDOW);
+        long now = System.currentTimeMillis();
+
+        frontTier.recordFailure("user", now);
+        Assert.assertEquals(2, frontTier.recordFailure("user", now));
+        Assert.assertEquals(2, frontTier.estimate("user", now + WINDOW / 2));
+        Assert.assertEquals(0, frontTier.estimate("user", now + 2 * WINDOW));
+
+        frontTier.reset("user", now);
+        Assert.assertEquals(0, frontTier.estimate("user", now));
+    }
+}
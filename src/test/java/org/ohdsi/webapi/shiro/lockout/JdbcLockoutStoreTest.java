@@ -0,0 +1,103 @@
+package org.ohdsi.webapi.shiro.lockout;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ohdsi.webapi.AbstractDatabaseTest;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+public class JdbcLockoutStoreTest extends AbstractDatabaseTest {
+
+    @Value("${datasource.ohdsi.schema}")
+    private String ohdsiSchema;
+
+    private JdbcLockoutStore store;
+
+    @Before
+    public void setUp() {
+
+        store = new JdbcLockoutStore(jdbcTemplate, ohdsiSchema);
+    }
+
+    @After
+    public void tearDown() {
+
+        jdbcTemplate.execute(String.format("TRUNCATE %s.sec_login_lockout", ohdsiSchema));
+    }
+
+    @Test
+    public void attemptsAreAddedToEntry() {
+
+        Assert.assertNull(store.get("user"));
+
+        LockEntry entry = store.addAttempts("user", 2);
+        Assert.assertEquals(2, entry.getAttempts());
+        Assert.assertEquals(LockEntry.EXPIRED_NOT_SET, entry.getExpired());
+        Assert.assertEquals(3, store.addAttempts("user", 1).getAttempts());
+        Assert.assertEquals(3, store.get("user").getAttempts());
+
+        store.remove("user");
+        Assert.assertNull(store.get("user"));
+    }
+
+    @Test
+    public void concurrentAttemptsAreNotLost() throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CompletableFuture.allOf(IntStream.range(0, 40)
+                    .mapToObj(i -> CompletableFuture.runAsync(() -> store.addAttempts("user", 1), executor))
+                    .toArray(CompletableFuture[]::new)).get();
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals(40, store.get("user").getAttempts());
+    }
+
+    @Test
+    public void lockIsSkippedWhenEntryChanged() {
+
+        store.addAttempts("user", 3);
+        store.addAttempts("user", 1);
+
+        store.lock("user", 3, 1000L);
+        Assert.assertEquals(LockEntry.EXPIRED_NOT_SET, store.get("user").getExpired());
+
+        store.lock("user", 4, 1000L);
+        Assert.assertEquals(1000L, store.get("user").getExpired());
+    }
+
+    @Test
+    public void expiredLocksAreRemoved() {
+
+        store.addAttempts("expired", 3);
+        store.lock("expired", 3, 1000L);
+        store.addAttempts("locked", 3);
+        store.lock("locked", 3, 5000L);
+        store.addAttempts("failed", 1);
+
+        Assert.assertEquals(Collections.singletonList("expired"), store.removeExpiredLocks(3, 2000L));
+        Assert.assertNull(store.get("expired"));
+        Assert.assertNotNull(store.get("locked"));
+        Assert.assertNotNull(store.get("failed"));
+    }
+
+    @Test
+    public void staleEntriesBelowThresholdAreRemoved() {
+
+        store.addAttempts("failed", 1);
+        store.addAttempts("locked", 3);
+        store.lock("locked", 3, System.currentTimeMillis() + 60000);
+
+        store.removeStale(3, System.currentTimeMillis() + 1);
+        Assert.assertNull(store.get("failed"));
+        Assert.assertNotNull(store.get("locked"));
+    }
+}
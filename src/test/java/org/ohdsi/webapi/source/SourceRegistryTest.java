@@ -0,0 +1,89 @@
+package org.ohdsi.webapi.source;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class SourceRegistryTest {
+
+    @Test
+    public void sourcesAreServedAsSnapshots() {
+
+        Source entity = source(1, "B", 0);
+        SourceRegistry registry = new SourceRegistry(Arrays.asList(entity, source(2, "A", 1)), 0);
+
+        SourceSnapshot snapshot = registry.findBySourceKey("B");
+        Assert.assertSame(snapshot, registry.findBySourceId(1));
+        Assert.assertEquals("results_1", snapshot.getTableQualifierOrNull(SourceDaimon.DaimonType.Results));
+        Assert.assertEquals("A", registry.getSources().iterator().next().getSourceKey());
+        Assert.assertNull(registry.findBySourceKey("C"));
+
+        entity.setSourceName("changed");
+        entity.getKeyfile()[0] = 0;
+        entity.getDaimons().iterator().next().setTableQualifier("changed");
+        Source copy = snapshot.toSource();
+        Assert.assertEquals("source 1", copy.getSourceName());
+        Assert.assertEquals(1, copy.getKeyfile()[0]);
+        Assert.assertEquals("results_1", copy.getTableQualifier(SourceDaimon.DaimonType.Results));
+    }
+
+    @Test
+    public void copiesAreIndependent() {
+
+        SourceSnapshot snapshot = new SourceRegistry(Arrays.asList(source(1, "A", 0)), 0).findBySourceKey("A");
+
+        Source copy = snapshot.toSource();
+        Assert.assertNotSame(copy, snapshot.toSource());
+        SourceDaimon daimon = copy.getDaimons().iterator().next();
+        Assert.assertSame(copy, daimon.getSource());
+
+        copy.setSourceName("changed");
+        copy.getKeyfile()[0] = 0;
+        daimon.setTableQualifier("changed");
+        Source other = snapshot.toSource();
+        Assert.assertEquals("source 1", other.getSourceName());
+        Assert.assertEquals(1, other.getKeyfile()[0]);
+        Assert.assertEquals("results_1", other.getTableQualifier(SourceDaimon.DaimonType.Results));
+        Assert.assertEquals("results_1", snapshot.getTableQualifierOrNull(SourceDaimon.DaimonType.Results));
+    }
+
+    @Test
+    public void sourcesAreSortedByDaimonPriority() {
+
+        SourceRegistry registry = new SourceRegistry(Arrays.asList(source(1, "A", 0), source(2, "B", 2), source(3, "C", -1)), 0);
+
+        List<SourceSnapshot> sources = registry.findAllSortedByDaimonPriority(SourceDaimon.DaimonType.Results);
+        Assert.assertEquals(2, sources.size());
+        Assert.assertEquals("B", sources.get(0).getSourceKey());
+        Assert.assertEquals("A", sources.get(1).getSourceKey());
+        Assert.assertTrue(registry.findAllSortedByDaimonPriority(SourceDaimon.DaimonType.Vocabulary).isEmpty());
+    }
+
+    @Test
+    public void registryIsStaleAfterChange() {
+
+        SourceRegistry registry = new SourceRegistry(new ArrayList<>(), 5);
+
+        Assert.assertFalse(registry.isStale(5, 60000));
+        Assert.assertTrue(registry.isStale(6, 60000));
+        Assert.assertTrue(registry.isStale(5, -1));
+    }
+
+    private Source source(int id, String key, int priority) {
+
+        Source source = new Source();
+        source.setSourceId(id);
+        source.setSourceKey(key);
+        source.setSourceName("source " + id);
+        source.setKeyfile(new byte[]{1, 2, 3});
+        SourceDaimon daimon = new SourceDaimon(source);
+        daimon.setDaimonType(SourceDaimon.DaimonType.Results);
+        daimon.setTableQualifier("results_" + id);
+        daimon.setPriority(priority);
+        source.setDaimons(new ArrayList<>(Arrays.asList(daimon)));
+        return source;
+    }
+}
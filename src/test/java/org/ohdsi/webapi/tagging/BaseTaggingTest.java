@@ -173,6 +173,27 @@ public abstract class BaseTaggingTest<T extends CommonEntityExtDTO, ID extends N
         assertEquals(dtos.size(), 1);
     }
 
+    @Test
+    public void tagCountFollowsAssignments() {
+        assignTags(getId(initialDTO), this.tag1, this.tag2);
+        assignTags(getId(initialDTO), this.tag1);
+
+        assertEquals(1, tagRepository.findOne(this.tag1.getId()).getCount());
+        assertEquals(1, tagRepository.findOne(this.tag2.getId()).getCount());
+        assertEquals(0, tagRepository.findOne(this.tag3.getId()).getCount());
+    }
+
+    @Test
+    public void savingTagKeepsCount() {
+        Tag stale = tagRepository.findOne(this.tag1.getId());
+        assignTags(getId(initialDTO), this.tag1);
+
+        stale.setName("renamed tag");
+        tagRepository.save(stale);
+
+        assertEquals(1, tagRepository.findOne(this.tag1.getId()).getCount());
+    }
+
     protected Tag getTag(boolean isProtected) {
         return tagRepository.findAll().stream()
                 .filter(t -> t.isPermissionProtected() == isProtected)
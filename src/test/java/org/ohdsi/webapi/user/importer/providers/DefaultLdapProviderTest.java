@@ -0,0 +1,147 @@
+package org.ohdsi.webapi.user.importer.providers;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.InMemoryListenerConfig;
+import com.unboundid.ldap.listener.interceptor.InMemoryInterceptedSimpleBindRequest;
+import com.unboundid.ldap.listener.interceptor.InMemoryOperationInterceptor;
+import com.unboundid.ldap.sdk.Modification;
+import com.unboundid.ldap.sdk.ModificationType;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ohdsi.webapi.user.importer.model.LdapUser;
+import org.ohdsi.webapi.user.importer.model.LdapUserPages;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DefaultLdapProviderTest {
+
+  private static final String BASE_DN = "dc=example,dc=org";
+  private static final String ADMIN_DN = "cn=admin," + BASE_DN;
+  private static final String ADMIN_PASSWORD = "secret";
+  private static final int USER_COUNT = 1200;
+
+  private final AtomicInteger binds = new AtomicInteger();
+  private InMemoryDirectoryServer server;
+  private DefaultLdapProvider provider;
+
+  @Before
+  public void setUp() throws Exception {
+
+    InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig(BASE_DN);
+    config.addAdditionalBindCredentials(ADMIN_DN, ADMIN_PASSWORD);
+    config.setListenerConfigs(InMemoryListenerConfig.createLDAPConfig("default", 0));
+    config.addInMemoryOperationInterceptor(new InMemoryOperationInterceptor() {
+      @Override
+      public void processSimpleBindRequest(InMemoryInterceptedSimpleBindRequest request) {
+        binds.incrementAndGet();
+      }
+    });
+    server = new InMemoryDirectoryServer(config);
+    server.startListening();
+
+    server.add("dn: " + BASE_DN, "objectClass: top", "objectClass: domain", "dc: example");
+    server.add("dn: ou=people," + BASE_DN, "objectClass: top", "objectClass: organizationalUnit", "ou: people");
+    for (int i = 0; i < USER_COUNT; i++) {
+      server.add("dn: uid=user" + i + ",ou=people," + BASE_DN, "objectClass: top", "objectClass: person",
+              "objectClass: organizationalPerson", "objectClass: inetOrgPerson",
+              "uid: user" + i, "cn: User " + i, "sn: " + i);
+    }
+
+    provider = new DefaultLdapProvider();
+    ReflectionTestUtils.setField(provider, "ldapUrl", "ldap://localhost:" + server.getListenPort());
+    ReflectionTestUtils.setField(provider, "baseDn", BASE_DN);
+    ReflectionTestUtils.setField(provider, "systemUsername", ADMIN_DN);
+    ReflectionTestUtils.setField(provider, "systemPassword", ADMIN_PASSWORD);
+    ReflectionTestUtils.setField(provider, "ldapIgnorePartialResultException", false);
+    ReflectionTestUtils.setField(provider, "loginAttr", "uid");
+    ReflectionTestUtils.setField(provider, "usernameAttr", "cn");
+    ReflectionTestUtils.invokeMethod(provider, "init");
+  }
+
+  @After
+  public void tearDown() {
+
+    server.shutDown(true);
+  }
+
+  @Test
+  public void usersAreReadPageByPage() {
+
+    List<Integer> pageSizes = new ArrayList<>();
+    provider.findUsers(null, page -> pageSizes.add(page.size()));
+
+    Assert.assertEquals(3, pageSizes.size());
+    Assert.assertEquals(USER_COUNT, pageSizes.stream().mapToInt(Integer::intValue).sum());
+    Assert.assertTrue(pageSizes.stream().allMatch(size -> size <= AbstractLdapProvider.PAGE_SIZE));
+  }
+
+  @Test
+  public void userPagesAreReadWhileIterated() {
+
+    LdapUserPages pages = provider.findUserPages(null);
+    Assert.assertTrue(pages.hasNext());
+    Assert.assertTrue(pages.hasNext());
+    List<Integer> pageSizes = new ArrayList<>();
+    while (pages.hasNext()) {
+      pageSizes.add(pages.next().size());
+    }
+
+    Assert.assertEquals(3, pageSizes.size());
+    Assert.assertEquals(USER_COUNT, pageSizes.stream().mapToInt(Integer::intValue).sum());
+  }
+
+  @Test
+  public void allPagesAreReadThroughOneConnection() {
+
+    binds.set(0);
+    int pageCount = 0;
+    try (LdapUserPages pages = provider.findUserPages(null)) {
+      while (pages.hasNext()) {
+        pages.next();
+        pageCount++;
+      }
+    }
+
+    Assert.assertEquals(3, pageCount);
+    Assert.assertEquals(1, binds.get());
+  }
+
+  @Test
+  public void incrementalSearchReturnsChangedUsers() throws Exception {
+
+    List<LdapUser> users = provider.findUsers();
+    Assert.assertEquals(USER_COUNT, users.size());
+    String changeMarker = users.stream()
+            .map(LdapUser::getChangeMarker)
+            .filter(Objects::nonNull)
+            .max(provider.getChangeMarkerComparator())
+            .orElseThrow(IllegalStateException::new);
+
+    Thread.sleep(50);
+    server.modify("uid=user5,ou=people," + BASE_DN, new Modification(ModificationType.REPLACE, "cn", "Renamed"));
+
+    List<LdapUser> changed = new ArrayList<>();
+    provider.findUsers(changeMarker, changed::addAll);
+
+    Optional<LdapUser> renamed = changed.stream().filter(u -> "user5".equals(u.getLogin())).findFirst();
+    Assert.assertTrue(renamed.isPresent());
+    Assert.assertEquals("Renamed", renamed.get().getDisplayName());
+    Assert.assertTrue(changed.size() < USER_COUNT);
+  }
+
+  @Test
+  public void generalizedTimeWithAndWithoutFractionIsComparable() {
+
+    Assert.assertTrue(provider.getChangeMarkerComparator().compare("20240101120000Z", "20240101120000.123Z") < 0);
+    Assert.assertTrue(provider.getChangeMarkerComparator().compare("20240101120001Z", "20240101120000.999Z") > 0);
+    Assert.assertEquals(0, provider.getChangeMarkerComparator().compare("20240101120000.5Z", "20240101120000.500Z"));
+  }
+}
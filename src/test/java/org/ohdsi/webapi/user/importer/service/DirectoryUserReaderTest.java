@@ -0,0 +1,196 @@
+package org.ohdsi.webapi.user.importer.service;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ohdsi.webapi.Constants;
+import org.ohdsi.webapi.user.importer.model.AtlasUserRoles;
+import org.ohdsi.webapi.user.importer.model.LdapProviderType;
+import org.ohdsi.webapi.user.importer.model.LdapUser;
+import org.ohdsi.webapi.user.importer.model.LdapUserPages;
+import org.ohdsi.webapi.user.importer.model.RoleGroupMapping;
+import org.ohdsi.webapi.user.importer.model.UserImportJob;
+import org.ohdsi.webapi.user.importer.model.UserSearchPages;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DirectoryUserReaderTest {
+
+  private static final long USER_IMPORT_ID = 5L;
+
+  private UserImportService userImportService;
+  private UserImportJob userImportJob;
+  private DirectoryUserReader reader;
+
+  @Before
+  public void setUp() {
+
+    userImportService = mock(UserImportService.class);
+    userImportJob = new UserImportJob();
+    userImportJob.setProviderType(LdapProviderType.LDAP);
+    userImportJob.setRoleGroupMapping(new ArrayList<>());
+    when(userImportService.getImportUserJob(USER_IMPORT_ID)).thenReturn(userImportJob);
+    reader = new DirectoryUserReader(new TransactionTemplate(mock(PlatformTransactionManager.class)), userImportService);
+  }
+
+  @Test
+  public void usersOfAllPagesAreReadAndPagesAreClosed() {
+
+    TestPages pages = pages(users("a", "b"), Collections.emptyList(), users("c"));
+    when(userImportService.findUserPages(eq(LdapProviderType.LDAP), any(RoleGroupMapping.class), isNull(String.class)))
+            .thenReturn(searchPages(pages));
+
+    StepExecution stepExecution = stepExecution();
+    reader.beforeStep(stepExecution);
+    reader.open(new ExecutionContext());
+    Assert.assertEquals(0, pages.read);
+
+    List<String> logins = new ArrayList<>();
+    AtlasUserRoles user;
+    while ((user = reader.read()) != null) {
+      logins.add(user.getLogin());
+    }
+    reader.close();
+
+    Assert.assertEquals(Arrays.asList("a", "b", "c"), logins);
+    Assert.assertEquals(3, pages.read);
+    Assert.assertTrue(pages.closed);
+  }
+
+  @Test
+  public void pagesAreClosedWhenStepStopsEarly() {
+
+    TestPages pages = pages(users("a"), users("b"));
+    when(userImportService.findUserPages(eq(LdapProviderType.LDAP), any(RoleGroupMapping.class), isNull(String.class)))
+            .thenReturn(searchPages(pages));
+
+    reader.beforeStep(stepExecution());
+    reader.open(new ExecutionContext());
+    reader.read();
+    reader.close();
+
+    Assert.assertEquals(1, pages.read);
+    Assert.assertTrue(pages.closed);
+  }
+
+  @Test
+  public void changeMarkerIsSavedWhenStepCompletes() {
+
+    userImportJob.setIncremental(true);
+    userImportJob.setChangeMarker("10");
+    when(userImportService.findUserPages(eq(LdapProviderType.LDAP), any(RoleGroupMapping.class), eq("10")))
+            .thenReturn(searchPages(pages(users("a", "b"))));
+
+    StepExecution stepExecution = stepExecution();
+    reader.beforeStep(stepExecution);
+    while (reader.read() != null) {
+    }
+    stepExecution.setStatus(BatchStatus.COMPLETED);
+    reader.afterStep(stepExecution);
+
+    verify(userImportService).saveChangeMarker(USER_IMPORT_ID, "12");
+  }
+
+  @Test
+  public void changeMarkerIsKeptWhenStepFails() {
+
+    userImportJob.setIncremental(true);
+    userImportJob.setChangeMarker("10");
+    when(userImportService.findUserPages(eq(LdapProviderType.LDAP), any(RoleGroupMapping.class), eq("10")))
+            .thenReturn(searchPages(pages(users("a", "b"))));
+
+    StepExecution stepExecution = stepExecution();
+    reader.beforeStep(stepExecution);
+    reader.read();
+    stepExecution.setStatus(BatchStatus.FAILED);
+    reader.afterStep(stepExecution);
+
+    verify(userImportService, never()).saveChangeMarker(any(Long.class), anyString());
+  }
+
+  private StepExecution stepExecution() {
+
+    JobExecution jobExecution = new JobExecution(1L, new JobParametersBuilder()
+            .addString(Constants.Params.USER_IMPORT_ID, String.valueOf(USER_IMPORT_ID))
+            .toJobParameters());
+    return new StepExecution("importUsers", jobExecution);
+  }
+
+  private UserSearchPages searchPages(TestPages pages) {
+
+    return new UserSearchPages(pages, page -> page.stream().map(ldapUser -> {
+      AtlasUserRoles user = new AtlasUserRoles();
+      user.setLogin(ldapUser.getLogin());
+      return user;
+    }).collect(Collectors.toList()), Comparator.naturalOrder());
+  }
+
+  private List<LdapUser> users(String... logins) {
+
+    return Arrays.stream(logins).map(login -> {
+      LdapUser user = new LdapUser();
+      user.setLogin(login);
+      user.setChangeMarker(String.valueOf(10 + login.charAt(0) - 'a' + 1));
+      return user;
+    }).collect(Collectors.toList());
+  }
+
+  @SafeVarargs
+  private final TestPages pages(List<LdapUser>... pages) {
+
+    return new TestPages(Arrays.asList(pages));
+  }
+
+  private static class TestPages implements LdapUserPages {
+
+    private final Iterator<List<LdapUser>> pages;
+    private int read;
+    private boolean closed;
+
+    TestPages(List<List<LdapUser>> pages) {
+
+      this.pages = pages.iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+
+      return !closed && pages.hasNext();
+    }
+
+    @Override
+    public List<LdapUser> next() {
+
+      read++;
+      return pages.next();
+    }
+
+    @Override
+    public void close() {
+
+      closed = true;
+    }
+  }
+}
@@ -0,0 +1,236 @@
+package org.ohdsi.webapi.user.importer.service;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ohdsi.webapi.Constants;
+import org.ohdsi.webapi.shiro.Entities.RoleEntity;
+import org.ohdsi.webapi.shiro.Entities.UserEntity;
+import org.ohdsi.webapi.shiro.Entities.UserOrigin;
+import org.ohdsi.webapi.shiro.Entities.UserRepository;
+import org.ohdsi.webapi.shiro.Entities.UserRoleEntity;
+import org.ohdsi.webapi.shiro.PermissionManager;
+import org.ohdsi.webapi.user.importer.model.AtlasUserRoles;
+import org.ohdsi.webapi.user.importer.model.LdapProviderType;
+import org.ohdsi.webapi.user.importer.model.LdapUser;
+import org.ohdsi.webapi.user.importer.model.LdapUserPages;
+import org.ohdsi.webapi.user.importer.model.RoleGroupMapping;
+import org.ohdsi.webapi.user.importer.model.UserImportJob;
+import org.ohdsi.webapi.user.importer.model.UserImportResult;
+import org.ohdsi.webapi.user.importer.model.UserSearchPages;
+import org.ohdsi.webapi.user.importer.repository.RoleGroupRepository;
+import org.ohdsi.webapi.user.importer.repository.UserImportJobRepository;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anySetOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class UserImportWriterTest {
+
+  private static final long USER_IMPORT_ID = 5L;
+  private static final int CHUNK_SIZE = 2;
+
+  private final TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+  private UserImportService userImportService;
+  private UserImportJob userImportJob;
+
+  @Before
+  public void setUp() {
+
+    userImportService = mock(UserImportService.class);
+    userImportJob = new UserImportJob();
+    userImportJob.setProviderType(LdapProviderType.LDAP);
+    userImportJob.setRoleGroupMapping(new ArrayList<>());
+    when(userImportService.getImportUserJob(USER_IMPORT_ID)).thenReturn(userImportJob);
+    when(userImportService.importUsers(anyListOf(AtlasUserRoles.class), eq(LdapProviderType.LDAP), anyBoolean(), eq(true)))
+            .thenReturn(new UserImportResult(1, 0), new UserImportResult(0, 2));
+  }
+
+  @Test
+  public void missingUsersAreRemovedWithLoginsOfAllChunks() {
+
+    UserImportWriter writer = new UserImportWriter(transactionTemplate, userImportService);
+    StepExecution stepExecution = stepExecution();
+    writer.beforeStep(stepExecution);
+    writer.write(users("UserA", "userB"));
+    writer.write(users("userC"));
+    stepExecution.setStatus(BatchStatus.COMPLETED);
+    ExitStatus exitStatus = writer.afterStep(stepExecution);
+
+    verify(userImportService, times(2)).importUsers(anyListOf(AtlasUserRoles.class), eq(LdapProviderType.LDAP), eq(false), eq(true));
+    verify(userImportService).removeMissingUsers(new HashSet<>(Arrays.asList("usera", "userb", "userc")), LdapProviderType.LDAP);
+    Assert.assertEquals(ExitStatus.COMPLETED.getExitCode(), exitStatus.getExitCode());
+    Assert.assertEquals("Created 1 new users, updated 2 users", exitStatus.getExitDescription());
+  }
+
+  @Test
+  public void incrementalImportKeepsMissingUsers() {
+
+    userImportJob.setIncremental(true);
+    UserImportWriter writer = new UserImportWriter(transactionTemplate, userImportService);
+    StepExecution stepExecution = stepExecution();
+    writer.beforeStep(stepExecution);
+    writer.write(users("userA"));
+    stepExecution.setStatus(BatchStatus.COMPLETED);
+    writer.afterStep(stepExecution);
+
+    verify(userImportService, never()).removeMissingUsers(anySetOf(String.class), any(LdapProviderType.class));
+  }
+
+  @Test
+  public void failedImportKeepsMissingUsers() {
+
+    UserImportWriter writer = new UserImportWriter(transactionTemplate, userImportService);
+    StepExecution stepExecution = stepExecution();
+    writer.beforeStep(stepExecution);
+    writer.write(users("userA"));
+    stepExecution.setStatus(BatchStatus.FAILED);
+
+    Assert.assertNull(writer.afterStep(stepExecution));
+    verify(userImportService, never()).removeMissingUsers(anySetOf(String.class), any(LdapProviderType.class));
+  }
+
+  @Test
+  public void chunkFlowRemovesOnlyUsersMissingInDirectory() {
+
+    UserRepository userRepository = mock(UserRepository.class);
+    PermissionManager permissionManager = mock(PermissionManager.class);
+    UserImportServiceImpl service = spy(new UserImportServiceImpl(null, null, userRepository,
+            mock(UserImportJobRepository.class), permissionManager, mock(RoleGroupRepository.class)));
+    doReturn(userImportJob).when(service).getImportUserJob(USER_IMPORT_ID);
+    doReturn(new UserImportResult()).when(service)
+            .importUsers(anyListOf(AtlasUserRoles.class), eq(LdapProviderType.LDAP), anyBoolean(), eq(true));
+    doReturn(searchPages(users("usera", "userb"), users("userc", "userd"), users("usere")))
+            .when(service).findUserPages(eq(LdapProviderType.LDAP), any(RoleGroupMapping.class), isNull(String.class));
+    when(userRepository.findByOrigin(UserOrigin.LDAP)).thenReturn(Arrays.asList(
+            user("userc", "researcher"), user("gone", "researcher", "admin")));
+
+    DirectoryUserReader reader = new DirectoryUserReader(transactionTemplate, service);
+    UserImportWriter writer = new UserImportWriter(transactionTemplate, service);
+    StepExecution stepExecution = stepExecution();
+    reader.beforeStep(stepExecution);
+    writer.beforeStep(stepExecution);
+    reader.open(new ExecutionContext());
+    int chunks = 0;
+    List<AtlasUserRoles> chunk;
+    while (!(chunk = readChunk(reader)).isEmpty()) {
+      writer.write(chunk);
+      chunks++;
+    }
+    reader.close();
+    stepExecution.setStatus(BatchStatus.COMPLETED);
+    reader.afterStep(stepExecution);
+    writer.afterStep(stepExecution);
+
+    Assert.assertEquals(3, chunks);
+    verify(permissionManager).removeUserFromRole("researcher", "gone", UserOrigin.LDAP);
+    verify(permissionManager).removeUserFromRole("admin", "gone", UserOrigin.LDAP);
+    verify(permissionManager, never()).removeUserFromRole("gone", "gone", UserOrigin.LDAP);
+    verify(permissionManager, never()).removeUserFromRole(anyString(), eq("userc"), any(UserOrigin.class));
+  }
+
+  private List<AtlasUserRoles> readChunk(DirectoryUserReader reader) {
+
+    List<AtlasUserRoles> chunk = new ArrayList<>();
+    AtlasUserRoles user;
+    while (chunk.size() < CHUNK_SIZE && (user = reader.read()) != null) {
+      chunk.add(user);
+    }
+    return chunk;
+  }
+
+  private StepExecution stepExecution() {
+
+    JobExecution jobExecution = new JobExecution(1L, new JobParametersBuilder()
+            .addString(Constants.Params.USER_IMPORT_ID, String.valueOf(USER_IMPORT_ID))
+            .toJobParameters());
+    return new StepExecution("importUsers", jobExecution);
+  }
+
+  private List<AtlasUserRoles> users(String... logins) {
+
+    return Arrays.stream(logins).map(login -> {
+      AtlasUserRoles user = new AtlasUserRoles();
+      user.setLogin(login);
+      user.setRoles(Collections.emptyList());
+      return user;
+    }).collect(Collectors.toList());
+  }
+
+  @SafeVarargs
+  private final UserSearchPages searchPages(List<AtlasUserRoles>... pages) {
+
+    Iterator<List<AtlasUserRoles>> iterator = Arrays.asList(pages).iterator();
+    LdapUserPages ldapPages = new LdapUserPages() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public List<LdapUser> next() {
+        return iterator.next().stream().map(user -> {
+          LdapUser ldapUser = new LdapUser();
+          ldapUser.setLogin(user.getLogin());
+          return ldapUser;
+        }).collect(Collectors.toList());
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+    return new UserSearchPages(ldapPages, page -> users(page.stream().map(LdapUser::getLogin).toArray(String[]::new)),
+            Comparator.naturalOrder());
+  }
+
+  private UserEntity user(String login, String... roles) {
+
+    UserEntity user = new UserEntity();
+    user.setLogin(login);
+    Set<UserRoleEntity> userRoles = new HashSet<>();
+    // every user has a personal role named by the login, it is never removed
+    userRoles.add(userRole(login));
+    Arrays.stream(roles).map(this::userRole).forEach(userRoles::add);
+    user.setUserRoles(userRoles);
+    return user;
+  }
+
+  private UserRoleEntity userRole(String name) {
+
+    RoleEntity role = new RoleEntity();
+    role.setName(name);
+    UserRoleEntity userRole = new UserRoleEntity();
+    userRole.setRole(role);
+    return userRole;
+  }
+}
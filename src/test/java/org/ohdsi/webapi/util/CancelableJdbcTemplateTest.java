@@ -0,0 +1,122 @@
+package org.ohdsi.webapi.util;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ohdsi.webapi.AbstractDatabaseTest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CancelableJdbcTemplateTest extends AbstractDatabaseTest {
+
+  private static final Logger log = LoggerFactory.getLogger(CancelableJdbcTemplateTest.class);
+
+  private static final String TABLE_NAME = "public.batch_update_test";
+  private static final String INSERT_SQL = "INSERT INTO " + TABLE_NAME + " (generation_id, code, name, is_combo) VALUES (?, ?, ?, ?)";
+  private static final int ROW_COUNT = 5000;
+
+  private CancelableJdbcTemplate cancelableJdbcTemplate;
+
+  @Before
+  public void setUp() {
+
+    cancelableJdbcTemplate = new CancelableJdbcTemplate(getDataSource());
+    jdbcTemplate.execute("CREATE TABLE " + TABLE_NAME + " (generation_id BIGINT, code BIGINT, name VARCHAR(2000), is_combo INT)");
+  }
+
+  @After
+  public void tearDown() {
+
+    jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE_NAME);
+  }
+
+  @Test
+  public void batchUpdateInsertsAllRows() {
+
+    List<Object[]> rows = buildRows();
+
+    long start = System.nanoTime();
+    int[] updated = cancelableJdbcTemplate.batchUpdate(new StatementCancel(), INSERT_SQL, rows, 1000);
+    long batchedMs = (System.nanoTime() - start) / 1_000_000;
+
+    Assert.assertEquals(ROW_COUNT, updated.length);
+    Assert.assertTrue(Arrays.stream(updated).allMatch(count -> count == 1 || count == Statement.SUCCESS_NO_INFO));
+    Assert.assertEquals(Integer.valueOf(ROW_COUNT), jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + TABLE_NAME, Integer.class));
+
+    jdbcTemplate.execute("TRUNCATE " + TABLE_NAME);
+
+    List<PreparedStatementCreator> creators = rows.stream()
+            .map(args -> (PreparedStatementCreator) con -> {
+              PreparedStatement ps = con.prepareStatement(INSERT_SQL);
+              new OrderedPreparedStatementSetter(Arrays.asList(args)).setValues(ps);
+              return ps;
+            })
+            .collect(Collectors.toList());
+    start = System.nanoTime();
+    cancelableJdbcTemplate.batchUpdate(new StatementCancel(), creators);
+    long singleMs = (System.nanoTime() - start) / 1_000_000;
+
+    log.info("Inserted {} rows: batched {} ms ({} rows/s), per statement {} ms ({} rows/s)",
+            ROW_COUNT, batchedMs, ROW_COUNT * 1000L / Math.max(batchedMs, 1), singleMs, ROW_COUNT * 1000L / Math.max(singleMs, 1));
+  }
+
+  @Test
+  public void batchUpdateHandlesPartialLastBatch() {
+
+    List<Object[]> rows = buildRows().subList(0, 2500);
+
+    int[] updated = cancelableJdbcTemplate.batchUpdate(new StatementCancel(), INSERT_SQL, rows, 1000);
+
+    Assert.assertEquals(2500, updated.length);
+    Assert.assertEquals(Integer.valueOf(2500), jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + TABLE_NAME, Integer.class));
+  }
+
+  @Test
+  public void batchUpdateSendsRowsInBatches() throws Exception {
+
+    DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+    when(metaData.supportsBatchUpdates()).thenReturn(true);
+    when(metaData.getURL()).thenReturn("jdbc:postgresql://localhost/test");
+    PreparedStatement ps = mock(PreparedStatement.class);
+    when(ps.executeBatch()).thenReturn(new int[1000], new int[1000], new int[500]);
+    Connection connection = mock(Connection.class);
+    when(connection.getMetaData()).thenReturn(metaData);
+    when(connection.prepareStatement(anyString())).thenReturn(ps);
+    DataSource dataSource = mock(DataSource.class);
+    when(dataSource.getConnection()).thenReturn(connection);
+
+    int[] updated = new CancelableJdbcTemplate(dataSource).batchUpdate(new StatementCancel(), INSERT_SQL, buildRows().subList(0, 2500), 1000);
+
+    Assert.assertEquals(2500, updated.length);
+    verify(connection, times(1)).prepareStatement(INSERT_SQL);
+    verify(ps, times(2500)).addBatch();
+    verify(ps, times(3)).executeBatch();
+    verify(ps, never()).executeUpdate();
+  }
+
+  private List<Object[]> buildRows() {
+
+    return IntStream.range(0, ROW_COUNT)
+            .mapToObj(i -> new Object[]{1L, (long) i, "Event cohort " + i, i % 2})
+            .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,93 @@
+package org.ohdsi.webapi.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ohdsi.circe.vocabulary.ConceptSetExpression;
+import org.ohdsi.vocabulary.Concept;
+import org.ohdsi.webapi.conceptset.ConceptSetExport;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+public class ExportUtilTest {
+
+    @Test
+    public void conceptSetsAreWrittenToZipEntries() throws IOException {
+
+        List<ConceptSetExport> exports = Arrays.asList(export(1, "first", 10L), export(2, "second", 20L));
+        List<Integer> lookups = new ArrayList<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ExportUtil.writeConceptSetExportToCSVAndZip(exports,
+                cs -> {
+                    lookups.add(cs.ConceptSetId);
+                    return Collections.singletonList(concept(cs.ConceptSetId * 100L));
+                },
+                cs -> Collections.emptyList(),
+                out);
+
+        Map<String, List<String>> entries = readZip(out.toByteArray());
+        Assert.assertEquals(Arrays.asList("conceptSetExpression.csv", "includedConcepts.csv", "mappedConcepts.csv"), new ArrayList<>(entries.keySet()));
+        Assert.assertEquals(3, entries.get("conceptSetExpression.csv").size());
+        Assert.assertTrue(entries.get("conceptSetExpression.csv").get(2).startsWith("\"2\",\"second\",\"20\""));
+        Assert.assertEquals(Arrays.asList(
+                "\"Concept Set ID\",\"Name\",\"Concept ID\",\"Concept Code\",\"Concept Name\",\"Concept Class ID\",\"Domain\",\"Vocabulary\"",
+                "\"1\",\"first\",\"100\",\"C100\",\"Concept 100\",\"Clinical Finding\",\"Condition\",\"SNOMED\"",
+                "\"2\",\"second\",\"200\",\"C200\",\"Concept 200\",\"Clinical Finding\",\"Condition\",\"SNOMED\""
+        ), entries.get("includedConcepts.csv"));
+        Assert.assertEquals(1, entries.get("mappedConcepts.csv").size());
+        // each concept set is resolved once, in order
+        Assert.assertEquals(Arrays.asList(1, 2), lookups);
+    }
+
+    private ConceptSetExport export(int id, String name, long conceptId) {
+
+        ConceptSetExpression expression = new ConceptSetExpression();
+        expression.items = new ConceptSetExpression.ConceptSetItem[1];
+        expression.items[0] = new ConceptSetExpression.ConceptSetItem();
+        expression.items[0].concept = concept(conceptId);
+        ConceptSetExport export = new ConceptSetExport();
+        export.ConceptSetId = id;
+        export.ConceptSetName = name;
+        export.csExpression = expression;
+        return export;
+    }
+
+    private Concept concept(long id) {
+
+        Concept concept = new Concept();
+        concept.conceptId = id;
+        concept.conceptCode = "C" + id;
+        concept.conceptName = "Concept " + id;
+        concept.conceptClassId = "Clinical Finding";
+        concept.domainId = "Condition";
+        concept.vocabularyId = "SNOMED";
+        return concept;
+    }
+
+    private Map<String, List<String>> readZip(byte[] bytes) throws IOException {
+
+        Map<String, List<String>> entries = new LinkedHashMap<>();
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(zis, StandardCharsets.UTF_8));
+                entries.put(entry.getName(), reader.lines().collect(Collectors.toList()));
+            }
+        }
+        return entries;
+    }
+}
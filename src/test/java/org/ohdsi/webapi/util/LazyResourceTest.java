@@ -0,0 +1,50 @@
+package org.ohdsi.webapi.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LazyResourceTest {
+
+    @Test
+    public void resourceIsLoadedOnceOnFirstUse() {
+
+        AtomicInteger loads = new AtomicInteger();
+        LazyResource<String> resource = LazyResource.of("test", () -> "value " + loads.incrementAndGet());
+
+        Assert.assertFalse(resource.isLoaded());
+        Assert.assertEquals(0, loads.get());
+        Assert.assertEquals("value 1", resource.get());
+        Assert.assertEquals("value 1", resource.get());
+        Assert.assertTrue(resource.isLoaded());
+        Assert.assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void resourceIsRegisteredForPreloading() {
+
+        LazyResource<String> resource = LazyResource.of("registered", () -> "value");
+
+        Assert.assertTrue(LazyResource.getRegistered().contains(resource));
+    }
+
+    @Test
+    public void failedLoadIsRetried() {
+
+        AtomicInteger loads = new AtomicInteger();
+        LazyResource<String> resource = LazyResource.of("failing", () -> {
+            if (loads.incrementAndGet() == 1) {
+                throw new IllegalStateException("not available");
+            }
+            return "value";
+        });
+
+        try {
+            resource.get();
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+        }
+        Assert.assertEquals("value", resource.get());
+    }
+}
@@ -0,0 +1,96 @@
+package org.ohdsi.webapi.util;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ohdsi.webapi.AbstractDatabaseTest;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MetadataBatchWriterTest extends AbstractDatabaseTest {
+
+  private static final String TABLE_NAME = "public.metadata_writer_test";
+  private static final String INSERT_SQL = "INSERT INTO @schema.metadata_writer_test (analysis_id, strata_sequence, name, description) "
+          + "VALUES (@analysis_id, @strata_sequence, @name, @description)";
+  private static final String[] PARAMS = {"analysis_id", "strata_sequence", "name", "description"};
+
+  @Before
+  public void setUp() {
+
+    jdbcTemplate.execute("CREATE TABLE " + TABLE_NAME + " (analysis_id INT, strata_sequence INT, name VARCHAR(255), description VARCHAR(1000))");
+  }
+
+  @After
+  public void tearDown() {
+
+    jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE_NAME);
+  }
+
+  @Test
+  public void writeInsertsAllRowsIncludingNulls() {
+
+    MetadataBatchWriter writer = new MetadataBatchWriter(null, INSERT_SQL, new String[]{"schema"}, new String[]{"public"}, PARAMS, null);
+    List<Object[]> rows = IntStream.range(0, 25)
+            .mapToObj(i -> new Object[]{7, i, "Strata " + i, i % 2 == 0 ? null : "Description " + i})
+            .collect(Collectors.toList());
+
+    int[] updated = writer.write(jdbcTemplate, rows);
+
+    Assert.assertEquals(25, updated.length);
+    List<Map<String, Object>> saved = jdbcTemplate.queryForList("SELECT * FROM " + TABLE_NAME + " ORDER BY strata_sequence");
+    Assert.assertEquals(25, saved.size());
+    Assert.assertEquals("Strata 3", saved.get(3).get("name"));
+    Assert.assertEquals("Description 3", saved.get(3).get("description"));
+    Assert.assertNull(saved.get(4).get("description"));
+  }
+
+  @Test
+  public void writeFollowsParameterOrderOfStatement() {
+
+    String reordered = "INSERT INTO @schema.metadata_writer_test (name, description, analysis_id, strata_sequence) "
+            + "VALUES (@name, @description, @analysis_id, @strata_sequence)";
+    MetadataBatchWriter writer = new MetadataBatchWriter(null, reordered, new String[]{"schema"}, new String[]{"public"}, PARAMS, null);
+
+    writer.write(jdbcTemplate, Arrays.<Object[]>asList(new Object[]{1, 0, "First", "Rule"}));
+
+    Map<String, Object> saved = jdbcTemplate.queryForMap("SELECT * FROM " + TABLE_NAME);
+    Assert.assertEquals(1, saved.get("analysis_id"));
+    Assert.assertEquals(0, saved.get("strata_sequence"));
+    Assert.assertEquals("First", saved.get("name"));
+    Assert.assertEquals("Rule", saved.get("description"));
+  }
+
+  @Test
+  public void writeWithoutRowsDoesNothing() {
+
+    MetadataBatchWriter writer = new MetadataBatchWriter(null, INSERT_SQL, new String[]{"schema"}, new String[]{"public"}, PARAMS, null);
+
+    Assert.assertEquals(0, writer.write(jdbcTemplate, Collections.<Object[]>emptyList()).length);
+  }
+
+  @Test
+  public void writeUsesBatchSizeOfTemplate() {
+
+    CancelableJdbcTemplate template = mock(CancelableJdbcTemplate.class);
+    when(template.getBatchSize()).thenReturn(250);
+    MetadataBatchWriter writer = new MetadataBatchWriter(null, INSERT_SQL, new String[]{"schema"}, new String[]{"public"}, PARAMS, null);
+
+    writer.write(template, Arrays.<Object[]>asList(new Object[]{1, 0, "First", "Rule"}));
+
+    verify(template).batchUpdate(any(StatementCancel.class), anyString(), anyListOf(Object[].class), eq(250));
+  }
+}
@@ -0,0 +1,48 @@
+package org.ohdsi.webapi.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.StatementCallback;
+
+import java.util.Arrays;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class TempTableCleanupManagerTest {
+
+    @Test
+    public void allTablesAreDroppedWhenOneFails() {
+
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.execute(any(StatementCallback.class)))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(false);
+        TempTableCleanupManager cleanupManager = new TempTableCleanupManager(jdbcTemplate, "sql server", "abcd1234", "temp");
+
+        try {
+            cleanupManager.dropTables(Arrays.asList("temp.abcd1234codesets", "temp.abcd1234events", "temp.abcd1234cohort_rows"));
+            Assert.fail();
+        } catch (QueryTimeoutException expected) {
+        }
+        verify(jdbcTemplate, times(3)).execute(any(StatementCallback.class));
+    }
+
+    @Test
+    public void notApplicableDialectIsSkipped() {
+
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        TempTableCleanupManager cleanupManager = new TempTableCleanupManager(jdbcTemplate, "postgresql", "abcd1234", "temp");
+
+        cleanupManager.cleanupTempTables();
+
+        Assert.assertFalse(cleanupManager.isApplicable());
+        verifyZeroInteractions(jdbcTemplate);
+    }
+}
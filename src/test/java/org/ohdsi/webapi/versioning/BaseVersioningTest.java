@@ -13,6 +13,7 @@ import org.ohdsi.webapi.versioning.dto.VersionFullDTO;
 import org.ohdsi.webapi.versioning.dto.VersionUpdateDTO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.convert.ConversionService;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.ResourceUtils;
 
 import java.io.File;
@@ -20,7 +21,9 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -35,6 +38,9 @@ public abstract class BaseVersioningTest<S extends CommonEntityExtDTO,
     @Autowired
     protected ConversionService conversionService;
 
+    @Autowired
+    protected TransactionTemplate transactionTemplate;
+
     protected String getExpression(String path) throws IOException {
         File ple_spec = ResourceUtils.getFile(Objects.requireNonNull(this.getClass().getResource(path)));
         return FileUtils.readFileToString(ple_spec, StandardCharsets.UTF_8);
@@ -101,6 +107,27 @@ public abstract class BaseVersioningTest<S extends CommonEntityExtDTO,
         assertEquals(count, versions.size());
     }
 
+    @Test
+    public void createVersionAfterRollback() throws Exception {
+        S dto = getEntity(getId(initialDTO));
+        transactionTemplate.execute(status -> {
+            try {
+                updateEntity(dto);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            status.setRollbackOnly();
+            return null;
+        });
+        updateEntity(getEntity(getId(initialDTO)));
+
+        List<Integer> versions = getVersions(getId(dto)).stream()
+                .map(VersionDTO::getVersion)
+                .sorted()
+                .collect(Collectors.toList());
+        assertEquals(asList(1, 2), versions);
+    }
+
     @Test
     public void updateVersion() throws Exception {
         S dto = getEntity(getId(initialDTO));
@@ -0,0 +1,76 @@
+package org.ohdsi.webapi.versioning.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class JsonPatchTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void insertedItemProducesSingleAdd() throws Exception {
+        ArrayNode source = items(1000);
+        ArrayNode target = source.deepCopy();
+        target.insert(500, item(5000));
+
+        ArrayNode patch = JsonPatch.diff(source, target);
+
+        assertEquals(1, patch.size());
+        assertEquals("add", patch.get(0).get("op").asText());
+        assertEquals("/500", patch.get(0).get("path").asText());
+        assertEquals(target, JsonPatch.apply(source, patch));
+    }
+
+    @Test
+    public void changedAndRemovedItemsAreRestored() throws Exception {
+        ArrayNode source = items(100);
+        ArrayNode target = source.deepCopy();
+        ((ObjectNode) target.get(10)).put("isExcluded", true);
+        ((ObjectNode) target.get(20)).remove("includeMapped");
+        target.remove(50);
+        target.remove(50);
+
+        ArrayNode patch = JsonPatch.diff(source, target);
+
+        assertEquals(target, JsonPatch.apply(source, patch));
+    }
+
+    @Test
+    public void objectFieldsAndTypeChangesAreRestored() throws Exception {
+        JsonNode source = mapper.readTree("{\"name\":\"a/b~c\",\"rules\":[1,2,3],\"options\":{\"x\":1},\"removed\":true}");
+        JsonNode target = mapper.readTree("{\"name\":\"d\",\"rules\":{\"any\":[]},\"options\":{\"x\":1,\"y\":[null]},\"a/b~c\":2}");
+
+        assertEquals(target, JsonPatch.apply(source, JsonPatch.diff(source, target)));
+    }
+
+    @Test
+    public void rootReplaceAndEmptyPatch() throws Exception {
+        JsonNode source = mapper.readTree("[1,2]");
+        JsonNode target = mapper.readTree("\"text\"");
+
+        assertEquals(target, JsonPatch.apply(source, JsonPatch.diff(source, target)));
+        assertEquals(0, JsonPatch.diff(source, source.deepCopy()).size());
+    }
+
+    private ArrayNode items(int count) {
+        ArrayNode items = mapper.createArrayNode();
+        for (int i = 0; i < count; i++) {
+            items.add(item(i));
+        }
+        return items;
+    }
+
+    private ObjectNode item(int conceptId) {
+        ObjectNode item = mapper.createObjectNode();
+        item.putObject("concept").put("CONCEPT_ID", conceptId).put("CONCEPT_NAME", "Concept " + conceptId);
+        item.put("isExcluded", false);
+        item.put("includeDescendants", true);
+        item.put("includeMapped", false);
+        return item;
+    }
+}
@@ -0,0 +1,154 @@
+package org.ohdsi.webapi.versioning.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ohdsi.webapi.AbstractDatabaseTest;
+import org.ohdsi.webapi.reusable.ReusableService;
+import org.ohdsi.webapi.reusable.dto.ReusableDTO;
+import org.ohdsi.webapi.reusable.repository.ReusableRepository;
+import org.ohdsi.webapi.shiro.Entities.UserEntity;
+import org.ohdsi.webapi.shiro.Entities.UserRepository;
+import org.ohdsi.webapi.versioning.domain.ReusableVersion;
+import org.ohdsi.webapi.versioning.domain.VersionBase;
+import org.ohdsi.webapi.versioning.domain.VersionType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@TestPropertySource(properties = "versioning.snapshotInterval=3")
+public class VersionServiceTest extends AbstractDatabaseTest {
+    private static final int VERSION_COUNT = 7;
+
+    @Autowired
+    private VersionService<ReusableVersion> versionService;
+
+    @Autowired
+    private ReusableService reusableService;
+
+    @Autowired
+    private ReusableRepository reusableRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${datasource.ohdsi.schema}")
+    private String ohdsiSchema;
+
+    private ReusableDTO reusable;
+
+    @Before
+    public void createReusable() {
+        UserEntity user = new UserEntity();
+        user.setLogin("anonymous");
+        userRepository.save(user);
+
+        ReusableDTO dto = new ReusableDTO();
+        dto.setName("versioned");
+        dto.setData(payload(0));
+        reusable = reusableService.create(dto);
+    }
+
+    @After
+    public void clear() {
+        reusableRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void restoresSavedPayloadsAcrossSnapshots() {
+        List<String> saved = saveVersions(VERSION_COUNT, this::payload);
+        clearCache();
+
+        for (int version = 1; version <= VERSION_COUNT; version++) {
+            assertEquals(saved.get(version - 1), getAssetJson(version));
+        }
+        assertEquals(asList(2, 3, 5, 6), getDeltaVersions());
+    }
+
+    @Test
+    public void keepsPayloadsThatDoNotReserializeAsSnapshots() {
+        List<String> saved = saveVersions(VERSION_COUNT, i -> payload(i).replace(",", ", "));
+        clearCache();
+
+        for (int version = 1; version <= VERSION_COUNT; version++) {
+            assertEquals(saved.get(version - 1), getAssetJson(version));
+        }
+        assertTrue(getDeltaVersions().isEmpty());
+    }
+
+    @Test
+    public void deletingLastReferenceRemovesBase() {
+        saveVersions(VERSION_COUNT, this::payload);
+        int id = reusable.getId();
+
+        // version 3 is patched against version 2, so version 2 is only archived
+        versionService.delete(VersionType.REUSABLE, id, 2);
+        assertEquals(asList(1, 2, 3, 4, 5, 6, 7), getVersionNumbers());
+
+        versionService.delete(VersionType.REUSABLE, id, 3);
+        assertEquals(asList(1, 4, 5, 6, 7), getVersionNumbers());
+
+        // the latest version is only archived
+        versionService.delete(VersionType.REUSABLE, id, VERSION_COUNT);
+        assertEquals(asList(1, 4, 5, 6, 7), getVersionNumbers());
+    }
+
+    private List<String> saveVersions(int count, IntFunction<String> payload) {
+        List<String> saved = new ArrayList<>();
+        String data = reusable.getData();
+        for (int i = 1; i <= count; i++) {
+            saved.add(data);
+            data = payload.apply(i);
+            reusable.setData(data);
+            reusable = reusableService.update(reusable.getId(), reusable);
+        }
+        return saved;
+    }
+
+    private String getAssetJson(int version) {
+        return versionService.getById(VersionType.REUSABLE, reusable.getId(), version).getAssetJson();
+    }
+
+    private List<Integer> getDeltaVersions() {
+        return jdbcTemplate.queryForList(String.format("SELECT version FROM %s.reusable_version " +
+                "WHERE asset_id = ? AND base_version IS NOT NULL ORDER BY version", ohdsiSchema), Integer.class, reusable.getId());
+    }
+
+    private List<Integer> getVersionNumbers() {
+        return versionService.getVersions(VersionType.REUSABLE, reusable.getId()).stream()
+                .map(VersionBase::getVersion)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private void clearCache() {
+        Object target = AopTestUtils.getUltimateTargetObject(versionService);
+        ((Map<?, ?>) ReflectionTestUtils.getField(target, "assetJsonCache")).clear();
+    }
+
+    private String payload(int revision) {
+        StringBuilder items = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            if (i > 0) {
+                items.append(',');
+            }
+            items.append("{\"id\":").append(i)
+                    .append(",\"name\":\"item ").append(i == revision ? "changed" : String.valueOf(i))
+                    .append("\",\"weight\":1.50}");
+        }
+        return "{\"revision\":" + revision + ",\"items\":[" + items + "]}";
+    }
+}
@@ -0,0 +1,66 @@
+package org.ohdsi.webapi.vocabulary;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class VocabularyCacheTest {
+
+    private static final String SOURCE_KEY = "source";
+
+    private CacheManager cacheManager;
+    private VocabularyCache vocabularyCache;
+
+    @Before
+    public void before() {
+
+        cacheManager = new ConcurrentMapCacheManager(VocabularyCache.INFO, VocabularyCache.DOMAINS, VocabularyCache.VOCABULARIES);
+        vocabularyCache = new VocabularyCache(cacheManager);
+    }
+
+    @Test
+    public void metadataIsLoadedOncePerVersion() {
+
+        AtomicInteger loads = new AtomicInteger();
+
+        vocabularyCache.get(VocabularyCache.DOMAINS, SOURCE_KEY, "v1", loads::incrementAndGet);
+        Integer cached = vocabularyCache.get(VocabularyCache.DOMAINS, SOURCE_KEY, "v1", loads::incrementAndGet);
+        Integer reloaded = vocabularyCache.get(VocabularyCache.DOMAINS, SOURCE_KEY, "v2", loads::incrementAndGet);
+
+        Assert.assertEquals(Integer.valueOf(1), cached);
+        Assert.assertEquals(Integer.valueOf(2), reloaded);
+    }
+
+    @Test
+    public void previousVersionIsEvictedWhenVersionChanges() {
+
+        vocabularyCache.getInfo(SOURCE_KEY, () -> info("v1"));
+        vocabularyCache.get(VocabularyCache.DOMAINS, SOURCE_KEY, "v1", () -> "domains");
+        // the version has expired and is probed again
+        cacheManager.getCache(VocabularyCache.INFO).evict(SOURCE_KEY);
+
+        VocabularyInfo info = vocabularyCache.getInfo(SOURCE_KEY, () -> info("v2"));
+
+        Assert.assertEquals("v2", info.version);
+        Assert.assertNull(cacheManager.getCache(VocabularyCache.DOMAINS).get(SOURCE_KEY + "@v1"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void loaderErrorIsRethrown() {
+
+        vocabularyCache.getInfo(SOURCE_KEY, () -> {
+            throw new IllegalStateException("source is unavailable");
+        });
+    }
+
+    private VocabularyInfo info(String version) {
+
+        VocabularyInfo info = new VocabularyInfo();
+        info.version = version;
+        return info;
+    }
+}